@@ -40,6 +40,7 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsCacheStatistics;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 import org.opencms.util.CmsWaitHandle;
@@ -60,6 +61,8 @@ import org.apache.commons.logging.Log;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.Maps;
 
 /**
@@ -87,6 +90,12 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
 
     public static final String SITEMAP_MASTER_CONFIG = "sitemap_master_config";
 
+    /** The name of the statistics of the offline configuration cache. */
+    public static final String STATISTICS_NAME_OFFLINE = "ADE_CONFIGURATION_OFFLINE";
+
+    /** The name of the statistics of the online configuration cache. */
+    public static final String STATISTICS_NAME_ONLINE = "ADE_CONFIGURATION_ONLINE";
+
     /** The interval at which the tasks which checks for configuration updates runs, in milliseconds. */
     public static final int TASK_DELAY_MILLIS = 3 * 1000;
 
@@ -108,7 +117,17 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
     /** Cache for keeping track of which pages are detail pages. */
     private LoadingCache<CmsResource, Boolean> m_detailPageIdCache = CacheBuilder.newBuilder().expireAfterWrite(
         60,
-        TimeUnit.MINUTES).maximumSize(30000).concurrencyLevel(8).build(new CacheLoader<CmsResource, Boolean>() {
+        TimeUnit.MINUTES).maximumSize(30000).concurrencyLevel(8).removalListener(
+            new RemovalListener<CmsResource, Boolean>() {
+
+                @SuppressWarnings("synthetic-access")
+                public void onRemoval(RemovalNotification<CmsResource, Boolean> notification) {
+
+                    if (notification.wasEvicted()) {
+                        m_statistics.recordEviction();
+                    }
+                }
+            }).build(new CacheLoader<CmsResource, Boolean>() {
 
             @SuppressWarnings("synthetic-access")
             @Override
@@ -136,6 +155,9 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
     /** The current configuration state (immutable). */
     private volatile CmsADEConfigCacheState m_state;
 
+    /** The statistics of the detail page and path caches. */
+    private CmsCacheStatistics m_statistics;
+
     /** Scheduled future which is used to cancel the scheduled task. */
     private ScheduledFuture<?> m_taskFuture;
 
@@ -167,6 +189,8 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
         m_configType = configType;
         m_moduleConfigType = moduleConfigType;
         m_elementViewType = elementViewType;
+        m_statistics = OpenCms.getMemoryMonitor().getCacheStatistics(
+            isOnline() ? STATISTICS_NAME_ONLINE : STATISTICS_NAME_OFFLINE);
     }
 
     /**
@@ -208,10 +232,14 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
 
         String rootPath = m_pathCache.get(structureId);
         if (rootPath != null) {
+            m_statistics.recordHit();
             return rootPath;
         }
+        m_statistics.recordMiss();
+        long start = System.nanoTime();
         CmsResource res = m_cms.readResource(structureId);
         m_pathCache.put(structureId, res.getRootPath());
+        m_statistics.recordLoad(System.nanoTime() - start);
         return res.getRootPath();
     }
 
@@ -268,7 +296,17 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
     public boolean isDetailPage(CmsObject cms, CmsResource resource) {
 
         try {
-            boolean result = m_detailPageIdCache.get(resource).booleanValue();
+            Boolean cached = m_detailPageIdCache.getIfPresent(resource);
+            boolean result;
+            if (cached != null) {
+                m_statistics.recordHit();
+                result = cached.booleanValue();
+            } else {
+                m_statistics.recordMiss();
+                long start = System.nanoTime();
+                result = m_detailPageIdCache.get(resource).booleanValue();
+                m_statistics.recordLoad(System.nanoTime() - start);
+            }
             if (!result) {
                 // We want new detail pages to be available fast, so we don't cache negative results
                 m_detailPageIdCache.invalidate(resource);
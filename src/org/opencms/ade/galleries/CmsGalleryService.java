@@ -105,6 +105,7 @@ import org.opencms.xml.containerpage.CmsADESessionCache;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -1532,9 +1533,21 @@ public class CmsGalleryService extends CmsGwtService implements I_CmsGalleryServ
             while (it.hasNext()) {
                 contentTypes.add(String.valueOf(it.next().getTypeName()));
             }
-            Iterator<CmsResource> ir = tInfo.getGalleries().iterator();
-            while (ir.hasNext()) {
-                CmsResource res = ir.next();
+            List<CmsResource> galleries = tInfo.getGalleries();
+            BitSet editable = null;
+            try {
+                // check the write permissions of all galleries at once
+                editable = getCmsObject().hasPermissions(
+                    galleries,
+                    CmsPermissionSet.ACCESS_WRITE,
+                    false,
+                    CmsResourceFilter.ALL);
+            } catch (CmsException e) {
+                // check each gallery on its own, so an error with one gallery does not affect the others
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+            for (int i = 0; i < galleries.size(); i++) {
+                CmsResource res = galleries.get(i);
                 CmsGalleryFolderBean bean = new CmsGalleryFolderBean();
                 String sitePath = getCmsObject().getSitePath(res);
                 String title = "";
@@ -1556,7 +1569,7 @@ public class CmsGalleryService extends CmsGwtService implements I_CmsGalleryServ
                 bean.setTitle(title);
                 // gallery type name
                 bean.setType(tInfo.getResourceType().getTypeName());
-                bean.setEditable(isEditable(getCmsObject(), res));
+                bean.setEditable((editable != null) ? editable.get(i) : isEditable(getCmsObject(), res));
                 list.add(bean);
             }
         }
@@ -28,6 +28,7 @@
 package org.opencms.cache;
 
 import org.opencms.main.CmsLog;
+import org.opencms.monitor.CmsCacheStatistics;
 
 import org.apache.commons.logging.Log;
 
@@ -78,6 +79,9 @@ public class CmsLruCache extends java.lang.Object {
     /** The sum of all cached objects. */
     private int m_objectCount;
 
+    /** The statistics to record the evictions in, may be <code>null</code>. */
+    private CmsCacheStatistics m_statistics;
+
     /**
      * The constructor with all options.<p>
      *
@@ -243,6 +247,16 @@ public class CmsLruCache extends java.lang.Object {
         return theCacheObject;
     }
 
+    /**
+     * Sets the statistics to record the objects in which are removed because of the cache costs.<p>
+     *
+     * @param statistics the cache statistics, may be <code>null</code>
+     */
+    public void setStatistics(CmsCacheStatistics statistics) {
+
+        m_statistics = statistics;
+    }
+
     /**
      * Returns the count of all cached objects.<p>
      *
@@ -386,6 +400,9 @@ public class CmsLruCache extends java.lang.Object {
             }
             currentObject = currentObject.getNextLruObject();
             removeTail();
+            if (m_statistics != null) {
+                m_statistics.recordEviction();
+            }
         }
     }
 
@@ -0,0 +1,233 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.monitor.CmsCacheStatistics;
+
+/**
+ * LRU cache that is split into several independent segments to reduce lock contention.<p>
+ *
+ * Each segment is a {@link CmsLruCache} with its own lock and an equal share of the cache costs.
+ * The segment of a cached object is selected by its identity hash code, so threads working with
+ * different objects usually do not block each other. Since the least recently used objects are
+ * removed per segment, the eviction order is only approximately LRU for the whole cache,
+ * but the sum of the costs of all segments never exceeds the configured maximum costs.<p>
+ *
+ * The objects must not be shared with other caches, since the cached state is stored in the objects.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsStripedLruCache extends CmsLruCache {
+
+    /** The maximum number of segments used if the number of segments is calculated. */
+    public static final int MAX_SEGMENTS = 64;
+
+    /** The segments. */
+    private final CmsLruCache[] m_segments;
+
+    /**
+     * Creates a new striped LRU cache, calculating the number of segments from the number
+     * of available processors and the cache costs.<p>
+     *
+     * @param theMaxCacheCosts the maximum cache costs of all cached objects
+     * @param theAvgCacheCosts the average cache costs of all cached objects
+     * @param theMaxObjectCosts the maximum allowed cache costs per object, or -1 for no limit
+     */
+    public CmsStripedLruCache(long theMaxCacheCosts, long theAvgCacheCosts, int theMaxObjectCosts) {
+
+        this(
+            theMaxCacheCosts,
+            theAvgCacheCosts,
+            theMaxObjectCosts,
+            getSegmentCount(Runtime.getRuntime().availableProcessors(), theAvgCacheCosts, theMaxObjectCosts));
+    }
+
+    /**
+     * Creates a new striped LRU cache with the given number of segments.<p>
+     *
+     * @param theMaxCacheCosts the maximum cache costs of all cached objects
+     * @param theAvgCacheCosts the average cache costs of all cached objects
+     * @param theMaxObjectCosts the maximum allowed cache costs per object, or -1 for no limit
+     * @param segmentCount the number of segments, will be rounded down to a power of 2
+     */
+    public CmsStripedLruCache(long theMaxCacheCosts, long theAvgCacheCosts, int theMaxObjectCosts, int segmentCount) {
+
+        super(theMaxCacheCosts, theAvgCacheCosts, theMaxObjectCosts);
+        int count = Integer.highestOneBit(Math.max(1, segmentCount));
+        m_segments = new CmsLruCache[count];
+        for (int i = 0; i < count; i++) {
+            m_segments[i] = new CmsLruCache(theMaxCacheCosts / count, theAvgCacheCosts / count, theMaxObjectCosts);
+        }
+    }
+
+    /**
+     * Calculates the number of segments for a striped LRU cache.<p>
+     *
+     * Uses 4 segments per processor, but only as many segments that an object
+     * with the maximum allowed costs still fits into the average costs of each segment.<p>
+     *
+     * @param processors the number of available processors
+     * @param avgCacheCosts the average cache costs of all cached objects
+     * @param maxObjectCosts the maximum allowed cache costs per object, or -1 for no limit
+     *
+     * @return the number of segments, a power of 2
+     */
+    public static int getSegmentCount(int processors, long avgCacheCosts, int maxObjectCosts) {
+
+        long count = Math.min(MAX_SEGMENTS, 4L * Math.max(1, processors));
+        if (maxObjectCosts > 0) {
+            count = Math.min(count, avgCacheCosts / maxObjectCosts);
+        }
+        return Integer.highestOneBit((int)Math.max(1, count));
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#add(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public boolean add(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            return false;
+        }
+        return getSegment(theCacheObject).add(theCacheObject);
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#clear()
+     */
+    @Override
+    public void clear() {
+
+        for (CmsLruCache segment : m_segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#getObjectCosts()
+     */
+    @Override
+    public int getObjectCosts() {
+
+        int costs = 0;
+        for (CmsLruCache segment : m_segments) {
+            costs += segment.getObjectCosts();
+        }
+        return costs;
+    }
+
+    /**
+     * Returns the number of segments.<p>
+     *
+     * @return the number of segments
+     */
+    public int getSegmentCount() {
+
+        return m_segments.length;
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#remove(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            return null;
+        }
+        return getSegment(theCacheObject).remove(theCacheObject);
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#setStatistics(org.opencms.monitor.CmsCacheStatistics)
+     */
+    @Override
+    public void setStatistics(CmsCacheStatistics statistics) {
+
+        for (CmsLruCache segment : m_segments) {
+            segment.setStatistics(statistics);
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#size()
+     */
+    @Override
+    public int size() {
+
+        int size = 0;
+        for (CmsLruCache segment : m_segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer buf = new StringBuffer();
+        buf.append("max. costs: " + getMaxCacheCosts()).append(", ");
+        buf.append("avg. costs: " + getAvgCacheCosts()).append(", ");
+        buf.append("max. costs/object: " + getMaxObjectCosts()).append(", ");
+        buf.append("costs: " + getObjectCosts()).append(", ");
+        buf.append("count: " + size()).append(", ");
+        buf.append("segments: " + m_segments.length);
+        return buf.toString();
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#touch(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public boolean touch(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            return false;
+        }
+        return getSegment(theCacheObject).touch(theCacheObject);
+    }
+
+    /**
+     * Returns the segment for the given object.<p>
+     *
+     * @param theCacheObject the cache object
+     *
+     * @return the segment for the object
+     */
+    private CmsLruCache getSegment(I_CmsLruCacheObject theCacheObject) {
+
+        int hash = System.identityHashCode(theCacheObject);
+        // spread the bits, since the identity hash codes may have few different low bits
+        hash ^= (hash >>> 16);
+        return m_segments[hash & (m_segments.length - 1)];
+    }
+}
@@ -47,6 +47,7 @@ import org.opencms.main.I_CmsRequestHandler;
 import org.opencms.main.I_CmsResourceInit;
 import org.opencms.main.I_CmsSessionStorageProvider;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
 import org.opencms.monitor.CmsMemoryMonitorConfiguration;
 import org.opencms.publish.CmsPublishManager;
 import org.opencms.scheduler.CmsScheduleManager;
@@ -329,9 +330,15 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the maxusagepercent node. */
     public static final String N_MAXUSAGE_PERCENT = "maxusagepercent";
 
+    /** The node name for the maximum number of concurrent publish jobs. */
+    public static final String N_MAX_CONCURRENT_JOBS = "max-concurrent-jobs";
+
     /** The node name for the memorymonitor node. */
     public static final String N_MEMORYMONITOR = "memorymonitor";
 
+    /** The node name for the memory budget of a cache. */
+    public static final String N_MEMORY_BUDGET = "memory-budget";
+
     /** The node name for the login message text. */
     public static final String N_MESSAGE = "message";
 
@@ -341,6 +348,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The duration after which responsibles will be notified about out-dated content. */
     public static final String N_NOTIFICATION_TIME = "notification-time";
 
+    /** The node name for the maximum size of the off-heap tier of the flex cache. */
+    public static final String N_OFFHEAPBYTES = "offheapbytes";
+
+    /** The node name for the minimum entry size of the off-heap tier of the flex cache. */
+    public static final String N_OFFHEAPENTRYBYTES = "offheapentrybytes";
+
     /** The node name for the job parameters. */
     public static final String N_PARAMETERS = "parameters";
 
@@ -542,6 +555,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the workplace-server node. */
     public static final String N_WORKPLACE_SERVER = "workplace-server";
 
+    /** The node name for the XML content cache node. */
+    public static final String N_XMLCONTENTS = "xmlcontents";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSystemConfiguration.class);
 
@@ -1045,6 +1061,17 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_AVGCACHEBYTES, 3);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MAXENTRYBYTES, 4);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MAXKEYS, 5);
+        // add the optional flexcache off-heap tier
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_OFFHEAPBYTES,
+            "setOffHeapBytes",
+            0,
+            new Class[] {Long.TYPE});
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_OFFHEAPENTRYBYTES,
+            "setOffHeapEntryBytes",
+            0,
+            new Class[] {Integer.TYPE});
         // add flexcache device selector
         digester.addCallMethod(
             "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_DEVICESELECTOR,
@@ -1112,6 +1139,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_CONTAINERPAGE_ONLINE,
             "setContainerPageOnlineSize",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_MEMORY_BUDGET,
+            "addMemoryBudget",
+            2);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_MEMORY_BUDGET, 0, A_TYPE);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_MEMORY_BUDGET, 1);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_RESULTCACHE, "setCacheSettings");
 
         // set the notification time
@@ -1146,6 +1179,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_QUEUESHUTDOWNTIME,
             "setPublishQueueShutdowntime",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_MAX_CONCURRENT_JOBS,
+            "setMaxConcurrentJobs",
+            0);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER, "setPublishManager");
 
         // add rule for session storage provider
@@ -1188,6 +1225,11 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_OFFLINE);
         digester.addCallMethod(adeCachePath + "/" + N_GROUPCONTAINERS, "setGroupContainerOnlineSize", 1);
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_ONLINE);
+        // XML content cache
+        digester.addCallMethod(adeCachePath + "/" + N_XMLCONTENTS, "setXmlContentOfflineBytes", 1);
+        digester.addCallParam(adeCachePath + "/" + N_XMLCONTENTS, 0, A_OFFLINE);
+        digester.addCallMethod(adeCachePath + "/" + N_XMLCONTENTS, "setXmlContentOnlineBytes", 1);
+        digester.addCallParam(adeCachePath + "/" + N_XMLCONTENTS, 0, A_ONLINE);
         // set the settings
         digester.addSetNext(adeCachePath, "setAdeCacheSettings");
 
@@ -1544,6 +1586,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         flexcacheElement.addElement(N_MAXENTRYBYTES).addText(
             String.valueOf(m_cmsFlexCacheConfiguration.getMaxEntryBytes()));
         flexcacheElement.addElement(N_MAXKEYS).addText(String.valueOf(m_cmsFlexCacheConfiguration.getMaxKeys()));
+        if (m_cmsFlexCacheConfiguration.getOffHeapBytes() > 0) {
+            flexcacheElement.addElement(N_OFFHEAPBYTES).addText(
+                String.valueOf(m_cmsFlexCacheConfiguration.getOffHeapBytes()));
+            flexcacheElement.addElement(N_OFFHEAPENTRYBYTES).addText(
+                String.valueOf(m_cmsFlexCacheConfiguration.getOffHeapEntryBytes()));
+        }
         if (m_cmsFlexCacheConfiguration.getDeviceSelectorConfiguration() != null) {
             Element flexcacheDeviceSelectorElement = flexcacheElement.addElement(N_DEVICESELECTOR);
             flexcacheDeviceSelectorElement.addAttribute(
@@ -1589,6 +1637,11 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         }
         cacheElement.addElement(N_SIZE_ACLS).setText(Integer.toString(m_cacheSettings.getAclCacheSize()));
         cacheElement.addElement(N_SIZE_PERMISSIONS).setText(Integer.toString(m_cacheSettings.getPermissionCacheSize()));
+        for (Map.Entry<CacheType, Long> budget : m_cacheSettings.getMemoryBudgets().entrySet()) {
+            Element budgetElement = cacheElement.addElement(N_MEMORY_BUDGET);
+            budgetElement.addAttribute(A_TYPE, budget.getKey().name().toLowerCase(Locale.ENGLISH));
+            budgetElement.setText(budget.getValue().toString());
+        }
 
         // content notification settings
         if ((m_notificationTime != null) || (m_notificationProject != null)) {
@@ -1616,6 +1669,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 String.valueOf(m_publishManager.isPublishQueuePersistanceEnabled()));
             pubHistElement.addElement(N_QUEUESHUTDOWNTIME).setText(
                 String.valueOf(m_publishManager.getPublishQueueShutdowntime()));
+            if (m_publishManager.getMaxConcurrentJobs() != CmsPublishManager.DEFAULT_MAX_CONCURRENT_JOBS) {
+                pubHistElement.addElement(N_MAX_CONCURRENT_JOBS).setText(
+                    String.valueOf(m_publishManager.getMaxConcurrentJobs()));
+            }
         }
 
         // session storage provider
@@ -1678,6 +1735,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 groupContainerCacheElem.addAttribute(
                     A_ONLINE,
                     "" + getAdeCacheSettings().getGroupContainerOnlineSize());
+                // XML content cache
+                Element xmlContentCacheElem = cacheElem.addElement(N_XMLCONTENTS);
+                xmlContentCacheElem.addAttribute(A_OFFLINE, "" + getAdeCacheSettings().getXmlContentOfflineBytes());
+                xmlContentCacheElem.addAttribute(A_ONLINE, "" + getAdeCacheSettings().getXmlContentOnlineBytes());
             }
         }
 
@@ -27,6 +27,13 @@
 
 package org.opencms.db;
 
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * The settings of the OpenCms memory monitor.<p>
  *
@@ -43,6 +50,9 @@ public class CmsCacheSettings {
     /** The size of the memory monitor's cache for groups. */
     private int m_groupCacheSize;
 
+    /** The memory budgets in bytes of the memory monitor's caches, by cache type. */
+    private Map<CacheType, Long> m_memoryBudgets = new EnumMap<CacheType, Long>(CacheType.class);
+
     /** The size of the memory monitor's cache for organizational units. */
     private int m_orgUnitCacheSize = -1; // this configuration entry is optional
 
@@ -84,6 +94,29 @@ public class CmsCacheSettings {
         super();
     }
 
+    /**
+     * Adds a memory budget for one of the memory monitor's caches.<p>
+     *
+     * A cache with a memory budget is limited by the estimated memory size of its entries
+     * instead of the number of entries. Invalid cache types or sizes are ignored.<p>
+     *
+     * @param type the name of the cache type, see {@link CacheType}
+     * @param bytes the memory budget in bytes
+     */
+    public void addMemoryBudget(String type, String bytes) {
+
+        CacheType cacheType;
+        try {
+            cacheType = CacheType.valueOf(type.trim().toUpperCase(Locale.ENGLISH));
+        } catch (Exception e) {
+            return;
+        }
+        long budget = getLongValue(bytes, -1);
+        if (budget > 0) {
+            m_memoryBudgets.put(cacheType, Long.valueOf(budget));
+        }
+    }
+
     /**
      * Returns the size of the memory monitor's cache for ACLs.<p>
      *
@@ -162,6 +195,31 @@ public class CmsCacheSettings {
         return m_groupCacheSize;
     }
 
+    /**
+     * Returns the memory budget in bytes of the memory monitor's cache for the given type.<p>
+     *
+     * Returns <code>-1</code> if no memory budget is configured for the cache type.<p>
+     *
+     * @param type the cache type
+     *
+     * @return the memory budget in bytes
+     */
+    public long getMemoryBudget(CacheType type) {
+
+        Long budget = m_memoryBudgets.get(type);
+        return budget != null ? budget.longValue() : -1;
+    }
+
+    /**
+     * Returns the configured memory budgets in bytes of the memory monitor's caches, by cache type.<p>
+     *
+     * @return the configured memory budgets
+     */
+    public Map<CacheType, Long> getMemoryBudgets() {
+
+        return Collections.unmodifiableMap(m_memoryBudgets);
+    }
+
     /**
      * Returns the size of the memory monitor's cache for organizational units.<p>
      *
@@ -441,4 +499,25 @@ public class CmsCacheSettings {
         }
         return defaultValue;
     }
+
+    /**
+     * Turns a string into a long.<p>
+     *
+     * @param str the string to be converted
+     * @param defaultValue a default value to be returned in case the string could not be parsed or the parsed long value is <= 0
+     * @return the long value of the string
+     */
+    private long getLongValue(String str, long defaultValue) {
+
+        if (str == null) {
+            return defaultValue;
+        }
+        try {
+            long longValue = Long.parseLong(str.trim());
+            return (longValue > 0) ? longValue : defaultValue;
+        } catch (NumberFormatException e) {
+            // intentionally left blank
+        }
+        return defaultValue;
+    }
 }
@@ -103,6 +103,7 @@ import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.security.CmsPasswordEncryptionException;
 import org.opencms.security.CmsPermissionSet;
 import org.opencms.security.CmsPermissionSetCustom;
+import org.opencms.security.CmsPrincipalSet;
 import org.opencms.security.CmsPrincipal;
 import org.opencms.security.CmsRole;
 import org.opencms.security.CmsSecurityException;
@@ -116,6 +117,7 @@ import org.opencms.util.PrintfFormat;
 import org.opencms.workplace.threads.A_CmsProgressThread;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -329,12 +331,18 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The list of initialized JDBC pools. */
     private List<PoolingDriver> m_connectionPools;
 
+    /** The factory used to create new database contexts. */
+    private I_CmsDbContextFactory m_dbContextFactory;
+
     /** The history driver. */
     private I_CmsHistoryDriver m_historyDriver;
 
     /** The HTML link validator. */
     private CmsRelationSystemValidator m_htmlLinkValidator;
 
+    /** The last publish tag handed out to a publish job, used to keep the tags of concurrent publish jobs unique. */
+    private int m_lastPublishTag;
+
     /** The class used for cache key generation. */
     private I_CmsCacheKey m_keyGenerator;
 
@@ -342,7 +350,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
     private CmsLockManager m_lockManager;
 
     /** The log entry cache. */
-    private List<CmsLogEntry> m_log = new ArrayList<CmsLogEntry>();
+    private List<CmsLogEntry> m_log = Collections.synchronizedList(new ArrayList<CmsLogEntry>());
 
     /** Local reference to the memory monitor to avoid multiple lookups through the OpenCms singleton. */
     private CmsMemoryMonitor m_monitor;
@@ -359,6 +367,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** Object used for synchronizing updates to the user publish list. */
     private Object m_publishListUpdateLock = new Object();
 
+    /** Object used for synchronizing the publish tags of concurrent publish jobs. */
+    private Object m_publishTagLock = new Object();
+
     /** The security manager (for access checks). */
     private CmsSecurityManager m_securityManager;
 
@@ -1067,7 +1078,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         // clear the cache
-        m_monitor.clearAccessControlListCache();
+        m_monitor.clearAccessControlListCache(destination.getRootPath());
 
         // fire a resource modification event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -1227,7 +1238,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         copyAccessControlEntries(dbc, source, newResource, false);
 
         // clear the cache
-        m_monitor.clearAccessControlListCache();
+        m_monitor.clearAccessControlListCache(newResource.getRootPath());
 
         List<CmsResource> modifiedResources = new ArrayList<CmsResource>();
         modifiedResources.add(source);
@@ -2102,7 +2113,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         copyRelations(dbc, source, newResource);
 
         // clear the caches
-        m_monitor.clearAccessControlListCache();
+        m_monitor.clearAccessControlListCache(newResource.getRootPath());
 
         List<CmsResource> modifiedResources = new ArrayList<CmsResource>();
         modifiedResources.add(source);
@@ -3067,7 +3078,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         // flush all caches
-        m_monitor.clearAccessControlListCache();
+        m_monitor.clearAccessControlListCache(resource.getRootPath());
         m_monitor.flushCache(
             CmsMemoryMonitor.CacheType.PROPERTY,
             CmsMemoryMonitor.CacheType.PROPERTY_LIST,
@@ -3492,7 +3503,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public CmsAccessControlList getAccessControlList(CmsDbContext dbc, CmsResource resource, boolean inheritedOnly)
     throws CmsException {
 
-        return getAccessControlList(dbc, resource, inheritedOnly, resource.isFolder(), 0);
+        return getAccessControlList(dbc, resource, inheritedOnly, resource.isFolder());
     }
 
     /**
@@ -3845,6 +3856,16 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return m_subscriptionDriver.getDateLastVisitedBy(dbc, poolName, user, resource);
     }
 
+    /**
+     * Returns the factory used to create new database contexts.<p>
+     *
+     * @return the database context factory
+     */
+    public I_CmsDbContextFactory getDbContextFactory() {
+
+        return m_dbContextFactory;
+    }
+
     /**
      * Returns all groups of the given organizational unit.<p>
      *
@@ -4288,7 +4309,37 @@ public final class CmsDriverManager implements I_CmsEventListener {
     throws CmsException {
 
         CmsAccessControlList acList = getAccessControlList(dbc, resource, false);
-        return acList.getPermissions(user, getGroupsOfUser(dbc, user.getName(), false), getRolesForUser(dbc, user));
+        return acList.getPermissions(getPrincipalSet(dbc, user));
+    }
+
+    /**
+     * Returns the compiled set of groups and roles of the given user, used to evaluate access control lists.<p>
+     *
+     * @param dbc the current database context
+     * @param user the user
+     *
+     * @return the principal set of the user
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public CmsPrincipalSet getPrincipalSet(CmsDbContext dbc, CmsUser user) throws CmsException {
+
+        // the groups of the user depend on the remote address
+        String cacheKey = null;
+        if (dbc.getProjectId().isNullUUID()) {
+            cacheKey = user.getId().toString() + "_" + dbc.getRequestContext().getRemoteAddress();
+        }
+        CmsPrincipalSet principals = (cacheKey != null) ? m_monitor.getCachedPrincipalSet(cacheKey) : null;
+        if (principals == null) {
+            principals = new CmsPrincipalSet(
+                user,
+                getGroupsOfUser(dbc, user.getName(), false),
+                getRolesForUser(dbc, user));
+            if (cacheKey != null) {
+                m_monitor.cachePrincipalSet(cacheKey, principals);
+            }
+        }
+        return principals;
     }
 
     /**
@@ -5003,7 +5054,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         while (i.hasNext()) {
             userDriver.writeAccessControlEntry(dbc, dbc.currentProject(), i.next());
         }
-        m_monitor.clearAccessControlListCache();
+        m_monitor.clearAccessControlListCache(resource.getRootPath());
     }
 
     /**
@@ -5147,6 +5198,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
         // store local reference to the memory monitor to avoid multiple lookups through the OpenCms singelton
         m_monitor = OpenCms.getMemoryMonitor();
+        m_dbContextFactory = dbContextFactory;
 
         CmsSystemConfiguration systemConfiguation = (CmsSystemConfiguration)configurationManager.getConfiguration(
             CmsSystemConfiguration.class);
@@ -5768,8 +5820,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
         // move lock
         m_lockManager.moveResource(source.getRootPath(), destRes.getRootPath());
 
-        // flush all relevant caches
-        m_monitor.clearAccessControlListCache();
+        // flush all relevant caches, the inherited access control lists of both subtrees change
+        m_monitor.clearAccessControlListCache(source.getRootPath());
+        m_monitor.clearAccessControlListCache(destRes.getRootPath());
         m_monitor.flushCache(
             CmsMemoryMonitor.CacheType.PROPERTY,
             CmsMemoryMonitor.CacheType.PROPERTY_LIST,
@@ -6084,7 +6137,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             // clear the cache
             m_monitor.clearCache();
 
-            int publishTag = getNextPublishTag(dbc);
+            int publishTag = reservePublishTag(dbc);
             getProjectDriver(dbc).publishProject(dbc, report, onlineProject, publishList, publishTag);
 
             // iterate the initialized module action instances
@@ -7520,6 +7573,122 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return new ArrayList<CmsProperty>(properties);
     }
 
+    /**
+     * Reads all property objects of the given resources.<p>
+     *
+     * The result for each resource is the same as the result of
+     * {@link #readPropertyObjects(CmsDbContext, CmsResource, boolean)}, but the properties of all resources
+     * not found in the property list cache are read together. If the <code>search</code> parameter is
+     * <code>true</code>, the inherited properties are resolved only once for each parent folder.
+     * The property lists of the resources and of their parent folders are stored in the property list cache.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources to read the properties for
+     * @param search <code>true</code>, if the properties should be searched on all parent folders if not found
+     *      on the resource
+     *
+     * @return the lists of <code>{@link CmsProperty}</code> objects, with the structure ids of the resources as keys
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        List<CmsResource> resources,
+        boolean search) throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        boolean useCache = dbc.getProjectId().isNullUUID();
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>(resources.size());
+
+        if (!search) {
+            Map<CmsUUID, List<CmsProperty>> attached = readAttachedPropertyObjects(dbc, resources);
+            for (Map.Entry<CmsUUID, List<CmsProperty>> entry : attached.entrySet()) {
+                result.put(entry.getKey(), new ArrayList<CmsProperty>(entry.getValue()));
+            }
+            return result;
+        }
+
+        // check which results are already cached
+        List<CmsResource> missing = new ArrayList<CmsResource>();
+        for (CmsResource resource : resources) {
+            List<CmsProperty> properties = null;
+            if (useCache) {
+                properties = m_monitor.getCachedPropertyList(
+                    getCacheKey(CACHE_ALL_PROPERTIES, true, projectId, resource.getRootPath()));
+            }
+            if (properties != null) {
+                result.put(resource.getStructureId(), new ArrayList<CmsProperty>(properties));
+            } else {
+                missing.add(resource);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        // collect the parent folders which inherited properties are not cached, starting with the top level folders
+        Map<String, List<CmsProperty>> inherited = new HashMap<String, List<CmsProperty>>();
+        Set<String> folderPaths = new TreeSet<String>(new Comparator<String>() {
+
+            public int compare(String path1, String path2) {
+
+                int result = path1.length() - path2.length();
+                return (result != 0) ? result : path1.compareTo(path2);
+            }
+        });
+        for (CmsResource resource : missing) {
+            String folderPath = CmsResource.getParentFolder(resource.getRootPath());
+            while ((folderPath != null) && !inherited.containsKey(folderPath) && !folderPaths.contains(folderPath)) {
+                List<CmsProperty> properties = null;
+                if (useCache) {
+                    properties = m_monitor.getCachedPropertyList(
+                        getCacheKey(CACHE_ALL_PROPERTIES, true, projectId, folderPath));
+                }
+                if (properties != null) {
+                    inherited.put(folderPath, properties);
+                    break;
+                }
+                folderPaths.add(folderPath);
+                folderPath = CmsResource.getParentFolder(folderPath);
+            }
+        }
+
+        // read the properties attached to the parent folders together, and resolve them top down
+        List<CmsResource> folders = new ArrayList<CmsResource>(folderPaths.size());
+        for (String folderPath : folderPaths) {
+            // no permission check on parent folder is required since we must have "read"
+            // permissions to read the child resource anyway
+            folders.add(readResource(dbc, folderPath, CmsResourceFilter.ALL));
+        }
+        Map<CmsUUID, List<CmsProperty>> folderAttached = readAttachedPropertyObjects(dbc, folders);
+        for (CmsResource folder : folders) {
+            List<CmsProperty> properties = mergeInheritedProperties(
+                inherited.get(CmsResource.getParentFolder(folder.getRootPath())),
+                folderAttached.get(folder.getStructureId()));
+            inherited.put(folder.getRootPath(), properties);
+            if (useCache) {
+                m_monitor.cachePropertyList(
+                    getCacheKey(CACHE_ALL_PROPERTIES, true, projectId, folder.getRootPath()),
+                    properties);
+            }
+        }
+
+        // now resolve the properties of the resources themselves
+        Map<CmsUUID, List<CmsProperty>> attached = readAttachedPropertyObjects(dbc, missing);
+        for (CmsResource resource : missing) {
+            List<CmsProperty> properties = mergeInheritedProperties(
+                inherited.get(CmsResource.getParentFolder(resource.getRootPath())),
+                attached.get(resource.getStructureId()));
+            if (useCache) {
+                m_monitor.cachePropertyList(
+                    getCacheKey(CACHE_ALL_PROPERTIES, true, projectId, resource.getRootPath()),
+                    properties);
+            }
+            result.put(resource.getStructureId(), new ArrayList<CmsProperty>(properties));
+        }
+        return result;
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      *
@@ -7731,14 +7900,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 filter.getReleaseBefore(),
                 filter.getExpireAfter(),
                 filter.getExpireBefore(),
-                (readTree ? CmsDriverManager.READMODE_INCLUDE_TREE : CmsDriverManager.READMODE_EXCLUDE_TREE)
-                    | (filter.excludeType() ? CmsDriverManager.READMODE_EXCLUDE_TYPE : 0)
-                    | (filter.excludeState() ? CmsDriverManager.READMODE_EXCLUDE_STATE : 0)
-                    | ((filter.getOnlyFolders() != null)
-                    ? (filter.getOnlyFolders().booleanValue()
-                    ? CmsDriverManager.READMODE_ONLY_FOLDERS
-                    : CmsDriverManager.READMODE_ONLY_FILES)
-                    : 0));
+                getReadMode(filter, readTree));
 
             // HACK: do not take care of permissions if reading organizational units
             if (!parent.getRootPath().startsWith("/system/orgunits/")) {
@@ -7754,6 +7916,79 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return updateContextDates(dbc, resourceList, filter);
     }
 
+    /**
+     * Reads a page of the resources below the given path matching the filter criteria,
+     * including the full tree below the path only in case the <code>readTree</code>
+     * parameter is <code>true</code>.<p>
+     *
+     * The resources are ordered by their root path, and the page starts after the given resource.
+     * Unlike {@link #readResources(CmsDbContext, CmsResource, CmsResourceFilter, boolean)}, the result is not cached,
+     * so that large subtrees can be processed page by page without keeping all resources in memory.<p>
+     *
+     * The returned page may contain less than <code>pageSize</code> resources if resources are filtered out,
+     * it is only empty if there are no more resources.<p>
+     *
+     * @param dbc the current database context
+     * @param parent the parent path to read the resources from
+     * @param filter the filter
+     * @param readTree <code>true</code> to read all subresources
+     * @param after the last resource of the previous page, or <code>null</code> to read the first page
+     * @param pageSize the maximum number of resources to read from the database at once
+     *
+     * @return a list of <code>{@link CmsResource}</code> objects matching the filter criteria
+     *
+     * @throws CmsDataAccessException if the bare reading of the resources fails
+     * @throws CmsException if security and permission checks for the resources read fail
+     */
+    public List<CmsResource> readResourcesPage(
+        CmsDbContext dbc,
+        CmsResource parent,
+        CmsResourceFilter filter,
+        boolean readTree,
+        CmsResource after,
+        int pageSize)
+    throws CmsException, CmsDataAccessException {
+
+        List<CmsResource> result = Collections.emptyList();
+        CmsResource last = after;
+        while (result.isEmpty()) {
+            List<CmsResource> resourceList = getVfsDriver(dbc).readResourceTreePage(
+                dbc,
+                dbc.currentProject().getUuid(),
+                (readTree ? parent.getRootPath() : parent.getStructureId().toString()),
+                filter.getType(),
+                filter.getState(),
+                filter.getModifiedAfter(),
+                filter.getModifiedBefore(),
+                filter.getReleaseAfter(),
+                filter.getReleaseBefore(),
+                filter.getExpireAfter(),
+                filter.getExpireBefore(),
+                getReadMode(filter, readTree),
+                last,
+                pageSize);
+            if (resourceList.isEmpty()) {
+                // no more resources
+                break;
+            }
+            last = resourceList.get(resourceList.size() - 1);
+            result = resourceList;
+            // HACK: do not take care of permissions if reading organizational units
+            if (!parent.getRootPath().startsWith("/system/orgunits/")) {
+                // apply permission filter
+                result = filterPermissions(dbc, result, filter);
+            }
+            // we must always apply the result filter and update the context dates
+            result = updateContextDates(dbc, result, filter);
+            if (resourceList.size() < pageSize) {
+                // this was the last page
+                break;
+            }
+            // if all resources of the page were filtered out, continue with the next page
+        }
+        return result;
+    }
+
     /**
      * Returns the resources that were visited by a user set in the filter.<p>
      *
@@ -8181,7 +8416,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         setDateLastModified(dbc, resource, resource.getDateLastModified());
 
         // clear the cache
-        m_monitor.clearAccessControlListCache();
+        m_monitor.clearAccessControlListCache(resource.getRootPath());
 
         // fire a resource modification event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -9436,8 +9671,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 return;
             }
 
-            List<CmsLogEntry> log = new ArrayList<CmsLogEntry>(m_log);
-            m_log.clear();
+            List<CmsLogEntry> log;
+            synchronized (m_log) {
+                log = new ArrayList<CmsLogEntry>(m_log);
+                m_log.clear();
+            }
             String logTableEnabledStr = (String)OpenCms.getRuntimeProperty(PARAM_LOG_TABLE_ENABLED);
             if (Boolean.parseBoolean(logTableEnabledStr)) { // defaults to 'false' if value not set
                 m_projectDriver.log(dbc, log);
@@ -9622,7 +9860,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         setDateLastModified(dbc, resource, resource.getDateLastModified());
 
         // clear the cache
-        m_monitor.clearAccessControlListCache();
+        m_monitor.clearAccessControlListCache(resource.getRootPath());
 
         // fire a resource modification event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -10629,6 +10867,30 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return getUserDriver(dbc).countUsers(dbc, searchParams);
     }
 
+    /**
+     * Adds the given sorted access control entries to an access control list.<p>
+     *
+     * @param acl the access control list to add the entries to
+     * @param aces the sorted access control entries
+     * @param inherited if the entries are inherited from a parent folder
+     */
+    private void addAccessControlEntries(CmsAccessControlList acl, List<CmsAccessControlEntry> aces, boolean inherited) {
+
+        for (CmsAccessControlEntry acEntry : aces) {
+            if (inherited) {
+                acEntry.setFlags(CmsAccessControlEntry.ACCESS_FLAGS_INHERITED);
+            }
+
+            acl.add(acEntry);
+
+            // if the overwrite flag is set, reset the allowed permissions to the permissions of this entry
+            // denied permissions are kept or extended
+            if ((acEntry.getFlags() & CmsAccessControlEntry.ACCESS_FLAGS_OVERWRITE) > 0) {
+                acl.setAllowedPermissions(acEntry);
+            }
+        }
+    }
+
     /**
      * Adds all sub-resources of the given resource to the publish list.<p>
      *
@@ -10881,19 +11143,17 @@ public final class CmsDriverManager implements I_CmsEventListener {
             // never check time range here - this must be done later in #updateContextDates(...)
             filter = filter.addExcludeTimerange();
         }
-        ArrayList<CmsResource> result = new ArrayList<CmsResource>(resourceList.size());
-        for (int i = 0; i < resourceList.size(); i++) {
-            // check the permission of all resources
-            CmsResource currentResource = resourceList.get(i);
-            if (m_securityManager.hasPermissions(
-                dbc,
-                currentResource,
-                CmsPermissionSet.ACCESS_READ,
-                true,
-                filter).isAllowed()) {
-                // only return resources where permission was granted
-                result.add(currentResource);
-            }
+        // check the permission of all resources
+        BitSet permitted = m_securityManager.hasPermissions(
+            dbc,
+            resourceList,
+            CmsPermissionSet.ACCESS_READ,
+            true,
+            filter);
+        ArrayList<CmsResource> result = new ArrayList<CmsResource>(permitted.cardinality());
+        for (int i = permitted.nextSetBit(0); i >= 0; i = permitted.nextSetBit(i + 1)) {
+            // only return resources where permission was granted
+            result.add(resourceList.get(i));
         }
         // return the result
         return result;
@@ -11039,11 +11299,13 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /**
      * Returns the access control list of a given resource.<p>
      *
+     * The inherited part of the list is taken from the access control list index,
+     * so only the access control entries of the resource itself are read.<p>
+     *
      * @param dbc the current database context
      * @param resource the resource
-     * @param forFolder should be true if resource is a folder
-     * @param depth the depth to include non-inherited access entries, also
      * @param inheritedOnly flag indicates to collect inherited permissions only
+     * @param forFolder should be true if resource is a folder
      *
      * @return the access control list of the resource
      *
@@ -11053,15 +11315,13 @@ public final class CmsDriverManager implements I_CmsEventListener {
         CmsDbContext dbc,
         CmsResource resource,
         boolean inheritedOnly,
-        boolean forFolder,
-        int depth)
+        boolean forFolder)
     throws CmsException {
 
         String cacheKey = getCacheKey(
             new String[] {
                 inheritedOnly ? "+" : "-",
                 forFolder ? "+" : "-",
-                Integer.toString(depth),
                 resource.getStructureId().toString()},
             dbc);
 
@@ -11076,57 +11336,26 @@ public final class CmsDriverManager implements I_CmsEventListener {
             dbc,
             dbc.currentProject(),
             resource.getResourceId(),
-            (depth > 1) || ((depth > 0) && forFolder));
+            false);
 
         // sort the list of aces
         boolean overwriteAll = sortAceList(aces);
 
+        acl = null;
         // if no 'overwrite all' ace was found
         if (!overwriteAll) {
-            // get the acl of the parent
-            CmsResource parentResource = null;
-            try {
-                // try to recurse over the id
-                parentResource = getVfsDriver(dbc).readParentFolder(
-                    dbc,
-                    dbc.currentProject().getUuid(),
-                    resource.getStructureId());
-            } catch (CmsVfsResourceNotFoundException e) {
-                // should never happen, but try with the path
-                String parentPath = CmsResource.getParentFolder(resource.getRootPath());
-                if (parentPath != null) {
-                    parentResource = getVfsDriver(dbc).readFolder(dbc, dbc.currentProject().getUuid(), parentPath);
-                }
-            }
-            if (parentResource != null) {
-                acl = (CmsAccessControlList)getAccessControlList(
-                    dbc,
-                    parentResource,
-                    inheritedOnly,
-                    forFolder,
-                    depth + 1).clone();
+            // get the acl inherited from the parent
+            CmsAccessControlList parentAcl = getInheritedAccessControlList(dbc, resource, forFolder);
+            if (parentAcl != null) {
+                acl = (CmsAccessControlList)parentAcl.clone();
             }
         }
         if (acl == null) {
             acl = new CmsAccessControlList();
         }
 
-        if (!((depth == 0) && inheritedOnly)) {
-            Iterator<CmsAccessControlEntry> itAces = aces.iterator();
-            while (itAces.hasNext()) {
-                CmsAccessControlEntry acEntry = itAces.next();
-                if (depth > 0) {
-                    acEntry.setFlags(CmsAccessControlEntry.ACCESS_FLAGS_INHERITED);
-                }
-
-                acl.add(acEntry);
-
-                // if the overwrite flag is set, reset the allowed permissions to the permissions of this entry
-                // denied permissions are kept or extended
-                if ((acEntry.getFlags() & CmsAccessControlEntry.ACCESS_FLAGS_OVERWRITE) > 0) {
-                    acl.setAllowedPermissions(acEntry);
-                }
-            }
+        if (!inheritedOnly) {
+            addAccessControlEntries(acl, aces, false);
         }
         if (dbc.getProjectId().isNullUUID()) {
             m_monitor.cacheACL(cacheKey, acl);
@@ -11184,6 +11413,82 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return b.toString();
     }
 
+    /**
+     * Returns the access control list which the given resource inherits from its parent folder.<p>
+     *
+     * The lists of the parent folders are shared by all their children in the access control list index,
+     * so the folder hierarchy is only read once. Files inherit all entries of the parent folder,
+     * sub folders only the entries marked to inherit.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource
+     * @param forFolder should be true if resource is a folder
+     *
+     * @return the inherited access control list, which must not be modified,
+     *      or <code>null</code> for the root folder
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private CmsAccessControlList getInheritedAccessControlList(
+        CmsDbContext dbc,
+        CmsResource resource,
+        boolean forFolder)
+    throws CmsException {
+
+        String parentPath = CmsResource.getParentFolder(resource.getRootPath());
+        if (parentPath == null) {
+            return null;
+        }
+        boolean useIndex = dbc.getProjectId().isNullUUID();
+        boolean online = dbc.currentProject().isOnlineProject();
+        if (useIndex) {
+            CmsAccessControlList acl = m_monitor.getCachedInheritedACL(online, parentPath, forFolder);
+            if (acl != null) {
+                return acl;
+            }
+        }
+
+        CmsResource parentResource = null;
+        try {
+            // try to recurse over the id
+            parentResource = getVfsDriver(dbc).readParentFolder(
+                dbc,
+                dbc.currentProject().getUuid(),
+                resource.getStructureId());
+        } catch (CmsVfsResourceNotFoundException e) {
+            // should never happen, but try with the path
+            parentResource = getVfsDriver(dbc).readFolder(dbc, dbc.currentProject().getUuid(), parentPath);
+        }
+        if (parentResource == null) {
+            return null;
+        }
+
+        // for sub folders only the entries marked to inherit are read
+        List<CmsAccessControlEntry> aces = getUserDriver(dbc).readAccessControlEntries(
+            dbc,
+            dbc.currentProject(),
+            parentResource.getResourceId(),
+            forFolder);
+        boolean overwriteAll = sortAceList(aces);
+
+        CmsAccessControlList acl = null;
+        if (!overwriteAll) {
+            CmsAccessControlList parentAcl = getInheritedAccessControlList(dbc, parentResource, true);
+            if (parentAcl != null) {
+                acl = (CmsAccessControlList)parentAcl.clone();
+            }
+        }
+        if (acl == null) {
+            acl = new CmsAccessControlList();
+        }
+        addAccessControlEntries(acl, aces, true);
+
+        if (useIndex) {
+            m_monitor.cacheInheritedACL(online, parentPath, forFolder, acl);
+        }
+        return acl;
+    }
+
     /**
      * Returns the correct project id.<p>
      *
@@ -11200,6 +11505,26 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return projectId;
     }
 
+    /**
+     * Returns the read mode flags for reading resources with the given filter.<p>
+     *
+     * @param filter the filter
+     * @param readTree <code>true</code> to read all subresources
+     *
+     * @return the read mode flags
+     */
+    private int getReadMode(CmsResourceFilter filter, boolean readTree) {
+
+        return (readTree ? CmsDriverManager.READMODE_INCLUDE_TREE : CmsDriverManager.READMODE_EXCLUDE_TREE)
+            | (filter.excludeType() ? CmsDriverManager.READMODE_EXCLUDE_TYPE : 0)
+            | (filter.excludeState() ? CmsDriverManager.READMODE_EXCLUDE_STATE : 0)
+            | ((filter.getOnlyFolders() != null)
+            ? (filter.getOnlyFolders().booleanValue()
+            ? CmsDriverManager.READMODE_ONLY_FOLDERS
+            : CmsDriverManager.READMODE_ONLY_FILES)
+            : 0);
+    }
+
     /**
      * Returns if and what state needs to be updated.<p>
      *
@@ -11414,6 +11739,82 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return allUsers;
     }
 
+    /**
+     * Returns the merged properties of a resource, with the inherited properties of the parent folder
+     * and the properties attached to the resource itself.<p>
+     *
+     * Properties attached to the resource replace inherited properties with the same name.<p>
+     *
+     * @param inherited the inherited properties of the parent folder, or <code>null</code> if there is no parent
+     * @param attached the properties attached to the resource
+     *
+     * @return the merged and frozen properties
+     */
+    private List<CmsProperty> mergeInheritedProperties(List<CmsProperty> inherited, List<CmsProperty> attached) {
+
+        List<CmsProperty> result = new ArrayList<CmsProperty>();
+        if (inherited != null) {
+            // make sure properties from lower folders "overwrite" properties from upper folders
+            result.addAll(inherited);
+            result.removeAll(attached);
+        }
+        result.addAll(attached);
+        CmsProperty.setFrozen(result);
+        return result;
+    }
+
+    /**
+     * Reads the properties attached to the given resources, without the inherited properties.<p>
+     *
+     * The properties of all resources not found in the property list cache are read from the database together,
+     * and are then stored in the cache.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources to read the properties for
+     *
+     * @return the frozen lists of properties, with the structure ids of the resources as keys
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private Map<CmsUUID, List<CmsProperty>> readAttachedPropertyObjects(
+        CmsDbContext dbc,
+        List<CmsResource> resources) throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        boolean useCache = dbc.getProjectId().isNullUUID();
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>(resources.size());
+        List<CmsResource> missing = new ArrayList<CmsResource>();
+        for (CmsResource resource : resources) {
+            List<CmsProperty> properties = null;
+            if (useCache) {
+                properties = m_monitor.getCachedPropertyList(
+                    getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath()));
+            }
+            if (properties != null) {
+                result.put(resource.getStructureId(), properties);
+            } else {
+                missing.add(resource);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<CmsUUID, List<CmsProperty>> read = getVfsDriver(dbc).readPropertyObjects(
+                dbc,
+                dbc.currentProject(),
+                missing);
+            for (CmsResource resource : missing) {
+                List<CmsProperty> properties = read.get(resource.getStructureId());
+                CmsProperty.setFrozen(properties);
+                if (useCache) {
+                    m_monitor.cachePropertyList(
+                        getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath()),
+                        properties);
+                }
+                result.put(resource.getStructureId(), properties);
+            }
+        }
+        return result;
+    }
+
     /**
      * Reads all resources that are inside and changed in a specified project.<p>
      *
@@ -11490,6 +11891,25 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Returns the publish tag for a new publish job.<p>
+     *
+     * Concurrent publish jobs read the next publish tag before the history entries of the other jobs
+     * are written, so the tags handed out before are taken into account.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the publish tag for a new publish job
+     */
+    private int reservePublishTag(CmsDbContext dbc) {
+
+        synchronized (m_publishTagLock) {
+            int publishTag = Math.max(getNextPublishTag(dbc), m_lastPublishTag + 1);
+            m_lastPublishTag = publishTag;
+            return publishTag;
+        }
+    }
+
     /**
      * Sorts the given list of {@link CmsAccessControlEntry} objects.<p>
      *
@@ -11786,8 +12206,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
             vfsDriver.createRelation(dbc, dbc.currentProject().getUuid(), relation);
         }
 
-        // update the cache
-        m_monitor.clearResourceCache();
+        // update the cache, the access control entries have been restored
+        if (offlineResource != null) {
+            m_monitor.clearAccessControlListCache(offlineResource.getRootPath());
+        }
+        m_monitor.clearAccessControlListCache(onlineResource.getRootPath());
         m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
 
         if ((offlineResource == null) || offlineResource.getRootPath().equals(onlineResource.getRootPath())) {
@@ -348,6 +348,51 @@ public class CmsPublishList implements Externalizable {
         return (m_projectId == null);
     }
 
+    /**
+     * Checks if this publish list overlaps the given publish list, so that both lists can not be published concurrently.<p>
+     *
+     * Two publish lists overlap if they share a resource or a sibling of a resource,
+     * or if a resource of one list is a parent folder of a resource of the other list.<p>
+     *
+     * @param publishList the publish list to check
+     *
+     * @return <code>true</code> if the publish lists overlap
+     */
+    public boolean isOverlapping(CmsPublishList publishList) {
+
+        if (m_needsRevive || publishList.m_needsRevive) {
+            // the resources are not known, so assume the worst
+            return true;
+        }
+        Set<CmsUUID> resourceIds = new HashSet<CmsUUID>();
+        Set<String> paths = new HashSet<String>();
+        Set<String> parentPaths = new HashSet<String>();
+        for (CmsResource resource : internalGetResources()) {
+            resourceIds.add(resource.getResourceId());
+            paths.add(resource.getRootPath());
+            String parent = CmsResource.getParentFolder(resource.getRootPath());
+            while ((parent != null) && parentPaths.add(parent)) {
+                parent = CmsResource.getParentFolder(parent);
+            }
+        }
+        for (CmsResource resource : publishList.internalGetResources()) {
+            String rootPath = resource.getRootPath();
+            if (resourceIds.contains(resource.getResourceId())
+                || paths.contains(rootPath)
+                || parentPaths.contains(rootPath)) {
+                return true;
+            }
+            String parent = CmsResource.getParentFolder(rootPath);
+            while (parent != null) {
+                if (paths.contains(parent)) {
+                    return true;
+                }
+                parent = CmsResource.getParentFolder(parent);
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns <code>true</code> if all siblings of the project resources are to be published.<p>
      *
@@ -759,6 +804,21 @@ public class CmsPublishList implements Externalizable {
         return ret;
     }
 
+    /**
+     * Returns all resources of this publish list, without sorting them.<p>
+     *
+     * @return all resources of this publish list
+     */
+    private List<CmsResource> internalGetResources() {
+
+        List<CmsResource> all = new ArrayList<CmsResource>(
+            m_folderList.size() + m_fileList.size() + m_deletedFolderList.size());
+        all.addAll(m_folderList);
+        all.addAll(m_fileList);
+        all.addAll(m_deletedFolderList);
+        return all;
+    }
+
     /**
      * Builds a list of <code>CmsResource</code> instances from a list of resource structure IDs.<p>
      *
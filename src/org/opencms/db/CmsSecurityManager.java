@@ -93,8 +93,11 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -2958,6 +2961,45 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Performs a non-blocking permission check on a list of resources.<p>
+     *
+     * This has the same result as calling
+     * {@link #hasPermissions(CmsRequestContext, CmsResource, CmsPermissionSet, boolean, CmsResourceFilter)}
+     * for every resource, but all resources are checked with the same database context,
+     * ordered by their parent folder.<p>
+     *
+     * @param context the current request context
+     * @param resources the resources on which permissions are required
+     * @param requiredPermissions the set of permissions required for the operation
+     * @param checkLock if true, a lock for the current user is required for
+     *      all write operations, if false it's ok to write as long as the resource
+     *      is not locked by another user
+     * @param filter the resource filter to use
+     *
+     * @return a bit set with the bit of a list position set if the permissions for the resource
+     *      at this position are {@link I_CmsPermissionHandler#PERM_ALLOWED}
+     *
+     * @throws CmsException in case of i/o errors (NOT because of insufficient permissions)
+     */
+    public BitSet hasPermissions(
+        CmsRequestContext context,
+        List<CmsResource> resources,
+        CmsPermissionSet requiredPermissions,
+        boolean checkLock,
+        CmsResourceFilter filter)
+    throws CmsException {
+
+        BitSet result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = hasPermissions(dbc, resources, requiredPermissions, checkLock, filter);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Checks if the given user has the given role in the given organizational unit.<p>
      *
@@ -4901,6 +4943,42 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads all property objects of the given resources.<p>
+     *
+     * The result for each resource is the same as the result of
+     * {@link #readPropertyObjects(CmsRequestContext, CmsResource, boolean)},
+     * but the properties of all resources are read together.<p>
+     *
+     * @param context the context of the current request
+     * @param resources the resources to read the properties for
+     * @param search <code>true</code>, if the properties should be searched on all parent folders if not found
+     *      on the resource
+     *
+     * @return the lists of <code>{@link CmsProperty}</code> objects, with the structure ids of the resources as keys
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsRequestContext context,
+        List<CmsResource> resources,
+        boolean search) throws CmsException {
+
+        Map<CmsUUID, List<CmsProperty>> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readPropertyObjects(dbc, resources, search);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_PROPS_FOR_RESOURCES_1, Integer.valueOf(resources.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      *
@@ -5098,6 +5176,54 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads a page of the resources below the given path matching the filter criteria,
+     * including the full tree below the path only in case the <code>readTree</code>
+     * parameter is <code>true</code>.<p>
+     *
+     * The resources are ordered by their root path, and the page starts after the given resource.
+     * The returned page is only empty if there are no more resources.<p>
+     *
+     * @param context the current request context
+     * @param parent the parent path to read the resources from
+     * @param filter the filter
+     * @param readTree <code>true</code> to read all subresources
+     * @param after the last resource of the previous page, or <code>null</code> to read the first page
+     * @param pageSize the maximum number of resources to read from the database at once
+     *
+     * @return a list of <code>{@link CmsResource}</code> objects matching the filter criteria
+     *
+     * @throws CmsSecurityException if the user has insufficient permission for the given resource (read is required)
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsDriverManager#readResourcesPage(CmsDbContext, CmsResource, CmsResourceFilter, boolean, CmsResource, int)
+     */
+    public List<CmsResource> readResourcesPage(
+        CmsRequestContext context,
+        CmsResource parent,
+        CmsResourceFilter filter,
+        boolean readTree,
+        CmsResource after,
+        int pageSize)
+    throws CmsException, CmsSecurityException {
+
+        List<CmsResource> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            // check the access permissions
+            checkPermissions(dbc, parent, CmsPermissionSet.ACCESS_READ, true, CmsResourceFilter.ALL);
+            result = m_driverManager.readResourcesPage(dbc, parent, filter, readTree, after, pageSize);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_RESOURCES_1, context.removeSiteRoot(parent.getRootPath())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the resources that were visited by a user set in the filter.<p>
      *
@@ -7281,6 +7407,60 @@ public final class CmsSecurityManager {
         return m_permissionHandler.hasPermissions(dbc, resource, requiredPermissions, checkLock, filter);
     }
 
+    /**
+     * Performs a non-blocking permission check on a list of resources.<p>
+     *
+     * The resources are checked ordered by their parent folder, so the access control lists
+     * inherited from a folder are read once and then reused from the cache for all its children,
+     * even if the list is longer than the caches.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources on which permissions are required
+     * @param requiredPermissions the set of permissions required for the operation
+     * @param checkLock if true, a lock for the current user is required for
+     *      all write operations, if false it's ok to write as long as the resource
+     *      is not locked by another user
+     * @param filter the resource filter to use
+     *
+     * @return a bit set with the bit of a list position set if the permissions for the resource
+     *      at this position are {@link I_CmsPermissionHandler#PERM_ALLOWED}
+     *
+     * @throws CmsException in case of i/o errors (NOT because of insufficient permissions)
+     */
+    protected BitSet hasPermissions(
+        CmsDbContext dbc,
+        final List<CmsResource> resources,
+        CmsPermissionSet requiredPermissions,
+        boolean checkLock,
+        CmsResourceFilter filter)
+    throws CmsException {
+
+        int size = resources.size();
+        BitSet result = new BitSet(size);
+        Integer[] positions = new Integer[size];
+        final String[] parentFolders = new String[size];
+        for (int i = 0; i < size; i++) {
+            positions[i] = Integer.valueOf(i);
+            String parentFolder = CmsResource.getParentFolder(resources.get(i).getRootPath());
+            parentFolders[i] = (parentFolder != null) ? parentFolder : "";
+        }
+        // the sort is stable, so the resources of a folder keep their order
+        Arrays.sort(positions, new Comparator<Integer>() {
+
+            public int compare(Integer position1, Integer position2) {
+
+                return parentFolders[position1.intValue()].compareTo(parentFolders[position2.intValue()]);
+            }
+        });
+        for (Integer position : positions) {
+            int i = position.intValue();
+            if (hasPermissions(dbc, resources.get(i), requiredPermissions, checkLock, filter).isAllowed()) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns <code>true</code> if at least one of the given group names is equal to a group name
      * of the given role in the given organizational unit.<p>
@@ -187,6 +187,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
     }
 
+    /** Attribute name for the publish history entries which are buffered while publishing a project. */
+    public static final String DBC_ATTR_PUBLISH_HISTORY_BUFFER = "DBC_ATTR_PUBLISH_HISTORY_BUFFER";
+
     /** Attribute name for reading the project of a resource. */
     public static final String DBC_ATTR_READ_PROJECT_FOR_RESOURCE = "DBC_ATTR_READ_PROJECT_FOR_RESOURCE";
 
@@ -646,13 +649,14 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             conn = m_sqlManager.getConnection(dbc);
             String sql = m_sqlManager.readQuery("C_USER_PUBLISH_LIST_DELETE_3");
             stmt = m_sqlManager.getPreparedStatementForSql(conn, sql);
+            int batchCount = 0;
             for (CmsUserPublishListEntry entry : publishListDeletions) {
                 stmt.setString(1, entry.getStructureId().toString());
                 stmt.setString(2, entry.getUserId() != null ? entry.getUserId().toString() : null);
                 stmt.setInt(3, entry.getUserId() == null ? 1 : 0);
-                stmt.addBatch();
+                batchCount = m_sqlManager.addBatch(stmt, batchCount);
             }
-            stmt.executeBatch();
+            m_sqlManager.executeBatch(stmt, batchCount);
         } catch (SQLException e) {
             throw new CmsDbSqlException(
                 Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
@@ -874,6 +878,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         String classname = configuration.get("db.project.sqlmanager");
         m_sqlManager = initSqlManager(classname);
         m_sqlManager.init(I_CmsProjectDriver.DRIVER_TYPE_ID, poolUrl);
+        m_sqlManager.setBatchSize(configuration.getInteger("db.project.batchsize", CmsSqlManager.DEFAULT_BATCH_SIZE));
 
         m_driverManager = driverManager;
 
@@ -1656,6 +1661,10 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         int publishedFileCount = 0;
         Set<CmsUUID> publishedContentIds = new HashSet<CmsUUID>();
         Set<CmsUUID> publishedIds = new HashSet<CmsUUID>();
+        // buffer the publish history entries to write them in batches
+        dbc.setAttribute(
+            DBC_ATTR_PUBLISH_HISTORY_BUFFER,
+            CmsPair.create(publishList.getPublishHistoryId(), new ArrayList<CmsPublishedResource>()));
 
         try {
 
@@ -1937,6 +1946,17 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             }
             throw new CmsDataAccessException(message, o);
         } finally {
+            // write the remaining publish history entries
+            try {
+                flushPublishHistoryBuffer(dbc);
+            } catch (CmsDataAccessException e) {
+                dbc.report(
+                    report,
+                    Messages.get().container(Messages.ERR_WRITING_HISTORY_OF_PROJECT_1, dbc.currentProject().getName()),
+                    e);
+            } finally {
+                dbc.removeAttribute(DBC_ATTR_PUBLISH_HISTORY_BUFFER);
+            }
             // reset vfs driver internal info after publishing
             m_driverManager.getVfsDriver(dbc).publishVersions(dbc, null, false);
             Object[] msgArgs = new Object[] {
@@ -2705,6 +2725,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             }
             Iterator<CmsLock> i = locks.iterator();
             int count = 0;
+            int batchCount = 0;
             while (i.hasNext()) {
                 CmsLock lock = i.next();
                 // only persist locks that should be written to the DB
@@ -2715,7 +2736,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                     stmt.setString(2, sysLock.getUserId().toString());
                     stmt.setString(3, sysLock.getProjectId().toString());
                     stmt.setInt(4, sysLock.getType().hashCode());
-                    stmt.executeUpdate();
+                    batchCount = m_sqlManager.addBatch(stmt, batchCount);
                     count++;
                 }
                 CmsLock editLock = lock.getEditionLock();
@@ -2725,10 +2746,11 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                     stmt.setString(2, editLock.getUserId().toString());
                     stmt.setString(3, editLock.getProjectId().toString());
                     stmt.setInt(4, editLock.getType().hashCode());
-                    stmt.executeUpdate();
+                    batchCount = m_sqlManager.addBatch(stmt, batchCount);
                     count++;
                 }
             }
+            m_sqlManager.executeBatch(stmt, batchCount);
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_DBG_WRITE_LOCKS_1, new Integer(count)));
             }
@@ -2779,21 +2801,52 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
     public void writePublishHistory(CmsDbContext dbc, CmsUUID publishId, CmsPublishedResource resource)
     throws CmsDataAccessException {
 
+        List<CmsPublishedResource> buffer = getPublishHistoryBuffer(dbc, publishId);
+        if (buffer != null) {
+            // while publishing a project, the publish history is written in batches
+            buffer.add(resource);
+            if (buffer.size() >= m_sqlManager.getBatchSize()) {
+                flushPublishHistoryBuffer(dbc);
+            }
+            return;
+        }
+        writePublishHistory(dbc, publishId, Collections.singletonList(resource));
+    }
+
+    /**
+     * Inserts the given entries into the publish history, using JDBC batches.<p>
+     *
+     * @param dbc the current database context
+     * @param publishId the id of the publish task
+     * @param resources the published resources
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    public void writePublishHistory(CmsDbContext dbc, CmsUUID publishId, List<CmsPublishedResource> resources)
+    throws CmsDataAccessException {
+
+        if (resources.isEmpty()) {
+            return;
+        }
         Connection conn = null;
         PreparedStatement stmt = null;
 
         try {
             conn = m_sqlManager.getConnection(dbc);
             stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_WRITE_PUBLISH_HISTORY");
-            stmt.setInt(1, resource.getPublishTag());
-            stmt.setString(2, resource.getStructureId().toString());
-            stmt.setString(3, resource.getResourceId().toString());
-            stmt.setString(4, resource.getRootPath());
-            stmt.setInt(5, resource.getMovedState().getState());
-            stmt.setInt(6, resource.getType());
-            stmt.setString(7, publishId.toString());
-            stmt.setInt(8, resource.getSiblingCount());
-            stmt.executeUpdate();
+            int batchCount = 0;
+            for (CmsPublishedResource resource : resources) {
+                stmt.setInt(1, resource.getPublishTag());
+                stmt.setString(2, resource.getStructureId().toString());
+                stmt.setString(3, resource.getResourceId().toString());
+                stmt.setString(4, resource.getRootPath());
+                stmt.setInt(5, resource.getMovedState().getState());
+                stmt.setInt(6, resource.getType());
+                stmt.setString(7, publishId.toString());
+                stmt.setInt(8, resource.getSiblingCount());
+                batchCount = m_sqlManager.addBatch(stmt, batchCount);
+            }
+            m_sqlManager.executeBatch(stmt, batchCount);
         } catch (SQLException e) {
             throw new CmsDbSqlException(
                 Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
@@ -2936,13 +2989,14 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             conn = m_sqlManager.getConnection(dbc);
             String sql = m_sqlManager.readQuery("C_USER_PUBLISH_LIST_INSERT_3");
             stmt = m_sqlManager.getPreparedStatementForSql(conn, sql);
+            int batchCount = 0;
             for (CmsUserPublishListEntry entry : publishListAdditions) {
                 stmt.setString(1, entry.getUserId().toString());
                 stmt.setString(2, entry.getStructureId().toString());
                 stmt.setLong(3, entry.getDateChanged());
-                stmt.addBatch();
+                batchCount = m_sqlManager.addBatch(stmt, batchCount);
             }
-            stmt.executeBatch();
+            m_sqlManager.executeBatch(stmt, batchCount);
         } catch (SQLException e) {
             throw new CmsDbSqlException(
                 Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
@@ -2975,6 +3029,26 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             res.getLong("FINISH_TIME"));
     }
 
+    /**
+     * Writes the publish history entries buffered in the given database context, if any.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void flushPublishHistoryBuffer(CmsDbContext dbc) throws CmsDataAccessException {
+
+        Object attribute = dbc.getAttribute(DBC_ATTR_PUBLISH_HISTORY_BUFFER);
+        @SuppressWarnings("unchecked")
+        CmsPair<CmsUUID, List<CmsPublishedResource>> buffer = (CmsPair<CmsUUID, List<CmsPublishedResource>>)attribute;
+        if ((buffer == null) || buffer.getSecond().isEmpty()) {
+            return;
+        }
+        List<CmsPublishedResource> resources = new ArrayList<CmsPublishedResource>(buffer.getSecond());
+        buffer.getSecond().clear();
+        writePublishHistory(dbc, buffer.getFirst(), resources);
+    }
+
     /**
      * Checks if the given resource (by id) is available in the online project,
      * if there exists a resource with a different path (a moved file), then the
@@ -3066,6 +3140,26 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return conditions.toString();
     }
 
+    /**
+     * Returns the buffer for publish history entries of the given publish task, or <code>null</code>
+     * if the entries should be written immediately.<p>
+     *
+     * @param dbc the current database context
+     * @param publishId the id of the publish task
+     *
+     * @return the buffer for the publish history entries, or <code>null</code>
+     */
+    protected List<CmsPublishedResource> getPublishHistoryBuffer(CmsDbContext dbc, CmsUUID publishId) {
+
+        Object attribute = dbc.getAttribute(DBC_ATTR_PUBLISH_HISTORY_BUFFER);
+        @SuppressWarnings("unchecked")
+        CmsPair<CmsUUID, List<CmsPublishedResource>> buffer = (CmsPair<CmsUUID, List<CmsPublishedResource>>)attribute;
+        if ((buffer == null) || (m_sqlManager.getBatchSize() < 2) || !buffer.getFirst().equals(publishId)) {
+            return null;
+        }
+        return buffer.getSecond();
+    }
+
     /**
      * Implementation of reading the user publish list which uses the log table.<p>
      *
@@ -57,6 +57,9 @@ import org.apache.commons.logging.Log;
  */
 public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
+    /** The default maximum number of statements executed in a single JDBC batch. */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
     /** A pattern being replaced in SQL queries to generate SQL queries to access online/offline tables. */
     protected static final String QUERY_PROJECT_SEARCH_PATTERN = "_${PROJECT}_";
 
@@ -66,6 +69,9 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     /** The filename/path of the SQL query properties. */
     private static final String QUERY_PROPERTIES = "org/opencms/db/generic/query.properties";
 
+    /** The maximum number of statements executed in a single JDBC batch, values smaller than 2 disable batching. */
+    protected int m_batchSize = DEFAULT_BATCH_SIZE;
+
     /** A map to cache queries with replaced search patterns. */
     protected ConcurrentHashMap<String, String> m_cachedQueries;
 
@@ -132,6 +138,37 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         return CmsStringUtil.substitute(query, QUERY_PROJECT_SEARCH_PATTERN, replacePattern);
     }
 
+    /**
+     * Adds the current parameters of the given statement to its batch.<p>
+     *
+     * The batch is executed as soon as it contains the configured maximum number of statements.
+     * If batching is disabled, the statement is executed immediately.<p>
+     *
+     * Use {@link #executeBatch(PreparedStatement, int)} after the last call of this method
+     * to execute the remaining statements.<p>
+     *
+     * @param stmt the prepared statement with all parameters set
+     * @param batchCount the number of statements currently in the batch
+     *
+     * @return the number of statements in the batch after this call
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    public int addBatch(PreparedStatement stmt, int batchCount) throws SQLException {
+
+        if (m_batchSize < 2) {
+            stmt.executeUpdate();
+            return 0;
+        }
+        stmt.addBatch();
+        batchCount++;
+        if (batchCount >= m_batchSize) {
+            stmt.executeBatch();
+            return 0;
+        }
+        return batchCount;
+    }
+
     /**
      * Attempts to close the connection, statement and result set after a statement has been executed.<p>
      *
@@ -186,6 +223,31 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
     }
 
+    /**
+     * Executes the statements remaining in the batch of the given statement.<p>
+     *
+     * @param stmt the prepared statement
+     * @param batchCount the number of statements currently in the batch, as returned by {@link #addBatch(PreparedStatement, int)}
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    public void executeBatch(PreparedStatement stmt, int batchCount) throws SQLException {
+
+        if (batchCount > 0) {
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Returns the maximum number of statements executed in a single JDBC batch.<p>
+     *
+     * @return the maximum number of statements executed in a single JDBC batch
+     */
+    public int getBatchSize() {
+
+        return m_batchSize;
+    }
+
     /**
      * Retrieves the value of the designated column in the current row of this ResultSet object as
      * a byte array in the Java programming language.<p>
@@ -394,6 +456,18 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         return value;
     }
 
+    /**
+     * Sets the maximum number of statements executed in a single JDBC batch.<p>
+     *
+     * A value smaller than 2 disables batching, so that every statement is executed on its own.<p>
+     *
+     * @param batchSize the maximum number of statements executed in a single JDBC batch
+     */
+    public void setBatchSize(int batchSize) {
+
+        m_batchSize = batchSize;
+    }
+
     /**
      * Sets the designated parameter to the given Java array of bytes.<p>
      *
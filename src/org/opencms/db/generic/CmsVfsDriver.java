@@ -103,6 +103,14 @@ import org.apache.commons.logging.Log;
  */
 public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
+    /**
+     * Attribute name for the resource ids with a resource operation, which are temporarily
+     * used to compute the versions during publishing.<p>
+     *
+     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
+     */
+    public static final String DBC_ATTR_PUBLISH_RESOURCE_OPERATIONS = "DBC_ATTR_PUBLISH_RESOURCE_OPERATIONS";
+
     /** Contains the macro replacement value for the offline project. */
     protected static final String OFFLINE = "OFFLINE";
 
@@ -112,16 +120,12 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.generic.CmsVfsDriver.class);
 
+    /** The maximum number of resources to read the properties for with a single query. */
+    private static final int PROPERTIES_BATCH_SIZE = 250;
+
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
-    /**
-     * This field is temporarily used to compute the versions during publishing.<p>
-     *
-     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
-     */
-    protected List<CmsUUID> m_resOp = new ArrayList<CmsUUID>();
-
     /** The sql manager. */
     protected CmsSqlManager m_sqlManager;
 
@@ -1659,7 +1663,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         // if resource is null just flush the internal cache
         if (resource == null) {
-            m_resOp.clear();
+            dbc.removeAttribute(DBC_ATTR_PUBLISH_RESOURCE_OPERATIONS);
             return;
         }
 
@@ -1668,9 +1672,11 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             return;
         }
 
+        // the resource operations are kept in the db context, since several publish jobs may run concurrently
+        Set<CmsUUID> resourceOperations = getPublishResourceOperations(dbc);
         if (firstSibling) {
             // reset the resource operation flag
-            m_resOp.remove(resource.getResourceId());
+            resourceOperations.remove(resource.getResourceId());
         }
 
         boolean resOp = false; // assume structure operation
@@ -1692,7 +1698,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             if (resOp) {
                 return;
             }
-            if (m_resOp.contains(resource.getResourceId())) {
+            if (resourceOperations.contains(resource.getResourceId())) {
                 return;
             }
         }
@@ -1708,7 +1714,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         if (resOp) {
             if (resource.getSiblingCount() > 1) {
-                m_resOp.add(resource.getResourceId());
+                resourceOperations.add(resource.getResourceId());
             }
             resVersion++;
         }
@@ -2165,7 +2171,6 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         String propertyKey;
         String propertyValue;
-        CmsProperty property;
 
         try {
             conn = m_sqlManager.getConnection(dbc);
@@ -2183,29 +2188,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 propertyValue = res.getString(2);
                 mappingType = res.getInt(3);
 
-                property = propertyMap.get(propertyKey);
-                if (property == null) {
-                    // there doesn't exist a property object for this key yet
-                    property = new CmsProperty();
-                    property.setName(propertyKey);
-                    propertyMap.put(propertyKey, property);
-                }
-
-                if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
-                    // this property value is mapped to a structure record
-                    property.setStructureValue(propertyValue);
-                } else if (mappingType == CmsProperty.RESOURCE_RECORD_MAPPING) {
-                    // this property value is mapped to a resource record
-                    property.setResourceValue(propertyValue);
-                } else {
-                    throw new CmsDbConsistencyException(
-                        Messages.get().container(
-                            Messages.ERR_UNKNOWN_PROPERTY_VALUE_MAPPING_3,
-                            resource.getRootPath(),
-                            new Integer(mappingType),
-                            propertyKey));
-                }
-                property.setOrigin(resource.getRootPath());
+                internalAddPropertyValue(propertyMap, resource, propertyKey, propertyValue, mappingType);
             }
         } catch (SQLException e) {
             throw new CmsDbSqlException(
@@ -2218,6 +2201,97 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException {
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>(resources.size());
+        for (int start = 0; start < resources.size(); start += PROPERTIES_BATCH_SIZE) {
+            List<CmsResource> batch = resources.subList(
+                start,
+                Math.min(start + PROPERTIES_BATCH_SIZE, resources.size()));
+
+            // the property values are mapped to either the structure id or the resource id
+            Set<String> mappingIds = new HashSet<String>(batch.size() * 2);
+            for (CmsResource resource : batch) {
+                mappingIds.add(resource.getStructureId().toString());
+                mappingIds.add(resource.getResourceId().toString());
+            }
+
+            // the rows read, with the mapping ids as keys
+            Map<String, List<Object[]>> rows = new HashMap<String, List<Object[]>>(mappingIds.size());
+            ResultSet res = null;
+            PreparedStatement stmt = null;
+            Connection conn = null;
+            try {
+                StringBuffer conditions = new StringBuffer(mappingIds.size() * 3);
+                conditions.append(BEGIN_CONDITION);
+                for (int i = 0; i < mappingIds.size(); i++) {
+                    if (i > 0) {
+                        conditions.append(", ");
+                    }
+                    conditions.append("?");
+                }
+                conditions.append(END_CONDITION);
+
+                conn = m_sqlManager.getConnection(dbc);
+                stmt = m_sqlManager.getPreparedStatementForSql(
+                    conn,
+                    m_sqlManager.readQuery(projectId, "C_PROPERTIES_READALL_FOR_MAPPING_IDS") + conditions);
+                CmsDbUtil.fillParameters(stmt, new ArrayList<Object>(mappingIds));
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    String mappingId = res.getString(4);
+                    List<Object[]> mappingRows = rows.get(mappingId);
+                    if (mappingRows == null) {
+                        mappingRows = new ArrayList<Object[]>();
+                        rows.put(mappingId, mappingRows);
+                    }
+                    mappingRows.add(new Object[] {res.getString(1), res.getString(2), Integer.valueOf(res.getInt(3))});
+                }
+            } catch (SQLException e) {
+                throw new CmsDbSqlException(
+                    Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                    e);
+            } finally {
+                m_sqlManager.closeAll(dbc, conn, stmt, res);
+            }
+
+            for (CmsResource resource : batch) {
+                Map<String, CmsProperty> propertyMap = new HashMap<String, CmsProperty>();
+                String structureId = resource.getStructureId().toString();
+                String resourceId = resource.getResourceId().toString();
+                for (String mappingId : new String[] {structureId, resourceId}) {
+                    List<Object[]> mappingRows = rows.get(mappingId);
+                    if (mappingRows == null) {
+                        continue;
+                    }
+                    for (Object[] row : mappingRows) {
+                        internalAddPropertyValue(
+                            propertyMap,
+                            resource,
+                            (String)row[0],
+                            (String)row[1],
+                            ((Integer)row[2]).intValue());
+                    }
+                    if (structureId.equals(resourceId)) {
+                        break;
+                    }
+                }
+                result.put(resource.getStructureId(), new ArrayList<CmsProperty>(propertyMap.values()));
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -2649,6 +2723,83 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readResourceTreePage(org.opencms.db.CmsDbContext, CmsUUID, java.lang.String, int, CmsResourceState, long, long, long, long, long, long, int, org.opencms.file.CmsResource, int)
+     */
+    public List<CmsResource> readResourceTreePage(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        String parentPath,
+        int type,
+        CmsResourceState state,
+        long lastModifiedAfter,
+        long lastModifiedBefore,
+        long releasedAfter,
+        long releasedBefore,
+        long expiredAfter,
+        long expiredBefore,
+        int mode,
+        CmsResource after,
+        int pageSize) throws CmsDataAccessException {
+
+        List<CmsResource> result = new ArrayList<CmsResource>(pageSize);
+
+        StringBuffer conditions = new StringBuffer();
+        List<Object> params = new ArrayList<Object>(8);
+
+        // prepare the selection criteria
+        prepareProjectCondition(projectId, mode, conditions, params);
+        prepareResourceCondition(projectId, mode, conditions);
+        prepareTypeCondition(projectId, type, mode, conditions, params);
+        prepareTimeRangeCondition(projectId, lastModifiedAfter, lastModifiedBefore, conditions, params);
+        prepareReleasedTimeRangeCondition(projectId, releasedAfter, releasedBefore, conditions, params);
+        prepareExpiredTimeRangeCondition(projectId, expiredAfter, expiredBefore, conditions, params);
+        preparePathCondition(projectId, parentPath, mode, conditions, params);
+        prepareStateCondition(projectId, state, mode, conditions, params);
+        if (after != null) {
+            // continue after the last resource of the previous page
+            conditions.append(BEGIN_INCLUDE_CONDITION);
+            conditions.append(m_sqlManager.readQuery(projectId, "C_RESOURCES_SELECT_AFTER_PATH_AND_STRUCTURE_ID"));
+            conditions.append(END_CONDITION);
+            params.add(after.getRootPath());
+            params.add(after.getRootPath());
+            params.add(after.getStructureId().toString());
+        }
+
+        // now read the page of matching resources within the subtree
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            StringBuffer queryBuf = new StringBuffer(256);
+            queryBuf.append(m_sqlManager.readQuery(projectId, "C_RESOURCES_READ_TREE"));
+            queryBuf.append(conditions);
+            queryBuf.append(" ");
+            queryBuf.append(m_sqlManager.readQuery(projectId, "C_RESOURCES_ORDER_BY_PATH_AND_STRUCTURE_ID"));
+            stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString());
+            CmsDbUtil.fillParameters(stmt, params);
+            stmt.setMaxRows(pageSize);
+            stmt.setFetchSize(pageSize);
+
+            res = stmt.executeQuery();
+            while (res.next()) {
+                CmsResource resource = createResource(res, projectId);
+                result.add(resource);
+            }
+
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRewriteAliases(org.opencms.db.CmsDbContext, org.opencms.db.CmsRewriteAliasFilter)
      */
@@ -3648,6 +3799,68 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Returns the ids of the resources with a resource operation during the current publish job,
+     * which are stored in the given database context.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the modifiable set of resource ids
+     */
+    protected Set<CmsUUID> getPublishResourceOperations(CmsDbContext dbc) {
+
+        @SuppressWarnings("unchecked")
+        Set<CmsUUID> resourceOperations = (Set<CmsUUID>)dbc.getAttribute(DBC_ATTR_PUBLISH_RESOURCE_OPERATIONS);
+        if (resourceOperations == null) {
+            resourceOperations = new HashSet<CmsUUID>();
+            dbc.setAttribute(DBC_ATTR_PUBLISH_RESOURCE_OPERATIONS, resourceOperations);
+        }
+        return resourceOperations;
+    }
+
+    /**
+     * Adds a property value read from the database to the given map of properties.<p>
+     *
+     * @param propertyMap the properties of the resource, with the property names as keys
+     * @param resource the resource the property value is mapped to
+     * @param propertyKey the name of the property
+     * @param propertyValue the value of the property
+     * @param mappingType the mapping type of the property value
+     *
+     * @throws CmsDbConsistencyException if the mapping type is unknown
+     */
+    protected void internalAddPropertyValue(
+        Map<String, CmsProperty> propertyMap,
+        CmsResource resource,
+        String propertyKey,
+        String propertyValue,
+        int mappingType) throws CmsDbConsistencyException {
+
+        CmsProperty property = propertyMap.get(propertyKey);
+        if (property == null) {
+            // there doesn't exist a property object for this key yet
+            property = new CmsProperty();
+            property.setName(propertyKey);
+            propertyMap.put(propertyKey, property);
+        }
+
+        if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+            // this property value is mapped to a structure record
+            property.setStructureValue(propertyValue);
+        } else if (mappingType == CmsProperty.RESOURCE_RECORD_MAPPING) {
+            // this property value is mapped to a resource record
+            property.setResourceValue(propertyValue);
+        } else {
+            throw new CmsDbConsistencyException(
+                Messages.get().container(
+                    Messages.ERR_UNKNOWN_PROPERTY_VALUE_MAPPING_3,
+                    resource.getRootPath(),
+                    new Integer(mappingType),
+                    propertyKey));
+        }
+        property.setOrigin(resource.getRootPath());
+    }
+
     /**
      * Returns the count of properties for a property definition.<p>
      *
@@ -127,6 +127,14 @@ import org.apache.commons.logging.Log;
  */
 public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
+    /**
+     * Attribute name for the resource ids with a resource operation, which are temporarily
+     * used to compute the versions during publishing.<p>
+     *
+     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
+     */
+    public static final String DBC_ATTR_PUBLISH_RESOURCE_OPERATIONS = "DBC_ATTR_PUBLISH_RESOURCE_OPERATIONS";
+
     /** Internal presentation of empty binary content. */
     public static final byte[] EMPTY_BLOB = new byte[0];
 
@@ -265,6 +273,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Query key. */
     private static final String C_RESOURCES_ORDER_BY_PATH = "C_RESOURCES_ORDER_BY_PATH";
 
+    /** Query key. */
+    private static final String C_RESOURCES_ORDER_BY_PATH_AND_STRUCTURE_ID = "C_RESOURCES_ORDER_BY_PATH_AND_STRUCTURE_ID";
+
     /** Query key. */
     private static final String C_RESOURCES_READ = "C_RESOURCES_READ";
 
@@ -298,6 +309,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Query key. */
     private static final String C_RESOURCES_SELECT_BY_DATE_LASTMODIFIED_BEFORE = "C_RESOURCES_SELECT_BY_DATE_LASTMODIFIED_BEFORE";
 
+    /** Query key. */
+    private static final String C_RESOURCES_SELECT_AFTER_PATH_AND_STRUCTURE_ID = "C_RESOURCES_SELECT_AFTER_PATH_AND_STRUCTURE_ID";
+
     /** Query key. */
     private static final String C_RESOURCES_SELECT_BY_PARENT_UUID = "C_RESOURCES_SELECT_BY_PARENT_UUID";
 
@@ -400,13 +414,6 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
-    /**
-     * This field is temporarily used to compute the versions during publishing.<p>
-     *
-     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
-     */
-    protected List<CmsUUID> m_resOp = new ArrayList<CmsUUID>();
-
     /** The sql manager. */
     protected CmsSqlManager m_sqlManager;
 
@@ -1785,7 +1792,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         // if resource is null just flush the internal cache
         if (resource == null) {
-            m_resOp.clear();
+            dbc.removeAttribute(DBC_ATTR_PUBLISH_RESOURCE_OPERATIONS);
             return;
         }
 
@@ -1794,9 +1801,11 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             return;
         }
 
+        // the resource operations are kept in the db context, since several publish jobs may run concurrently
+        Set<CmsUUID> resourceOperations = getPublishResourceOperations(dbc);
         if (firstSibling) {
             // reset the resource operation flag
-            m_resOp.remove(resource.getResourceId());
+            resourceOperations.remove(resource.getResourceId());
         }
 
         boolean resOp = false; // assume structure operation
@@ -1818,7 +1827,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             if (resOp) {
                 return;
             }
-            if (m_resOp.contains(resource.getResourceId())) {
+            if (resourceOperations.contains(resource.getResourceId())) {
                 return;
             }
         }
@@ -1834,7 +1843,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         if (resOp) {
             if (resource.getSiblingCount() > 1) {
-                m_resOp.add(resource.getResourceId());
+                resourceOperations.add(resource.getResourceId());
             }
             resVersion++;
         }
@@ -2257,6 +2266,21 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException {
+
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>(resources.size());
+        for (CmsResource resource : resources) {
+            result.put(resource.getStructureId(), readPropertyObjects(dbc, project, resource));
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -2599,6 +2623,76 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readResourceTreePage(org.opencms.db.CmsDbContext, CmsUUID, java.lang.String, int, CmsResourceState, long, long, long, long, long, long, int, org.opencms.file.CmsResource, int)
+     */
+    public List<CmsResource> readResourceTreePage(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        String parentPath,
+        int type,
+        CmsResourceState state,
+        long lastModifiedAfter,
+        long lastModifiedBefore,
+        long releasedAfter,
+        long releasedBefore,
+        long expiredAfter,
+        long expiredBefore,
+        int mode,
+        CmsResource after,
+        int pageSize) throws CmsDataAccessException {
+
+        List<CmsResource> result = new ArrayList<CmsResource>(pageSize);
+
+        StringBuffer conditions = new StringBuffer();
+        List<Object> params = new ArrayList<Object>(8);
+
+        // prepare the selection criteria
+        prepareProjectCondition(projectId, mode, conditions, params);
+        prepareResourceCondition(projectId, mode, conditions);
+        prepareTypeCondition(projectId, type, mode, conditions, params);
+        prepareTimeRangeCondition(projectId, lastModifiedAfter, lastModifiedBefore, conditions, params);
+        prepareReleasedTimeRangeCondition(projectId, releasedAfter, releasedBefore, conditions, params);
+        prepareExpiredTimeRangeCondition(projectId, expiredAfter, expiredBefore, conditions, params);
+        preparePathCondition(projectId, parentPath, mode, conditions, params);
+        prepareStateCondition(projectId, state, mode, conditions, params);
+        if (after != null) {
+            // continue after the last resource of the previous page
+            conditions.append(BEGIN_INCLUDE_CONDITION);
+            conditions.append(m_sqlManager.readQuery(projectId, C_RESOURCES_SELECT_AFTER_PATH_AND_STRUCTURE_ID));
+            conditions.append(END_CONDITION);
+            params.add(after.getRootPath());
+            params.add(after.getRootPath());
+            params.add(after.getStructureId().toString());
+        }
+
+        // now read the page of matching resources within the subtree
+        try {
+            StringBuffer queryBuf = new StringBuffer(256);
+            queryBuf.append(m_sqlManager.readQuery(projectId, C_RESOURCES_READ_TREE));
+            queryBuf.append(conditions);
+            queryBuf.append(" ");
+            queryBuf.append(m_sqlManager.readQuery(projectId, C_RESOURCES_ORDER_BY_PATH_AND_STRUCTURE_ID));
+            Query q = m_sqlManager.createQueryFromJPQL(dbc, queryBuf.toString());
+            for (int i = 0; i < params.size(); i++) {
+                q.setParameter(i + 1, params.get(i));
+            }
+            q.setMaxResults(pageSize);
+
+            @SuppressWarnings("unchecked")
+            List<Object[]> res = q.getResultList();
+            for (Object[] o : res) {
+                CmsResource resource = createResource(o, projectId);
+                result.add(resource);
+            }
+
+        } catch (PersistenceException e) {
+            throw new CmsDataAccessException(Messages.get().container(Messages.ERR_JPA_PERSITENCE_1, e), e);
+        }
+
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRewriteAliases(org.opencms.db.CmsDbContext, org.opencms.db.CmsRewriteAliasFilter)
      */
@@ -3526,6 +3620,25 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Returns the ids of the resources with a resource operation during the current publish job,
+     * which are stored in the given database context.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the modifiable set of resource ids
+     */
+    protected Set<CmsUUID> getPublishResourceOperations(CmsDbContext dbc) {
+
+        @SuppressWarnings("unchecked")
+        Set<CmsUUID> resourceOperations = (Set<CmsUUID>)dbc.getAttribute(DBC_ATTR_PUBLISH_RESOURCE_OPERATIONS);
+        if (resourceOperations == null) {
+            resourceOperations = new HashSet<CmsUUID>();
+            dbc.setAttribute(DBC_ATTR_PUBLISH_RESOURCE_OPERATIONS, resourceOperations);
+        }
+        return resourceOperations;
+    }
+
     /**
      * Returns the count of properties for a property definition.<p>
      *
@@ -68,6 +68,7 @@ import org.opencms.util.CmsUUID;
 import org.opencms.xml.content.CmsNumberSuffixNameSequence;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -1951,6 +1952,35 @@ public final class CmsObject {
             filter);
     }
 
+    /**
+     * Checks if the current user has required permissions to access the given resources.<p>
+     *
+     * Use this instead of calling {@link #hasPermissions(CmsResource, CmsPermissionSet, boolean, CmsResourceFilter)}
+     * for every resource of a list, since the checks of all resources share the database context
+     * and the access control lists inherited from their parent folders.<p>
+     *
+     * @param resources the resources to check the permissions for
+     * @param requiredPermissions the set of permissions to check for
+     * @param checkLock if <code>true</code> the lock status of the resources is checked for write operations
+     *      and the resources need be locked by the current user so that the test is passed,
+     *      if <code>false</code> the lock is not checked at all
+     * @param filter the resource filter to use
+     *
+     * @return a bit set with the bit of a list position set if the required permissions
+     *      for the resource at this position are satisfied
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public BitSet hasPermissions(
+        List<CmsResource> resources,
+        CmsPermissionSet requiredPermissions,
+        boolean checkLock,
+        CmsResourceFilter filter)
+    throws CmsException {
+
+        return m_securityManager.hasPermissions(m_context, resources, requiredPermissions, checkLock, filter);
+    }
+
     /**
      * Writes a list of access control entries as new access control entries of a given resource.<p>
      *
@@ -2986,6 +3016,28 @@ public final class CmsObject {
         return m_securityManager.readPropertyObjects(m_context, resource, search);
     }
 
+    /**
+     * Reads all property objects of the given resources.<p>
+     *
+     * The result for each resource is the same as the result of
+     * {@link #readPropertyObjects(CmsResource, boolean)}, but the properties of all resources
+     * are read together, and the properties inherited from the parent folders are only looked up once
+     * for each folder. Use this instead of reading the properties of every resource of a list.<p>
+     *
+     * @param resources the resources to read the properties for
+     * @param search if <code>true</code>, the properties of all parent folders of the resources
+     *      are merged with the resource properties.
+     *
+     * @return the lists of <code>{@link CmsProperty}</code> objects, with the structure ids of the resources as keys
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(List<CmsResource> resources, boolean search)
+    throws CmsException {
+
+        return m_securityManager.readPropertyObjects(m_context, resources, search);
+    }
+
     /**
      * Reads all property objects from a resource.<p>
      *
@@ -3256,6 +3308,35 @@ public final class CmsObject {
         return m_securityManager.readResources(m_context, resource, filter, readTree);
     }
 
+    /**
+     * Returns a cursor over the resources below the given path matching the filter criteria,
+     * including the full tree below the path only in case the <code>readTree</code>
+     * parameter is <code>true</code>.<p>
+     *
+     * Other than {@link #readResources(String, CmsResourceFilter, boolean)}, the resources are read
+     * page by page while iterating, so that large subtrees can be processed in constant memory.<p>
+     *
+     * @param resourcename the parent path to read the resources from
+     * @param filter the filter
+     * @param readTree <code>true</code> to read all subresources
+     * @param pageSize the maximum number of resources to read from the database at once,
+     *      for example {@link CmsResourceCursor#DEFAULT_PAGE_SIZE}
+     *
+     * @return a cursor over the <code>{@link CmsResource}</code> objects matching the filter criteria
+     *
+     * @throws CmsException if the parent folder can not be read
+     */
+    public CmsResourceCursor readResourcesCursor(
+        String resourcename,
+        CmsResourceFilter filter,
+        boolean readTree,
+        int pageSize)
+    throws CmsException {
+
+        CmsResource resource = readResource(resourcename, CmsResourceFilter.ALL);
+        return new CmsResourceCursor(m_securityManager, m_context, resource, filter, readTree, pageSize);
+    }
+
     /**
      * Reads all resources that have a value set for the specified property.<p>
      *
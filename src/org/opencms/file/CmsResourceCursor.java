@@ -0,0 +1,147 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.file;
+
+import org.opencms.db.CmsSecurityManager;
+import org.opencms.main.CmsException;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the resources below a folder, reading the resources page by page from the database.<p>
+ *
+ * Other than {@link CmsObject#readResources(String, CmsResourceFilter, boolean)}, this does not read all resources
+ * at once, so that large subtrees can be processed in constant memory, and the processing can be stopped
+ * at any time without reading the remaining resources. The resources are returned ordered by their root path.<p>
+ *
+ * Each page is read with the request context of the cursor at the time the page is read.<p>
+ *
+ * @since 10.5.0
+ *
+ * @see CmsObject#readResourcesCursor(String, CmsResourceFilter, boolean, int)
+ */
+public class CmsResourceCursor {
+
+    /** The default number of resources to read from the database at once. */
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    /** The current request context. */
+    private CmsRequestContext m_context;
+
+    /** The filter. */
+    private CmsResourceFilter m_filter;
+
+    /** The last resource returned, or <code>null</code> if no resource has been returned yet. */
+    private CmsResource m_last;
+
+    /** Indicates if all pages have been read. */
+    private boolean m_lastPageRead;
+
+    /** The iterator over the current page. */
+    private Iterator<CmsResource> m_page;
+
+    /** The maximum number of resources to read from the database at once. */
+    private int m_pageSize;
+
+    /** The parent folder. */
+    private CmsResource m_parent;
+
+    /** Flag to indicate if all subresources are read. */
+    private boolean m_readTree;
+
+    /** The security manager to read the pages with. */
+    private CmsSecurityManager m_securityManager;
+
+    /**
+     * Creates a new resource cursor.<p>
+     *
+     * @param securityManager the security manager to read the pages with
+     * @param context the current request context
+     * @param parent the parent folder
+     * @param filter the filter
+     * @param readTree <code>true</code> to read all subresources
+     * @param pageSize the maximum number of resources to read from the database at once
+     */
+    CmsResourceCursor(
+        CmsSecurityManager securityManager,
+        CmsRequestContext context,
+        CmsResource parent,
+        CmsResourceFilter filter,
+        boolean readTree,
+        int pageSize) {
+
+        m_securityManager = securityManager;
+        m_context = context;
+        m_parent = parent;
+        m_filter = filter;
+        m_readTree = readTree;
+        m_pageSize = pageSize;
+    }
+
+    /**
+     * Checks if there are more resources, reading the next page if required.<p>
+     *
+     * @return <code>true</code> if there are more resources
+     *
+     * @throws CmsException if something goes wrong reading the next page
+     */
+    public boolean hasNext() throws CmsException {
+
+        while (((m_page == null) || !m_page.hasNext()) && !m_lastPageRead) {
+            List<CmsResource> page = m_securityManager.readResourcesPage(
+                m_context,
+                m_parent,
+                m_filter,
+                m_readTree,
+                m_last,
+                m_pageSize);
+            m_lastPageRead = page.isEmpty();
+            m_page = page.iterator();
+        }
+        return (m_page != null) && m_page.hasNext();
+    }
+
+    /**
+     * Returns the next resource, reading the next page if required.<p>
+     *
+     * @return the next resource
+     *
+     * @throws CmsException if something goes wrong reading the next page
+     * @throws NoSuchElementException if there are no more resources
+     */
+    public CmsResource next() throws CmsException, NoSuchElementException {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        m_last = m_page.next();
+        return m_last;
+    }
+}
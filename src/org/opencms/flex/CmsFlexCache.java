@@ -28,25 +28,38 @@
 package org.opencms.flex;
 
 import org.opencms.cache.CmsLruCache;
+import org.opencms.cache.CmsStripedLruCache;
 import org.opencms.cache.I_CmsLruCacheObject;
 import org.opencms.file.CmsObject;
 import org.opencms.loader.CmsJspLoader;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsAsyncEventListener;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsCacheStatistics;
+import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.security.CmsRole;
-import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsStringUtil;
 
-import java.util.Collection;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Hashtable;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 
 /**
@@ -87,7 +100,11 @@ import org.apache.commons.logging.Log;
  *
  * Cache clearing is handled using events.
  * The cache is fully flushed if an event {@link I_CmsEventListener#EVENT_PUBLISH_PROJECT}
- * or {@link I_CmsEventListener#EVENT_CLEAR_CACHES} is caught.<p>
+ * or {@link I_CmsEventListener#EVENT_CLEAR_CACHES} is caught.
+ * Clearing the cache only increases an epoch counter, so it does not block the threads reading the cache.
+ * Keys and entries from an older epoch are ignored on lookup and removed by a background thread.
+ * If the asynchronous event manager is configured, these events are handled by a worker thread,
+ * so the thread that fires the event does not wait for the cache to be cleared.<p>
  *
  * @since 6.0.0
  *
@@ -96,7 +113,7 @@ import org.apache.commons.logging.Log;
  * @see org.opencms.cache.CmsLruCache
  * @see org.opencms.cache.I_CmsLruCacheObject
  */
-public class CmsFlexCache extends Object implements I_CmsEventListener {
+public class CmsFlexCache extends Object implements I_CmsAsyncEventListener {
 
     /**
      * A simple data container class for the FlexCache variations.<p>
@@ -107,7 +124,16 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         public CmsFlexCacheKey m_key;
 
         /** Maps variations to CmsFlexCacheEntries. */
-        public Map<String, I_CmsLruCacheObject> m_map;
+        public volatile Map<String, I_CmsLruCacheObject> m_map;
+
+        /** The epoch in which the entries of this variation were created. */
+        volatile long m_entriesEpoch;
+
+        /** The epoch in which this variation was created. */
+        volatile long m_keyEpoch;
+
+        /** The time of the last access to this variation. */
+        volatile long m_lastAccess;
 
         /**
          * Generates a new instance of CmsFlexCacheVariation.<p>
@@ -118,59 +144,20 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
 
             m_key = theKey;
             m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+            m_lastAccess = System.currentTimeMillis();
         }
     }
 
     /**
-     * Extended LRUMap that handles the variations in case a key is removed.<p>
+     * The epochs in which the keys and entries of the online or offline part of the cache were cleared last.<p>
      */
-    class CmsFlexKeyMap extends LRUMap {
-
-        /** Serial version UID required for safe serialization. */
-        private static final long serialVersionUID = 6931995916013396902L;
-
-        /**
-         * Initialize the map with the given size.<p>
-         *
-         * @param maxSize the maximum number of key to cache
-         */
-        public CmsFlexKeyMap(int maxSize) {
+    private static final class CmsFlexClearEpochs {
 
-            super(maxSize);
-        }
+        /** The epoch in which the entries were cleared last. */
+        volatile long m_entries;
 
-        /**
-         * Ensures that all variations that referenced by this key are released
-         * if the key is released.<p>
-         *
-         * @param entry the entry to remove
-         *
-         * @return <code>true</code> to actually delete the entry
-         *
-         * @see LRUMap#removeLRU(LinkEntry)
-         */
-        @Override
-        protected boolean removeLRU(LinkEntry entry) {
-
-            CmsFlexCacheVariation v = (CmsFlexCacheVariation)entry.getValue();
-            if (v == null) {
-                return true;
-            }
-            Map<String, I_CmsLruCacheObject> m = v.m_map;
-            if ((m == null) || (m.size() == 0)) {
-                return true;
-            }
-            Collection<I_CmsLruCacheObject> entries = m.values();
-            synchronized (m_variationCache) {
-                for (I_CmsLruCacheObject e : entries) {
-                    m_variationCache.remove(e);
-                }
-                v.m_map.clear();
-                v.m_map = null;
-                v.m_key = null;
-            }
-            return true;
-        }
+        /** The epoch in which the keys were cleared last. */
+        volatile long m_keys;
     }
 
     /** Suffix to append to online cache entries. */
@@ -209,6 +196,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** Online repository constant. */
     public static final String REPOSITORY_ONLINE = "online";
 
+    /** The name of the statistics of this cache, see {@link org.opencms.monitor.CmsMemoryMonitor#getCacheStatistics(String)}. */
+    public static final String STATISTICS_NAME = "FLEX";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexCache.class);
 
@@ -219,13 +209,37 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     private boolean m_cacheOffline;
 
     /** Indicates if the cache is enabled or not. */
-    private boolean m_enabled;
+    private volatile boolean m_enabled;
+
+    /** The current epoch, increased every time the cache is cleared. */
+    private final AtomicLong m_epoch = new AtomicLong();
 
     /** Map to store the entries for fast lookup. */
     private Map<String, CmsFlexCacheVariation> m_keyCache;
 
-    /** Counter for the size. */
-    private int m_size;
+    /** The maximum number of keys in the cache. */
+    private int m_maxKeys;
+
+    /** The optional off-heap tier for the output of large entries, <code>null</code> if disabled. */
+    private CmsFlexOffHeapStore m_offHeapStore;
+
+    /** The epochs in which the offline part of the cache was cleared last. */
+    private final CmsFlexClearEpochs m_offlineEpochs = new CmsFlexClearEpochs();
+
+    /** The epochs in which the online part of the cache was cleared last. */
+    private final CmsFlexClearEpochs m_onlineEpochs = new CmsFlexClearEpochs();
+
+    /** The executor for removing outdated keys and entries. */
+    private ExecutorService m_reclaimExecutor;
+
+    /** The variation maps which are no longer used, but whose entries may still be in the LRU cache. */
+    private final Queue<Map<String, I_CmsLruCacheObject>> m_reclaimQueue = new ConcurrentLinkedQueue<Map<String, I_CmsLruCacheObject>>();
+
+    /** Indicates if the removal of outdated keys and entries is already scheduled. */
+    private final AtomicBoolean m_reclaimScheduled = new AtomicBoolean();
+
+    /** The statistics of this cache. */
+    private CmsCacheStatistics m_statistics;
 
     /**
      * Constructor for class CmsFlexCache.<p>
@@ -248,14 +262,43 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         int maxEntryBytes = configuration.getMaxEntryBytes();
         int maxKeys = configuration.getMaxKeys();
 
-        m_variationCache = new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
-        OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_entryLruCache", m_variationCache);
+        CmsMemoryMonitor memoryMonitor = OpenCms.getMemoryMonitor();
+        m_statistics = (memoryMonitor != null)
+        ? memoryMonitor.getCacheStatistics(STATISTICS_NAME)
+        : new CmsCacheStatistics(STATISTICS_NAME);
+        m_variationCache = new CmsStripedLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
+        m_variationCache.setStatistics(m_statistics);
+        if (memoryMonitor != null) {
+            memoryMonitor.register(getClass().getName() + ".m_entryLruCache", m_variationCache);
+        }
 
         if (m_enabled) {
-            CmsFlexKeyMap flexKeyMap = new CmsFlexKeyMap(maxKeys);
-            m_keyCache = Collections.synchronizedMap(
-                CmsCollectionsGenericWrapper.<String, CmsFlexCacheVariation> map(flexKeyMap));
-            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", flexKeyMap);
+            m_maxKeys = maxKeys;
+            m_keyCache = new ConcurrentHashMap<String, CmsFlexCacheVariation>(INITIAL_CAPACITY_CACHE);
+            if (memoryMonitor != null) {
+                memoryMonitor.register(getClass().getName() + ".m_resourceMap", m_keyCache);
+            }
+            if (configuration.getOffHeapBytes() > 0) {
+                m_offHeapStore = new CmsFlexOffHeapStore(
+                    configuration.getOffHeapBytes(),
+                    configuration.getOffHeapEntryBytes());
+                if (CmsLog.INIT.isInfoEnabled()) {
+                    CmsLog.INIT.info(
+                        Messages.get().getBundle().key(
+                            Messages.INIT_FLEXCACHE_OFF_HEAP_2,
+                            Long.valueOf(m_offHeapStore.getMaxBytes()),
+                            Integer.valueOf(m_offHeapStore.getMinEntryBytes())));
+                }
+            }
+            m_reclaimExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "OpenCms: FlexCache cleanup");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
 
             OpenCms.addCmsEventListener(
                 this,
@@ -377,9 +420,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (!isEnabled() || !OpenCms.getRoleManager().hasRole(cms, CmsRole.WORKPLACE_MANAGER)) {
             return null;
         }
-        Object o = m_keyCache.get(key);
-        if (o != null) {
-            return ((CmsFlexCacheVariation)o).m_key;
+        CmsFlexCacheVariation v = getVariation(key);
+        if (v != null) {
+            return v.m_key;
         }
         return null;
     }
@@ -401,7 +444,13 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (!isEnabled() || !OpenCms.getRoleManager().hasRole(cms, CmsRole.WORKPLACE_MANAGER)) {
             return null;
         }
-        return m_keyCache.keySet();
+        Set<String> result = new HashSet<String>();
+        for (Map.Entry<String, CmsFlexCacheVariation> entry : m_keyCache.entrySet()) {
+            if (checkVariation(entry.getKey(), entry.getValue()) != null) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
     }
 
     /**
@@ -423,9 +472,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (!isEnabled() || !OpenCms.getRoleManager().hasRole(cms, CmsRole.WORKPLACE_MANAGER)) {
             return null;
         }
-        Object o = m_keyCache.get(key);
-        if (o != null) {
-            return ((CmsFlexCacheVariation)o).m_map.keySet();
+        CmsFlexCacheVariation v = getVariation(key);
+        if (v != null) {
+            return v.m_map.keySet();
         }
         return null;
     }
@@ -433,6 +482,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /**
      * Returns the LRU cache where the CacheEntries are cached.<p>
      *
+     * The cache is a {@link CmsStripedLruCache}, so concurrent requests do not block each other
+     * when adding or removing different entries.<p>
+     *
      * @return the LRU cache where the CacheEntries are cached
      */
     public CmsLruCache getEntryLruCache() {
@@ -464,6 +516,29 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         return m_keyCache.size();
     }
 
+    /**
+     * Shuts down this cache.<p>
+     *
+     * The cache no longer receives events, all keys and entries are removed,
+     * and the background thread that removes outdated keys and entries is stopped.
+     * After this the cache is disabled.<p>
+     */
+    public void shutDown() {
+
+        if (!isEnabled()) {
+            return;
+        }
+        m_enabled = false;
+        OpenCms.removeCmsEventListener(this);
+        m_reclaimExecutor.shutdownNow();
+        m_keyCache.clear();
+        m_reclaimQueue.clear();
+        m_variationCache.clear();
+        if (LOG.isInfoEnabled()) {
+            LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_SHUTDOWN_0));
+        }
+    }
+
     /**
      * Returns the total number of entries in the cache.<p>
      *
@@ -490,10 +565,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             // cache is disabled
             return null;
         }
-        Object o = m_keyCache.get(key.getResource());
-        if (o != null) {
+        CmsFlexCacheVariation v = getVariation(key.getResource());
+        if (v != null) {
             // found a matching key in the cache
-            CmsFlexCacheVariation v = (CmsFlexCacheVariation)o;
             String variation = v.m_key.matchRequestKey(key);
 
             if (CmsStringUtil.isEmpty(variation)) {
@@ -503,16 +577,20 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             CmsFlexCacheEntry entry = (CmsFlexCacheEntry)v.m_map.get(variation);
             if (entry == null) {
                 // no cache entry available for variation
+                m_statistics.recordMiss(key.getResource());
                 return null;
             }
             if (entry.getDateExpires() < System.currentTimeMillis()) {
                 // cache entry avaiable but expired, remove entry
                 m_variationCache.remove(entry);
+                m_statistics.recordMiss(key.getResource());
                 return null;
             }
             // return the found cache entry
+            m_statistics.recordHit();
             return entry;
         } else {
+            m_statistics.recordMiss(key.getResource());
             return null;
         }
     }
@@ -528,12 +606,12 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (!isEnabled()) {
             return null;
         }
-        Object o = m_keyCache.get(resource);
-        if (o != null) {
+        CmsFlexCacheVariation v = getVariation(resource);
+        if (v != null) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_FOUND_1, resource));
             }
-            return ((CmsFlexCacheVariation)o).m_key;
+            return v.m_key;
         } else {
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_NOT_FOUND_1, resource));
@@ -588,6 +666,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                         key.getVariation()));
             }
             put(key, entry);
+            m_statistics.recordPut(key.getResource());
             // Note that duplicates are NOT checked, it it assumed that this is done beforehand,
             // while checking if the entry is already in the cache or not.
             return true;
@@ -610,11 +689,11 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (!isEnabled()) {
             return;
         }
-        Object o = m_keyCache.get(key.getResource());
+        CmsFlexCacheVariation o = getVariation(key.getResource());
         if (o == null) {
             // No variation map for this resource yet, so create one
-            CmsFlexCacheVariation variationMap = new CmsFlexCacheVariation(key);
-            m_keyCache.put(key.getResource(), variationMap);
+            CmsFlexCacheVariation variationMap = createVariation(key);
+            addVariation(key.getResource(), variationMap);
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADD_KEY_1, key.getResource()));
             }
@@ -632,7 +711,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (!isEnabled()) {
             return;
         }
-        CmsFlexCacheVariation o = m_keyCache.get(key.getResource());
+        CmsFlexCacheVariation o = getVariation(key.getResource());
         if (o != null) {
             I_CmsLruCacheObject old = o.m_map.get(key.getVariation());
             if (old != null) {
@@ -641,18 +720,77 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Adds a new variation to the key cache.<p>
+     *
+     * If another variation is replaced, its entries are removed from the LRU cache in the background.<p>
+     *
+     * @param resource the resource name with online or offline suffix
+     * @param v the variation to add
+     */
+    private void addVariation(String resource, CmsFlexCacheVariation v) {
+
+        CmsFlexCacheVariation old = m_keyCache.put(resource, v);
+        if (old != null) {
+            m_reclaimQueue.add(old.m_map);
+            scheduleReclaim();
+        } else if (m_keyCache.size() > m_maxKeys) {
+            scheduleReclaim();
+        }
+    }
+
+    /**
+     * Checks if the given variation is still valid.<p>
+     *
+     * If the key of the variation has been cleared, the variation is removed from the key cache.
+     * If only the entries have been cleared, the variation gets a new, empty variation map.
+     * The entries of the outdated variation maps are removed from the LRU cache in the background.<p>
+     *
+     * @param resource the resource name with online or offline suffix
+     * @param v the variation to check
+     *
+     * @return the variation, or <code>null</code> if the key of the variation has been cleared
+     */
+    private CmsFlexCacheVariation checkVariation(String resource, CmsFlexCacheVariation v) {
+
+        CmsFlexClearEpochs epochs = getClearEpochs(resource);
+        if (v.m_keyEpoch < epochs.m_keys) {
+            // the key has been cleared
+            if (m_keyCache.remove(resource, v)) {
+                m_reclaimQueue.add(v.m_map);
+                scheduleReclaim();
+            }
+            return null;
+        }
+        long entriesEpoch = epochs.m_entries;
+        if (v.m_entriesEpoch < entriesEpoch) {
+            // the entries have been cleared
+            synchronized (v) {
+                if (v.m_entriesEpoch < entriesEpoch) {
+                    m_reclaimQueue.add(v.m_map);
+                    v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+                    v.m_entriesEpoch = entriesEpoch;
+                    scheduleReclaim();
+                }
+            }
+        }
+        return v;
+    }
+
     /**
      * Empties the cache completely.<p>
      */
-    private synchronized void clear() {
+    private void clear() {
 
         if (!isEnabled()) {
             return;
         }
-        m_keyCache.clear();
-        m_size = 0;
-
-        m_variationCache.clear();
+        long epoch = m_epoch.incrementAndGet();
+        m_onlineEpochs.m_entries = epoch;
+        m_onlineEpochs.m_keys = epoch;
+        m_offlineEpochs.m_entries = epoch;
+        m_offlineEpochs.m_keys = epoch;
+        scheduleReclaim();
 
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_0));
@@ -671,40 +809,16 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      * @param entriesOnly if <code>true</code>, only entries will be cleared, otherwise
      *         the entries and the keys will be cleared
      */
-    private synchronized void clearAccordingToSuffix(String suffix, boolean entriesOnly) {
-
-        Set<String> keys = new HashSet<String>(m_keyCache.keySet());
-        Iterator<String> i = keys.iterator();
-        while (i.hasNext()) {
-            String s = i.next();
-            if (s.endsWith(suffix)) {
-                CmsFlexCacheVariation v = m_keyCache.get(s);
-                if (entriesOnly) {
-                    // Clear only entry
-                    m_size -= v.m_map.size();
-                    Iterator<I_CmsLruCacheObject> allEntries = v.m_map.values().iterator();
-                    while (allEntries.hasNext()) {
-                        I_CmsLruCacheObject nextObject = allEntries.next();
-                        allEntries.remove();
-                        m_variationCache.remove(nextObject);
-                    }
-                    v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
-                } else {
-                    // Clear key and entry
-                    m_size -= v.m_map.size();
-                    Iterator<I_CmsLruCacheObject> allEntries = v.m_map.values().iterator();
-                    while (allEntries.hasNext()) {
-                        I_CmsLruCacheObject nextObject = allEntries.next();
-                        allEntries.remove();
-                        m_variationCache.remove(nextObject);
-                    }
+    private void clearAccordingToSuffix(String suffix, boolean entriesOnly) {
 
-                    v.m_map = null;
-                    v.m_key = null;
-                    m_keyCache.remove(s);
-                }
-            }
+        CmsFlexClearEpochs epochs = CACHE_ONLINESUFFIX.equals(suffix) ? m_onlineEpochs : m_offlineEpochs;
+        long epoch = m_epoch.incrementAndGet();
+        epochs.m_entries = epoch;
+        if (!entriesOnly) {
+            epochs.m_keys = epoch;
         }
+        scheduleReclaim();
+
         if (LOG.isInfoEnabled()) {
             LOG.info(
                 Messages.get().getBundle().key(
@@ -722,7 +836,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      * Only users with administrator permissions are allowed
      * to perform this operation.<p>
      */
-    private synchronized void clearEntries() {
+    private void clearEntries() {
 
         if (!isEnabled()) {
             return;
@@ -730,20 +844,10 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_ALL_0));
         }
-        // create new set to avoid ConcurrentModificationExceptions
-        Set<String> cacheKeys = new HashSet<String>(m_keyCache.keySet());
-        Iterator<String> i = cacheKeys.iterator();
-        while (i.hasNext()) {
-            CmsFlexCacheVariation v = m_keyCache.get(i.next());
-            Iterator<I_CmsLruCacheObject> allEntries = v.m_map.values().iterator();
-            while (allEntries.hasNext()) {
-                I_CmsLruCacheObject nextObject = allEntries.next();
-                allEntries.remove();
-                m_variationCache.remove(nextObject);
-            }
-            v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
-        }
-        m_size = 0;
+        long epoch = m_epoch.incrementAndGet();
+        m_onlineEpochs.m_entries = epoch;
+        m_offlineEpochs.m_entries = epoch;
+        scheduleReclaim();
     }
 
     /**
@@ -824,6 +928,56 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         clearAccordingToSuffix(CACHE_ONLINESUFFIX, true);
     }
 
+    /**
+     * Creates a new variation for the given key in the current epoch.<p>
+     *
+     * @param key the key
+     *
+     * @return the new variation
+     */
+    private CmsFlexCacheVariation createVariation(CmsFlexCacheKey key) {
+
+        CmsFlexCacheVariation v = new CmsFlexCacheVariation(key);
+        long epoch = m_epoch.get();
+        v.m_keyEpoch = epoch;
+        v.m_entriesEpoch = epoch;
+        return v;
+    }
+
+    /**
+     * Returns the clear epochs for the online or offline part of the cache the given resource belongs to.<p>
+     *
+     * @param resource the resource name with online or offline suffix
+     *
+     * @return the clear epochs
+     */
+    private CmsFlexClearEpochs getClearEpochs(String resource) {
+
+        return resource.endsWith(CACHE_ONLINESUFFIX) ? m_onlineEpochs : m_offlineEpochs;
+    }
+
+    /**
+     * Returns the valid variation for the given resource and records the access.<p>
+     *
+     * @param resource the resource name with online or offline suffix
+     *
+     * @return the variation, or <code>null</code> if there is no valid variation for the resource
+     */
+    private CmsFlexCacheVariation getVariation(String resource) {
+
+        CmsFlexCacheVariation v = m_keyCache.get(resource);
+        if (v != null) {
+            v = checkVariation(resource, v);
+        }
+        if (v != null) {
+            long now = System.currentTimeMillis();
+            if (v.m_lastAccess != now) {
+                v.m_lastAccess = now;
+            }
+        }
+        return v;
+    }
+
     /**
      * This method purges the JSP repository dirs,
      * i.e. it deletes all JSP files that OpenCms has written to the
@@ -857,34 +1011,44 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      */
     private void put(CmsFlexCacheKey key, CmsFlexCacheEntry theCacheEntry) {
 
-        CmsFlexCacheVariation o = m_keyCache.get(key.getResource());
+        CmsFlexCacheVariation o = getVariation(key.getResource());
         if (key.getTimeout() > 0) {
             theCacheEntry.setDateExpiresToNextTimeout(key.getTimeout());
         }
+        if (m_offHeapStore != null) {
+            theCacheEntry.moveToOffHeap(m_offHeapStore);
+        }
         if (o != null) {
             // We already have a variation map for this resource
-            Map<String, I_CmsLruCacheObject> m = o.m_map;
-            boolean wasAdded = true;
-            if (!m.containsKey(key.getVariation())) {
-                wasAdded = m_variationCache.add(theCacheEntry);
-            } else {
-                wasAdded = m_variationCache.touch(theCacheEntry);
-            }
+            synchronized (o) {
+                // the variation map is not replaced while it is modified here
+                Map<String, I_CmsLruCacheObject> m = o.m_map;
+                boolean wasAdded = true;
+                if (!m.containsKey(key.getVariation())) {
+                    wasAdded = m_variationCache.add(theCacheEntry);
+                } else {
+                    wasAdded = m_variationCache.touch(theCacheEntry);
+                }
 
-            if (wasAdded) {
-                theCacheEntry.setVariationData(key.getVariation(), m);
-                m.put(key.getVariation(), theCacheEntry);
+                if (wasAdded) {
+                    theCacheEntry.setVariationData(key.getVariation(), m);
+                    m.put(key.getVariation(), theCacheEntry);
+                } else {
+                    theCacheEntry.releaseOffHeap();
+                }
             }
         } else {
             // No variation map for this resource yet, so create one
-            CmsFlexCacheVariation list = new CmsFlexCacheVariation(key);
+            CmsFlexCacheVariation list = createVariation(key);
 
             boolean wasAdded = m_variationCache.add(theCacheEntry);
 
             if (wasAdded) {
                 theCacheEntry.setVariationData(key.getVariation(), list.m_map);
                 list.m_map.put(key.getVariation(), theCacheEntry);
-                m_keyCache.put(key.getResource(), list);
+                addVariation(key.getResource(), list);
+            } else {
+                theCacheEntry.releaseOffHeap();
             }
         }
 
@@ -892,10 +1056,79 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             LOG.debug(
                 Messages.get().getBundle().key(
                     Messages.LOG_FLEXCACHE_ADDED_ENTRY_FOR_RESOURCE_WITH_VARIATION_3,
-                    new Integer(m_size),
+                    new Integer(m_variationCache.size()),
                     key.getResource(),
                     key.getVariation()));
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADDED_ENTRY_1, theCacheEntry.toString()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Removes the outdated keys and entries from the cache, and the least recently used keys
+     * if there are more keys than allowed.<p>
+     *
+     * This is called by the background thread of the cache.<p>
+     */
+    private void reclaim() {
+
+        m_reclaimScheduled.set(false);
+        // check all keys, this removes the cleared keys and replaces the cleared variation maps
+        for (Map.Entry<String, CmsFlexCacheVariation> entry : m_keyCache.entrySet()) {
+            checkVariation(entry.getKey(), entry.getValue());
+        }
+        int excess = m_keyCache.size() - m_maxKeys;
+        if (excess > 0) {
+            // remove some more keys than required, so this is not needed for every new key
+            excess += m_maxKeys / 16;
+            List<Map.Entry<String, Long>> accessTimes = new ArrayList<Map.Entry<String, Long>>(m_keyCache.size());
+            for (Map.Entry<String, CmsFlexCacheVariation> entry : m_keyCache.entrySet()) {
+                accessTimes.add(
+                    new AbstractMap.SimpleImmutableEntry<String, Long>(
+                        entry.getKey(),
+                        Long.valueOf(entry.getValue().m_lastAccess)));
+            }
+            Collections.sort(accessTimes, new Comparator<Map.Entry<String, Long>>() {
+
+                public int compare(Map.Entry<String, Long> o1, Map.Entry<String, Long> o2) {
+
+                    return o1.getValue().compareTo(o2.getValue());
+                }
+            });
+            for (int i = 0; (i < excess) && (i < accessTimes.size()); i++) {
+                String resource = accessTimes.get(i).getKey();
+                CmsFlexCacheVariation v = m_keyCache.get(resource);
+                if ((v != null) && m_keyCache.remove(resource, v)) {
+                    m_reclaimQueue.add(v.m_map);
+                }
+            }
+        }
+        // remove the entries of all outdated variation maps from the LRU cache
+        Map<String, I_CmsLruCacheObject> map;
+        while ((map = m_reclaimQueue.poll()) != null) {
+            for (I_CmsLruCacheObject entry : new ArrayList<I_CmsLruCacheObject>(map.values())) {
+                m_variationCache.remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Schedules the removal of outdated keys and entries by the background thread, if not already scheduled.<p>
+     */
+    private void scheduleReclaim() {
+
+        if (m_reclaimScheduled.compareAndSet(false, true)) {
+            try {
+                m_reclaimExecutor.execute(new Runnable() {
+
+                    @SuppressWarnings("synthetic-access")
+                    public void run() {
+
+                        reclaim();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the cache has been shut down
+            }
+        }
+    }
+}
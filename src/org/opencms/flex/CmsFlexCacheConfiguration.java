@@ -40,6 +40,9 @@ import org.apache.commons.logging.Log;
  */
 public class CmsFlexCacheConfiguration {
 
+    /** The default minimum size of the output of an entry to move it to the off-heap tier. */
+    public static final int DEFAULT_OFF_HEAP_ENTRY_BYTES = 64 * 1024;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexCacheConfiguration.class);
 
@@ -74,6 +77,12 @@ public class CmsFlexCacheConfiguration {
     /** The maximum key. */
     private int m_maxKeys;
 
+    /** The maximum size of the off-heap tier in bytes, 0 if the off-heap tier is disabled. */
+    private long m_offHeapBytes;
+
+    /** The minimum size of the output of an entry to move it to the off-heap tier. */
+    private int m_offHeapEntryBytes = DEFAULT_OFF_HEAP_ENTRY_BYTES;
+
     /**
      * Empty public constructor for the digester.
      */
@@ -145,6 +154,26 @@ public class CmsFlexCacheConfiguration {
         return m_maxKeys;
     }
 
+    /**
+     * Returns the maximum size of the off-heap tier in bytes.<p>
+     *
+     * @return the maximum size of the off-heap tier in bytes, 0 if the off-heap tier is disabled
+     */
+    public long getOffHeapBytes() {
+
+        return m_offHeapBytes;
+    }
+
+    /**
+     * Returns the minimum size of the output of an entry to move it to the off-heap tier.<p>
+     *
+     * @return the minimum size of the output of an entry to move it to the off-heap tier
+     */
+    public int getOffHeapEntryBytes() {
+
+        return m_offHeapEntryBytes;
+    }
+
     /**
      * Initializes the flex cache configuration with required parameters.<p>
      *
@@ -287,4 +316,24 @@ public class CmsFlexCacheConfiguration {
 
         m_maxKeys = maxKeys;
     }
+
+    /**
+     * Sets the maximum size of the off-heap tier in bytes.<p>
+     *
+     * @param offHeapBytes the maximum size of the off-heap tier in bytes, 0 to disable the off-heap tier
+     */
+    public void setOffHeapBytes(long offHeapBytes) {
+
+        m_offHeapBytes = offHeapBytes;
+    }
+
+    /**
+     * Sets the minimum size of the output of an entry to move it to the off-heap tier.<p>
+     *
+     * @param offHeapEntryBytes the minimum size of the output of an entry to move it to the off-heap tier
+     */
+    public void setOffHeapEntryBytes(int offHeapEntryBytes) {
+
+        m_offHeapEntryBytes = offHeapEntryBytes;
+    }
 }
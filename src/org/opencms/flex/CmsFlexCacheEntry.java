@@ -37,6 +37,7 @@ import org.opencms.monitor.I_CmsMemoryMonitorable;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -60,7 +61,8 @@ import org.apache.commons.logging.Log;
  * A CmsFlexCacheEntry might also describe a redirect-call, but in this case
  * nothing else will be cached.<p>
  *
- * The pre-generated output is saved in <code>byte[]</code> arrays.
+ * The pre-generated output is saved in <code>byte[]</code> arrays, or in read only direct
+ * {@link ByteBuffer} instances if the output has been moved to the off-heap tier of the FlexCache.
  * The include() calls are saved as Strings of the included resource name,
  * the parameters for the calls are saved in a HashMap.
  * The headers are saved in a HashMap.
@@ -78,6 +80,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** Initial size for lists. */
     public static final int INITIAL_CAPACITY_LISTS = 10;
 
+    /** The estimated heap size of a reference to an off-heap buffer. */
+    private static final int OFF_HEAP_REFERENCE_SIZE = 64;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexCacheEntry.class);
 
@@ -99,6 +104,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** A Map of cached headers for this resource. */
     private Map<String, List<String>> m_headers;
 
+    /** The off-heap store holding the output of this entry, or <code>null</code> if all output is on the heap. */
+    private CmsFlexOffHeapStore m_offHeapStore;
+
     /** Pointer to the next cache entry in the LRU cache. */
     private I_CmsLruCacheObject m_next;
 
@@ -239,7 +247,7 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /**
      * Returns the list of data entries of this cache entry.<p>
      *
-     * Data entries are byte arrays representing some kind of output
+     * Data entries are byte arrays or read only byte buffers representing some kind of output
      * or Strings representing include calls to other resources.<p>
      *
      * @return the list of data elements of this cache entry
@@ -316,8 +324,10 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     public void removeFromLruCache() {
 
         if ((m_variationMap != null) && (m_variationKey != null)) {
-            m_variationMap.remove(m_variationKey);
+            // only remove this entry, the variation may already be mapped to a newer entry
+            m_variationMap.remove(m_variationKey, this);
         }
+        releaseOffHeap();
         if (LOG.isDebugEnabled()) {
             LOG.debug(
                 Messages.get().getBundle().key(
@@ -391,7 +401,11 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
                     }
                 } else {
                     try {
-                        res.writeToOutputStream((byte[])o, hasNoSubElements);
+                        if (o instanceof ByteBuffer) {
+                            res.writeToOutputStream((ByteBuffer)o);
+                        } else {
+                            res.writeToOutputStream((byte[])o, hasNoSubElements);
+                        }
                     } catch (IOException e) {
                         CmsMessageContainer message = Messages.get().container(
                             Messages.LOG_FLEXCACHEKEY_NOT_FOUND_1,
@@ -552,6 +566,8 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
                     str += "" + count + " - <cms:include target=" + o + ">\n";
                 } else if (o instanceof byte[]) {
                     str += "" + count + " - <![CDATA[" + new String((byte[])o) + "]]>\n";
+                } else if (o instanceof ByteBuffer) {
+                    str += "" + count + " - <!--[" + ((ByteBuffer)o).capacity() + " bytes off-heap]-->\n";
                 } else {
                     str += "<!--[" + o.toString() + "]-->";
                 }
@@ -562,6 +578,58 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return str;
     }
 
+    /**
+     * Moves the output of this entry to the given off-heap store, as far as the store accepts it.<p>
+     *
+     * This must be called before the entry is added to the cache, since the elements of
+     * the entry are replaced.<p>
+     *
+     * @param store the off-heap store
+     */
+    void moveToOffHeap(CmsFlexOffHeapStore store) {
+
+        if ((m_elements == null) || (m_offHeapStore != null)) {
+            return;
+        }
+        List<Object> elements = null;
+        for (int i = 0; i < m_elements.size(); i++) {
+            Object o = m_elements.get(i);
+            if (o instanceof byte[]) {
+                ByteBuffer buffer = store.store((byte[])o);
+                if (buffer != null) {
+                    if (elements == null) {
+                        elements = new ArrayList<Object>(m_elements);
+                    }
+                    elements.set(i, buffer);
+                    m_byteSize += OFF_HEAP_REFERENCE_SIZE - CmsMemoryMonitor.getMemorySize(o);
+                }
+            }
+        }
+        if (elements != null) {
+            m_offHeapStore = store;
+            m_elements = m_completed ? Collections.unmodifiableList(elements) : elements;
+        }
+    }
+
+    /**
+     * Releases the off-heap buffers of this entry in the off-heap store.<p>
+     *
+     * The buffers are still readable after they have been released, so requests which are
+     * currently streaming the output of this entry are not affected.<p>
+     */
+    synchronized void releaseOffHeap() {
+
+        if (m_offHeapStore == null) {
+            return;
+        }
+        for (Object o : m_elements) {
+            if (o instanceof ByteBuffer) {
+                m_offHeapStore.release((ByteBuffer)o);
+            }
+        }
+        m_offHeapStore = null;
+    }
+
     /**
      * Clones the attribute instances if possible.<p>
      *
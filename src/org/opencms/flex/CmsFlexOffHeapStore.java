@@ -0,0 +1,180 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Off-heap storage tier for the output of large FlexCache entries.<p>
+ *
+ * The output of an entry which is at least as large as the configured minimum size is copied
+ * into a direct byte buffer when the entry is put into the FlexCache, so that large rendered
+ * fragments do not fill the old generation of the Java heap. Smaller output stays on the heap.
+ * A buffer is streamed to the client without a heap copy only if the response serving the entry is not buffered.
+ * Buffered responses, e.g. of included elements, copy the output into their heap buffer while the request
+ * is served.<p>
+ *
+ * The store only accounts for the bytes of the cached entries and refuses new buffers once the
+ * configured maximum size is reached, in which case the output simply stays on the heap.
+ * The memory of a direct buffer is released by the garbage collector after the entry has been
+ * removed from the cache and no request is streaming from it anymore, so the JVM option
+ * <code>-XX:MaxDirectMemorySize</code> should leave some room above the configured maximum.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsFlexOffHeapStore {
+
+    /** The size of the chunks used to stream a buffer to an output stream. */
+    private static final int CHUNK_SIZE = 8192;
+
+    /** The maximum size of all buffers in bytes. */
+    private final long m_maxBytes;
+
+    /** The minimum size of the output to store off-heap. */
+    private final int m_minEntryBytes;
+
+    /** The size of all buffers in bytes. */
+    private final AtomicLong m_size = new AtomicLong();
+
+    /**
+     * Creates a new off-heap store.<p>
+     *
+     * @param maxBytes the maximum size of all buffers in bytes
+     * @param minEntryBytes the minimum size of the output to store off-heap
+     */
+    public CmsFlexOffHeapStore(long maxBytes, int minEntryBytes) {
+
+        m_maxBytes = maxBytes;
+        m_minEntryBytes = Math.max(1, minEntryBytes);
+    }
+
+    /**
+     * Writes the content of the given buffer to the given output stream.<p>
+     *
+     * The content is copied in small chunks, so it is never copied to the heap as a whole.
+     * The position of the given buffer is not changed, so a buffer can be written by several threads at the same time.<p>
+     *
+     * @param buffer the buffer to write
+     * @param out the output stream to write to
+     *
+     * @throws IOException in case writing to the output stream fails
+     */
+    public static void write(ByteBuffer buffer, OutputStream out) throws IOException {
+
+        ByteBuffer source = buffer.duplicate();
+        byte[] chunk = new byte[Math.min(CHUNK_SIZE, source.remaining())];
+        while (source.hasRemaining()) {
+            int length = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+
+    /**
+     * Returns the maximum size of all buffers in bytes.<p>
+     *
+     * @return the maximum size of all buffers in bytes
+     */
+    public long getMaxBytes() {
+
+        return m_maxBytes;
+    }
+
+    /**
+     * Returns the minimum size of the output to store off-heap.<p>
+     *
+     * @return the minimum size of the output to store off-heap
+     */
+    public int getMinEntryBytes() {
+
+        return m_minEntryBytes;
+    }
+
+    /**
+     * Returns the size of all buffers of the cached entries in bytes.<p>
+     *
+     * @return the size of all buffers in bytes
+     */
+    public long getSize() {
+
+        return m_size.get();
+    }
+
+    /**
+     * Releases a buffer of an entry which has been removed from the cache.<p>
+     *
+     * @param buffer the buffer to release
+     */
+    public void release(ByteBuffer buffer) {
+
+        m_size.addAndGet(-buffer.capacity());
+    }
+
+    /**
+     * Copies the given output into a new direct buffer.<p>
+     *
+     * @param bytes the output to store
+     *
+     * @return a read only direct buffer with the output, or <code>null</code> if the output is too small
+     *      or there is no space left in this store
+     */
+    public ByteBuffer store(byte[] bytes) {
+
+        int length = bytes.length;
+        if (length < m_minEntryBytes) {
+            return null;
+        }
+        if (m_size.addAndGet(length) > m_maxBytes) {
+            m_size.addAndGet(-length);
+            return null;
+        }
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.allocateDirect(length);
+        } catch (OutOfMemoryError e) {
+            // the direct memory of the JVM is exhausted, keep the output on the heap
+            m_size.addAndGet(-length);
+            return null;
+        }
+        buffer.put(bytes);
+        buffer.flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "CmsFlexOffHeapStore [size: " + m_size.get() + ", max. size: " + m_maxBytes + "]";
+    }
+}
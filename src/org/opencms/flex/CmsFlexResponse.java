@@ -41,6 +41,7 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -1039,6 +1040,39 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         }
     }
 
+    /**
+     * Writes the content of an off-heap buffer to the output stream of this response.<p>
+     *
+     * Only if this response is not buffered, the content is streamed from the direct buffer to the output stream
+     * of the parent response in small chunks, without copying the complete buffer to the heap.
+     * If this response writes only to its buffer, which is the normal case for included elements and for
+     * elements which are cached themselves, the content must be copied into the heap buffer of this response,
+     * because the including response assembles its output from this buffer and a new cache entry is created
+     * from it as well. The off-heap tier therefore saves heap for the entries kept in the cache, not for the
+     * output of the requests which are currently served.<p>
+     *
+     * @param buffer the buffer to write
+     *
+     * @throws IOException in case something goes wrong while writing to the stream
+     */
+    void writeToOutputStream(ByteBuffer buffer) throws IOException {
+
+        if (isSuspended()) {
+            return;
+        }
+        if (m_writeOnlyToBuffer) {
+            if (m_out == null) {
+                initStream();
+            }
+            // the including response reads the output from the heap buffer, so the content has to be copied here
+            CmsFlexOffHeapStore.write(buffer, m_out);
+        } else {
+            // The request is not buffered, so we can write directly to it's parents output stream
+            CmsFlexOffHeapStore.write(buffer, m_res.getOutputStream());
+            m_res.getOutputStream().flush();
+        }
+    }
+
     /**
      * Helper method to add a value in the internal header list.<p>
      *
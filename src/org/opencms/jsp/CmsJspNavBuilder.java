@@ -34,13 +34,18 @@ import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
 import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.file.types.I_CmsResourceType;
+import org.opencms.flex.CmsFlexRequestContextInfo;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.security.CmsPermissionSet;
 import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsRequestUtil;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -464,24 +469,18 @@ public class CmsJspNavBuilder {
         Visibility visibility,
         CmsResourceFilter resourceFilter) {
 
-        folder = CmsFileUtil.removeTrailingSeparator(folder);
         List<CmsJspNavElement> result = new ArrayList<CmsJspNavElement>();
 
-        List<CmsResource> resources = null;
-        try {
-
-            resources = m_cms.getResourcesInFolder(folder, resourceFilter);
-        } catch (Exception e) {
-            // should never happen
-            LOG.error(e.getLocalizedMessage(), e);
-        }
-        if (resources == null) {
+        List<CmsJspNavElement> elements = readNavigationForFolder(
+            CmsFileUtil.addTrailingSeparator(folder),
+            resourceFilter,
+            false);
+        if (elements == null) {
             return Collections.<CmsJspNavElement> emptyList();
         }
         boolean includeAll = visibility == Visibility.all;
         boolean includeHidden = visibility == Visibility.includeHidden;
-        for (CmsResource r : resources) {
-            CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter);
+        for (CmsJspNavElement element : elements) {
             if ((element != null)
                 && (includeAll
                     || (element.isInNavigation() && (includeHidden || !element.isHiddenNavigationEntry())))) {
@@ -691,17 +690,12 @@ public class CmsJspNavBuilder {
         folder = CmsResource.getFolderPath(folder);
         List<CmsJspNavElement> result = new ArrayList<CmsJspNavElement>();
 
-        List<CmsResource> resources;
-        try {
-            resources = m_cms.getResourcesInFolder(folder, resourceFilter);
-        } catch (Exception e) {
-            // should never happen
-            LOG.error(e.getLocalizedMessage(), e);
+        List<CmsJspNavElement> elements = readNavigationForFolder(folder, resourceFilter, shallow);
+        if (elements == null) {
             return Collections.<CmsJspNavElement> emptyList();
         }
 
-        for (CmsResource r : resources) {
-            CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter, shallow);
+        for (CmsJspNavElement element : elements) {
             if ((element != null) && (includeInvisible || element.isInNavigation())) {
                 result.add(element);
             }
@@ -727,14 +721,41 @@ public class CmsJspNavBuilder {
 
         CmsResource resource;
         Map<String, String> propertiesMap;
+        try {
+            resource = m_cms.readResource(sitePath, resourceFilter);
+            List<CmsProperty> properties = m_cms.readPropertyObjects(resource, false);
+            propertiesMap = CmsProperty.toMap(properties);
+        } catch (Exception e) {
+            // may happen if permissions are not sufficient
+            LOG.warn(e.getLocalizedMessage(), e);
+            return null;
+        }
+        return getNavigationForResource(sitePath, resource, propertiesMap, resourceFilter, shallow);
+    }
+
+    /**
+     * Returns a navigation element for the given resource, which has already been read.<p>
+     *
+     * @param sitePath the site path of the resource
+     * @param resource the resource
+     * @param propertiesMap the properties of the resource, not including inherited properties
+     * @param resourceFilter the filter to use reading the resources
+     * @param shallow <code>true</code> for a shallow look up, not regarding next level resources
+     *
+     * @return a navigation element for the given resource
+     */
+    private CmsJspNavElement getNavigationForResource(
+        String sitePath,
+        CmsResource resource,
+        Map<String, String> propertiesMap,
+        CmsResourceFilter resourceFilter,
+        boolean shallow) {
+
         int level = CmsResource.getPathLevel(sitePath);
         if (sitePath.endsWith("/")) {
             level--;
         }
         try {
-            resource = m_cms.readResource(sitePath, resourceFilter);
-            List<CmsProperty> properties = m_cms.readPropertyObjects(resource, false);
-            propertiesMap = CmsProperty.toMap(properties);
             if (resource.isFolder()) {
                 if (resourceFilter.equals(CmsResourceFilter.DEFAULT)
                     && !NAVIGATION_LEVEL_FOLDER.equals(
@@ -773,4 +794,75 @@ public class CmsJspNavBuilder {
 
         return new CmsJspNavElement(sitePath, resource, propertiesMap, level, m_locale);
     }
+
+    /**
+     * Reads the navigation elements for all resources in the given folder, unsorted and including
+     * the elements not visible in the navigation.<p>
+     *
+     * In the online project, the resources and their properties are taken from the {@link CmsJspNavigationCache},
+     * and only the permissions and the resource filter are checked for the current request.<p>
+     *
+     * @param folder the site path of the folder, with a trailing slash
+     * @param resourceFilter the filter to use reading the resources
+     * @param shallow <code>true</code> for a shallow look up, not regarding next level resources
+     *
+     * @return the navigation elements, with <code>null</code> for resources without navigation element,
+     *      or <code>null</code> if the folder could not be read
+     */
+    private List<CmsJspNavElement> readNavigationForFolder(
+        String folder,
+        CmsResourceFilter resourceFilter,
+        boolean shallow) {
+
+        List<CmsJspNavElement> result;
+        try {
+            CmsJspNavigationCache.FolderSnapshot snapshot = CmsJspNavigationCache.getSnapshot(
+                m_cms,
+                m_cms.getRequestContext().addSiteRoot(folder));
+            if (snapshot != null) {
+                List<CmsResource> resources = snapshot.getResources();
+                // check the permissions and the filter without the time range first, like reading the resources
+                CmsResourceFilter permissionFilter = resourceFilter.requireTimerange()
+                ? resourceFilter.addExcludeTimerange()
+                : resourceFilter;
+                BitSet permitted = m_cms.hasPermissions(
+                    resources,
+                    CmsPermissionSet.ACCESS_READ,
+                    false,
+                    permissionFilter);
+                CmsFlexRequestContextInfo info = (CmsFlexRequestContextInfo)m_cms.getRequestContext().getAttribute(
+                    CmsRequestUtil.HEADER_LAST_MODIFIED);
+                result = new ArrayList<CmsJspNavElement>(permitted.cardinality());
+                for (int i = permitted.nextSetBit(0); i >= 0; i = permitted.nextSetBit(i + 1)) {
+                    CmsResource resource = resources.get(i);
+                    // update the context dates as reading the resources would have done,
+                    // this includes resources filtered because of their release or expiration date
+                    if (info != null) {
+                        info.updateFromResource(resource);
+                    }
+                    if (!resourceFilter.isValid(m_cms.getRequestContext(), resource)) {
+                        continue;
+                    }
+                    result.add(
+                        getNavigationForResource(
+                            m_cms.getSitePath(resource),
+                            resource,
+                            new HashMap<String, String>(snapshot.getProperties(i)),
+                            resourceFilter,
+                            shallow));
+                }
+            } else {
+                List<CmsResource> resources = m_cms.getResourcesInFolder(folder, resourceFilter);
+                result = new ArrayList<CmsJspNavElement>(resources.size());
+                for (CmsResource r : resources) {
+                    result.add(getNavigationForResource(m_cms.getSitePath(r), resourceFilter, shallow));
+                }
+            }
+        } catch (Exception e) {
+            // should never happen
+            LOG.error(e.getLocalizedMessage(), e);
+            return null;
+        }
+        return result;
+    }
 }
@@ -0,0 +1,303 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.jsp;
+
+import org.opencms.cache.CmsVfsCache;
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.security.CmsRole;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Cache for the navigation relevant data of the folders in the online project,
+ * used by the {@link CmsJspNavBuilder}.<p>
+ *
+ * For every cached folder, a snapshot of all resources in the folder and their properties is kept.
+ * The snapshots are read with administrator permissions and contain all resources, regardless of their state,
+ * release and expiration dates, so the navigation builder has to apply the permission checks and the
+ * resource filter of the current request.<p>
+ *
+ * After a project is published, only the snapshots of the folders containing the published resources are removed.
+ * Resources with siblings cause all snapshots to be removed, since their shared properties are also visible in the
+ * folders of the siblings.<p>
+ *
+ * @since 10.5.0
+ */
+public final class CmsJspNavigationCache extends CmsVfsCache {
+
+    /**
+     * Snapshot of the resources in a folder and their properties.<p>
+     */
+    static final class FolderSnapshot {
+
+        /** The properties of the resources, in the order of the resources. */
+        private List<Map<String, String>> m_properties;
+
+        /** The resources in the folder. */
+        private List<CmsResource> m_resources;
+
+        /**
+         * Creates a new folder snapshot.<p>
+         *
+         * @param resources the resources in the folder
+         * @param properties the properties of the resources, in the order of the resources
+         */
+        FolderSnapshot(List<CmsResource> resources, List<Map<String, String>> properties) {
+
+            m_resources = Collections.unmodifiableList(resources);
+            m_properties = Collections.unmodifiableList(properties);
+        }
+
+        /**
+         * Returns the properties of the resource at the given position, with the property names as keys.<p>
+         *
+         * @param index the position of the resource
+         *
+         * @return the properties of the resource at the given position
+         */
+        Map<String, String> getProperties(int index) {
+
+            return m_properties.get(index);
+        }
+
+        /**
+         * Returns the resources in the folder.<p>
+         *
+         * @return the resources in the folder
+         */
+        List<CmsResource> getResources() {
+
+            return m_resources;
+        }
+    }
+
+    /** The maximum number of cached folder snapshots. */
+    private static final int CACHE_SIZE = 2048;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsJspNavigationCache.class);
+
+    /** The navigation cache instance, <code>null</code> if not initialized. */
+    private static CmsJspNavigationCache m_instance;
+
+    /** The admin context of the online project used to read the snapshots. */
+    private CmsObject m_cms;
+
+    /** Counts the removals of snapshots, so a snapshot read before a removal is not cached. */
+    private final AtomicLong m_generation = new AtomicLong();
+
+    /** The folder snapshots, with the root paths of the folders as keys. */
+    private Map<String, FolderSnapshot> m_snapshots;
+
+    /**
+     * Creates a new navigation cache.<p>
+     *
+     * @param cms the admin context of the online project used to read the snapshots
+     */
+    private CmsJspNavigationCache(CmsObject cms) {
+
+        m_cms = cms;
+        m_snapshots = CmsMemoryMonitor.createLRUCacheMap(CACHE_SIZE);
+        if (OpenCms.getMemoryMonitor() != null) {
+            OpenCms.getMemoryMonitor().register(CmsJspNavigationCache.class.getName() + ".snapshots", m_snapshots);
+        }
+        registerEventListener();
+    }
+
+    /**
+     * Initializes the navigation cache.<p>
+     *
+     * @param cms an initialized admin OpenCms user context
+     *
+     * @throws CmsException in case the initialization fails
+     */
+    public static void initialize(CmsObject cms) throws CmsException {
+
+        OpenCms.getRoleManager().checkRole(cms, CmsRole.ADMINISTRATOR);
+        CmsObject onlineCms = OpenCms.initCmsObject(cms);
+        onlineCms.getRequestContext().setCurrentProject(onlineCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        onlineCms.getRequestContext().setSiteRoot("");
+        m_instance = new CmsJspNavigationCache(onlineCms);
+    }
+
+    /**
+     * Returns the snapshot of the given folder,
+     * or <code>null</code> if the given context is not in the online project or the cache is not initialized.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param rootPath the root path of the folder, with a trailing slash
+     *
+     * @return the snapshot of the given folder, or <code>null</code>
+     */
+    static FolderSnapshot getSnapshot(CmsObject cms, String rootPath) {
+
+        CmsJspNavigationCache instance = m_instance;
+        if ((instance == null) || !cms.getRequestContext().getCurrentProject().isOnlineProject()) {
+            return null;
+        }
+        return instance.getSnapshot(rootPath);
+    }
+
+    /**
+     * Updates the snapshots after a project has been published, all other events are handled by the super class.<p>
+     *
+     * @see org.opencms.cache.CmsVfsCache#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    @Override
+    public void cmsEvent(CmsEvent event) {
+
+        if (event.getType() != I_CmsEventListener.EVENT_PUBLISH_PROJECT) {
+            super.cmsEvent(event);
+            return;
+        }
+        String publishHistoryId = (String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+        if (publishHistoryId == null) {
+            flush(true);
+            return;
+        }
+        try {
+            List<CmsPublishedResource> publishedResources = OpenCms.initCmsObject(m_cms).readPublishedResources(
+                new CmsUUID(publishHistoryId));
+            for (CmsPublishedResource publishedResource : publishedResources) {
+                if (publishedResource.getSiblingCount() > 1) {
+                    flush(true);
+                    return;
+                }
+                uncacheRootPath(publishedResource.getRootPath());
+            }
+        } catch (CmsException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            flush(true);
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.CmsVfsCache#flush(boolean)
+     */
+    @Override
+    protected void flush(boolean online) {
+
+        if (online) {
+            m_generation.incrementAndGet();
+            m_snapshots.clear();
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.CmsVfsCache#uncacheResource(org.opencms.file.CmsResource)
+     */
+    @Override
+    protected void uncacheResource(CmsResource resource) {
+
+        uncacheRootPath(resource.getRootPath());
+    }
+
+    /**
+     * Returns the snapshot of the given folder, reading it if it is not cached.<p>
+     *
+     * @param rootPath the root path of the folder, with a trailing slash
+     *
+     * @return the snapshot of the given folder, or <code>null</code> if it could not be read
+     */
+    private FolderSnapshot getSnapshot(String rootPath) {
+
+        FolderSnapshot result = m_snapshots.get(rootPath);
+        if (result == null) {
+            long generation = m_generation.get();
+            try {
+                // the admin context is shared, so use a copy for reading
+                CmsObject cms = OpenCms.initCmsObject(m_cms);
+                List<CmsResource> resources = cms.getResourcesInFolder(rootPath, CmsResourceFilter.ALL);
+                Map<CmsUUID, List<CmsProperty>> resourceProperties = cms.readPropertyObjects(resources, false);
+                List<Map<String, String>> properties = new ArrayList<Map<String, String>>(resources.size());
+                for (CmsResource resource : resources) {
+                    properties.add(
+                        Collections.unmodifiableMap(
+                            CmsProperty.toMap(resourceProperties.get(resource.getStructureId()))));
+                }
+                result = new FolderSnapshot(resources, properties);
+                // the snapshot may be outdated if snapshots have been removed while reading it
+                if (m_generation.get() == generation) {
+                    m_snapshots.put(rootPath, result);
+                    if (m_generation.get() != generation) {
+                        // removed after the check above, but maybe before the snapshot was added
+                        m_snapshots.remove(rootPath, result);
+                    }
+                }
+            } catch (CmsException e) {
+                // the folder may not exist in the online project
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes the snapshot of the parent folder of the given resource,
+     * and for folders also the snapshots of the folder itself and all its sub folders.<p>
+     *
+     * @param rootPath the root path of the resource
+     */
+    private void uncacheRootPath(String rootPath) {
+
+        m_generation.incrementAndGet();
+        String parentFolder = CmsResource.getParentFolder(rootPath);
+        if (parentFolder != null) {
+            m_snapshots.remove(parentFolder);
+        }
+        if (CmsResource.isFolder(rootPath)) {
+            Iterator<String> i = m_snapshots.keySet().iterator();
+            while (i.hasNext()) {
+                if (i.next().startsWith(rootPath)) {
+                    i.remove();
+                }
+            }
+        }
+    }
+}
@@ -39,7 +39,12 @@ import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.workplace.CmsWorkplaceManager;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Iterator;
 import java.util.Locale;
 
@@ -61,6 +66,9 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
     /** The id of this loader. */
     public static final int RESOURCE_LOADER_ID = 1;
 
+    /** The unit for byte ranges. */
+    protected static final String RANGE_UNIT_BYTES = "bytes";
+
     /** The maximum age for dumped contents in the clients cache. */
     private static long m_clientCacheMaxAge;
 
@@ -236,25 +244,7 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
         // set content length header
         res.setContentLength(file.getContents().length);
 
-        if (CmsWorkplaceManager.isWorkplaceUser(req)) {
-            // prevent caching for Workplace users
-            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, System.currentTimeMillis());
-            CmsRequestUtil.setNoCacheHeaders(res);
-        } else {
-            // set date last modified header
-            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, file.getDateLastModified());
-
-            // set "Expires" only if cache control is not already set
-            if (!res.containsHeader(CmsRequestUtil.HEADER_CACHE_CONTROL)) {
-                long expireTime = resource.getDateExpired();
-                if (expireTime == CmsResource.DATE_EXPIRED_DEFAULT) {
-                    expireTime--;
-                    // flex controller will automatically reduce this to a reasonable value
-                }
-                // now set "Expires" header
-                CmsFlexController.setDateExpiresHeader(res, expireTime, m_clientCacheMaxAge);
-            }
-        }
+        setCacheHeaders(file, req, res);
 
         service(cms, file, req, res);
     }
@@ -268,6 +258,56 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
         res.getOutputStream().write(cms.readFile(resource).getContents());
     }
 
+    /**
+     * Returns the range of bytes requested by the given "Range" header.<p>
+     *
+     * Only a single byte range is supported. For multiple ranges, <code>null</code> is returned,
+     * so that the complete content is sent, which is allowed by the HTTP specification.<p>
+     *
+     * @param range the value of the "Range" header
+     * @param length the length of the content in bytes
+     *
+     * @return the first and last position of the requested range (inclusive), an empty array if the range
+     *      can not be satisfied, or <code>null</code> if the range is invalid or not supported
+     */
+    protected static long[] parseRange(String range, long length) {
+
+        if ((range == null) || !range.startsWith(RANGE_UNIT_BYTES + "=") || (range.indexOf(',') >= 0)) {
+            return null;
+        }
+        String spec = range.substring(RANGE_UNIT_BYTES.length() + 1).trim();
+        int pos = spec.indexOf('-');
+        if (pos < 0) {
+            return null;
+        }
+        try {
+            long first;
+            long last;
+            if (pos == 0) {
+                // suffix range with the number of last bytes
+                long suffix = Long.parseLong(spec.substring(1).trim());
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                first = Math.max(0, length - suffix);
+                last = length - 1;
+            } else {
+                first = Long.parseLong(spec.substring(0, pos).trim());
+                String lastSpec = spec.substring(pos + 1).trim();
+                last = lastSpec.isEmpty() ? length - 1 : Math.min(Long.parseLong(lastSpec), length - 1);
+                if (last < first) {
+                    return lastSpec.isEmpty() || (first >= length) ? new long[0] : null;
+                }
+            }
+            if ((first >= length) || (last < 0)) {
+                return new long[0];
+            }
+            return new long[] {first, last};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     /**
      * Checks if the requested resource must be send to the client by checking the "If-Modified-Since" http header.<p>
      *
@@ -283,21 +323,182 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
      */
     protected boolean canSendLastModifiedHeader(CmsResource resource, HttpServletRequest req, HttpServletResponse res) {
 
-        // resource state must be unchanged
-        if (resource.getState().isUnchanged()
-            // the request must not have been send by a workplace user (we can't use "304 - not modified" in workplace
-            && !CmsWorkplaceManager.isWorkplaceUser(req)
+        if (canSendNotModified(resource, req)
             // last modified header must match the time form the resource
             && CmsFlexController.isNotModifiedSince(req, resource.getDateLastModified())) {
-            long now = System.currentTimeMillis();
-            if ((resource.getDateReleased() < now) && (resource.getDateExpired() > now)) {
-                // resource is available and not expired
+            CmsFlexController.setDateExpiresHeader(res, resource.getDateExpired(), m_clientCacheMaxAge);
+            // set status 304 - not modified
+            res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a "304 - not modified" status may be send to the client for the given resource.<p>
+     *
+     * This is the case if the resource is unchanged, released and not expired,
+     * and if the request has not been send by a workplace user.<p>
+     *
+     * @param resource the resource to check
+     * @param req the current request
+     *
+     * @return <code>true</code> if a "304 - not modified" status may be send to the client
+     */
+    protected boolean canSendNotModified(CmsResource resource, HttpServletRequest req) {
+
+        // resource state must be unchanged,
+        // and the request must not have been send by a workplace user (we can't use "304 - not modified" in workplace
+        if (!resource.getState().isUnchanged() || CmsWorkplaceManager.isWorkplaceUser(req)) {
+            return false;
+        }
+        // resource must be available and not expired
+        long now = System.currentTimeMillis();
+        return (resource.getDateReleased() < now) && (resource.getDateExpired() > now);
+    }
+
+    /**
+     * Returns the entity tag for the given RFS file.<p>
+     *
+     * The entity tag is derived from the name and the length of the file, so files in a cache
+     * with version specific names keep their entity tag even if their modification date is touched.<p>
+     *
+     * @param rfsFile the RFS file
+     *
+     * @return the entity tag for the given RFS file, including the quotes
+     */
+    protected String getETag(File rfsFile) {
+
+        return "\""
+            + Integer.toHexString(rfsFile.getAbsolutePath().hashCode())
+            + "-"
+            + Long.toHexString(rfsFile.length())
+            + "\"";
+    }
+
+    /**
+     * Sends the content of an RFS file which contains the content of the given resource to the client.<p>
+     *
+     * The content is streamed from the file to the response through a file channel, so that the memory required
+     * does not depend on the size of the file. An "ETag" header is set, and the "If-None-Match", "Range"
+     * and "If-Range" headers of the request are supported.<p>
+     *
+     * @param resource the resource the RFS file belongs to, used for the cache headers
+     * @param rfsFile the RFS file to send
+     * @param req the current request
+     * @param res the current response
+     *
+     * @throws IOException in case of errors reading the file or writing the response
+     */
+    protected void loadRfsFile(CmsResource resource, File rfsFile, HttpServletRequest req, HttpServletResponse res)
+    throws IOException {
+
+        long length = rfsFile.length();
+        String etag = getETag(rfsFile);
+        boolean workplaceUser = CmsWorkplaceManager.isWorkplaceUser(req);
+        if (!workplaceUser) {
+            res.setHeader(CmsRequestUtil.HEADER_ETAG, etag);
+            if (matchesETag(req.getHeader(CmsRequestUtil.HEADER_IF_NONE_MATCH), etag)
+                && canSendNotModified(resource, req)) {
                 CmsFlexController.setDateExpiresHeader(res, resource.getDateExpired(), m_clientCacheMaxAge);
-                // set status 304 - not modified
                 res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+        res.setHeader(CmsRequestUtil.HEADER_ACCEPT_RANGES, RANGE_UNIT_BYTES);
+        setCacheHeaders(resource, req, res);
+
+        long first = 0;
+        long last = length - 1;
+        String ifRange = req.getHeader(CmsRequestUtil.HEADER_IF_RANGE);
+        long[] range = ((ifRange == null) || ifRange.equals(etag))
+        ? parseRange(req.getHeader(CmsRequestUtil.HEADER_RANGE), length)
+        : null;
+        if (range == null) {
+            res.setStatus(HttpServletResponse.SC_OK);
+        } else if (range.length == 0) {
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_RANGE, RANGE_UNIT_BYTES + " */" + length);
+            res.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        } else {
+            first = range[0];
+            last = range[1];
+            res.setHeader(
+                CmsRequestUtil.HEADER_CONTENT_RANGE,
+                RANGE_UNIT_BYTES + " " + first + "-" + last + "/" + length);
+            res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        }
+        res.setHeader(CmsRequestUtil.HEADER_CONTENT_LENGTH, String.valueOf((last - first) + 1));
+
+        FileInputStream in = new FileInputStream(rfsFile);
+        try {
+            FileChannel channel = in.getChannel();
+            WritableByteChannel out = Channels.newChannel(res.getOutputStream());
+            long position = first;
+            long remaining = (last - first) + 1;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    // the file was truncated
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Sets the "Last-Modified" and "Expires" headers for the given resource,
+     * or prevents caching for workplace users.<p>
+     *
+     * @param resource the resource to set the headers for
+     * @param req the current request
+     * @param res the current response
+     */
+    protected void setCacheHeaders(CmsResource resource, HttpServletRequest req, HttpServletResponse res) {
+
+        if (CmsWorkplaceManager.isWorkplaceUser(req)) {
+            // prevent caching for Workplace users
+            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, System.currentTimeMillis());
+            CmsRequestUtil.setNoCacheHeaders(res);
+        } else {
+            // set date last modified header
+            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, resource.getDateLastModified());
+
+            // set "Expires" only if cache control is not already set
+            if (!res.containsHeader(CmsRequestUtil.HEADER_CACHE_CONTROL)) {
+                long expireTime = resource.getDateExpired();
+                if (expireTime == CmsResource.DATE_EXPIRED_DEFAULT) {
+                    expireTime--;
+                    // flex controller will automatically reduce this to a reasonable value
+                }
+                // now set "Expires" header
+                CmsFlexController.setDateExpiresHeader(res, expireTime, m_clientCacheMaxAge);
+            }
+        }
+    }
+
+    /**
+     * Checks if the given "If-None-Match" header matches the given entity tag.<p>
+     *
+     * @param ifNoneMatch the value of the "If-None-Match" header, may be <code>null</code>
+     * @param etag the entity tag
+     *
+     * @return <code>true</code> if the header matches the entity tag
+     */
+    private boolean matchesETag(String ifNoneMatch, String etag) {
+
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : CmsStringUtil.splitAsList(ifNoneMatch, ',', true)) {
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
                 return true;
             }
         }
         return false;
     }
-}
\ No newline at end of file
+}
@@ -40,9 +40,23 @@ import org.opencms.main.OpenCms;
 import org.opencms.scheduler.jobs.CmsImageCacheCleanupJob;
 import org.opencms.util.CmsStringUtil;
 
+import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.Map;
-
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -77,6 +91,15 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The configuration parameter for the OpenCms XML configuration to enable the image scaling. */
     public static final String CONFIGURATION_SCALING_ENABLED = "image.scaling.enabled";
 
+    /** The configuration parameter for the OpenCms XML configuration to set the maximum number of queued image scaling jobs. */
+    public static final String CONFIGURATION_SCALING_QUEUE_SIZE = "image.scaling.queuesize";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the number of image scaling threads. */
+    public static final String CONFIGURATION_SCALING_THREADS = "image.scaling.threads";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the image scaling timeout in milliseconds. */
+    public static final String CONFIGURATION_SCALING_TIMEOUT = "image.scaling.timeout";
+
     /** Default name for the image cache repository. */
     public static final String IMAGE_REPOSITORY_DEFAULT = "/WEB-INF/imagecache/";
 
@@ -86,9 +109,18 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The id of this loader. */
     public static final int RESOURCE_LOADER_ID_IMAGE_LOADER = 2;
 
+    /** The default maximum number of queued image scaling jobs. */
+    public static final int SCALING_DEFAULT_QUEUE_SIZE = 64;
+
+    /** The default maximum time in milliseconds to wait for an image scaling job. */
+    public static final int SCALING_DEFAULT_TIMEOUT = 30000;
+
     /** The log object for this class. */
     protected static final Log LOG = CmsLog.getLog(CmsImageLoader.class);
 
+    /** The object name of the image scaling statistics MBean, without the instance. */
+    private static final String SCALING_STATISTICS_MBEAN = "org.opencms:type=ImageScaling";
+
     /** The (optional) image down scale parameters for image write operations. */
     protected static String m_downScaleParams;
 
@@ -98,6 +130,27 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The maximum image size (width * height) to apply image blurring when down scaling (setting this to high may cause "out of memory" errors). */
     protected static int m_maxBlurSize = CmsImageScaler.SCALE_DEFAULT_MAX_BLUR_SIZE;
 
+    /** The executor running the image scaling jobs. */
+    protected static ThreadPoolExecutor m_scalingExecutor;
+
+    /** The currently running image scaling jobs, by the cache name of the scaled image. */
+    protected static ConcurrentHashMap<String, CompletableFuture<byte[]>> m_scalingJobs = new ConcurrentHashMap<String, CompletableFuture<byte[]>>();
+
+    /** The maximum number of queued image scaling jobs. */
+    protected static int m_scalingQueueSize = SCALING_DEFAULT_QUEUE_SIZE;
+
+    /** The statistics of the image scaling. */
+    protected static CmsImageScalingStatistics m_scalingStatistics;
+
+    /** The object name the statistics of the image scaling are registered with. */
+    protected static ObjectName m_scalingStatisticsName;
+
+    /** The number of image scaling threads. */
+    protected static int m_scalingThreads = Runtime.getRuntime().availableProcessors();
+
+    /** The maximum time in milliseconds to wait for an image scaling job. */
+    protected static int m_scalingTimeout = SCALING_DEFAULT_TIMEOUT;
+
     /** The disk cache to use for saving scaled image versions. */
     protected static CmsVfsNameBasedDiskCache m_vfsDiskCache;
 
@@ -152,6 +205,16 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         return m_maxBlurSize;
     }
 
+    /**
+     * Returns the statistics of the image scaling.<p>
+     *
+     * @return the statistics of the image scaling, or <code>null</code> if the loader is not initialized
+     */
+    public static CmsImageScalingStatistics getScalingStatistics() {
+
+        return m_scalingStatistics;
+    }
+
     /**
      * Returns <code>true</code> if the image scaling and processing capabilities for the
      * OpenCms VFS images have been enabled, <code>false</code> if not.<p>
@@ -200,6 +263,21 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             if (CONFIGURATION_DOWNSCALE.equals(paramName)) {
                 m_downScaleParams = paramValue.trim();
             }
+            if (CONFIGURATION_SCALING_THREADS.equals(paramName)) {
+                m_scalingThreads = Math.max(
+                    1,
+                    CmsStringUtil.getIntValue(paramValue, Runtime.getRuntime().availableProcessors(), paramName));
+            }
+            if (CONFIGURATION_SCALING_QUEUE_SIZE.equals(paramName)) {
+                m_scalingQueueSize = Math.max(
+                    1,
+                    CmsStringUtil.getIntValue(paramValue, SCALING_DEFAULT_QUEUE_SIZE, paramName));
+            }
+            if (CONFIGURATION_SCALING_TIMEOUT.equals(paramName)) {
+                m_scalingTimeout = Math.max(
+                    1,
+                    CmsStringUtil.getIntValue(paramValue, SCALING_DEFAULT_TIMEOUT, paramName));
+            }
         }
         super.addConfigurationParameter(paramName, paramValue);
     }
@@ -244,6 +322,11 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         m_enabled = false;
         m_imageRepositoryFolder = null;
         m_vfsDiskCache = null;
+        if (m_scalingExecutor != null) {
+            m_scalingExecutor.shutdown();
+            m_scalingExecutor = null;
+        }
+        unregisterScalingStatistics();
     }
 
     /**
@@ -286,6 +369,29 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                 OpenCms.getSystemInfo().getWebApplicationRfsPath(),
                 m_imageRepositoryFolder);
         }
+        // initialize the image scaling threads
+        if (m_scalingExecutor == null) {
+            m_scalingExecutor = new ThreadPoolExecutor(
+                m_scalingThreads,
+                m_scalingThreads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(m_scalingQueueSize),
+                new ThreadFactory() {
+
+                    private final AtomicInteger m_count = new AtomicInteger();
+
+                    public Thread newThread(Runnable r) {
+
+                        Thread thread = new Thread(r, "OpenCms: Image scaling " + m_count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            m_scalingExecutor.allowCoreThreadTimeOut(true);
+            m_scalingStatistics = new CmsImageScalingStatistics(m_scalingExecutor);
+            registerScalingStatistics(m_scalingStatistics);
+        }
         OpenCms.addCmsEventListener(this);
         // output setup information
         if (CmsLog.INIT.isInfoEnabled()) {
@@ -295,6 +401,12 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                     m_vfsDiskCache.getRepositoryPath()));
             CmsLog.INIT.info(
                 Messages.get().getBundle().key(Messages.INIT_IMAGE_SCALING_ENABLED_1, Boolean.valueOf(m_enabled)));
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_IMAGE_SCALING_THREADS_3,
+                    Integer.valueOf(m_scalingThreads),
+                    Integer.valueOf(m_scalingQueueSize),
+                    Integer.valueOf(m_scalingTimeout)));
         }
     }
 
@@ -312,6 +424,15 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             }
             // get the scale information from the request
             CmsImageScaler scaler = new CmsImageScaler(req, m_maxScaleSize, m_maxBlurSize);
+            if (!(resource instanceof CmsFile)) {
+                // the content is not required as file content (e.g. for the static export),
+                // so stream an already cached version directly from the disk cache
+                File cacheFile = m_vfsDiskCache.getCacheFile(getCacheName(resource, scaler));
+                if (cacheFile != null) {
+                    loadRfsFile(resource, cacheFile, req, res);
+                    return;
+                }
+            }
             // load the file from the cache
             CmsFile file = getScaledImage(cms, resource, scaler);
             // now perform standard load operation inherited from dump loader
@@ -322,6 +443,20 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         }
     }
 
+    /**
+     * Returns the name of the given image resource scaled with the given scaler in the disk cache.<p>
+     *
+     * @param resource the base VFS resource for the image
+     * @param scaler the configured image scaler
+     *
+     * @return the name of the scaled image in the disk cache
+     */
+    protected String getCacheName(CmsResource resource, CmsImageScaler scaler) {
+
+        String cacheParam = scaler.isValid() ? scaler.toString() : null;
+        return m_vfsDiskCache.getCacheName(resource, cacheParam);
+    }
+
     /**
      * Returns a scaled version of the given OpenCms VFS image resource.<p>
      *
@@ -341,8 +476,7 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     protected CmsFile getScaledImage(CmsObject cms, CmsResource resource, CmsImageScaler scaler)
     throws IOException, CmsException {
 
-        String cacheParam = scaler.isValid() ? scaler.toString() : null;
-        String cacheName = m_vfsDiskCache.getCacheName(resource, cacheParam);
+        String cacheName = getCacheName(resource, scaler);
         byte[] content = m_vfsDiskCache.getCacheContent(cacheName);
 
         CmsFile file;
@@ -356,6 +490,9 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             }
             // save the content in the file
             file.setContents(content);
+        } else if (scaler.isValid() && (m_scalingExecutor != null)) {
+            // valid scaling parameters found, scale the content in a scaling job shared by all concurrent requests
+            file = getScaledImageFromJob(cms, resource, scaler, cacheName);
         } else {
             // we must read the content from the VFS (if this has not been done yet)
             file = cms.readFile(resource);
@@ -371,4 +508,157 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         }
         return file;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a scaled version of the given OpenCms VFS image resource, created by a scaling job.<p>
+     *
+     * Only the first of several concurrent requests for the same scaled version reads the original image
+     * and starts the scaling job, the other requests wait for the result of this job.
+     * The scaling jobs run in a bounded number of threads with a bounded queue. If the queue is full,
+     * or the job does not finish within the configured timeout, the unscaled original image is returned
+     * and not cached.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the base VFS resource for the image
+     * @param scaler the configured image scaler
+     * @param cacheName the name of the scaled image in the disk cache
+     *
+     * @return a scaled version of the given OpenCms VFS image resource, or the original image in case of overload
+     *
+     * @throws CmsException in case of errors accessing the OpenCms VFS
+     */
+    protected CmsFile getScaledImageFromJob(
+        CmsObject cms,
+        CmsResource resource,
+        final CmsImageScaler scaler,
+        final String cacheName)
+    throws CmsException {
+
+        CmsFile file = null;
+        CompletableFuture<byte[]> job = new CompletableFuture<byte[]>();
+        CompletableFuture<byte[]> runningJob = m_scalingJobs.putIfAbsent(cacheName, job);
+        if (runningJob == null) {
+            boolean started = false;
+            try {
+                final CmsFile original = cms.readFile(resource);
+                final CompletableFuture<byte[]> scalingJob = job;
+                file = original;
+                m_scalingExecutor.execute(new Runnable() {
+
+                    public void run() {
+
+                        byte[] content = null;
+                        try {
+                            long start = System.nanoTime();
+                            content = scaler.scaleImage(original);
+                            m_scalingStatistics.recordScale(System.nanoTime() - start);
+                            m_vfsDiskCache.saveCacheFile(cacheName, content);
+                        } catch (Throwable t) {
+                            LOG.error(
+                                Messages.get().getBundle().key(
+                                    Messages.LOG_IMAGE_SCALING_FAILED_1,
+                                    original.getRootPath()),
+                                t);
+                        } finally {
+                            m_scalingJobs.remove(cacheName, scalingJob);
+                            scalingJob.complete(content);
+                        }
+                    }
+                });
+                started = true;
+            } catch (RejectedExecutionException e) {
+                m_scalingStatistics.recordRejected();
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(Messages.LOG_IMAGE_SCALING_REJECTED_1, resource.getRootPath()));
+                }
+            } finally {
+                if (!started) {
+                    // the waiting requests also deliver the unscaled original
+                    m_scalingJobs.remove(cacheName, job);
+                    job.complete(null);
+                }
+            }
+        } else {
+            m_scalingStatistics.recordCoalescedWait();
+            job = runningJob;
+        }
+
+        byte[] content = null;
+        try {
+            content = job.get(m_scalingTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // jobs are never completed exceptionally
+            LOG.error(e.getLocalizedMessage(), e);
+        } catch (TimeoutException e) {
+            // the job keeps running and caches the scaled image for later requests
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_IMAGE_SCALING_TIMEOUT_2,
+                        resource.getRootPath(),
+                        Integer.valueOf(m_scalingTimeout)));
+            }
+        }
+        if (content == null) {
+            // the image could not be scaled, deliver the original
+            return (file != null) ? file : cms.readFile(resource);
+        }
+        if (file == null) {
+            if (resource instanceof CmsFile) {
+                // the original file content must be modified (required e.g. for static export)
+                file = (CmsFile)resource;
+            } else {
+                // we don't need to read the content from the VFS
+                file = new CmsFile(resource);
+            }
+        }
+        file.setContents(content);
+        return file;
+    }
+
+    /**
+     * Registers the given image scaling statistics with the platform MBean server.<p>
+     *
+     * @param statistics the image scaling statistics
+     */
+    private static void registerScalingStatistics(CmsImageScalingStatistics statistics) {
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            String instance = OpenCms.getSystemInfo().getWebApplicationName();
+            ObjectName objectName = new ObjectName(
+                SCALING_STATISTICS_MBEAN
+                    + (CmsStringUtil.isEmptyOrWhitespaceOnly(instance) ? "" : ",instance=" + ObjectName.quote(instance)));
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(statistics, objectName);
+            m_scalingStatisticsName = objectName;
+        } catch (Throwable t) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_IMAGE_SCALING_MBEAN_FAILED_0), t);
+        }
+    }
+
+    /**
+     * Removes the image scaling statistics from the platform MBean server.<p>
+     */
+    private static void unregisterScalingStatistics() {
+
+        if (m_scalingStatisticsName == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(m_scalingStatisticsName)) {
+                server.unregisterMBean(m_scalingStatisticsName);
+            }
+        } catch (Throwable t) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_IMAGE_SCALING_MBEAN_REMOVE_FAILED_0), t);
+        } finally {
+            m_scalingStatisticsName = null;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the image scaling in the {@link CmsImageLoader}.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsImageScalingStatistics implements I_CmsImageScalingStatisticsMXBean {
+
+    /** The number of coalesced waits. */
+    private final LongAdder m_coalescedWaits = new LongAdder();
+
+    /** The executor running the scaling jobs. */
+    private final ThreadPoolExecutor m_executor;
+
+    /** The number of rejected scaling jobs. */
+    private final LongAdder m_rejected = new LongAdder();
+
+    /** The number of scaled images. */
+    private final LongAdder m_scales = new LongAdder();
+
+    /** The total scale time in nanoseconds. */
+    private final LongAdder m_scaleTime = new LongAdder();
+
+    /**
+     * Creates new image scaling statistics.<p>
+     *
+     * @param executor the executor running the scaling jobs
+     */
+    public CmsImageScalingStatistics(ThreadPoolExecutor executor) {
+
+        m_executor = executor;
+    }
+
+    /**
+     * @see org.opencms.loader.I_CmsImageScalingStatisticsMXBean#getActiveCount()
+     */
+    public int getActiveCount() {
+
+        return m_executor.getActiveCount();
+    }
+
+    /**
+     * @see org.opencms.loader.I_CmsImageScalingStatisticsMXBean#getAverageScaleTime()
+     */
+    public double getAverageScaleTime() {
+
+        long scales = m_scales.sum();
+        return scales > 0 ? (m_scaleTime.sum() / 1000000.0) / scales : 0.0;
+    }
+
+    /**
+     * @see org.opencms.loader.I_CmsImageScalingStatisticsMXBean#getCoalescedWaitCount()
+     */
+    public long getCoalescedWaitCount() {
+
+        return m_coalescedWaits.sum();
+    }
+
+    /**
+     * @see org.opencms.loader.I_CmsImageScalingStatisticsMXBean#getQueueSize()
+     */
+    public int getQueueSize() {
+
+        return m_executor.getQueue().size();
+    }
+
+    /**
+     * @see org.opencms.loader.I_CmsImageScalingStatisticsMXBean#getRejectedCount()
+     */
+    public long getRejectedCount() {
+
+        return m_rejected.sum();
+    }
+
+    /**
+     * @see org.opencms.loader.I_CmsImageScalingStatisticsMXBean#getScaleCount()
+     */
+    public long getScaleCount() {
+
+        return m_scales.sum();
+    }
+
+    /**
+     * @see org.opencms.loader.I_CmsImageScalingStatisticsMXBean#getTotalScaleTime()
+     */
+    public long getTotalScaleTime() {
+
+        return TimeUnit.NANOSECONDS.toMillis(m_scaleTime.sum());
+    }
+
+    /**
+     * Records a request waiting for the scaling job of another request.<p>
+     */
+    public void recordCoalescedWait() {
+
+        m_coalescedWaits.increment();
+    }
+
+    /**
+     * Records a scaling job rejected because of overload.<p>
+     */
+    public void recordRejected() {
+
+        m_rejected.increment();
+    }
+
+    /**
+     * Records a scaled image.<p>
+     *
+     * @param nanos the time needed to scale the image in nanoseconds
+     */
+    public void recordScale(long nanos) {
+
+        m_scales.increment();
+        m_scaleTime.add(nanos);
+    }
+
+    /**
+     * @see org.opencms.loader.I_CmsImageScalingStatisticsMXBean#reset()
+     */
+    public void reset() {
+
+        m_coalescedWaits.reset();
+        m_rejected.reset();
+        m_scales.reset();
+        m_scaleTime.reset();
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "scales: "
+            + getScaleCount()
+            + ", average scale time: "
+            + getAverageScaleTime()
+            + "ms, coalesced waits: "
+            + getCoalescedWaitCount()
+            + ", rejected: "
+            + getRejectedCount();
+    }
+}
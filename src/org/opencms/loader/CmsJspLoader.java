@@ -254,11 +254,13 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     }
 
     /**
-     * Destroy this ResourceLoder, this is a NOOP so far.
+     * Destroy this ResourceLoder, this shuts down the FlexCache.<p>
      */
     public void destroy() {
 
-        // NOOP
+        if (m_cache != null) {
+            m_cache.shutDown();
+        }
     }
 
     /**
@@ -0,0 +1,95 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+/**
+ * Management interface for the statistics of the image scaling in the {@link CmsImageLoader}.<p>
+ *
+ * The statistics are registered with the platform MBean server under the domain
+ * <code>org.opencms</code> with the type <code>ImageScaling</code>.<p>
+ *
+ * @since 10.5.0
+ */
+public interface I_CmsImageScalingStatisticsMXBean {
+
+    /**
+     * Returns the number of scaling jobs which are currently running.<p>
+     *
+     * @return the number of running scaling jobs
+     */
+    int getActiveCount();
+
+    /**
+     * Returns the average time in milliseconds needed to scale an image.<p>
+     *
+     * @return the average scale time in milliseconds
+     */
+    double getAverageScaleTime();
+
+    /**
+     * Returns the number of requests which waited for the scaling job of another request
+     * instead of scaling the same image again.<p>
+     *
+     * @return the number of coalesced waits
+     */
+    long getCoalescedWaitCount();
+
+    /**
+     * Returns the number of scaling jobs which are waiting for a free scaling thread.<p>
+     *
+     * @return the number of queued scaling jobs
+     */
+    int getQueueSize();
+
+    /**
+     * Returns the number of requests which got the unscaled image because all scaling threads were busy
+     * and the queue was full.<p>
+     *
+     * @return the number of rejected scaling jobs
+     */
+    long getRejectedCount();
+
+    /**
+     * Returns the number of scaled images.<p>
+     *
+     * @return the number of scaled images
+     */
+    long getScaleCount();
+
+    /**
+     * Returns the total time in milliseconds needed to scale images.<p>
+     *
+     * @return the total scale time in milliseconds
+     */
+    long getTotalScaleTime();
+
+    /**
+     * Resets all counters.<p>
+     */
+    void reset();
+}
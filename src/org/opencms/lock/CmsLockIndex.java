@@ -0,0 +1,282 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.lock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Path segment tree of the cached locks, indexed by the root path of the locked resource.<p>
+ *
+ * The index allows to look up the locks of all parent folders of a resource and all locks
+ * below a given folder with a cost that depends on the path depth, instead of the
+ * total number of locks.<p>
+ *
+ * Read access is not synchronized, modifications are serialized.<p>
+ *
+ * @since 10.5.0
+ */
+public final class CmsLockIndex {
+
+    /**
+     * A node of the lock index.<p>
+     */
+    private static final class Node {
+
+        /** The child nodes, by path segment. */
+        final Map<String, Node> m_children = new ConcurrentHashMap<String, Node>();
+
+        /** The lock of the resource represented by this node, may be <code>null</code>. */
+        volatile CmsLock m_lock;
+
+        /**
+         * Collects all locks of this node and its descendants.<p>
+         *
+         * @param target the list to add the locks to
+         */
+        void collectLocks(List<CmsLock> target) {
+
+            CmsLock lock = m_lock;
+            if (lock != null) {
+                target.add(lock);
+            }
+            for (Node child : m_children.values()) {
+                child.collectLocks(target);
+            }
+        }
+
+        /**
+         * Checks if this node can be removed from its parent.<p>
+         *
+         * @return <code>true</code> if this node has neither a lock nor children
+         */
+        boolean isEmpty() {
+
+            return (m_lock == null) && m_children.isEmpty();
+        }
+    }
+
+    /** The root node, representing the path "/". */
+    private final Node m_root = new Node();
+
+    /** The number of locks in this index. */
+    private volatile int m_size;
+
+    /**
+     * Splits the given root path into its segments.<p>
+     *
+     * @param rootPath the root path to split
+     *
+     * @return the path segments
+     */
+    private static List<String> splitPath(String rootPath) {
+
+        List<String> result = new ArrayList<String>();
+        int start = 0;
+        int length = rootPath.length();
+        while (start < length) {
+            int end = rootPath.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                result.add(rootPath.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Removes all locks from the index.<p>
+     */
+    public synchronized void clear() {
+
+        m_root.m_lock = null;
+        m_root.m_children.clear();
+        m_size = 0;
+    }
+
+    /**
+     * Returns all locks whose resource name starts with the given prefix.<p>
+     *
+     * This has the same semantics as checking <code>lock.getResourceName().startsWith(prefix)</code>
+     * for every lock, so for a folder path the result contains the folder lock and all locks below the folder.<p>
+     *
+     * @param prefix the root path prefix
+     *
+     * @return the matching locks, in no particular order
+     */
+    public List<CmsLock> getLocksByPrefix(String prefix) {
+
+        List<CmsLock> result = new ArrayList<CmsLock>();
+        List<String> segments = splitPath(prefix);
+        boolean partialLastSegment = !segments.isEmpty() && !prefix.endsWith("/");
+        int completeSegments = partialLastSegment ? segments.size() - 1 : segments.size();
+        Node node = m_root;
+        for (int i = 0; (node != null) && (i < completeSegments); i++) {
+            node = node.m_children.get(segments.get(i));
+        }
+        if (node == null) {
+            return result;
+        }
+        if (partialLastSegment) {
+            String partial = segments.get(segments.size() - 1);
+            for (Map.Entry<String, Node> entry : node.m_children.entrySet()) {
+                if (entry.getKey().startsWith(partial)) {
+                    entry.getValue().collectLocks(result);
+                }
+            }
+        } else {
+            node.collectLocks(result);
+        }
+        // the node lock for "/a" shares the node with "/a/", so filter the exact string prefix
+        for (int i = result.size() - 1; i >= 0; i--) {
+            if (!result.get(i).getResourceName().startsWith(prefix)) {
+                result.remove(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the locks of all parent folders of the given resource, the nearest parent first.<p>
+     *
+     * Only locks of folders are returned, and the lock of the resource itself is never included.<p>
+     *
+     * @param rootPath the root path of the resource
+     *
+     * @return the parent folder locks, the nearest parent first
+     */
+    public List<CmsLock> getParentFolderLocks(String rootPath) {
+
+        List<String> segments = splitPath(rootPath);
+        if (segments.isEmpty()) {
+            // the root folder has no parents
+            return Collections.emptyList();
+        }
+        List<CmsLock> result = new ArrayList<CmsLock>();
+        Node node = m_root;
+        int i = 0;
+        while (node != null) {
+            CmsLock lock = node.m_lock;
+            if ((lock != null)
+                && lock.getResourceName().endsWith("/")
+                && !lock.getResourceName().equals(rootPath)) {
+                result.add(lock);
+            }
+            if (i >= (segments.size() - 1)) {
+                break;
+            }
+            node = node.m_children.get(segments.get(i));
+            i++;
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Adds the given lock to the index, replacing a lock for the same path.<p>
+     *
+     * @param lock the lock to add
+     */
+    public synchronized void put(CmsLock lock) {
+
+        Node node = m_root;
+        for (String segment : splitPath(lock.getResourceName())) {
+            Node child = node.m_children.get(segment);
+            if (child == null) {
+                child = new Node();
+                node.m_children.put(segment, child);
+            }
+            node = child;
+        }
+        if (node.m_lock == null) {
+            m_size++;
+        }
+        node.m_lock = lock;
+    }
+
+    /**
+     * Adds all given locks to the index.<p>
+     *
+     * @param locks the locks to add
+     */
+    public synchronized void putAll(Iterable<CmsLock> locks) {
+
+        for (CmsLock lock : locks) {
+            put(lock);
+        }
+    }
+
+    /**
+     * Removes the lock for the given root path from the index.<p>
+     *
+     * @param rootPath the root path of the lock to remove
+     */
+    public synchronized void remove(String rootPath) {
+
+        List<String> segments = splitPath(rootPath);
+        List<Node> nodes = new ArrayList<Node>(segments.size() + 1);
+        Node node = m_root;
+        nodes.add(node);
+        for (String segment : segments) {
+            node = node.m_children.get(segment);
+            if (node == null) {
+                return;
+            }
+            nodes.add(node);
+        }
+        CmsLock lock = node.m_lock;
+        if ((lock == null) || !lock.getResourceName().equals(rootPath)) {
+            return;
+        }
+        node.m_lock = null;
+        m_size--;
+        // prune the nodes which are no longer needed
+        for (int i = segments.size(); i > 0; i--) {
+            if (!nodes.get(i).isEmpty()) {
+                break;
+            }
+            nodes.get(i - 1).m_children.remove(segments.get(i - 1));
+        }
+    }
+
+    /**
+     * Returns the number of locks in the index.<p>
+     *
+     * @return the number of locks in the index
+     */
+    public int size() {
+
+        return m_size;
+    }
+}
@@ -36,11 +36,13 @@ import org.opencms.file.CmsUser;
 import org.opencms.file.CmsVfsResourceNotFoundException;
 import org.opencms.file.I_CmsResource;
 import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.lock.CmsLockTable.CmsLockTableLocks;
 import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
 import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -55,6 +57,9 @@ import java.util.Map;
  * locked parent folders. The result of a query to the lock manager
  * are instances of CmsLock objects.<p>
  *
+ * Operations which change the lock state are serialized per resource path with a {@link CmsLockTable},
+ * so lock operations on unrelated subtrees can proceed in parallel.<p>
+ *
  * @since 6.0.0
  *
  * @see org.opencms.file.CmsObject#getLock(CmsResource)
@@ -62,11 +67,17 @@ import java.util.Map;
  */
 public final class CmsLockManager {
 
+    /** The database context attribute for the siblings read during the current database operation. */
+    private static final String ATTR_SIBLINGS = CmsLockManager.class.getName() + ".siblings";
+
     /** The driver manager instance. */
     private CmsDriverManager m_driverManager;
 
     /** The flag to indicate if the locks should be written to the db. */
-    private boolean m_isDirty;
+    private volatile boolean m_isDirty;
+
+    /** The table of per path locks to serialize lock state changes. */
+    private final CmsLockTable m_lockTable = new CmsLockTable();
 
     /** The flag to indicate if the lock manager has been started in run level 4. */
     private boolean m_runningInServlet;
@@ -102,38 +113,45 @@ public final class CmsLockManager {
             throw new CmsLockException(Messages.get().container(Messages.ERR_INVALID_LOCK_TYPE_1, type.toString()));
         }
 
-        // get the current lock
-        CmsLock currentLock = getLock(dbc, resource);
+        // the lock state of the resource and its siblings must not change until the new lock is set
+        CmsLockTableLocks tableLocks = m_lockTable.lock(getLockTablePaths(dbc, resource));
+        try {
+            // get the current lock
+            CmsLock currentLock = getLock(dbc, resource);
 
-        // check lockability
-        checkLockable(dbc, resource, user, project, type, currentLock);
+            // check lockability
+            checkLockable(dbc, resource, user, project, type, currentLock);
 
-        boolean needNewLock = true;
-        // prevent shared locks get compromised
-        if ((type.isExclusive()) && !(type.isTemporary() && currentLock.isInherited())) {
-            if (!currentLock.getEditionLock().isUnlocked()) {
-                needNewLock = false;
+            boolean needNewLock = true;
+            // prevent shared locks get compromised
+            if ((type.isExclusive()) && !(type.isTemporary() && currentLock.isInherited())) {
+                if (!currentLock.getEditionLock().isUnlocked()) {
+                    needNewLock = false;
+                }
             }
-        }
 
-        CmsLock newLock = CmsLock.getNullLock();
-        if (needNewLock) {
-            // lock the resource
-            newLock = new CmsLock(resource.getRootPath(), user.getId(), project, type);
-            lockResource(newLock);
-        }
+            CmsLock newLock = CmsLock.getNullLock();
+            if (needNewLock) {
+                // lock the resource
+                newLock = new CmsLock(resource.getRootPath(), user.getId(), project, type);
+                lockResource(newLock);
+            }
 
-        // handle collisions with exclusive locked sub-resources in case of a folder
-        if (resource.isFolder() && newLock.getSystemLock().isUnlocked()) {
-            String resourceName = resource.getRootPath();
-            Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
-            while (itLocks.hasNext()) {
-                CmsLock lock = itLocks.next();
-                String lockedPath = lock.getResourceName();
-                if (lockedPath.startsWith(resourceName) && !lockedPath.equals(resourceName)) {
-                    unlockResource(lockedPath, false);
+            // handle collisions with exclusive locked sub-resources in case of a folder
+            if (resource.isFolder() && newLock.getSystemLock().isUnlocked()) {
+                String resourceName = resource.getRootPath();
+                Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocksByPrefix(
+                    resourceName).iterator();
+                while (itLocks.hasNext()) {
+                    CmsLock lock = itLocks.next();
+                    String lockedPath = lock.getResourceName();
+                    if (lockedPath.startsWith(resourceName) && !lockedPath.equals(resourceName)) {
+                        unlockResource(lockedPath, false);
+                    }
                 }
             }
+        } finally {
+            tableLocks.unlock();
         }
     }
 
@@ -231,7 +249,7 @@ public final class CmsLockManager {
     throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
@@ -283,7 +301,7 @@ public final class CmsLockManager {
         Map<String, CmsResource> cache) throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
@@ -358,7 +376,7 @@ public final class CmsLockManager {
     public List<CmsLock> getLocks(CmsDbContext dbc, String resourceName, CmsLockFilter filter) throws CmsException {
 
         List<CmsLock> locks = new ArrayList<CmsLock>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resourceName, filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             if (filter.isSharedExclusive()) {
@@ -404,7 +422,8 @@ public final class CmsLockManager {
         if (resource == null) {
             return false;
         }
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocksByPrefix(
+            resource.getRootPath()).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             if (lock.getSystemLock().isUnlocked()) {
@@ -451,16 +470,25 @@ public final class CmsLockManager {
      */
     public void moveResource(String source, String destination) {
 
-        CmsLock lock = OpenCms.getMemoryMonitor().getCachedLock(source);
-        if (lock != null) {
-            OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
-            CmsLock newLock = new CmsLock(destination, lock.getUserId(), lock.getProject(), lock.getType());
-            lock = lock.getRelatedLock();
-            if ((lock != null) && !lock.isNullLock()) {
-                CmsLock relatedLock = new CmsLock(destination, lock.getUserId(), lock.getProject(), lock.getType());
-                newLock.setRelatedLock(relatedLock);
+        CmsLockTableLocks tableLocks = m_lockTable.lock(Arrays.asList(source, destination));
+        try {
+            CmsLock lock = OpenCms.getMemoryMonitor().getCachedLock(source);
+            if (lock != null) {
+                OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
+                CmsLock newLock = new CmsLock(destination, lock.getUserId(), lock.getProject(), lock.getType());
+                lock = lock.getRelatedLock();
+                if ((lock != null) && !lock.isNullLock()) {
+                    CmsLock relatedLock = new CmsLock(
+                        destination,
+                        lock.getUserId(),
+                        lock.getProject(),
+                        lock.getType());
+                    newLock.setRelatedLock(relatedLock);
+                }
+                OpenCms.getMemoryMonitor().cacheLock(newLock);
             }
-            OpenCms.getMemoryMonitor().cacheLock(newLock);
+        } finally {
+            tableLocks.unlock();
         }
     }
 
@@ -506,8 +534,13 @@ public final class CmsLockManager {
         } catch (CmsVfsResourceNotFoundException e) {
             // ok, ignore
         }
-        unlockResource(resourceName, true);
-        unlockResource(resourceName, false);
+        CmsLockTableLocks tableLocks = m_lockTable.lock(Collections.singletonList(resourceName));
+        try {
+            unlockResource(resourceName, true);
+            unlockResource(resourceName, false);
+        } finally {
+            tableLocks.unlock();
+        }
     }
 
     /**
@@ -525,10 +558,10 @@ public final class CmsLockManager {
             boolean editLock = currentLock.getEditionLock().getUserId().equals(userId);
             boolean sysLock = currentLock.getSystemLock().getUserId().equals(userId);
             if (editLock) {
-                unlockResource(currentLock.getResourceName(), false);
+                unlockResourceInTable(currentLock.getResourceName(), false);
             }
             if (sysLock) {
-                unlockResource(currentLock.getResourceName(), true);
+                unlockResourceInTable(currentLock.getResourceName(), true);
             }
         }
     }
@@ -553,69 +586,78 @@ public final class CmsLockManager {
     public CmsLock removeResource(CmsDbContext dbc, CmsResource resource, boolean forceUnlock, boolean removeSystemLock)
     throws CmsException {
 
-        String resourcename = resource.getRootPath();
-        CmsLock lock = getLock(dbc, resource).getEditionLock();
-
-        // check some abort conditions first
-        if (!lock.isNullLock()) {
-            // the resource is locked by another user or in other project
-            if (!forceUnlock && (!lock.isOwnedInProjectBy(dbc.currentUser(), dbc.currentProject()))) {
-                throw new CmsLockException(
-                    Messages.get().container(Messages.ERR_RESOURCE_UNLOCK_1, dbc.removeSiteRoot(resourcename)));
-            }
+        // the lock state of the resource and its siblings must not change until the lock is removed
+        CmsLockTableLocks tableLocks = m_lockTable.lock(getLockTablePaths(dbc, resource));
+        try {
+            String resourcename = resource.getRootPath();
+            CmsLock lock = getLock(dbc, resource).getEditionLock();
+
+            // check some abort conditions first
+            if (!lock.isNullLock()) {
+                // the resource is locked by another user or in other project
+                if (!forceUnlock && (!lock.isOwnedInProjectBy(dbc.currentUser(), dbc.currentProject()))) {
+                    throw new CmsLockException(
+                        Messages.get().container(Messages.ERR_RESOURCE_UNLOCK_1, dbc.removeSiteRoot(resourcename)));
+                }
 
-            // sub-resources of a locked folder can't be unlocked
-            if (!forceUnlock && lock.isInherited()) {
-                throw new CmsLockException(
-                    Messages.get().container(Messages.ERR_UNLOCK_LOCK_INHERITED_1, dbc.removeSiteRoot(resourcename)));
+                // sub-resources of a locked folder can't be unlocked
+                if (!forceUnlock && lock.isInherited()) {
+                    throw new CmsLockException(
+                        Messages.get().container(
+                            Messages.ERR_UNLOCK_LOCK_INHERITED_1,
+                            dbc.removeSiteRoot(resourcename)));
+                }
             }
-        }
 
-        // remove the lock and clean-up stuff
-        if (lock.isExclusive()) {
-            if (resource.isFolder()) {
-                // in case of a folder, remove any exclusive locks on sub-resources that probably have
-                // been upgraded from an inherited lock when the user edited a resource
-                Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
-                while (itLocks.hasNext()) {
-                    String lockedPath = (itLocks.next()).getResourceName();
-                    if (lockedPath.startsWith(resourcename) && !lockedPath.equals(resourcename)) {
-                        // remove the exclusive locked sub-resource
-                        unlockResource(lockedPath, false);
+            // remove the lock and clean-up stuff
+            if (lock.isExclusive()) {
+                if (resource.isFolder()) {
+                    // in case of a folder, remove any exclusive locks on sub-resources that probably have
+                    // been upgraded from an inherited lock when the user edited a resource
+                    Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocksByPrefix(
+                        resourcename).iterator();
+                    while (itLocks.hasNext()) {
+                        String lockedPath = (itLocks.next()).getResourceName();
+                        if (lockedPath.startsWith(resourcename) && !lockedPath.equals(resourcename)) {
+                            // remove the exclusive locked sub-resource
+                            unlockResource(lockedPath, false);
+                        }
                     }
                 }
+                if (removeSystemLock) {
+                    unlockResource(resourcename, true);
+                }
+                unlockResource(resourcename, false);
+                return lock;
             }
-            if (removeSystemLock) {
-                unlockResource(resourcename, true);
-            }
-            unlockResource(resourcename, false);
-            return lock;
-        }
 
-        if (lock.getType().isSharedExclusive()) {
-            List<String> locks = OpenCms.getMemoryMonitor().getAllCachedLockPaths();
-            // when a resource with a shared lock gets unlocked, fetch all siblings of the resource
-            // to the same content record to identify the exclusive locked sibling
-            List<CmsResource> siblings = internalReadSiblings(dbc, resource);
-            for (int i = 0; i < siblings.size(); i++) {
-                CmsResource sibling = siblings.get(i);
-                if (locks.contains(sibling.getRootPath())) {
-                    // remove the exclusive locked sibling
-                    if (removeSystemLock) {
-                        unlockResource(sibling.getRootPath(), true);
+            if (lock.getType().isSharedExclusive()) {
+                List<String> locks = OpenCms.getMemoryMonitor().getAllCachedLockPaths();
+                // when a resource with a shared lock gets unlocked, fetch all siblings of the resource
+                // to the same content record to identify the exclusive locked sibling
+                List<CmsResource> siblings = internalReadSiblings(dbc, resource);
+                for (int i = 0; i < siblings.size(); i++) {
+                    CmsResource sibling = siblings.get(i);
+                    if (locks.contains(sibling.getRootPath())) {
+                        // remove the exclusive locked sibling
+                        if (removeSystemLock) {
+                            unlockResource(sibling.getRootPath(), true);
+                        }
+                        unlockResource(sibling.getRootPath(), false);
+                        break; // it can only be one!
                     }
-                    unlockResource(sibling.getRootPath(), false);
-                    break; // it can only be one!
                 }
+                return lock;
             }
-            return lock;
-        }
 
-        // remove system locks only if explicit required
-        if (removeSystemLock && !getLock(dbc, resource).getSystemLock().isUnlocked()) {
-            return unlockResource(resourcename, true);
+            // remove system locks only if explicit required
+            if (removeSystemLock && !getLock(dbc, resource).getSystemLock().isUnlocked()) {
+                return unlockResource(resourcename, true);
+            }
+            return lock;
+        } finally {
+            tableLocks.unlock();
         }
-        return lock;
     }
 
     /**
@@ -630,10 +672,10 @@ public final class CmsLockManager {
         while (itLocks.hasNext()) {
             CmsLock currentLock = itLocks.next();
             if (removeSystemLocks && currentLock.getSystemLock().getProjectId().equals(projectId)) {
-                unlockResource(currentLock.getResourceName(), true);
+                unlockResourceInTable(currentLock.getResourceName(), true);
             }
             if (currentLock.getEditionLock().getProjectId().equals(projectId)) {
-                unlockResource(currentLock.getResourceName(), false);
+                unlockResourceInTable(currentLock.getResourceName(), false);
             }
         }
     }
@@ -651,7 +693,7 @@ public final class CmsLockManager {
         while (itLocks.hasNext()) {
             CmsLock currentLock = itLocks.next();
             if (currentLock.isTemporary() && currentLock.getUserId().equals(userId)) {
-                unlockResource(currentLock.getResourceName(), false);
+                unlockResourceInTable(currentLock.getResourceName(), false);
             }
         }
     }
@@ -745,6 +787,37 @@ public final class CmsLockManager {
         }
     }
 
+    /**
+     * Returns the cached locks which may match the given filter for the given resource.<p>
+     *
+     * Unless shared exclusive locks are requested, which requires to check the siblings of all locks,
+     * only the locks of the parent folders and the resources below the given path are returned.<p>
+     *
+     * @param rootPath the root path of the resource
+     * @param filter the lock filter
+     *
+     * @return the candidate locks
+     */
+    private List<CmsLock> getCandidateLocks(String rootPath, CmsLockFilter filter) {
+
+        if (filter.isSharedExclusive()) {
+            return OpenCms.getMemoryMonitor().getAllCachedLocks();
+        }
+        List<CmsLock> locks = new ArrayList<CmsLock>();
+        if (filter.isIncludeChildren()) {
+            // contains the lock of the resource itself
+            locks.addAll(OpenCms.getMemoryMonitor().getCachedLocksByPrefix(rootPath));
+        }
+        if (filter.isIncludeParent()) {
+            locks.addAll(OpenCms.getMemoryMonitor().getCachedParentFolderLocks(rootPath));
+            CmsLock lock = getDirectLock(rootPath);
+            if ((lock != null) && !filter.isIncludeChildren() && rootPath.endsWith("/")) {
+                locks.add(lock);
+            }
+        }
+        return locks;
+    }
+
     /**
      * Returns the direct lock of a resource.<p>
      *
@@ -757,6 +830,31 @@ public final class CmsLockManager {
         return OpenCms.getMemoryMonitor().getCachedLock(resourcename);
     }
 
+    /**
+     * Returns the paths to lock in the lock table before the lock state of the given resource is changed.<p>
+     *
+     * These are the root paths of the resource and its siblings, since the lock of a sibling
+     * determines the lock state of the resource.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource
+     *
+     * @return the root paths to lock
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private List<String> getLockTablePaths(CmsDbContext dbc, CmsResource resource) throws CmsException {
+
+        List<String> paths = new ArrayList<String>();
+        paths.add(resource.getRootPath());
+        if ((resource.getSiblingCount() > 1) && !dbc.currentProject().isOnlineProject()) {
+            for (CmsResource sibling : internalReadSiblings(dbc, resource)) {
+                paths.add(sibling.getRootPath());
+            }
+        }
+        return paths;
+    }
+
     /**
      * Returns the lock of a possible locked parent folder of a resource, system locks are ignored.<p>
      *
@@ -766,18 +864,14 @@ public final class CmsLockManager {
      */
     private CmsLock getParentFolderLock(String resourceName) {
 
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        // the parent folder locks are ordered starting with the nearest parent
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedParentFolderLocks(resourceName).iterator();
         while (itLocks.hasNext()) {
-            CmsLock lock = itLocks.next();
-            if (lock.getResourceName().endsWith("/")
-                && resourceName.startsWith(lock.getResourceName())
-                && !resourceName.equals(lock.getResourceName())) {
-                // system locks does not get inherited
-                lock = lock.getEditionLock();
-                // check the lock
-                if (!lock.isUnlocked()) {
-                    return lock;
-                }
+            // system locks does not get inherited
+            CmsLock lock = itLocks.next().getEditionLock();
+            // check the lock
+            if (!lock.isUnlocked()) {
+                return lock;
             }
         }
         return CmsLock.getNullLock();
@@ -884,14 +978,29 @@ public final class CmsLockManager {
      */
     private List<CmsResource> internalReadSiblings(CmsDbContext dbc, CmsResource resource) throws CmsException {
 
-        // reading siblings using the DriverManager methods while the lock state is checked would
-        // result in an infinite loop, therefore we must access the VFS driver directly
-        List<CmsResource> siblings = m_driverManager.getVfsDriver(dbc).readSiblings(
-            dbc,
-            dbc.currentProject().getUuid(),
-            resource,
-            true);
-        siblings.remove(resource);
+        // the siblings are cached in the database context, since the lock state of
+        // the same resource is usually checked several times during one operation
+        @SuppressWarnings("unchecked")
+        Map<String, List<CmsResource>> cache = (Map<String, List<CmsResource>>)dbc.getAttribute(ATTR_SIBLINGS);
+        if (cache == null) {
+            cache = new HashMap<String, List<CmsResource>>();
+            dbc.setAttribute(ATTR_SIBLINGS, cache);
+        }
+        String key = dbc.currentProject().getUuid() + resource.getStructureId().toString();
+        List<CmsResource> siblings = cache.get(key);
+        // a different sibling count means that siblings have been created or deleted in the meantime
+        if ((siblings == null) || (siblings.size() != (resource.getSiblingCount() - 1))) {
+            // reading siblings using the DriverManager methods while the lock state is checked would
+            // result in an infinite loop, therefore we must access the VFS driver directly
+            siblings = m_driverManager.getVfsDriver(dbc).readSiblings(
+                dbc,
+                dbc.currentProject().getUuid(),
+                resource,
+                true);
+            siblings.remove(resource);
+            siblings = Collections.unmodifiableList(siblings);
+            cache.put(key, siblings);
+        }
         return siblings;
     }
 
@@ -999,4 +1108,23 @@ public final class CmsLockManager {
             }
         }
     }
+
+    /**
+     * Unlocks the resource with the given name while holding its entry in the lock table.<p>
+     *
+     * @param resourceName the name of the resource to unlock
+     * @param systemLocks <code>true</code> if only system locks should be removed,
+     *              and <code>false</code> if only exclusive locks should be removed
+     *
+     * @return the removed lock object
+     */
+    private CmsLock unlockResourceInTable(String resourceName, boolean systemLocks) {
+
+        CmsLockTableLocks tableLocks = m_lockTable.lock(Collections.singletonList(resourceName));
+        try {
+            return unlockResource(resourceName, systemLocks);
+        } finally {
+            tableLocks.unlock();
+        }
+    }
 }
\ No newline at end of file
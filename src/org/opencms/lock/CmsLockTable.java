@@ -0,0 +1,176 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.lock;
+
+import org.opencms.file.CmsResource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Table of striped read/write locks, used to serialize the lock operations of the lock manager by resource path.<p>
+ *
+ * A lock operation on a resource holds the write lock of the stripe of the resource, and the read locks
+ * of the stripes of all parent folders. So operations on unrelated subtrees can proceed in parallel,
+ * while an operation on a folder excludes all operations on resources below the folder.<p>
+ *
+ * All stripes of an operation are acquired at once in ascending order, which prevents deadlocks.
+ * Operations must not be nested.<p>
+ *
+ * @since 10.5.0
+ */
+public final class CmsLockTable {
+
+    /**
+     * The stripes held by a single lock operation.<p>
+     */
+    public static final class CmsLockTableLocks {
+
+        /** The held locks, in the order of acquisition. */
+        private final List<Lock> m_locks;
+
+        /**
+         * Creates a new object for the given held locks.<p>
+         *
+         * @param locks the held locks
+         */
+        CmsLockTableLocks(List<Lock> locks) {
+
+            m_locks = locks;
+        }
+
+        /**
+         * Releases all held locks.<p>
+         */
+        public void unlock() {
+
+            for (int i = m_locks.size() - 1; i >= 0; i--) {
+                m_locks.get(i).unlock();
+            }
+        }
+    }
+
+    /** The default number of stripes. */
+    public static final int DEFAULT_STRIPES = 64;
+
+    /** The stripes. */
+    private final ReentrantReadWriteLock[] m_stripes;
+
+    /**
+     * Creates a new lock table with the default number of stripes.<p>
+     */
+    public CmsLockTable() {
+
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates a new lock table.<p>
+     *
+     * @param stripes the number of stripes
+     */
+    public CmsLockTable(int stripes) {
+
+        m_stripes = new ReentrantReadWriteLock[Math.max(1, stripes)];
+        for (int i = 0; i < m_stripes.length; i++) {
+            m_stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Returns the number of stripes.<p>
+     *
+     * @return the number of stripes
+     */
+    public int getStripeCount() {
+
+        return m_stripes.length;
+    }
+
+    /**
+     * Locks the given resource paths for modification.<p>
+     *
+     * This blocks until no other operation holds a lock on one of the given paths,
+     * one of their parent folders or one of the resources below them.<p>
+     *
+     * The returned locks must be released in a <code>finally</code> block.<p>
+     *
+     * @param rootPaths the root paths of the resources to modify, folders end with a slash
+     *
+     * @return the held locks
+     */
+    public CmsLockTableLocks lock(Collection<String> rootPaths) {
+
+        // the stripes to lock in ascending order, and whether the write lock is required
+        Map<Integer, Boolean> stripes = new TreeMap<Integer, Boolean>();
+        for (String rootPath : rootPaths) {
+            stripes.put(Integer.valueOf(getStripe(rootPath)), Boolean.TRUE);
+        }
+        for (String rootPath : rootPaths) {
+            String parent = CmsResource.getParentFolder(rootPath);
+            while (parent != null) {
+                Integer stripe = Integer.valueOf(getStripe(parent));
+                if (!stripes.containsKey(stripe)) {
+                    stripes.put(stripe, Boolean.FALSE);
+                }
+                parent = CmsResource.getParentFolder(parent);
+            }
+        }
+        List<Lock> locks = new ArrayList<Lock>(stripes.size());
+        for (Map.Entry<Integer, Boolean> entry : stripes.entrySet()) {
+            ReentrantReadWriteLock stripe = m_stripes[entry.getKey().intValue()];
+            Lock lock = entry.getValue().booleanValue() ? stripe.writeLock() : stripe.readLock();
+            lock.lock();
+            locks.add(lock);
+        }
+        return new CmsLockTableLocks(locks);
+    }
+
+    /**
+     * Returns the index of the stripe for the given root path.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the index of the stripe
+     */
+    int getStripe(String rootPath) {
+
+        int hash = rootPath.hashCode();
+        // spread the bits, since paths often differ only in their last characters
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return (hash & Integer.MAX_VALUE) % m_stripes.length;
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.util.CmsStringUtil;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Event manager that notifies asynchronous event listeners by a worker thread of their own.<p>
+ *
+ * Listeners implementing {@link I_CmsAsyncEventListener} receive their events through a bounded
+ * {@link CmsEventQueue}, so the thread firing an event does not wait for them. All other listeners are still
+ * notified synchronously.<p>
+ *
+ * If the queue of a listener is full, the thread firing the event waits until the listener has processed
+ * an event, instead of delivering the event itself ahead of the events already waiting in the queue.
+ * This keeps the events of each listener in order, and applies backpressure to the threads firing events
+ * when a listener cannot keep up.<p>
+ *
+ * The statistics of every queue are registered with the platform MBean server,
+ * see {@link I_CmsEventQueueMXBean}.<p>
+ *
+ * To use this event manager, configure it in the <code>opencms-system.xml</code>:
+ * <pre>
+ * &lt;events&gt;
+ *     &lt;eventmanager class="org.opencms.main.CmsAsyncEventManager" /&gt;
+ * &lt;/events&gt;
+ * </pre>
+ *
+ * @since 10.5.0
+ */
+public class CmsAsyncEventManager extends CmsEventManager {
+
+    /** The default capacity of the event queue of each listener. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    /** The object name of the event queue MBeans, without the instance and name. */
+    private static final String EVENT_QUEUE_MBEAN = "org.opencms:type=EventQueue";
+
+    /** The time to wait for the remaining events of each queue on shutdown, in milliseconds. */
+    private static final long SHUTDOWN_TIMEOUT = 5000;
+
+    /** The static log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsAsyncEventManager.class);
+
+    /** The capacity of the event queue of each listener. */
+    private int m_queueCapacity;
+
+    /** The object names the event queues are registered with, by listener. */
+    private Map<I_CmsEventListener, ObjectName> m_queueNames;
+
+    /** The event queues, by listener. */
+    private Map<I_CmsEventListener, CmsEventQueue> m_queues;
+
+    /** Indicates if this event manager has been shut down. */
+    private volatile boolean m_shutDown;
+
+    /**
+     * Creates a new asynchronous event manager with the default queue capacity.<p>
+     */
+    public CmsAsyncEventManager() {
+
+        this(DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a new asynchronous event manager.<p>
+     *
+     * @param queueCapacity the capacity of the event queue of each listener
+     */
+    public CmsAsyncEventManager(int queueCapacity) {
+
+        super();
+        m_queueCapacity = queueCapacity;
+        m_queues = new ConcurrentHashMap<I_CmsEventListener, CmsEventQueue>();
+        m_queueNames = new ConcurrentHashMap<I_CmsEventListener, ObjectName>();
+    }
+
+    /**
+     * Returns the event queues of all asynchronous listeners that have received events so far.<p>
+     *
+     * @return the event queues
+     */
+    public List<CmsEventQueue> getEventQueues() {
+
+        return Collections.unmodifiableList(new ArrayList<CmsEventQueue>(m_queues.values()));
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#removeCmsEventListener(org.opencms.main.I_CmsEventListener)
+     */
+    @Override
+    public void removeCmsEventListener(I_CmsEventListener listener) {
+
+        super.removeCmsEventListener(listener);
+        CmsEventQueue queue = m_queues.remove(listener);
+        if (queue != null) {
+            queue.shutDown(SHUTDOWN_TIMEOUT);
+            unregisterMBean(listener);
+        }
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#shutDown()
+     */
+    @Override
+    public void shutDown() {
+
+        synchronized (m_queues) {
+            m_shutDown = true;
+        }
+        for (CmsEventQueue queue : m_queues.values()) {
+            queue.shutDown(SHUTDOWN_TIMEOUT);
+            unregisterMBean(queue.getListener());
+            if (LOG.isInfoEnabled()) {
+                LOG.info(Messages.get().getBundle().key(Messages.LOG_EVENT_QUEUE_SHUTDOWN_1, queue.toString()));
+            }
+        }
+        m_queues.clear();
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#fireEventHandler(java.util.List, org.opencms.main.CmsEvent)
+     */
+    @Override
+    protected void fireEventHandler(List<I_CmsEventListener> listeners, CmsEvent event) {
+
+        if ((listeners == null) || listeners.isEmpty()) {
+            super.fireEventHandler(listeners, event);
+            return;
+        }
+        List<I_CmsEventListener> syncListeners = null;
+        for (I_CmsEventListener listener : listeners.toArray(EVENT_LIST)) {
+            CmsEventQueue queue = (listener instanceof I_CmsAsyncEventListener) ? getEventQueue(listener) : null;
+            if ((queue == null) || !queue.offer(event)) {
+                // synchronous listener, the queue is shut down, or an event fired by the listener itself
+                if (syncListeners == null) {
+                    syncListeners = new ArrayList<I_CmsEventListener>(listeners.size());
+                }
+                syncListeners.add(listener);
+            }
+        }
+        super.fireEventHandler(syncListeners, event);
+    }
+
+    /**
+     * Returns the event queue for the given listener, creating it if required.<p>
+     *
+     * @param listener the asynchronous listener
+     *
+     * @return the event queue of the listener, or <code>null</code> if this event manager has been shut down
+     */
+    private CmsEventQueue getEventQueue(I_CmsEventListener listener) {
+
+        CmsEventQueue queue = m_queues.get(listener);
+        if (queue == null) {
+            synchronized (m_queues) {
+                queue = m_queues.get(listener);
+                if ((queue == null) && !m_shutDown) {
+                    queue = new CmsEventQueue(listener, m_queueCapacity);
+                    m_queues.put(listener, queue);
+                    registerMBean(queue);
+                }
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Registers the statistics of the given event queue with the platform MBean server.<p>
+     *
+     * @param queue the event queue
+     */
+    private void registerMBean(CmsEventQueue queue) {
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            String instance = OpenCms.getSystemInfo().getWebApplicationName();
+            String prefix = EVENT_QUEUE_MBEAN
+                + (CmsStringUtil.isEmptyOrWhitespaceOnly(instance) ? "" : ",instance=" + ObjectName.quote(instance))
+                + ",name=";
+            // several listeners may be instances of the same class
+            String name = queue.getListenerClass();
+            ObjectName objectName = new ObjectName(prefix + ObjectName.quote(name));
+            for (int i = 2; server.isRegistered(objectName); i++) {
+                objectName = new ObjectName(prefix + ObjectName.quote(name + "#" + i));
+            }
+            server.registerMBean(queue, objectName);
+            m_queueNames.put(queue.getListener(), objectName);
+        } catch (Throwable t) {
+            LOG.warn(
+                Messages.get().getBundle().key(Messages.LOG_EVENT_QUEUE_MBEAN_FAILED_1, queue.getListenerClass()),
+                t);
+        }
+    }
+
+    /**
+     * Removes the statistics of the event queue of the given listener from the platform MBean server.<p>
+     *
+     * @param listener the listener
+     */
+    private void unregisterMBean(I_CmsEventListener listener) {
+
+        ObjectName objectName = m_queueNames.remove(listener);
+        if (objectName == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Throwable t) {
+            LOG.warn(
+                Messages.get().getBundle().key(Messages.LOG_EVENT_QUEUE_MBEAN_REMOVE_FAILED_1, objectName.toString()),
+                t);
+        }
+    }
+}
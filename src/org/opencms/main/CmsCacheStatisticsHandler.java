@@ -0,0 +1,106 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.file.CmsObject;
+import org.opencms.monitor.CmsCacheStatistics;
+import org.opencms.security.CmsRole;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Request handler which writes the statistics of all caches as plain text, one line per cache.<p>
+ *
+ * The statistics are available at <code>/handleCacheStatistics</code> for users with the root administrator role.
+ * The same values are also available as MBeans of the type <code>CacheStatistics</code>.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsCacheStatisticsHandler implements I_CmsRequestHandler {
+
+    /** The handler name. */
+    public static final String HANDLER_NAME = "CacheStatistics";
+
+    /** The handler names used by this request handler. */
+    private static final String[] HANDLER_NAMES = new String[] {HANDLER_NAME};
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsCacheStatisticsHandler.class);
+
+    /**
+     * @see org.opencms.main.I_CmsRequestHandler#getHandlerNames()
+     */
+    public String[] getHandlerNames() {
+
+        return HANDLER_NAMES;
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsRequestHandler#handle(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.lang.String)
+     */
+    public void handle(HttpServletRequest req, HttpServletResponse res, String name) throws IOException {
+
+        try {
+            CmsObject cms = OpenCmsCore.getInstance().initCmsObjectFromSession(req);
+            if ((cms == null) || !OpenCms.getRoleManager().hasRole(cms, CmsRole.ROOT_ADMIN)) {
+                res.sendError(HttpServletResponse.SC_FORBIDDEN);
+                return;
+            }
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            res.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        res.setContentType("text/plain; charset=UTF-8");
+        res.setHeader("Cache-Control", "no-cache");
+        PrintWriter writer = res.getWriter();
+        writer.println("name\trequests\thits\tmisses\thitRate\tloads\tavgLoadTimeMs\tevictions");
+        for (CmsCacheStatistics statistics : OpenCms.getMemoryMonitor().getCacheStatistics()) {
+            writer.println(
+                String.format(
+                    Locale.ENGLISH,
+                    "%s\t%d\t%d\t%d\t%.4f\t%d\t%.3f\t%d",
+                    statistics.getName(),
+                    Long.valueOf(statistics.getRequestCount()),
+                    Long.valueOf(statistics.getHitCount()),
+                    Long.valueOf(statistics.getMissCount()),
+                    Double.valueOf(statistics.getHitRate()),
+                    Long.valueOf(statistics.getLoadCount()),
+                    Double.valueOf(statistics.getAverageLoadTime()),
+                    Long.valueOf(statistics.getEvictionCount())));
+        }
+        writer.flush();
+    }
+}
@@ -155,6 +155,16 @@ public class CmsEventManager {
         }
     }
 
+    /**
+     * Shuts down this event manager.<p>
+     *
+     * The default event manager notifies all listeners synchronously, so there is nothing to do here.<p>
+     */
+    public void shutDown() {
+
+        // nothing to do for synchronous event handling
+    }
+
     /**
      * Returns the map of all configured event listeners.<p>
      *
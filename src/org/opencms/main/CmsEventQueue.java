@@ -0,0 +1,515 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Bounded queue of events for a single asynchronous event listener, processed by a worker thread.<p>
+ *
+ * Flush events without event data, like {@link I_CmsEventListener#EVENT_CLEAR_CACHES}, are coalesced:
+ * if such an event is already waiting in the queue, another one is not queued again.<p>
+ *
+ * If the queue is full, the thread firing an event waits until the worker thread has made room, so the events
+ * of each listener are always processed in the order they were fired, and slow listeners slow down the
+ * threads firing events instead of being overtaken by them. Only the worker thread itself never waits for its
+ * own queue, since it would wait forever: an event the listener fires while its queue is full is delivered
+ * directly, like a nested event of a synchronous listener.<p>
+ *
+ * The queue keeps some statistics about its depth and the latency of the listener,
+ * which are available as {@link I_CmsEventQueueMXBean}.<p>
+ *
+ * @since 10.5.0
+ *
+ * @see CmsAsyncEventManager
+ */
+public class CmsEventQueue implements I_CmsEventQueueMXBean {
+
+    /**
+     * An event in the queue, together with the time it was queued.<p>
+     */
+    private static final class Entry {
+
+        /** The event. */
+        final CmsEvent m_event;
+
+        /** The time the event was queued, in nanoseconds. */
+        final long m_queueTime;
+
+        /**
+         * Creates a new queue entry.<p>
+         *
+         * @param event the event
+         */
+        Entry(CmsEvent event) {
+
+            m_event = event;
+            m_queueTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * The worker thread that notifies the listener.<p>
+     */
+    private final class Worker extends Thread {
+
+        /**
+         * Creates a new worker thread.<p>
+         *
+         * @param name the thread name
+         */
+        Worker(String name) {
+
+            super(name);
+            setDaemon(true);
+        }
+
+        /**
+         * @see java.lang.Thread#run()
+         */
+        @Override
+        public void run() {
+
+            while (!m_shutDown || !m_queue.isEmpty()) {
+                Entry entry;
+                try {
+                    // poll with a timeout, so a shut down is noticed without interrupting the listener
+                    entry = m_queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    // the shut down timed out, process the remaining events
+                    continue;
+                }
+                if (entry != null) {
+                    process(entry);
+                }
+            }
+        }
+    }
+
+    /** The event types that are coalesced if they have no event data. */
+    private static final int[] COALESCED_EVENT_TYPES = new int[] {
+        I_CmsEventListener.EVENT_CLEAR_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+        I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY};
+
+    /** The static log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsEventQueue.class);
+
+    /** The time the worker thread waits for a new event before it checks for a shut down, in milliseconds. */
+    private static final long POLL_INTERVAL = 500;
+
+    /** The maximum number of events in the queue. */
+    private final int m_capacity;
+
+    /** The number of coalesced events. */
+    private final AtomicLong m_coalescedCount = new AtomicLong();
+
+    /** The listener notified by this queue. */
+    private final I_CmsEventListener m_listener;
+
+    /** The maximum time the listener needed to process an event, in nanoseconds. */
+    private volatile long m_maxListenerTime;
+
+    /** The maximum number of events in the queue so far. */
+    private volatile int m_maxSize;
+
+    /** The number of events that found the queue full. */
+    private final AtomicLong m_overflowCount = new AtomicLong();
+
+    /** The types of the coalesced events currently waiting in the queue. */
+    private final Set<Integer> m_pendingTypes = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+    /** The number of processed events. */
+    private final AtomicLong m_processedCount = new AtomicLong();
+
+    /** The queued events. */
+    private final BlockingQueue<Entry> m_queue;
+
+    /** Indicates if this queue has been shut down. */
+    private volatile boolean m_shutDown;
+
+    /** The number of events delivered by the thread firing them. */
+    private final AtomicLong m_synchronousCount = new AtomicLong();
+
+    /** The total time threads firing events waited for space in the queue, in nanoseconds. */
+    private final AtomicLong m_totalBlockedTime = new AtomicLong();
+
+    /** The total time the listener needed to process the events, in nanoseconds. */
+    private final AtomicLong m_totalListenerTime = new AtomicLong();
+
+    /** The total time the events waited in the queue, in nanoseconds. */
+    private final AtomicLong m_totalWaitTime = new AtomicLong();
+
+    /** The worker thread. */
+    private final Worker m_worker;
+
+    /**
+     * Creates a new event queue for the given listener and starts its worker thread.<p>
+     *
+     * @param listener the listener to notify
+     * @param capacity the maximum number of events in the queue
+     */
+    public CmsEventQueue(I_CmsEventListener listener, int capacity) {
+
+        m_listener = listener;
+        m_capacity = capacity;
+        m_queue = new LinkedBlockingQueue<Entry>(capacity);
+        m_worker = new Worker("OpenCms: Event queue for " + listener.getClass().getName());
+        m_worker.start();
+    }
+
+    /**
+     * Checks if the given event can be coalesced with an event of the same type.<p>
+     *
+     * @param event the event to check
+     *
+     * @return <code>true</code> if the given event can be coalesced
+     */
+    private static boolean isCoalesced(CmsEvent event) {
+
+        if ((event.getData() != null) && !event.getData().isEmpty()) {
+            return false;
+        }
+        for (int type : COALESCED_EVENT_TYPES) {
+            if (type == event.getType()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the average time the listener needed to process an event, in milliseconds.<p>
+     *
+     * @return the average listener time in milliseconds
+     */
+    public double getAverageListenerTime() {
+
+        return average(m_totalListenerTime.get());
+    }
+
+    /**
+     * Returns the average time an event waited in the queue, in milliseconds.<p>
+     *
+     * @return the average wait time in milliseconds
+     */
+    public double getAverageWaitTime() {
+
+        return average(m_totalWaitTime.get());
+    }
+
+    /**
+     * Returns the maximum number of events in the queue.<p>
+     *
+     * @return the capacity of the queue
+     */
+    public int getCapacity() {
+
+        return m_capacity;
+    }
+
+    /**
+     * Returns the number of events that were coalesced with an already queued event.<p>
+     *
+     * @return the number of coalesced events
+     */
+    public long getCoalescedCount() {
+
+        return m_coalescedCount.get();
+    }
+
+    /**
+     * Returns the listener notified by this queue.<p>
+     *
+     * @return the listener
+     */
+    public I_CmsEventListener getListener() {
+
+        return m_listener;
+    }
+
+    /**
+     * Returns the class name of the listener notified by this queue.<p>
+     *
+     * @return the class name of the listener
+     */
+    public String getListenerClass() {
+
+        return m_listener.getClass().getName();
+    }
+
+    /**
+     * Returns the maximum time the listener needed to process an event, in milliseconds.<p>
+     *
+     * @return the maximum listener time in milliseconds
+     */
+    public double getMaxListenerTime() {
+
+        return m_maxListenerTime / 1000000.0;
+    }
+
+    /**
+     * Returns the maximum number of events that were waiting in the queue.<p>
+     *
+     * @return the maximum queue size
+     */
+    public int getMaxSize() {
+
+        return m_maxSize;
+    }
+
+    /**
+     * Returns the number of events that found the queue full, so the thread firing the event had to wait.<p>
+     *
+     * @return the number of overflows
+     */
+    public long getOverflowCount() {
+
+        return m_overflowCount.get();
+    }
+
+    /**
+     * Returns the number of events processed by the listener.<p>
+     *
+     * @return the number of processed events
+     */
+    public long getProcessedCount() {
+
+        return m_processedCount.get();
+    }
+
+    /**
+     * Returns the number of events currently waiting in the queue.<p>
+     *
+     * @return the queue size
+     */
+    public int getSize() {
+
+        return m_queue.size();
+    }
+
+    /**
+     * Returns the number of events that were delivered by the thread firing them instead of this queue.<p>
+     *
+     * @return the number of synchronously delivered events
+     */
+    public long getSynchronousCount() {
+
+        return m_synchronousCount.get();
+    }
+
+    /**
+     * Returns the total time threads firing events waited for space in the full queue, in milliseconds.<p>
+     *
+     * @return the total time spent waiting for the queue in milliseconds
+     */
+    public long getTotalBlockedTime() {
+
+        return TimeUnit.NANOSECONDS.toMillis(m_totalBlockedTime.get());
+    }
+
+    /**
+     * Adds an event to the queue.<p>
+     *
+     * If an event that can be coalesced with the given event is already waiting, the event is not queued again.
+     * If the queue is full, this waits until there is room in the queue.<p>
+     *
+     * @param event the event to add
+     *
+     * @return <code>false</code> if the event could not be queued, because the queue is shut down, the queue is full
+     *      and this is called by the worker thread, or the calling thread was interrupted while waiting,
+     *      in this case the caller has to notify the listener itself
+     */
+    public boolean offer(CmsEvent event) {
+
+        if (m_shutDown) {
+            return false;
+        }
+        Integer coalescedType = null;
+        if (isCoalesced(event)) {
+            coalescedType = event.getTypeInteger();
+            if (!m_pendingTypes.add(coalescedType)) {
+                // the same event is already waiting in the queue
+                m_coalescedCount.incrementAndGet();
+                return true;
+            }
+        }
+        Entry entry = new Entry(event);
+        if (!m_queue.offer(entry)) {
+            m_overflowCount.incrementAndGet();
+            if (!put(entry)) {
+                if (coalescedType != null) {
+                    m_pendingTypes.remove(coalescedType);
+                }
+                m_synchronousCount.incrementAndGet();
+                return false;
+            }
+        }
+        int size = m_queue.size();
+        if (size > m_maxSize) {
+            m_maxSize = size;
+        }
+        return true;
+    }
+
+    /**
+     * Shuts down this queue.<p>
+     *
+     * The events already in the queue are still processed, but no new events are accepted.
+     * The worker thread is only interrupted if it has not finished the remaining events within the given timeout.<p>
+     *
+     * If this is called by the worker thread itself, e.g. because the listener removes itself from the
+     * event manager, this method does not wait. The worker thread finishes after processing the remaining events.<p>
+     *
+     * @param timeout the maximum time to wait for the remaining events to be processed, in milliseconds,
+     *      if this is not positive the method does not wait and the events are processed in the background
+     */
+    public void shutDown(long timeout) {
+
+        m_shutDown = true;
+        if ((timeout <= 0) || (Thread.currentThread() == m_worker)) {
+            return;
+        }
+        try {
+            m_worker.join(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (m_worker.isAlive()) {
+            // the listener is hanging, interrupt it
+            m_worker.interrupt();
+        }
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return String.format(
+            "%s: size=%d, maxSize=%d, processed=%d, coalesced=%d, overflows=%d, blocked=%dms, synchronous=%d, "
+                + "avgWait=%.2fms, avgLatency=%.2fms, maxLatency=%.2fms",
+            m_listener.getClass().getName(),
+            Integer.valueOf(getSize()),
+            Integer.valueOf(getMaxSize()),
+            Long.valueOf(getProcessedCount()),
+            Long.valueOf(getCoalescedCount()),
+            Long.valueOf(getOverflowCount()),
+            Long.valueOf(getTotalBlockedTime()),
+            Long.valueOf(getSynchronousCount()),
+            Double.valueOf(getAverageWaitTime()),
+            Double.valueOf(getAverageListenerTime()),
+            Double.valueOf(getMaxListenerTime()));
+    }
+
+    /**
+     * Returns the average of the given total time over all processed events, in milliseconds.<p>
+     *
+     * @param totalNanos the total time in nanoseconds
+     *
+     * @return the average time in milliseconds
+     */
+    private double average(long totalNanos) {
+
+        long count = m_processedCount.get();
+        return count == 0 ? 0.0 : (totalNanos / 1000000.0) / count;
+    }
+
+    /**
+     * Waits until the given entry can be added to the full queue.<p>
+     *
+     * @param entry the entry to add
+     *
+     * @return <code>true</code> if the entry has been added, <code>false</code> if this is the worker thread,
+     *      the queue has been shut down, or the current thread was interrupted while waiting
+     */
+    private boolean put(Entry entry) {
+
+        if (Thread.currentThread() == m_worker) {
+            // the worker would wait for itself
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            while (!m_shutDown) {
+                if (m_queue.offer(entry, POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            m_totalBlockedTime.addAndGet(System.nanoTime() - start);
+        }
+        return false;
+    }
+
+    /**
+     * Notifies the listener about a queued event.<p>
+     *
+     * @param entry the queued event
+     */
+    private void process(Entry entry) {
+
+        CmsEvent event = entry.m_event;
+        if (isCoalesced(event)) {
+            // from now on, a new event of this type has to be queued again
+            m_pendingTypes.remove(event.getTypeInteger());
+        }
+        long start = System.nanoTime();
+        try {
+            m_listener.cmsEvent(event);
+        } catch (Throwable t) {
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.LOG_ERROR_ASYNC_EVENT_LISTENER_2,
+                    event.toString(),
+                    m_listener.getClass().getName()),
+                t);
+        }
+        long end = System.nanoTime();
+        long listenerTime = end - start;
+        m_totalWaitTime.addAndGet(start - entry.m_queueTime);
+        m_totalListenerTime.addAndGet(listenerTime);
+        if (listenerTime > m_maxListenerTime) {
+            m_maxListenerTime = listenerTime;
+        }
+        m_processedCount.incrementAndGet();
+    }
+}
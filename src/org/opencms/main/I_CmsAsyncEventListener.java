@@ -0,0 +1,48 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+/**
+ * Marker interface for event listeners that can receive events asynchronously.<p>
+ *
+ * If the {@link CmsAsyncEventManager} is configured as event manager, listeners implementing
+ * this interface are notified by a worker thread of their own, so the thread that fires an event does not
+ * wait for them. With the default {@link CmsEventManager}, they are notified synchronously like all other listeners.<p>
+ *
+ * Asynchronous listeners must not rely on the event data that is only valid while the event is fired,
+ * like the report ({@link I_CmsEventListener#KEY_REPORT}) or the database context
+ * ({@link I_CmsEventListener#KEY_DBCONTEXT}).<p>
+ *
+ * @since 10.5.0
+ *
+ * @see CmsAsyncEventManager
+ */
+public interface I_CmsAsyncEventListener extends I_CmsEventListener {
+
+    // marker interface only
+}
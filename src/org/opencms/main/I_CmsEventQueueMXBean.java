@@ -0,0 +1,127 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+/**
+ * Management interface for the event queue of an asynchronous event listener.<p>
+ *
+ * The queues of the {@link CmsAsyncEventManager} are registered with the platform MBean server under the domain
+ * <code>org.opencms</code> with the type <code>EventQueue</code>, named after the class of the listener.<p>
+ *
+ * @since 10.5.0
+ */
+public interface I_CmsEventQueueMXBean {
+
+    /**
+     * Returns the average time the listener needed to process an event, in milliseconds.<p>
+     *
+     * @return the average listener time in milliseconds
+     */
+    double getAverageListenerTime();
+
+    /**
+     * Returns the average time from firing an event until the listener started to process it, in milliseconds.<p>
+     *
+     * @return the average wait time in milliseconds
+     */
+    double getAverageWaitTime();
+
+    /**
+     * Returns the maximum number of events in the queue.<p>
+     *
+     * @return the capacity of the queue
+     */
+    int getCapacity();
+
+    /**
+     * Returns the number of events that were dropped because an equal event was already waiting in the queue.<p>
+     *
+     * @return the number of coalesced events
+     */
+    long getCoalescedCount();
+
+    /**
+     * Returns the class name of the listener notified by the queue.<p>
+     *
+     * @return the class name of the listener
+     */
+    String getListenerClass();
+
+    /**
+     * Returns the maximum time the listener needed to process an event, in milliseconds.<p>
+     *
+     * @return the maximum listener time in milliseconds
+     */
+    double getMaxListenerTime();
+
+    /**
+     * Returns the maximum number of events that were waiting in the queue.<p>
+     *
+     * @return the maximum queue size
+     */
+    int getMaxSize();
+
+    /**
+     * Returns the number of events that found the queue full, so the thread firing the event had to wait.<p>
+     *
+     * @return the number of overflows
+     */
+    long getOverflowCount();
+
+    /**
+     * Returns the number of events processed by the listener.<p>
+     *
+     * @return the number of processed events
+     */
+    long getProcessedCount();
+
+    /**
+     * Returns the number of events currently waiting in the queue.<p>
+     *
+     * @return the queue size
+     */
+    int getSize();
+
+    /**
+     * Returns the number of events that were delivered by the thread firing them instead of the queue.<p>
+     *
+     * This happens only if the listener fires events itself while its queue is full,
+     * or if the firing thread was interrupted while waiting for the queue.<p>
+     *
+     * @return the number of synchronously delivered events
+     */
+    long getSynchronousCount();
+
+    /**
+     * Returns the total time threads firing events waited for space in the full queue, in milliseconds.<p>
+     *
+     * @return the total time spent waiting for the queue in milliseconds
+     */
+    long getTotalBlockedTime();
+}
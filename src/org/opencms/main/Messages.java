@@ -381,9 +381,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_ADE_MANAGER_SHUTDOWN_1 = "LOG_ERROR_ADE_MANAGER_SHUTDOWN_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ERROR_ASYNC_EVENT_LISTENER_2 = "LOG_ERROR_ASYNC_EVENT_LISTENER_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_DERIGISTERING_JDBC_DRIVER_1 = "LOG_ERROR_DERIGISTERING_JDBC_DRIVER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1 = "LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_EXPORT_1 = "LOG_ERROR_EXPORT_1";
 
@@ -435,6 +441,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_WRITING_CONFIG_1 = "LOG_ERROR_WRITING_CONFIG_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EVENT_QUEUE_MBEAN_FAILED_1 = "LOG_EVENT_QUEUE_MBEAN_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EVENT_QUEUE_MBEAN_REMOVE_FAILED_1 = "LOG_EVENT_QUEUE_MBEAN_REMOVE_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EVENT_QUEUE_SHUTDOWN_1 = "LOG_EVENT_QUEUE_SHUTDOWN_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_INIT_CMSOBJECT_IN_HANDLER_2 = "LOG_INIT_CMSOBJECT_IN_HANDLER_2";
 
@@ -0,0 +1,271 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit, miss, load and eviction counters of a single cache.<p>
+ *
+ * All methods are thread safe and do not block, so the counters can be updated on every cache access.<p>
+ *
+ * The time needed to load an entry is measured from a cache miss for a key until the same thread puts an
+ * entry with that key into the cache, see {@link #recordMiss(Object)} and {@link #recordPut(Object)}.
+ * Caches which load their entries themselves can use {@link #recordLoad(long)} instead.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsCacheStatistics implements I_CmsCacheStatisticsMXBean {
+
+    /** The maximum number of pending loads remembered per thread. */
+    private static final int MAX_PENDING_LOADS = 16;
+
+    /** The number of evictions. */
+    private final LongAdder m_evictions = new LongAdder();
+
+    /** The number of hits. */
+    private final LongAdder m_hits = new LongAdder();
+
+    /** The number of loads. */
+    private final LongAdder m_loads = new LongAdder();
+
+    /** The total load time in nanoseconds. */
+    private final LongAdder m_loadTime = new LongAdder();
+
+    /** The number of misses. */
+    private final LongAdder m_misses = new LongAdder();
+
+    /** The name of the cache. */
+    private final String m_name;
+
+    /** The start times of the loads of the current thread, by cache key. */
+    private final ThreadLocal<Map<Object, Long>> m_pendingLoads = new ThreadLocal<Map<Object, Long>>() {
+
+        @Override
+        protected Map<Object, Long> initialValue() {
+
+            return new LinkedHashMap<Object, Long>() {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Long> eldest) {
+
+                    // misses which are never followed by a put must not accumulate
+                    return size() > MAX_PENDING_LOADS;
+                }
+            };
+        }
+    };
+
+    /**
+     * Creates new cache statistics.<p>
+     *
+     * @param name the name of the cache
+     */
+    public CmsCacheStatistics(String name) {
+
+        m_name = name;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatisticsMXBean#getAverageLoadTime()
+     */
+    public double getAverageLoadTime() {
+
+        long loads = m_loads.sum();
+        return loads > 0 ? (m_loadTime.sum() / 1000000.0) / loads : 0.0;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatisticsMXBean#getEvictionCount()
+     */
+    public long getEvictionCount() {
+
+        return m_evictions.sum();
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatisticsMXBean#getHitCount()
+     */
+    public long getHitCount() {
+
+        return m_hits.sum();
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatisticsMXBean#getHitRate()
+     */
+    public double getHitRate() {
+
+        long hits = m_hits.sum();
+        long requests = hits + m_misses.sum();
+        return requests > 0 ? (double)hits / requests : 1.0;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatisticsMXBean#getLoadCount()
+     */
+    public long getLoadCount() {
+
+        return m_loads.sum();
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatisticsMXBean#getMissCount()
+     */
+    public long getMissCount() {
+
+        return m_misses.sum();
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatisticsMXBean#getName()
+     */
+    public String getName() {
+
+        return m_name;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatisticsMXBean#getRequestCount()
+     */
+    public long getRequestCount() {
+
+        return m_hits.sum() + m_misses.sum();
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatisticsMXBean#getTotalLoadTime()
+     */
+    public long getTotalLoadTime() {
+
+        return TimeUnit.NANOSECONDS.toMillis(m_loadTime.sum());
+    }
+
+    /**
+     * Records the eviction of an entry because of the size limit of the cache.<p>
+     */
+    public void recordEviction() {
+
+        m_evictions.increment();
+    }
+
+    /**
+     * Records a cache hit.<p>
+     */
+    public void recordHit() {
+
+        m_hits.increment();
+    }
+
+    /**
+     * Records the load of a missing entry.<p>
+     *
+     * @param nanos the load time in nanoseconds
+     */
+    public void recordLoad(long nanos) {
+
+        m_loads.increment();
+        m_loadTime.add(Math.max(0, nanos));
+    }
+
+    /**
+     * Records a cache miss without measuring the load time.<p>
+     */
+    public void recordMiss() {
+
+        m_misses.increment();
+    }
+
+    /**
+     * Records a cache miss for the given key, and starts measuring the load time.<p>
+     *
+     * @param key the key of the missing entry
+     */
+    public void recordMiss(Object key) {
+
+        m_misses.increment();
+        if (key != null) {
+            m_pendingLoads.get().put(key, Long.valueOf(System.nanoTime()));
+        }
+    }
+
+    /**
+     * Records that an entry has been put into the cache.<p>
+     *
+     * If the current thread has recorded a miss for the same key before, the time since the miss is recorded as load time.<p>
+     *
+     * @param key the key of the entry
+     */
+    public void recordPut(Object key) {
+
+        Map<Object, Long> pendingLoads = m_pendingLoads.get();
+        if (pendingLoads.isEmpty()) {
+            return;
+        }
+        Long start = pendingLoads.remove(key);
+        if (start != null) {
+            recordLoad(System.nanoTime() - start.longValue());
+        }
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatisticsMXBean#reset()
+     */
+    public void reset() {
+
+        m_hits.reset();
+        m_misses.reset();
+        m_loads.reset();
+        m_loadTime.reset();
+        m_evictions.reset();
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return String.format(
+            Locale.ENGLISH,
+            "%s: hits=%d, misses=%d, hitRate=%.3f, loads=%d, avgLoadTime=%.3fms, evictions=%d",
+            m_name,
+            Long.valueOf(getHitCount()),
+            Long.valueOf(getMissCount()),
+            Double.valueOf(getHitRate()),
+            Long.valueOf(getLoadCount()),
+            Double.valueOf(getAverageLoadTime()),
+            Long.valueOf(getEvictionCount()));
+    }
+}
@@ -46,6 +46,7 @@ import org.opencms.file.CmsUser;
 import org.opencms.flex.CmsFlexCache.CmsFlexCacheVariation;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.lock.CmsLock;
+import org.opencms.lock.CmsLockIndex;
 import org.opencms.lock.CmsLockManager;
 import org.opencms.mail.CmsMailTransport;
 import org.opencms.mail.CmsSimpleMail;
@@ -59,27 +60,37 @@ import org.opencms.publish.CmsPublishJobInfoBean;
 import org.opencms.publish.CmsPublishQueue;
 import org.opencms.scheduler.I_CmsScheduledJob;
 import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsAccessControlListIndex;
 import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.CmsPrincipalSet;
 import org.opencms.security.CmsRole;
 import org.opencms.security.I_CmsPermissionHandler;
 import org.opencms.util.CmsDateUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 import org.opencms.util.PrintfFormat;
+import org.opencms.xml.A_CmsXmlDocument;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import javax.mail.internet.InternetAddress;
 
@@ -89,6 +100,8 @@ import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 
 /**
  * Monitors OpenCms memory consumption.<p>
@@ -153,6 +166,21 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         XML_ENTITY_TEMP;
     }
 
+    /** The factor to increase the memory budgets of the caches by after a low memory condition is over. */
+    private static final double BUDGET_GROW_FACTOR = 1.25;
+
+    /** The number of consecutive monitor runs with relaxed memory usage after which the budgets are increased. */
+    private static final int BUDGET_GROW_RUNS = 3;
+
+    /** The memory usage must be this many percent below the warning level to increase the budgets. */
+    private static final int BUDGET_GROW_USAGE_MARGIN = 10;
+
+    /** The factor to reduce the memory budgets of the caches by in a low memory condition. */
+    private static final double BUDGET_SHRINK_FACTOR = 0.5;
+
+    /** The JMX domain and type of the cache statistics. */
+    private static final String CACHE_STATISTICS_MBEAN = "org.opencms:type=CacheStatistics";
+
     /** The concurrency level for the guava caches. */
     private static final int CONCURRENCY_LEVEL = 8;
 
@@ -168,6 +196,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Maximum depth for object size recursion. */
     private static final int MAX_DEPTH = 5;
 
+    /** The name of the principal sets cache in the statistics. */
+    private static final String PRINCIPAL_SET_CACHE_NAME = "PRINCIPAL_SET";
+
     /** Cache for access control lists. */
     private Map<String, CmsAccessControlList> m_cacheAccessControlList;
 
@@ -180,12 +211,21 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Cache for roles. */
     private Map<String, Boolean> m_cacheHasRoles;
 
+    /** Index of the access control lists inherited from the offline folders. */
+    private CmsAccessControlListIndex m_cacheInheritedAclOffline;
+
+    /** Index of the access control lists inherited from the online folders. */
+    private CmsAccessControlListIndex m_cacheInheritedAclOnline;
+
     /** A cache for accelerated locale lookup. */
     private Map<String, Locale> m_cacheLocale;
 
     /** Cache for the resource locks. */
     private Map<String, CmsLock> m_cacheLock;
 
+    /** Path index of the cached resource locks, kept in sync with the lock cache. */
+    private CmsLockIndex m_cacheLockIndex = new CmsLockIndex();
+
     /** The memory object cache map. */
     private Map<String, Object> m_cacheMemObject;
 
@@ -195,6 +235,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Cache for permission checks. */
     private Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> m_cachePermission;
 
+    /** Cache for the compiled principal sets of users, flushed together with the user groups and role lists. */
+    private Map<String, CmsPrincipalSet> m_cachePrincipalSets;
+
     /** Cache for offline projects. */
     private Map<String, CmsProject> m_cacheProject;
 
@@ -219,6 +262,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Cache for role lists. */
     private Map<String, List<CmsRole>> m_cacheRoleLists;
 
+    /** The statistics of all caches, by cache name. */
+    private Map<String, CmsCacheStatistics> m_cacheStatistics = new ConcurrentHashMap<String, CmsCacheStatistics>();
+
     /** Cache for user data. */
     private Map<String, CmsUser> m_cacheUser;
 
@@ -282,6 +328,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Contains the object to be monitored. */
     private Map<String, Object> m_monitoredObjects;
 
+    /** The number of consecutive monitor runs with relaxed memory usage since the budgets were last changed. */
+    private int m_relaxedRuns;
+
     /** Buffer for publish history. */
     private Buffer m_publishHistory;
 
@@ -294,6 +343,10 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Flag for memory warning mail send. */
     private boolean m_warningSendSinceLastStatus;
 
+    /** The caches which are limited by a memory budget, by cache type. */
+    private Map<CacheType, CmsWeightedCacheMap<?, ?>> m_weightedCaches = new EnumMap<CacheType, CmsWeightedCacheMap<?, ?>>(
+        CacheType.class);
+
     /**
      * Empty constructor, required by OpenCms scheduler.<p>
      */
@@ -319,6 +372,29 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return (Map<T, V>)(builder.build().asMap());
     }
 
+    /**
+     * Creates a thread safe LRU cache map based on the guava cache builder,
+     * which records the entries removed because of the cache capacity in the given statistics.<p>
+     *
+     * @param capacity the cache capacity
+     * @param statistics the statistics to record the evictions in
+     *
+     * @return the cache map
+     */
+    public static <T, V> ConcurrentMap<T, V> createLRUCacheMap(int capacity, final CmsCacheStatistics statistics) {
+
+        return CacheBuilder.newBuilder().concurrencyLevel(CONCURRENCY_LEVEL).maximumSize(capacity).removalListener(
+            new RemovalListener<T, V>() {
+
+                public void onRemoval(RemovalNotification<T, V> notification) {
+
+                    if (notification.wasEvicted()) {
+                        statistics.recordEviction();
+                    }
+                }
+            }).<T, V> build().asMap();
+    }
+
     /**
      * Returns the size of objects that are instances of
      * <code>byte[]</code>, <code>String</code>, <code>CmsFile</code>,<code>I_CmsLruCacheObject</code>.<p>
@@ -356,6 +432,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return 184; // worst case if UUID String has been generated
         }
 
+        if (obj instanceof A_CmsXmlDocument) {
+            // the parsed DOM tree is estimated with several times the size of the raw XML
+            CmsFile f = ((A_CmsXmlDocument)obj).getFile();
+            if ((f != null) && (f.getContents() != null)) {
+                return (f.getContents().length * 6) + 2048;
+            } else {
+                return 2048;
+            }
+        }
+
         if (obj instanceof CmsPermissionSet) {
             return 16; // two ints
         }
@@ -586,6 +672,22 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheGroup.put(group.getName(), group);
     }
 
+    /**
+     * Caches the access control list which the given folder passes on to its children.<p>
+     *
+     * @param online if the list was read in the online project
+     * @param folderPath the root path of the folder
+     * @param forFolders <code>true</code> for the list inherited by sub folders, <code>false</code> for the list inherited by files
+     * @param acl the list to cache, must not be modified afterwards
+     */
+    public void cacheInheritedACL(boolean online, String folderPath, boolean forFolders, CmsAccessControlList acl) {
+
+        if (m_disabled.get(CacheType.ACL) != null) {
+            return;
+        }
+        (online ? m_cacheInheritedAclOnline : m_cacheInheritedAclOffline).put(folderPath, forFolders, acl);
+    }
+
     /**
      * Caches the given locale under the given cache key.<p>
      *
@@ -616,6 +718,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cacheLock.put(lock.getResourceName(), lock);
+        m_cacheLockIndex.put(lock);
     }
 
     /**
@@ -660,6 +763,20 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cachePermission.put(key, permission);
     }
 
+    /**
+     * Caches the given principal set under the given cache key.<p>
+     *
+     * @param key the cache key
+     * @param principals the principal set to cache
+     */
+    public void cachePrincipalSet(String key, CmsPrincipalSet principals) {
+
+        if ((m_disabled.get(CacheType.USERGROUPS) != null) || (m_disabled.get(CacheType.ROLE_LIST) != null)) {
+            return;
+        }
+        m_cachePrincipalSets.put(key, principals);
+    }
+
     /**
      * Caches the given project under its id AND the fully qualified name.<p>
      *
@@ -908,6 +1025,23 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         clearResourceCache();
     }
 
+    /**
+     * Clears the access control list cache when the access control entries of the given resource are changed.<p>
+     *
+     * In contrast to {@link #clearAccessControlListCache()}, the lists inherited from folders
+     * outside of the given subtree are kept.<p>
+     *
+     * @param rootPath the root path of the changed resource
+     */
+    public void clearAccessControlListCache(String rootPath) {
+
+        m_cacheAccessControlList.clear();
+        m_cacheInheritedAclOffline.removeSubtree(rootPath);
+        m_cacheInheritedAclOnline.removeSubtree(rootPath);
+        flushCache(CacheType.PERMISSION);
+        clearResourceCache();
+    }
+
     /**
      * Clears almost all internal caches.<p>
      */
@@ -1019,6 +1153,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             switch (type) {
                 case ACL:
                     m_cacheAccessControlList.clear();
+                    m_cacheInheritedAclOffline.clear();
+                    m_cacheInheritedAclOnline.clear();
                     break;
                 case CONTENT_DEFINITION:
                     m_cacheContentDefinitions.clear();
@@ -1034,6 +1170,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     break;
                 case LOCK:
                     m_cacheLock.clear();
+                    m_cacheLockIndex.clear();
                     break;
                 case MEMORY_OBJECT:
                     m_cacheMemObject.clear();
@@ -1073,12 +1210,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     break;
                 case ROLE_LIST:
                     m_cacheRoleLists.clear();
+                    m_cachePrincipalSets.clear();
+                    CmsPrincipalSet.clearIndex();
                     break;
                 case USER:
                     m_cacheUser.clear();
                     break;
                 case USERGROUPS:
                     m_cacheUserGroups.clear();
+                    m_cachePrincipalSets.clear();
+                    CmsPrincipalSet.clearIndex();
                     break;
                 case USER_LIST:
                     m_cacheUserList.clear();
@@ -1143,13 +1284,18 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         // initialize new lock cache
-        Map<String, CmsLock> newLockCache = new ConcurrentHashMap<String, CmsLock>(newLocks);
+        Map<String, CmsLock> newLockCache = createMonitoredMap(
+            CacheType.LOCK,
+            new ConcurrentHashMap<String, CmsLock>(newLocks));
+        CmsLockIndex newLockIndex = new CmsLockIndex();
+        newLockIndex.putAll(newLockCache.values());
         // register it
         register(CmsLockManager.class.getName(), newLockCache);
         // save the old cache
         Map<String, CmsLock> oldCache = m_cacheLock;
         // replace the old by the new cache
         m_cacheLock = newLockCache;
+        m_cacheLockIndex = newLockIndex;
         // clean up the old cache
         oldCache.clear();
     }
@@ -1406,6 +1552,50 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return new ArrayList<CmsPublishJobInfoBean>(m_publishHistory);
     }
 
+    /**
+     * Returns the statistics of all caches, sorted by cache name.<p>
+     *
+     * @return the statistics of all caches
+     */
+    public List<CmsCacheStatistics> getCacheStatistics() {
+
+        List<CmsCacheStatistics> result = new ArrayList<CmsCacheStatistics>(m_cacheStatistics.values());
+        Collections.sort(result, new Comparator<CmsCacheStatistics>() {
+
+            public int compare(CmsCacheStatistics first, CmsCacheStatistics second) {
+
+                return first.getName().compareTo(second.getName());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the statistics of the cache with the given name.<p>
+     *
+     * The statistics are created and registered as MBean on first access,
+     * so caches outside of the memory monitor can use this to publish their statistics.<p>
+     *
+     * @param name the cache name
+     *
+     * @return the statistics of the cache
+     */
+    public CmsCacheStatistics getCacheStatistics(String name) {
+
+        CmsCacheStatistics statistics = m_cacheStatistics.get(name);
+        if (statistics == null) {
+            synchronized (m_cacheStatistics) {
+                statistics = m_cacheStatistics.get(name);
+                if (statistics == null) {
+                    statistics = new CmsCacheStatistics(name);
+                    registerMBean(statistics);
+                    m_cacheStatistics.put(name, statistics);
+                }
+            }
+        }
+        return statistics;
+    }
+
     /**
      * Returns the ACL cached with the given cache key or <code>null</code> if not found.<p>
      *
@@ -1442,6 +1632,21 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cacheGroup.get(key);
     }
 
+    /**
+     * Returns the access control list which the given folder passes on to its children,
+     * or <code>null</code> if not cached.<p>
+     *
+     * @param online if the list is read in the online project
+     * @param folderPath the root path of the folder
+     * @param forFolders <code>true</code> for the list inherited by sub folders, <code>false</code> for the list inherited by files
+     *
+     * @return the cached list, which must not be modified
+     */
+    public CmsAccessControlList getCachedInheritedACL(boolean online, String folderPath, boolean forFolders) {
+
+        return (online ? m_cacheInheritedAclOnline : m_cacheInheritedAclOffline).get(folderPath, forFolders);
+    }
+
     /**
      * Returns the locale cached with the given cache key or <code>null</code> if not found.<p>
      *
@@ -1470,6 +1675,32 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cacheLock.get(rootPath);
     }
 
+    /**
+     * Returns all cached locks whose root path starts with the given prefix.<p>
+     *
+     * For a folder, these are the lock of the folder itself and all locks below it.<p>
+     *
+     * @param prefix the root path prefix to look for
+     *
+     * @return a list of {@link CmsLock} objects
+     */
+    public List<CmsLock> getCachedLocksByPrefix(String prefix) {
+
+        return m_cacheLockIndex.getLocksByPrefix(prefix);
+    }
+
+    /**
+     * Returns the cached locks of all parent folders of the given root path, the nearest parent first.<p>
+     *
+     * @param rootPath the root path of the resource
+     *
+     * @return a list of {@link CmsLock} objects
+     */
+    public List<CmsLock> getCachedParentFolderLocks(String rootPath) {
+
+        return m_cacheLockIndex.getParentFolderLocks(rootPath);
+    }
+
     /**
      * Returns the memory object cached with the given cache key or <code>null</code> if not found.<p>
      *
@@ -1506,6 +1737,18 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cachePermission.get(key);
     }
 
+    /**
+     * Returns the principal set cached with the given cache key or <code>null</code> if not found.<p>
+     *
+     * @param key the cache key to look for
+     *
+     * @return the principal set cached with the given cache key
+     */
+    public CmsPrincipalSet getCachedPrincipalSet(String key) {
+
+        return m_cachePrincipalSets.get(key);
+    }
+
     /**
      * Returns the project cached with the given cache key or <code>null</code> if not found.<p>
      *
@@ -1838,55 +2081,65 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         // create and register all system caches
 
         // temporary xml entities cache
-        m_cacheXmlTemporaryEntity = createLRUCacheMap(128);
+        m_cacheXmlTemporaryEntity = createCacheMap(cacheSettings, CacheType.XML_ENTITY_TEMP, 128);
         register(CmsXmlEntityResolver.class.getName() + ".xmlEntityTemporaryCache", m_cacheXmlTemporaryEntity);
 
         // permanent xml entities cache
-        m_cacheXmlPermanentEntity = new ConcurrentHashMap<String, byte[]>(32);
+        m_cacheXmlPermanentEntity = createMonitoredMap(CacheType.XML_ENTITY_PERM, new ConcurrentHashMap<String, byte[]>(32));
         register(CmsXmlEntityResolver.class.getName() + ".xmlEntityPermanentCache", m_cacheXmlPermanentEntity);
 
         // xml content definitions cache
-        m_cacheContentDefinitions = createLRUCacheMap(64);
+        m_cacheContentDefinitions = createCacheMap(cacheSettings, CacheType.CONTENT_DEFINITION, 64);
         register(CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache", m_cacheContentDefinitions);
 
         // lock cache
-        m_cacheLock = new ConcurrentHashMap<String, CmsLock>();
+        m_cacheLock = createMonitoredMap(CacheType.LOCK, new ConcurrentHashMap<String, CmsLock>());
+        m_cacheLockIndex = new CmsLockIndex();
         register(CmsLockManager.class.getName(), m_cacheLock);
 
         // locale cache
-        m_cacheLocale = new ConcurrentHashMap<String, Locale>();
+        m_cacheLocale = createMonitoredMap(CacheType.LOCALE, new ConcurrentHashMap<String, Locale>());
         register(CmsLocaleManager.class.getName(), m_cacheLocale);
 
         // permissions cache
-        m_cachePermission = createLRUCacheMap(cacheSettings.getPermissionCacheSize());
+        m_cachePermission = createCacheMap(cacheSettings, CacheType.PERMISSION, cacheSettings.getPermissionCacheSize());
         register(CmsSecurityManager.class.getName(), m_cachePermission);
 
         // user cache
-        m_cacheUser = createLRUCacheMap(cacheSettings.getUserCacheSize());
+        m_cacheUser = createCacheMap(cacheSettings, CacheType.USER, cacheSettings.getUserCacheSize());
         register(CmsDriverManager.class.getName() + ".userCache", m_cacheUser);
 
         // user list cache
-        m_cacheUserList = createLRUCacheMap(cacheSettings.getUserCacheSize());
+        m_cacheUserList = createCacheMap(cacheSettings, CacheType.USER_LIST, cacheSettings.getUserCacheSize());
         register(CmsDriverManager.class.getName() + ".userListCache", m_cacheUserList);
 
         // group cache
-        m_cacheGroup = createLRUCacheMap(cacheSettings.getGroupCacheSize());
+        m_cacheGroup = createCacheMap(cacheSettings, CacheType.GROUP, cacheSettings.getGroupCacheSize());
         register(CmsDriverManager.class.getName() + ".groupCache", m_cacheGroup);
 
         // organizational unit cache
-        m_cacheOrgUnit = createLRUCacheMap(cacheSettings.getOrgUnitCacheSize());
+        m_cacheOrgUnit = createCacheMap(cacheSettings, CacheType.ORG_UNIT, cacheSettings.getOrgUnitCacheSize());
         register(CmsDriverManager.class.getName() + ".orgUnitCache", m_cacheOrgUnit);
 
         // user groups list cache
-        m_cacheUserGroups = createLRUCacheMap(cacheSettings.getUserGroupsCacheSize());
+        m_cacheUserGroups = createCacheMap(cacheSettings, CacheType.USERGROUPS, cacheSettings.getUserGroupsCacheSize());
         register(CmsDriverManager.class.getName() + ".userGroupsCache", m_cacheUserGroups);
 
+        // principal sets cache
+        CmsCacheStatistics principalSetStatistics = getCacheStatistics(PRINCIPAL_SET_CACHE_NAME);
+        m_cachePrincipalSets = new CmsMonitoredCacheMap<String, CmsPrincipalSet>(
+            CmsMemoryMonitor.<String, CmsPrincipalSet> createLRUCacheMap(
+                cacheSettings.getUserGroupsCacheSize(),
+                principalSetStatistics),
+            principalSetStatistics);
+        register(CmsDriverManager.class.getName() + ".principalSetCache", m_cachePrincipalSets);
+
         // project cache
-        m_cacheProject = createLRUCacheMap(cacheSettings.getProjectCacheSize());
+        m_cacheProject = createCacheMap(cacheSettings, CacheType.PROJECT, cacheSettings.getProjectCacheSize());
         register(CmsDriverManager.class.getName() + ".projectCache", m_cacheProject);
 
         // project resources cache cache
-        m_cacheProjectResources = createLRUCacheMap(cacheSettings.getProjectResourcesCacheSize());
+        m_cacheProjectResources = createCacheMap(cacheSettings, CacheType.PROJECT_RESOURCES, cacheSettings.getProjectResourcesCacheSize());
         register(CmsDriverManager.class.getName() + ".projectResourcesCache", m_cacheProjectResources);
 
         // publish history
@@ -1901,43 +2154,45 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsPublishQueue.class.getName() + ".publishQueue", buffer);
 
         // resource cache
-        m_cacheResource = createLRUCacheMap(cacheSettings.getResourceCacheSize());
+        m_cacheResource = createCacheMap(cacheSettings, CacheType.RESOURCE, cacheSettings.getResourceCacheSize());
         register(CmsDriverManager.class.getName() + ".resourceCache", m_cacheResource);
 
         // roles cache
-        m_cacheHasRoles = createLRUCacheMap(cacheSettings.getRolesCacheSize());
+        m_cacheHasRoles = createCacheMap(cacheSettings, CacheType.HAS_ROLE, cacheSettings.getRolesCacheSize());
         register(CmsDriverManager.class.getName() + ".rolesCache", m_cacheHasRoles);
 
         // role lists cache
-        m_cacheRoleLists = createLRUCacheMap(cacheSettings.getRolesCacheSize());
+        m_cacheRoleLists = createCacheMap(cacheSettings, CacheType.ROLE_LIST, cacheSettings.getRolesCacheSize());
         register(CmsDriverManager.class.getName() + ".roleListsCache", m_cacheRoleLists);
 
         // resource list cache
-        m_cacheResourceList = createLRUCacheMap(cacheSettings.getResourcelistCacheSize());
+        m_cacheResourceList = createCacheMap(cacheSettings, CacheType.RESOURCE_LIST, cacheSettings.getResourcelistCacheSize());
         register(CmsDriverManager.class.getName() + ".resourceListCache", m_cacheResourceList);
 
         // property cache
-        m_cacheProperty = createLRUCacheMap(cacheSettings.getPropertyCacheSize());
+        m_cacheProperty = createCacheMap(cacheSettings, CacheType.PROPERTY, cacheSettings.getPropertyCacheSize());
         register(CmsDriverManager.class.getName() + ".propertyCache", m_cacheProperty);
 
         // property list cache
-        m_cachePropertyList = createLRUCacheMap(cacheSettings.getPropertyListsCacheSize());
+        m_cachePropertyList = createCacheMap(cacheSettings, CacheType.PROPERTY_LIST, cacheSettings.getPropertyListsCacheSize());
         register(CmsDriverManager.class.getName() + ".propertyListCache", m_cachePropertyList);
 
         // published resources list cache
-        m_cachePublishedResources = createLRUCacheMap(5);
+        m_cachePublishedResources = createCacheMap(cacheSettings, CacheType.PUBLISHED_RESOURCES, 5);
         register(CmsDriverManager.class.getName() + ".publishedResourcesCache", m_cachePublishedResources);
 
         // acl cache
-        m_cacheAccessControlList = createLRUCacheMap(cacheSettings.getAclCacheSize());
+        m_cacheAccessControlList = createCacheMap(cacheSettings, CacheType.ACL, cacheSettings.getAclCacheSize());
         register(CmsDriverManager.class.getName() + ".accessControlListCache", m_cacheAccessControlList);
+        m_cacheInheritedAclOffline = new CmsAccessControlListIndex(cacheSettings.getAclCacheSize());
+        m_cacheInheritedAclOnline = new CmsAccessControlListIndex(cacheSettings.getAclCacheSize());
 
         // vfs object cache
-        m_cacheVfsObject = new ConcurrentHashMap<String, Object>();
+        m_cacheVfsObject = createMonitoredMap(CacheType.VFS_OBJECT, new ConcurrentHashMap<String, Object>());
         register(CmsVfsMemoryObjectCache.class.getName(), m_cacheVfsObject);
 
         // memory object cache
-        m_cacheMemObject = new ConcurrentHashMap<String, Object>();
+        m_cacheMemObject = createMonitoredMap(CacheType.MEMORY_OBJECT, new ConcurrentHashMap<String, Object>());
         register(CmsMemoryObjectCache.class.getName(), m_cacheMemObject);
 
         if (LOG.isDebugEnabled()) {
@@ -2046,8 +2301,14 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 monitor.monitorWriteLog(true);
                 // send warning email
                 monitor.monitorSendEmail(true);
-                // clean up caches
+                // reduce the memory budgets of the caches, so they do not fill up the memory again right away
+                monitor.shrinkCacheBudgets();
+                // clear the caches
                 monitor.clearCaches();
+            } else {
+                // give the memory back to the caches step by step, once the memory usage is well below the limit
+                monitor.growCacheBudgets(
+                    monitor.m_memoryCurrent.getUsage() <= (monitor.m_maxUsagePercent - BUDGET_GROW_USAGE_MARGIN));
             }
 
             // check if regular a log entry must be written
@@ -2181,6 +2442,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         for (CacheType type : CacheType.values()) {
             flushCache(type);
         }
+        unregisterMBeans();
     }
 
     /**
@@ -2214,6 +2476,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     public void uncacheLock(String rootPath) {
 
         m_cacheLock.remove(rootPath);
+        m_cacheLockIndex.remove(rootPath);
     }
 
     /**
@@ -2315,10 +2578,39 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         System.gc();
     }
 
+    /**
+     * Creates a cache map for the given cache type.<p>
+     *
+     * If a memory budget is configured for the cache type, the cache is limited by the estimated memory size
+     * of its entries, otherwise by the given capacity.<p>
+     *
+     * @param cacheSettings the cache settings
+     * @param type the cache type
+     * @param capacity the cache capacity to use if no memory budget is configured
+     *
+     * @return the cache map
+     */
+    protected <K, V> Map<K, V> createCacheMap(CmsCacheSettings cacheSettings, CacheType type, int capacity) {
+
+        CmsCacheStatistics statistics = getCacheStatistics(type.name());
+        long budget = cacheSettings.getMemoryBudget(type);
+        if (budget <= 0) {
+            return new CmsMonitoredCacheMap<K, V>(
+                CmsMemoryMonitor.<K, V> createLRUCacheMap(capacity, statistics),
+                statistics);
+        }
+        CmsWeightedCacheMap<K, V> cache = new CmsWeightedCacheMap<K, V>(budget, CONCURRENCY_LEVEL, statistics);
+        m_weightedCaches.put(type, cache);
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(Messages.LOG_MM_BUDGET_2, type, Long.valueOf(budget)));
+        }
+        return new CmsMonitoredCacheMap<K, V>(cache, statistics);
+    }
+
     /**
      * Returns the cache costs of a monitored object.<p>
      *
-     * <code>obj</code> must be of type {@link CmsLruCache}.<p>
+     * <code>obj</code> must be of type {@link CmsLruCache} or {@link CmsWeightedCacheMap}.<p>
      *
      * @param obj the object
      *
@@ -2326,12 +2618,18 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     protected long getCosts(Object obj) {
 
+        Object cache = obj;
+        if (cache instanceof CmsMonitoredCacheMap) {
+            cache = ((CmsMonitoredCacheMap<?, ?>)cache).getCache();
+        }
         long costs = 0;
-        if (obj instanceof CmsLruCache) {
-            costs = ((CmsLruCache)obj).getObjectCosts();
+        if (cache instanceof CmsLruCache) {
+            costs = ((CmsLruCache)cache).getObjectCosts();
             if (costs < 0) {
                 costs = 0;
             }
+        } else if (cache instanceof CmsWeightedCacheMap) {
+            costs = ((CmsWeightedCacheMap<?, ?>)cache).getSize();
         }
 
         return costs;
@@ -2426,7 +2724,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Returns the max costs for all items within a monitored object.<p>
      *
-     * <code>obj</code> must be of type {@link CmsLruCache} or {@link LRUMap}.<p>
+     * <code>obj</code> must be of type {@link CmsLruCache}, {@link LRUMap} or {@link CmsWeightedCacheMap}.<p>
      *
      * @param obj the object
      *
@@ -2434,16 +2732,56 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     protected String getLimit(Object obj) {
 
-        if (obj instanceof CmsLruCache) {
-            return Long.toString(((CmsLruCache)obj).getMaxCacheCosts());
+        Object cache = obj;
+        if (cache instanceof CmsMonitoredCacheMap) {
+            cache = ((CmsMonitoredCacheMap<?, ?>)cache).getCache();
+        }
+        if (cache instanceof CmsLruCache) {
+            return Long.toString(((CmsLruCache)cache).getMaxCacheCosts());
         }
-        if (obj instanceof LRUMap) {
-            return Integer.toString(((LRUMap)obj).maxSize());
+        if (cache instanceof LRUMap) {
+            return Integer.toString(((LRUMap)cache).maxSize());
+        }
+        if (cache instanceof CmsWeightedCacheMap) {
+            return Long.toString(((CmsWeightedCacheMap<?, ?>)cache).getBudget());
         }
 
         return "-";
     }
 
+    /**
+     * Increases the memory budgets of all caches which are limited by a memory budget,
+     * after a low memory condition is over.<p>
+     *
+     * To avoid that the budgets swing back and forth, they are only increased after
+     * {@link #BUDGET_GROW_RUNS} consecutive monitor runs with relaxed memory usage,
+     * and then again only after the same number of runs.<p>
+     *
+     * @param relaxed <code>true</code> if the memory usage is well below the warning level in this run
+     *
+     * @return <code>true</code> if at least one budget has been increased
+     */
+    protected boolean growCacheBudgets(boolean relaxed) {
+
+        if (!relaxed) {
+            m_relaxedRuns = 0;
+            return false;
+        }
+        m_relaxedRuns++;
+        if (m_relaxedRuns < BUDGET_GROW_RUNS) {
+            return false;
+        }
+        m_relaxedRuns = 0;
+        boolean changed = false;
+        for (Map.Entry<CacheType, CmsWeightedCacheMap<?, ?>> entry : m_weightedCaches.entrySet()) {
+            if (entry.getValue().growBudget(BUDGET_GROW_FACTOR)) {
+                logCacheBudget(entry.getKey(), entry.getValue());
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
     /**
      * Sends a warning or status email with OpenCms Memory information.<p>
      *
@@ -2664,6 +3002,10 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                             form.sprintf(Long.toString(size))}));
             }
 
+            for (CmsCacheStatistics statistics : getCacheStatistics()) {
+                LOG.info(Messages.get().getBundle().key(Messages.LOG_MM_CACHE_STATISTICS_1, statistics.toString()));
+            }
+
             LOG.info(
                 Messages.get().getBundle().key(
                     Messages.LOG_MM_WARNING_MEM_STATUS_6,
@@ -2728,6 +3070,25 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         }
     }
 
+    /**
+     * Reduces the memory budgets of all caches which are limited by a memory budget,
+     * because the system is low on memory.<p>
+     *
+     * @return <code>true</code> if at least one budget has been reduced
+     */
+    protected boolean shrinkCacheBudgets() {
+
+        m_relaxedRuns = 0;
+        boolean changed = false;
+        for (Map.Entry<CacheType, CmsWeightedCacheMap<?, ?>> entry : m_weightedCaches.entrySet()) {
+            if (entry.getValue().shrinkBudget(BUDGET_SHRINK_FACTOR)) {
+                logCacheBudget(entry.getKey(), entry.getValue());
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
     /**
      * Updates the memory information of the memory monitor.<p>
      */
@@ -2736,4 +3097,94 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_memoryCurrent.update();
         m_memoryAverage.calculateAverage(m_memoryCurrent);
     }
+
+    /**
+     * Wraps the given unlimited map so that the hits and misses are counted
+     * in the statistics of the given cache type.<p>
+     *
+     * These maps are read in hot paths, and most of their misses are not followed by a load,
+     * so the load times are not measured.<p>
+     *
+     * @param type the cache type
+     * @param map the map to wrap
+     *
+     * @return the wrapped map
+     */
+    private <K, V> Map<K, V> createMonitoredMap(CacheType type, ConcurrentMap<K, V> map) {
+
+        return new CmsMonitoredCacheMap<K, V>(map, getCacheStatistics(type.name()), false);
+    }
+
+    /**
+     * Returns the JMX object name for the statistics of the cache with the given name.<p>
+     *
+     * @param name the cache name
+     *
+     * @return the JMX object name
+     *
+     * @throws Exception if the object name is invalid
+     */
+    private ObjectName getStatisticsObjectName(String name) throws Exception {
+
+        String instance = OpenCms.getSystemInfo().getWebApplicationName();
+        return new ObjectName(
+            CACHE_STATISTICS_MBEAN
+                + (CmsStringUtil.isEmptyOrWhitespaceOnly(instance) ? "" : ",instance=" + ObjectName.quote(instance))
+                + ",name="
+                + ObjectName.quote(name));
+    }
+
+    /**
+     * Writes the current memory budget of a cache to the log.<p>
+     *
+     * @param type the cache type
+     * @param cache the cache
+     */
+    private void logCacheBudget(CacheType type, CmsWeightedCacheMap<?, ?> cache) {
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_MM_CACHE_BUDGET_3,
+                    type,
+                    Long.valueOf(cache.getBudget()),
+                    Long.valueOf(cache.getSize())));
+        }
+    }
+
+    /**
+     * Registers the given cache statistics with the platform MBean server.<p>
+     *
+     * @param statistics the cache statistics to register
+     */
+    private void registerMBean(CmsCacheStatistics statistics) {
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = getStatisticsObjectName(statistics.getName());
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(statistics, objectName);
+            }
+        } catch (Throwable t) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_MM_REGISTER_MBEAN_FAILED_1, statistics.getName()), t);
+        }
+    }
+
+    /**
+     * Unregisters all cache statistics from the platform MBean server.<p>
+     */
+    private void unregisterMBeans() {
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (String name : m_cacheStatistics.keySet()) {
+            try {
+                ObjectName objectName = getStatisticsObjectName(name);
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+            } catch (Throwable t) {
+                LOG.debug(t.getLocalizedMessage(), t);
+            }
+        }
+    }
 }
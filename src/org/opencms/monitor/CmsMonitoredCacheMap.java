@@ -0,0 +1,174 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.ForwardingConcurrentMap;
+
+/**
+ * Cache map which records the hits and misses of all lookups and the loads of missing entries
+ * in a {@link CmsCacheStatistics} instance.<p>
+ *
+ * Measuring the load time needs some bookkeeping for every miss. For maps which are read very often
+ * and whose misses are mostly not followed by a load, like the lock cache, only the hits and misses can be counted.<p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ *
+ * @since 10.5.0
+ */
+public class CmsMonitoredCacheMap<K, V> extends ForwardingConcurrentMap<K, V> {
+
+    /** The wrapped cache map. */
+    private final ConcurrentMap<K, V> m_cache;
+
+    /** Indicates if the load time of missing entries is measured. */
+    private final boolean m_recordLoads;
+
+    /** The statistics of the cache. */
+    private final CmsCacheStatistics m_statistics;
+
+    /**
+     * Creates a new monitored cache map.<p>
+     *
+     * @param cache the cache map to wrap
+     * @param statistics the statistics to record the cache accesses in
+     */
+    public CmsMonitoredCacheMap(ConcurrentMap<K, V> cache, CmsCacheStatistics statistics) {
+
+        this(cache, statistics, true);
+    }
+
+    /**
+     * Creates a new monitored cache map.<p>
+     *
+     * @param cache the cache map to wrap
+     * @param statistics the statistics to record the cache accesses in
+     * @param recordLoads if <code>false</code>, only the hits and misses are counted, but not the load times
+     */
+    public CmsMonitoredCacheMap(ConcurrentMap<K, V> cache, CmsCacheStatistics statistics, boolean recordLoads) {
+
+        m_cache = cache;
+        m_statistics = statistics;
+        m_recordLoads = recordLoads;
+    }
+
+    /**
+     * @see com.google.common.collect.ForwardingMap#get(java.lang.Object)
+     */
+    @Override
+    public V get(Object key) {
+
+        V value = m_cache.get(key);
+        if (value != null) {
+            m_statistics.recordHit();
+        } else if (m_recordLoads) {
+            m_statistics.recordMiss(key);
+        } else {
+            m_statistics.recordMiss();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the wrapped cache map.<p>
+     *
+     * @return the wrapped cache map
+     */
+    public ConcurrentMap<K, V> getCache() {
+
+        return m_cache;
+    }
+
+    /**
+     * Returns the statistics of the cache.<p>
+     *
+     * @return the statistics of the cache
+     */
+    public CmsCacheStatistics getStatistics() {
+
+        return m_statistics;
+    }
+
+    /**
+     * @see com.google.common.collect.ForwardingMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V put(K key, V value) {
+
+        V result = m_cache.put(key, value);
+        if (m_recordLoads) {
+            m_statistics.recordPut(key);
+        }
+        return result;
+    }
+
+    /**
+     * @see com.google.common.collect.ForwardingMap#putAll(java.util.Map)
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * @see com.google.common.collect.ForwardingConcurrentMap#putIfAbsent(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V putIfAbsent(K key, V value) {
+
+        V result = m_cache.putIfAbsent(key, value);
+        if (m_recordLoads) {
+            m_statistics.recordPut(key);
+        }
+        return result;
+    }
+
+    /**
+     * @see com.google.common.collect.ForwardingObject#toString()
+     */
+    @Override
+    public String toString() {
+
+        return m_cache.toString();
+    }
+
+    /**
+     * @see com.google.common.collect.ForwardingConcurrentMap#delegate()
+     */
+    @Override
+    protected ConcurrentMap<K, V> delegate() {
+
+        return m_cache;
+    }
+}
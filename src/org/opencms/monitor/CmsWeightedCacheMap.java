@@ -0,0 +1,559 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.security.CmsAccessControlList;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Function;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Maps;
+
+/**
+ * Thread safe LRU cache map which is limited by the estimated memory size of its entries, instead of their number.<p>
+ *
+ * The memory size of an entry is estimated with {@link CmsMemoryMonitor#getMemorySize(Object)}
+ * and {@link CmsMemoryMonitor#getValueSize(Object)}, so a cached list of resources is weighted by the number of
+ * resources in the list. The size is estimated once when the entry is put into the cache and stored with the entry,
+ * so the same size is subtracted again when the entry is removed, even if the cached value has changed meanwhile.<p>
+ *
+ * The configured maximum size is enforced by the underlying guava cache. In addition, the memory monitor may
+ * temporarily reduce the budget of the cache when the system is low on memory. If the budget is lower than the
+ * current size, the least recently used entries are removed until the size fits into the budget again.
+ * Since the guava cache does not expose its access order, the accesses are recorded by this map itself,
+ * but only while the budget is reduced. If a write exceeds the reduced budget, the entries are removed by
+ * a maintenance thread, so the writing thread does not have to sort all keys of the cache.<p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ *
+ * @since 10.5.0
+ */
+public class CmsWeightedCacheMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+    /**
+     * A cached value together with its estimated memory size.<p>
+     *
+     * @param <V> the value type
+     */
+    private static final class Weighted<V> {
+
+        /** The value. */
+        final V m_value;
+
+        /** The estimated memory size of the entry in bytes. */
+        final int m_weight;
+
+        /**
+         * Creates a new weighted value.<p>
+         *
+         * @param value the value
+         * @param weight the estimated memory size of the entry in bytes
+         */
+        Weighted(V value, int weight) {
+
+            m_value = value;
+            m_weight = weight;
+        }
+    }
+
+    /** The smallest fraction of the maximum size the budget can be reduced to. */
+    public static final double MIN_BUDGET_FACTOR = 0.125;
+
+    /** The time an idle maintenance thread is kept, in seconds. */
+    private static final long MAINTENANCE_KEEP_ALIVE = 60;
+
+    /** The executor removing entries to enforce the reduced budgets of all weighted caches. */
+    private static final ThreadPoolExecutor MAINTENANCE_EXECUTOR = createMaintenanceExecutor();
+
+    /** The access time of entries without a recorded access. */
+    private static final Long NO_ACCESS = Long.valueOf(0);
+
+    /** The last access of each entry while the budget is reduced, as value of {@link #m_clock}. */
+    private final ConcurrentMap<K, Long> m_accessOrder = new ConcurrentHashMap<K, Long>();
+
+    /** The current budget in bytes. */
+    private volatile long m_budget;
+
+    /** The counter for the access order of the entries. */
+    private final AtomicLong m_clock = new AtomicLong();
+
+    /** Indicates if the enforcement of the budget has been scheduled for the maintenance thread. */
+    private final AtomicBoolean m_enforcementScheduled = new AtomicBoolean();
+
+    /** The map view of the underlying cache. */
+    private final ConcurrentMap<K, Weighted<V>> m_map;
+
+    /** The maximum size in bytes. */
+    private final long m_maxBytes;
+
+    /** The estimated size of all cached entries in bytes. */
+    private final AtomicLong m_size = new AtomicLong();
+
+    /** The statistics to record evictions in, may be <code>null</code>. */
+    private final CmsCacheStatistics m_statistics;
+
+    /** The map view of the underlying cache with the plain values. */
+    private final Map<K, V> m_values;
+
+    /**
+     * Creates a new weighted cache map.<p>
+     *
+     * @param maxBytes the maximum estimated size of all entries in bytes
+     * @param concurrencyLevel the concurrency level of the underlying cache
+     * @param statistics the statistics to record evictions in, may be <code>null</code>
+     */
+    public CmsWeightedCacheMap(long maxBytes, int concurrencyLevel, CmsCacheStatistics statistics) {
+
+        m_maxBytes = maxBytes;
+        m_statistics = statistics;
+        m_budget = maxBytes;
+        m_map = CacheBuilder.newBuilder().concurrencyLevel(concurrencyLevel).maximumWeight(maxBytes).weigher(
+            new Weigher<K, Weighted<V>>() {
+
+                public int weigh(K key, Weighted<V> value) {
+
+                    // called exactly once for every value stored in the cache
+                    m_size.addAndGet(value.m_weight);
+                    return value.m_weight;
+                }
+            }).removalListener(new RemovalListener<K, Weighted<V>>() {
+
+                public void onRemoval(RemovalNotification<K, Weighted<V>> notification) {
+
+                    m_size.addAndGet(-notification.getValue().m_weight);
+                    if (notification.getCause() != RemovalCause.REPLACED) {
+                        m_accessOrder.remove(notification.getKey());
+                    }
+                    if (notification.wasEvicted() && (m_statistics != null)) {
+                        m_statistics.recordEviction();
+                    }
+                }
+            }).<K, Weighted<V>> build().asMap();
+        m_values = Maps.transformValues(m_map, new Function<Weighted<V>, V>() {
+
+            public V apply(Weighted<V> input) {
+
+                return input.m_value;
+            }
+        });
+    }
+
+    /**
+     * Returns the estimated memory size of a cache entry.<p>
+     *
+     * @param key the key
+     * @param value the value
+     *
+     * @return the estimated memory size in bytes, at least 1
+     */
+    static int getWeight(Object key, Object value) {
+
+        Object sizedValue = value;
+        if (sizedValue instanceof CmsAccessControlList) {
+            sizedValue = ((CmsAccessControlList)sizedValue).getPermissionMap();
+        }
+        long weight = CmsMemoryMonitor.getMemorySize(key) + CmsMemoryMonitor.getValueSize(sizedValue);
+        return (int)Math.max(1, Math.min(Integer.MAX_VALUE, weight));
+    }
+
+    /**
+     * Creates the executor for the maintenance thread, which is only kept while there is work to do.<p>
+     *
+     * @return the executor for the maintenance thread
+     */
+    private static ThreadPoolExecutor createMaintenanceExecutor() {
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            1,
+            1,
+            MAINTENANCE_KEEP_ALIVE,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "OpenCms: Weighted cache maintenance");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Returns the value wrapped with the estimated memory size of the entry.<p>
+     *
+     * @param <V> the value type
+     * @param key the key
+     * @param value the value
+     *
+     * @return the weighted value
+     */
+    private static <V> Weighted<V> weigh(Object key, V value) {
+
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        return new Weighted<V>(value, getWeight(key, value));
+    }
+
+    /**
+     * @see java.util.AbstractMap#clear()
+     */
+    @Override
+    public void clear() {
+
+        m_map.clear();
+    }
+
+    /**
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        return m_map.containsKey(key);
+    }
+
+    /**
+     * @see java.util.AbstractMap#entrySet()
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+
+        return m_values.entrySet();
+    }
+
+    /**
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+
+        Weighted<V> result = m_map.get(key);
+        if (result == null) {
+            return null;
+        }
+        recordAccess((K)key);
+        return result.m_value;
+    }
+
+    /**
+     * Returns the current budget of this cache in bytes.<p>
+     *
+     * @return the current budget in bytes
+     */
+    public long getBudget() {
+
+        return m_budget;
+    }
+
+    /**
+     * Returns the maximum size of this cache in bytes.<p>
+     *
+     * @return the maximum size in bytes
+     */
+    public long getMaxBytes() {
+
+        return m_maxBytes;
+    }
+
+    /**
+     * Returns the estimated size of all cached entries in bytes.<p>
+     *
+     * @return the estimated size in bytes
+     */
+    public long getSize() {
+
+        return m_size.get();
+    }
+
+    /**
+     * Increases the budget of this cache by the given factor, up to the maximum size.<p>
+     *
+     * @param factor the factor, greater than 1
+     *
+     * @return <code>true</code> if the budget was changed
+     */
+    public boolean growBudget(double factor) {
+
+        long budget = m_budget;
+        if (budget >= m_maxBytes) {
+            return false;
+        }
+        m_budget = Math.min(m_maxBytes, (long)(budget * factor));
+        if (m_budget >= m_maxBytes) {
+            // the guava cache takes care of the access order again
+            m_accessOrder.clear();
+        }
+        return true;
+    }
+
+    /**
+     * @see java.util.AbstractMap#isEmpty()
+     */
+    @Override
+    public boolean isEmpty() {
+
+        return m_map.isEmpty();
+    }
+
+    /**
+     * @see java.util.AbstractMap#keySet()
+     */
+    @Override
+    public Set<K> keySet() {
+
+        return m_map.keySet();
+    }
+
+    /**
+     * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V put(K key, V value) {
+
+        Weighted<V> result = m_map.put(key, weigh(key, value));
+        recordAccess(key);
+        scheduleEnforcement();
+        return (result != null) ? result.m_value : null;
+    }
+
+    /**
+     * @see java.util.concurrent.ConcurrentMap#putIfAbsent(java.lang.Object, java.lang.Object)
+     */
+    public V putIfAbsent(K key, V value) {
+
+        Weighted<V> result = m_map.putIfAbsent(key, weigh(key, value));
+        recordAccess(key);
+        scheduleEnforcement();
+        return (result != null) ? result.m_value : null;
+    }
+
+    /**
+     * @see java.util.AbstractMap#remove(java.lang.Object)
+     */
+    @Override
+    public V remove(Object key) {
+
+        Weighted<V> result = m_map.remove(key);
+        return (result != null) ? result.m_value : null;
+    }
+
+    /**
+     * @see java.util.concurrent.ConcurrentMap#remove(java.lang.Object, java.lang.Object)
+     */
+    public boolean remove(Object key, Object value) {
+
+        while (true) {
+            Weighted<V> current = m_map.get(key);
+            if ((current == null) || (value == null) || !value.equals(current.m_value)) {
+                return false;
+            }
+            // the weighted values are compared by identity, so this fails if the value has been replaced meanwhile
+            if (m_map.remove(key, current)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @see java.util.concurrent.ConcurrentMap#replace(java.lang.Object, java.lang.Object)
+     */
+    public V replace(K key, V value) {
+
+        Weighted<V> result = m_map.replace(key, weigh(key, value));
+        if (result == null) {
+            return null;
+        }
+        recordAccess(key);
+        scheduleEnforcement();
+        return result.m_value;
+    }
+
+    /**
+     * @see java.util.concurrent.ConcurrentMap#replace(java.lang.Object, java.lang.Object, java.lang.Object)
+     */
+    public boolean replace(K key, V oldValue, V newValue) {
+
+        Weighted<V> replacement = weigh(key, newValue);
+        while (true) {
+            Weighted<V> current = m_map.get(key);
+            if ((current == null) || (oldValue == null) || !oldValue.equals(current.m_value)) {
+                return false;
+            }
+            if (m_map.replace(key, current, replacement)) {
+                recordAccess(key);
+                scheduleEnforcement();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reduces the budget of this cache by the given factor, but not below
+     * {@link #MIN_BUDGET_FACTOR} of the maximum size, and removes entries until the cache fits into the new budget.<p>
+     *
+     * @param factor the factor, between 0 and 1
+     *
+     * @return <code>true</code> if the budget was changed
+     */
+    public boolean shrinkBudget(double factor) {
+
+        long minBudget = (long)(m_maxBytes * MIN_BUDGET_FACTOR);
+        long budget = m_budget;
+        if (budget <= minBudget) {
+            return false;
+        }
+        m_budget = Math.max(minBudget, (long)(budget * factor));
+        // this is called by the memory monitor, not by a request thread
+        enforceBudget();
+        return true;
+    }
+
+    /**
+     * @see java.util.AbstractMap#size()
+     */
+    @Override
+    public int size() {
+
+        return m_map.size();
+    }
+
+    /**
+     * @see java.util.AbstractMap#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "size: " + getSize() + ", budget: " + m_budget + ", max. size: " + m_maxBytes;
+    }
+
+    /**
+     * @see java.util.AbstractMap#values()
+     */
+    @Override
+    public Collection<V> values() {
+
+        return m_values.values();
+    }
+
+    /**
+     * Removes the least recently used entries until the estimated size fits into the current budget.<p>
+     *
+     * Some more entries than required are removed, so this is not needed for every write.
+     * Entries without a recorded access have not been used since the budget was reduced, so they are removed first.<p>
+     */
+    synchronized void enforceBudget() {
+
+        if (m_size.get() <= m_budget) {
+            return;
+        }
+        List<Map.Entry<K, Long>> accessTimes = new ArrayList<Map.Entry<K, Long>>(m_map.size());
+        for (K key : m_map.keySet()) {
+            Long access = m_accessOrder.get(key);
+            accessTimes.add(new AbstractMap.SimpleImmutableEntry<K, Long>(key, (access != null) ? access : NO_ACCESS));
+        }
+        Collections.sort(accessTimes, new Comparator<Map.Entry<K, Long>>() {
+
+            public int compare(Map.Entry<K, Long> o1, Map.Entry<K, Long> o2) {
+
+                return o1.getValue().compareTo(o2.getValue());
+            }
+        });
+        long budget = m_budget;
+        long target = budget - (budget / 16);
+        Iterator<Map.Entry<K, Long>> it = accessTimes.iterator();
+        while ((m_size.get() > target) && it.hasNext()) {
+            if ((m_map.remove(it.next().getKey()) != null) && (m_statistics != null)) {
+                m_statistics.recordEviction();
+            }
+        }
+    }
+
+    /**
+     * Records an access to the given key, if the budget is currently reduced.<p>
+     *
+     * @param key the key
+     */
+    private void recordAccess(K key) {
+
+        if (m_budget < m_maxBytes) {
+            m_accessOrder.put(key, Long.valueOf(m_clock.incrementAndGet()));
+        }
+    }
+
+    /**
+     * Lets the maintenance thread remove entries, if the estimated size exceeds the current budget.<p>
+     */
+    private void scheduleEnforcement() {
+
+        if ((m_size.get() <= m_budget) || !m_enforcementScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            MAINTENANCE_EXECUTOR.execute(new Runnable() {
+
+                public void run() {
+
+                    // writes after this point schedule a new run
+                    m_enforcementScheduled.set(false);
+                    enforceBudget();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            m_enforcementScheduled.set(false);
+        }
+    }
+}
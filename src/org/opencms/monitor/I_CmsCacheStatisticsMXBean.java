@@ -0,0 +1,107 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+/**
+ * Management interface for the statistics of an OpenCms cache.<p>
+ *
+ * The statistics of all caches are registered with the platform MBean server under the domain
+ * <code>org.opencms</code> with the type <code>CacheStatistics</code>.<p>
+ *
+ * @since 10.5.0
+ */
+public interface I_CmsCacheStatisticsMXBean {
+
+    /**
+     * Returns the average time in milliseconds needed to load a missing entry.<p>
+     *
+     * @return the average load time in milliseconds
+     */
+    double getAverageLoadTime();
+
+    /**
+     * Returns the number of entries removed from the cache because of its size limit.<p>
+     *
+     * @return the number of evictions
+     */
+    long getEvictionCount();
+
+    /**
+     * Returns the number of successful cache lookups.<p>
+     *
+     * @return the number of hits
+     */
+    long getHitCount();
+
+    /**
+     * Returns the ratio of hits to all lookups, or <code>1.0</code> if there were no lookups yet.<p>
+     *
+     * @return the hit rate
+     */
+    double getHitRate();
+
+    /**
+     * Returns the number of entries loaded after a cache miss.<p>
+     *
+     * @return the number of loads
+     */
+    long getLoadCount();
+
+    /**
+     * Returns the number of failed cache lookups.<p>
+     *
+     * @return the number of misses
+     */
+    long getMissCount();
+
+    /**
+     * Returns the name of the cache.<p>
+     *
+     * @return the name of the cache
+     */
+    String getName();
+
+    /**
+     * Returns the number of all cache lookups.<p>
+     *
+     * @return the number of lookups
+     */
+    long getRequestCount();
+
+    /**
+     * Returns the total time in milliseconds needed to load missing entries.<p>
+     *
+     * @return the total load time in milliseconds
+     */
+    long getTotalLoadTime();
+
+    /**
+     * Resets all counters to zero.<p>
+     */
+    void reset();
+}
@@ -69,6 +69,9 @@ public class CmsPublishManager {
     /** The default history size. */
     public static final int DEFAULT_HISTORY_SIZE = 100;
 
+    /** The default maximum number of publish jobs which are published concurrently. */
+    public static final int DEFAULT_MAX_CONCURRENT_JOBS = 1;
+
     /** The default persistence setting for the publish queue. */
     public static final boolean DEFAULT_QUEUE_PERSISTANCE = false;
 
@@ -81,6 +84,9 @@ public class CmsPublishManager {
     /** Indicates if the configuration can be modified. */
     private boolean m_frozen;
 
+    /** The maximum number of publish jobs which are published concurrently. */
+    private int m_maxConcurrentJobs = DEFAULT_MAX_CONCURRENT_JOBS;
+
     /** The underlying publish engine. */
     private CmsPublishEngine m_publishEngine;
 
@@ -135,6 +141,16 @@ public class CmsPublishManager {
         m_publishEngine.abandonThread();
     }
 
+    /**
+     * Abandons the thread of the given running publish job.<p>
+     *
+     * @param publishJob the running publish job
+     */
+    public void abandonThread(CmsPublishJobRunning publishJob) {
+
+        m_publishEngine.abandonThread(publishJob);
+    }
+
     /**
      * Aborts the given publish job.<p>
      *
@@ -202,10 +218,11 @@ public class CmsPublishManager {
      */
     public CmsPublishJobRunning getCurrentPublishJob() {
 
-        if (m_publishEngine.getCurrentPublishJob() == null) {
+        CmsPublishThread publishThread = m_publishEngine.getCurrentPublishJob();
+        if (publishThread == null) {
             return null;
         }
-        return new CmsPublishJobRunning(m_publishEngine.getCurrentPublishJob().getPublishJob());
+        return new CmsPublishJobRunning(publishThread.getPublishJob());
     }
 
     /**
@@ -222,6 +239,19 @@ public class CmsPublishManager {
         return m_publishEngine.getJobByPublishHistoryId(publishHistoryId);
     }
 
+    /**
+     * Returns the maximum number of publish jobs which are published concurrently.<p>
+     *
+     * Publish jobs are only published concurrently if they belong to different projects
+     * and if their publish lists do not overlap.<p>
+     *
+     * @return the maximum number of concurrent publish jobs
+     */
+    public int getMaxConcurrentJobs() {
+
+        return m_maxConcurrentJobs;
+    }
+
     /**
      * Returns the publish history list with already publish jobs.<p>
      *
@@ -446,6 +476,21 @@ public class CmsPublishManager {
         return m_publishEngine.getReportContents(publishJob);
     }
 
+    /**
+     * Returns all running publish jobs, the oldest first.<p>
+     *
+     * @return a list of {@link CmsPublishJobRunning} objects
+     */
+    public List<CmsPublishJobRunning> getRunningPublishJobs() {
+
+        List<CmsPublishThread> publishThreads = m_publishEngine.getPublishThreads();
+        List<CmsPublishJobRunning> result = new ArrayList<CmsPublishJobRunning>(publishThreads.size());
+        for (CmsPublishThread publishThread : publishThreads) {
+            result.add(new CmsPublishJobRunning(publishThread.getPublishJob()));
+        }
+        return result;
+    }
+
     /**
      * Returns the current user's publish list.<p>
      *
@@ -469,7 +514,11 @@ public class CmsPublishManager {
      */
     public void initialize(CmsObject cms) throws CmsException {
 
-        m_publishEngine.initialize(cms, m_publishQueuePersistance, m_publishQueueShutdowntime);
+        m_publishEngine.initialize(
+            cms,
+            m_publishQueuePersistance,
+            m_publishQueueShutdowntime,
+            m_maxConcurrentJobs);
         m_frozen = true;
     }
 
@@ -647,6 +696,19 @@ public class CmsPublishManager {
         m_securityManager.removeResourceFromUsersPubList(cms.getRequestContext(), structureIds);
     }
 
+    /**
+     * Sets the maximum number of publish jobs which are published concurrently.<p>
+     *
+     * @param maxConcurrentJobs the maximum number of concurrent publish jobs
+     */
+    public void setMaxConcurrentJobs(String maxConcurrentJobs) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_maxConcurrentJobs = Integer.parseInt(maxConcurrentJobs);
+    }
+
     /**
      * Sets the publish engine during initialization.<p>
      *
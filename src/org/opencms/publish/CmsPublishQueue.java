@@ -283,6 +283,33 @@ public class CmsPublishQueue {
         return publishJob;
     }
 
+    /**
+     * Returns the next publish job which can be published concurrently to the given running publish jobs,
+     * removing it from the queue, or <code>null</code> if there is no such publish job.<p>
+     *
+     * A waiting publish job is skipped if it belongs to the same project as a running or an earlier
+     * enqueued publish job, or if its publish list overlaps the publish list of one of these jobs.<p>
+     *
+     * @param runningJobs the currently running publish jobs
+     *
+     * @return the next publish job to be published, or <code>null</code>
+     */
+    protected CmsPublishJobInfoBean next(List<CmsPublishJobInfoBean> runningJobs) {
+
+        List<CmsPublishJobInfoBean> blockingJobs = new ArrayList<CmsPublishJobInfoBean>(runningJobs);
+        Iterator<CmsPublishJobInfoBean> it = OpenCms.getMemoryMonitor().getAllCachedPublishJobs().iterator();
+        while (it.hasNext()) {
+            CmsPublishJobInfoBean publishJob = it.next();
+            if (!isBlocked(publishJob, blockingJobs)) {
+                OpenCms.getMemoryMonitor().uncachePublishJob(publishJob);
+                return publishJob;
+            }
+            // later jobs must not overtake this one if they touch the same resources
+            blockingJobs.add(publishJob);
+        }
+        return null;
+    }
+
     /**
      * Removes the given job from the list.<p>
      *
@@ -336,4 +363,23 @@ public class CmsPublishQueue {
             }
         }
     }
+
+    /**
+     * Checks if the given publish job can not be started before the given blocking publish jobs are finished.<p>
+     *
+     * @param publishJob the publish job to check
+     * @param blockingJobs the running or earlier enqueued publish jobs
+     *
+     * @return <code>true</code> if the publish job has to wait
+     */
+    private boolean isBlocked(CmsPublishJobInfoBean publishJob, List<CmsPublishJobInfoBean> blockingJobs) {
+
+        for (CmsPublishJobInfoBean blockingJob : blockingJobs) {
+            if (publishJob.getProjectId().equals(blockingJob.getProjectId())
+                || publishJob.getPublishList().isOverlapping(blockingJob.getPublishList())) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
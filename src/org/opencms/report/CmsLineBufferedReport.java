@@ -0,0 +1,196 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.report;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Report which collects the output of one thread until the end of a line,
+ * and then writes the complete line to a report that is shared with other threads.<p>
+ *
+ * This keeps the lines of several threads writing to the same report from being mixed up.
+ * Each thread has to use its own instance of this report.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsLineBufferedReport extends A_CmsReport {
+
+    /** The formats of the buffered output of the current line. */
+    private List<Integer> m_formats = new ArrayList<Integer>();
+
+    /** The shared report to write the complete lines to. */
+    private I_CmsReport m_report;
+
+    /** The buffered output of the current line. */
+    private List<String> m_values = new ArrayList<String>();
+
+    /**
+     * Creates a new line buffered report writing to the given shared report.<p>
+     *
+     * @param report the shared report to write the complete lines to
+     */
+    public CmsLineBufferedReport(I_CmsReport report) {
+
+        init(report.getLocale(), report.getSiteRoot());
+        m_report = report;
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#addError(java.lang.Object)
+     */
+    @Override
+    public void addError(Object obj) {
+
+        synchronized (m_report) {
+            m_report.addError(obj);
+        }
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#addWarning(java.lang.Object)
+     */
+    @Override
+    public void addWarning(Object obj) {
+
+        synchronized (m_report) {
+            m_report.addWarning(obj);
+        }
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#formatRuntime()
+     */
+    @Override
+    public String formatRuntime() {
+
+        return m_report.formatRuntime();
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#getErrors()
+     */
+    @Override
+    public List<Object> getErrors() {
+
+        return m_report.getErrors();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getReportUpdate()
+     */
+    public String getReportUpdate() {
+
+        return "";
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#getRuntime()
+     */
+    @Override
+    public long getRuntime() {
+
+        return m_report.getRuntime();
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#getWarnings()
+     */
+    @Override
+    public List<Object> getWarnings() {
+
+        return m_report.getWarnings();
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#hasError()
+     */
+    @Override
+    public boolean hasError() {
+
+        return m_report.hasError();
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#hasWarning()
+     */
+    @Override
+    public boolean hasWarning() {
+
+        return m_report.hasWarning();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println()
+     */
+    public void println() {
+
+        synchronized (m_report) {
+            writeBufferedOutput();
+            m_report.println();
+        }
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println(java.lang.Throwable)
+     */
+    public void println(Throwable t) {
+
+        synchronized (m_report) {
+            writeBufferedOutput();
+            m_report.println(t);
+        }
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#print(java.lang.String, int)
+     */
+    @Override
+    protected void print(String value, int format) {
+
+        m_values.add(value);
+        m_formats.add(Integer.valueOf(format));
+        setLastEntryTime(System.currentTimeMillis());
+    }
+
+    /**
+     * Writes the buffered output of the current line to the shared report.<p>
+     *
+     * Must be called while holding the lock of the shared report.<p>
+     */
+    private void writeBufferedOutput() {
+
+        for (int i = 0; i < m_values.size(); i++) {
+            m_report.print(
+                Messages.get().container(Messages.RPT_ARGUMENT_1, m_values.get(i)),
+                m_formats.get(i).intValue());
+        }
+        m_values.clear();
+        m_formats.clear();
+    }
+}
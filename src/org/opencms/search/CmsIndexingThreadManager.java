@@ -28,29 +28,122 @@
 package org.opencms.search;
 
 import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.report.CmsLineBufferedReport;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 
 /**
  * Implements the management of indexing threads.<p>
  *
+ * The indexing is done in a pipeline with two stages. The text extraction of the documents
+ * runs on a bounded pool of extraction threads, and the extracted documents are written to the index
+ * by the thread which has called {@link #createIndexingThread(CmsVfsIndexer, I_CmsIndexWriter, CmsResource)}.
+ * So the index writer is only used by a single thread.<p>
+ *
+ * The extraction of a document which takes longer than the configured timeout is abandoned,
+ * the document is then removed from the index.<p>
+ *
  * @since 6.0.0
  */
 public class CmsIndexingThreadManager {
 
+    /**
+     * A document in the extraction stage of the pipeline.<p>
+     */
+    private final class CmsIndexingTask implements Runnable {
+
+        /** The time when the extraction of this document is abandoned. */
+        long m_deadline;
+
+        /** The result of the submission to the extraction pool. */
+        Future<?> m_future;
+
+        /** The indexer which has created this task. */
+        final CmsVfsIndexer m_indexer;
+
+        /** The resource to index. */
+        final CmsResource m_resource;
+
+        /** The indexing thread, which is not started but run by a thread of the extraction pool. */
+        final CmsIndexingThread m_thread;
+
+        /** The index writer to write the document to. */
+        final I_CmsIndexWriter m_writer;
+
+        /**
+         * Creates a new task.<p>
+         *
+         * @param indexer the indexer
+         * @param writer the index writer
+         * @param resource the resource to index
+         * @param thread the indexing thread
+         */
+        CmsIndexingTask(
+            CmsVfsIndexer indexer,
+            I_CmsIndexWriter writer,
+            CmsResource resource,
+            CmsIndexingThread thread) {
+
+            m_indexer = indexer;
+            m_writer = writer;
+            m_resource = resource;
+            m_thread = thread;
+        }
+
+        /**
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+
+            long start = System.nanoTime();
+            try {
+                m_thread.run();
+            } finally {
+                m_extractionNanos.addAndGet(System.nanoTime() - start);
+                m_completed.add(this);
+            }
+        }
+    }
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsIndexingThreadManager.class);
 
     /** Number of threads abandoned. */
     private int m_abandonedCounter;
 
+    /** The documents which have been extracted, in the order of completion. */
+    private final BlockingQueue<CmsIndexingTask> m_completed = new LinkedBlockingQueue<CmsIndexingTask>();
+
+    /** The total time spent in the extraction stage, summed up over all extraction threads. */
+    private final AtomicLong m_extractionNanos = new AtomicLong();
+
+    /** The pool running the extraction stage, created on demand. */
+    private ExecutorService m_extractionPool;
+
+    /** The maximum number of documents extracted at the same time. */
+    private int m_extractionThreads;
+
     /** The time the last error was written to the log. */
     private long m_lastLogErrorTime;
 
@@ -60,34 +153,63 @@ public class CmsIndexingThreadManager {
     /** The maximum number of modifications before a commit in the search index is triggered. */
     private int m_maxModificationsBeforeCommit;
 
+    /** The time the pipeline has been started. */
+    private long m_pipelineStart;
+
     /** Number of thread returned. */
     private int m_returnedCounter;
 
+    /** The documents in the extraction stage, in the order of submission. */
+    private final Deque<CmsIndexingTask> m_running = new ArrayDeque<CmsIndexingTask>();
+
     /** Overall number of threads started. */
     private int m_startedCounter;
 
+    /** The counter used to name the extraction threads. */
+    private final AtomicInteger m_threadCounter = new AtomicInteger();
+
     /** Timeout for abandoning threads. */
     private long m_timeout;
 
+    /** Number of documents written to the index. */
+    private int m_writtenCounter;
+
+    /** The total time spent in the writer stage. */
+    private long m_writerNanos;
+
     /**
-     * Creates and starts a thread manager for indexing threads.<p>
+     * Creates and starts a thread manager for indexing threads, which extracts one document at a time.<p>
      *
      * @param timeout timeout after a thread is abandoned
      * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
      */
     public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit) {
 
+        this(timeout, maxModificationsBeforeCommit, 1);
+    }
+
+    /**
+     * Creates and starts a thread manager for indexing threads.<p>
+     *
+     * @param timeout timeout after a thread is abandoned
+     * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
+     * @param extractionThreads the maximum number of documents extracted at the same time
+     */
+    public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit, int extractionThreads) {
+
         m_timeout = timeout;
         m_maxModificationsBeforeCommit = maxModificationsBeforeCommit;
+        m_extractionThreads = Math.max(1, extractionThreads);
     }
 
     /**
-     * Creates and starts a new indexing thread for a resource.<p>
+     * Submits the text extraction of a resource to the extraction pool.<p>
      *
-     * After an indexing thread was started, the manager suspends itself
-     * and waits for an amount of time specified by the <code>timeout</code>
-     * value. If the timeout value is reached, the indexing thread is
-     * aborted by an interrupt signal.<p>
+     * In case all extraction threads are busy, this waits until a document has been extracted,
+     * and writes it to the index. If the extraction of a document reaches the timeout value,
+     * the extraction thread is aborted by an interrupt signal.<p>
+     *
+     * Call {@link #finishIndexing()} after the last resource has been submitted.<p>
      *
      * @param indexer the VFS indexer to create the index thread for
      * @param writer the index writer that can update the index
@@ -95,71 +217,61 @@ public class CmsIndexingThreadManager {
      */
     public void createIndexingThread(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
 
+        // wait for a free extraction thread
+        while (m_running.size() >= m_extractionThreads) {
+            writeNextDocument(true);
+        }
         I_CmsReport report = indexer.getReport();
         m_startedCounter++;
-        CmsIndexingThread thread = new CmsIndexingThread(
-            indexer.getCms(),
+        CmsIndexingThread thread = newIndexingThread(
+            indexer,
             res,
-            indexer.getIndex(),
             m_startedCounter,
-            report);
-        thread.setPriority(Thread.MIN_PRIORITY);
-        thread.start();
-        try {
-            thread.join(m_timeout);
-        } catch (InterruptedException e) {
-            // ignore
-        }
-        if (thread.isAlive()) {
-            // the thread has not finished - so it must be marked as an abandoned thread
-            m_abandonedCounter++;
-            thread.interrupt();
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
-            }
-            if (report != null) {
-                report.println();
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
-                    I_CmsReport.FORMAT_WARNING);
-                report.println(
-                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
-                    I_CmsReport.FORMAT_WARNING);
-            }
-        } else {
-            // the thread finished normally
-            m_returnedCounter++;
+            // every document writes its report output as complete lines
+            report != null ? new CmsLineBufferedReport(report) : null);
+        CmsIndexingTask task = new CmsIndexingTask(indexer, writer, res, thread);
+        if (m_extractionPool == null) {
+            m_extractionPool = createExtractionPool();
+            m_pipelineStart = System.nanoTime();
         }
-        I_CmsSearchDocument doc = thread.getResult();
-        if (doc != null) {
-            // write the document to the index
-            indexer.updateResource(writer, res.getRootPath(), doc);
-        } else {
-            indexer.deleteResource(writer, new CmsPublishedResource(res));
+        task.m_deadline = System.currentTimeMillis() + m_timeout;
+        m_running.add(task);
+        task.m_future = m_extractionPool.submit(task);
+        // write the documents which have already been extracted
+        while (writeNextDocument(false)) {
+            // continue
         }
-        if ((m_startedCounter % m_maxModificationsBeforeCommit) == 0) {
-            try {
-                writer.commit();
-            } catch (IOException e) {
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(
-                        Messages.get().getBundle().key(
-                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
-                            indexer.getIndex().getName(),
-                            indexer.getIndex().getPath()),
-                        e);
-                }
-            }
+    }
+
+    /**
+     * Waits until all submitted documents have been extracted or abandoned, and writes them to the index.<p>
+     *
+     * The threads of the extraction pool are released afterwards.<p>
+     */
+    public void finishIndexing() {
+
+        while (!m_running.isEmpty() || !m_completed.isEmpty()) {
+            writeNextDocument(true);
+        }
+        if (m_extractionPool != null) {
+            // abandoned threads are not affected, they are interrupted already
+            m_extractionPool.shutdown();
+            m_extractionPool = null;
         }
     }
 
     /**
      * Returns if the indexing manager still have indexing threads.<p>
      *
+     * The documents which have been extracted in the meantime are written to the index.<p>
+     *
      * @return true if the indexing manager still have indexing threads
      */
     public boolean isRunning() {
 
+        while (writeNextDocument(false)) {
+            // continue
+        }
         if (m_lastLogErrorTime <= 0) {
             m_lastLogErrorTime = System.currentTimeMillis();
             m_lastLogWarnTime = m_lastLogErrorTime;
@@ -202,6 +314,7 @@ public class CmsIndexingThreadManager {
      * (equals to the number of indexed files), the number of returned
      * threads (equals to the number of successfully indexed files),
      * and the number of abandoned threads (hanging threads reaching the timeout).
+     * Additionally the throughput of the extraction and the writer stage is reported.<p>
      *
      * @param report the report to write the statistics to
      */
@@ -215,12 +328,203 @@ public class CmsIndexingThreadManager {
                     new Integer(m_returnedCounter),
                     new Integer(m_abandonedCounter),
                     report.formatRuntime()});
+            CmsMessageContainer pipelineMessage = Messages.get().container(
+                Messages.RPT_SEARCH_INDEXING_PIPELINE_STATS_6,
+                new Object[] {
+                    Integer.valueOf(m_extractionThreads),
+                    Integer.valueOf(m_returnedCounter),
+                    Long.valueOf(getThroughput(m_returnedCounter, System.nanoTime() - m_pipelineStart)),
+                    Long.valueOf(getThroughput(m_returnedCounter, m_extractionNanos.get())),
+                    Integer.valueOf(m_writtenCounter),
+                    Long.valueOf(getThroughput(m_writtenCounter, m_writerNanos))});
 
             report.println(message);
+            if (m_startedCounter > 0) {
+                report.println(pipelineMessage);
+            }
             if (!(report instanceof CmsLogReport) && LOG.isInfoEnabled()) {
                 // only write to the log if report is not already a log report
                 LOG.info(message.key());
+                if (m_startedCounter > 0) {
+                    LOG.info(pipelineMessage.key());
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the indexing thread which extracts the document of a resource.<p>
+     *
+     * The thread is not started, but run by a thread of the extraction pool.<p>
+     *
+     * @param indexer the VFS indexer
+     * @param res the resource
+     * @param count the number of the document in this indexing run
+     * @param report the report to write the output of this document to, may be <code>null</code>
+     *
+     * @return the indexing thread
+     */
+    protected CmsIndexingThread newIndexingThread(
+        CmsVfsIndexer indexer,
+        CmsResource res,
+        int count,
+        I_CmsReport report) {
+
+        return new CmsIndexingThread(getCms(indexer), res, indexer.getIndex(), count, report);
+    }
+
+    /**
+     * Abandons the extraction of the given document, since it has reached the timeout.<p>
+     *
+     * @param task the document to abandon
+     */
+    private void abandon(CmsIndexingTask task) {
+
+        // the thread has not finished - so it must be marked as an abandoned thread
+        m_abandonedCounter++;
+        task.m_future.cancel(true);
+        if (LOG.isWarnEnabled()) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, task.m_resource.getRootPath()));
+        }
+        I_CmsReport report = task.m_indexer.getReport();
+        if (report != null) {
+            synchronized (report) {
+                report.println();
+                report.print(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                    I_CmsReport.FORMAT_WARNING);
+                report.println(
+                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, task.m_resource.getRootPath()),
+                    I_CmsReport.FORMAT_WARNING);
+            }
+        }
+    }
+
+    /**
+     * Creates the pool for the extraction stage.<p>
+     *
+     * The threads of the pool are reused, but not limited in number, so an abandoned
+     * thread which is still hanging does not block the extraction of further documents.
+     * The number of documents extracted at the same time is limited by this manager.<p>
+     *
+     * @return the pool for the extraction stage
+     */
+    private ExecutorService createExtractionPool() {
+
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+
+                Thread thread = new Thread(r, "OpenCms: Indexing worker " + m_threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns the OpenCms user context to use for the extraction of a single document.<p>
+     *
+     * If several documents are extracted at the same time, each document gets its own copy
+     * of the user context of the indexer, since the request context is not thread safe.<p>
+     *
+     * @param indexer the indexer
+     *
+     * @return the OpenCms user context to use
+     */
+    private CmsObject getCms(CmsVfsIndexer indexer) {
+
+        CmsObject cms = indexer.getCms();
+        if (m_extractionThreads > 1) {
+            try {
+                cms = OpenCms.initCmsObject(cms);
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+        return cms;
+    }
+
+    /**
+     * Returns the number of documents per second.<p>
+     *
+     * @param documents the number of documents
+     * @param nanos the time in nanoseconds
+     *
+     * @return the number of documents per second
+     */
+    private long getThroughput(int documents, long nanos) {
+
+        if (nanos <= 0) {
+            return 0;
+        }
+        return (documents * 1000000000L) / nanos;
+    }
+
+    /**
+     * Writes the next extracted document to the index.<p>
+     *
+     * If the oldest document in the extraction stage has reached the timeout, it is abandoned
+     * and removed from the index.<p>
+     *
+     * @param wait if <code>true</code>, waits until a document has been extracted or the oldest document reaches the timeout
+     *
+     * @return <code>true</code> if a document has been written or removed from the index
+     */
+    private boolean writeNextDocument(boolean wait) {
+
+        CmsIndexingTask task = null;
+        CmsIndexingTask oldest = m_running.peekFirst();
+        try {
+            long remaining = oldest != null ? oldest.m_deadline - System.currentTimeMillis() : 0;
+            if (wait && (remaining > 0)) {
+                task = m_completed.poll(remaining, TimeUnit.MILLISECONDS);
+            } else {
+                task = m_completed.poll();
+            }
+        } catch (InterruptedException e) {
+            // ignore, check the timeout below
+        }
+        if (task != null) {
+            if (!m_running.remove(task)) {
+                // this document has already been abandoned
+                return true;
+            }
+            // the thread finished normally
+            m_returnedCounter++;
+        } else if ((oldest != null) && (oldest.m_deadline <= System.currentTimeMillis())) {
+            m_running.remove(oldest);
+            abandon(oldest);
+            task = oldest;
+        } else {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        I_CmsSearchDocument doc = task.m_future.isCancelled() ? null : task.m_thread.getResult();
+        if (doc != null) {
+            // write the document to the index
+            task.m_indexer.updateResource(task.m_writer, task.m_resource.getRootPath(), doc);
+        } else {
+            task.m_indexer.deleteResource(task.m_writer, new CmsPublishedResource(task.m_resource));
+        }
+        m_writtenCounter++;
+        if ((m_writtenCounter % m_maxModificationsBeforeCommit) == 0) {
+            try {
+                task.m_writer.commit();
+            } catch (IOException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
+                            task.m_indexer.getIndex().getName(),
+                            task.m_indexer.getIndex().getPath()),
+                        e);
+                }
             }
         }
+        m_writerNanos += System.nanoTime() - start;
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -161,6 +161,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         /** Indicates if the event handlers for the offline search have been already registered. */
         private boolean m_isEventRegistered;
 
+        /** The structure ids of the folders with changed permissions since the last offline index update. */
+        private Set<CmsUUID> m_permissionChangedFolders;
+
         /** The list of resources to index. */
         private List<CmsPublishedResource> m_resourcesToIndex;
 
@@ -170,6 +173,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         protected CmsSearchOfflineHandler() {
 
             m_resourcesToIndex = new ArrayList<CmsPublishedResource>();
+            m_permissionChangedFolders = new HashSet<CmsUUID>();
         }
 
         /**
@@ -197,6 +201,10 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     }
 
                     // a resource has been modified - offline indexes require (re)indexing
+                    CmsResource permissionChangedFolder = getPermissionChangedFolder(event);
+                    if (permissionChangedFolder != null) {
+                        addPermissionChangedFolder(permissionChangedFolder.getStructureId());
+                    }
                     List<CmsResource> resources = Collections.singletonList(
                         (CmsResource)event.getData().get(I_CmsEventListener.KEY_RESOURCE));
                     reIndexResources(resources);
@@ -226,6 +234,16 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             }
         }
 
+        /**
+         * Adds a folder with changed permissions, all files below the folder have to be re-indexed.<p>
+         *
+         * @param folderId the structure id of the folder
+         */
+        protected synchronized void addPermissionChangedFolder(CmsUUID folderId) {
+
+            m_permissionChangedFolders.add(folderId);
+        }
+
         /**
          * Adds a list of {@link CmsPublishedResource} objects to be indexed.<p>
          *
@@ -244,9 +262,12 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         protected List<CmsPublishedResource> getResourcesToIndex() {
 
             List<CmsPublishedResource> result;
+            Set<CmsUUID> permissionChangedFolders;
             synchronized (this) {
                 result = m_resourcesToIndex;
                 m_resourcesToIndex = new ArrayList<CmsPublishedResource>();
+                permissionChangedFolders = m_permissionChangedFolders;
+                m_permissionChangedFolders = new HashSet<CmsUUID>();
             }
             try {
                 CmsObject cms = m_adminCms;
@@ -256,6 +277,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     cms = OpenCms.initCmsObject(m_adminCms);
                     cms.getRequestContext().setCurrentProject(offline);
                 }
+                addPermissionChangedSubtrees(cms, result, permissionChangedFolders, result);
                 findRelatedContainerPages(cms, result);
             } catch (CmsException e) {
                 LOG.error(e.getLocalizedMessage(), e);
@@ -683,6 +705,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** The cache for the extraction results. */
     private CmsExtractionResultCache m_extractionResultCache;
 
+    /** The number of threads used to extract the documents while indexing, 0 to use one per processor. */
+    private int m_extractionThreads;
+
     /** Contains the available field configurations. */
     private Map<String, CmsSearchFieldConfiguration> m_fieldConfigurations;
 
@@ -719,6 +744,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** Path to index files below WEB-INF/. */
     private String m_path;
 
+    /** The structure ids of the folders with changed permissions that have not been published yet. */
+    private Set<CmsUUID> m_permissionChangedFolders = Collections.synchronizedSet(new HashSet<CmsUUID>());
+
     /** The Solr configuration. */
     private CmsSolrConfiguration m_solrConfig;
 
@@ -997,6 +1025,13 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_EVENT_CLEAR_CACHES_0), new Exception());
                 }
                 break;
+            case I_CmsEventListener.EVENT_RESOURCE_MODIFIED:
+                // the files below a folder with changed permissions are re-indexed when the folder is published
+                CmsResource permissionChangedFolder = getPermissionChangedFolder(event);
+                if (permissionChangedFolder != null) {
+                    m_permissionChangedFolders.add(permissionChangedFolder.getStructureId());
+                }
+                break;
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
                 // event data contains a list of the published resources
                 CmsUUID publishHistoryId = new CmsUUID((String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID));
@@ -1196,6 +1231,16 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return m_extractionCacheMaxAge;
     }
 
+    /**
+     * Returns the number of threads used to extract the documents while indexing.<p>
+     *
+     * @return the number of threads used to extract the documents, 0 to use one thread per processor
+     */
+    public int getExtractionThreads() {
+
+        return m_extractionThreads;
+    }
+
     /**
      * Returns the search field configuration with the given name.<p>
      *
@@ -1511,7 +1556,8 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             new int[] {
                 I_CmsEventListener.EVENT_CLEAR_CACHES,
                 I_CmsEventListener.EVENT_PUBLISH_PROJECT,
-                I_CmsEventListener.EVENT_REBUILD_SEARCHINDEXES});
+                I_CmsEventListener.EVENT_REBUILD_SEARCHINDEXES,
+                I_CmsEventListener.EVENT_RESOURCE_MODIFIED});
     }
 
     /**
@@ -2058,6 +2104,36 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the number of threads used to extract the documents while indexing.<p>
+     *
+     * @param extractionThreads the number of threads, 0 to use one thread per processor
+     */
+    public void setExtractionThreads(int extractionThreads) {
+
+        m_extractionThreads = Math.max(0, extractionThreads);
+    }
+
+    /**
+     * Sets the number of threads used to extract the documents while indexing as a String.<p>
+     *
+     * @param extractionThreads the number of threads, 0 to use one thread per processor
+     */
+    public void setExtractionThreads(String extractionThreads) {
+
+        try {
+            setExtractionThreads(Integer.parseInt(extractionThreads.trim()));
+        } catch (NumberFormatException e) {
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PARSE_EXTRACTION_THREADS_FAILED_2,
+                    extractionThreads,
+                    new Integer(0)),
+                e);
+            setExtractionThreads(0);
+        }
+    }
+
     /**
      * Sets the unlock mode during indexing.<p>
      *
@@ -2326,6 +2402,57 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Adds the files below the folders with changed permissions to the resources to re-index.<p>
+     *
+     * The read permissions of a file depend on the access control entries of all its parent folders,
+     * so the files below the folder have to be re-indexed for indexes that store the read permissions,
+     * see {@link CmsSolrIndex#PERMISSION_FILTER}.<p>
+     *
+     * @param cms the OpenCms context to read the files with
+     * @param changedResources the changed resources, containing the changed folders
+     * @param permissionChangedFolders the structure ids of the folders with changed permissions,
+     *      the ids of the handled folders are removed
+     * @param updateResources the resources to re-index, the files below the folders are added to
+     */
+    protected void addPermissionChangedSubtrees(
+        CmsObject cms,
+        List<CmsPublishedResource> changedResources,
+        Set<CmsUUID> permissionChangedFolders,
+        List<CmsPublishedResource> updateResources) {
+
+        if (permissionChangedFolders.isEmpty()) {
+            return;
+        }
+        List<CmsPublishedResource> folders = new ArrayList<CmsPublishedResource>();
+        for (CmsPublishedResource res : changedResources) {
+            if (res.isFolder() && permissionChangedFolders.remove(res.getStructureId())) {
+                folders.add(res);
+            }
+        }
+        Set<CmsPublishedResource> contained = new HashSet<CmsPublishedResource>(updateResources);
+        for (CmsPublishedResource folder : folders) {
+            if (folder.getState().isDeleted()) {
+                // the files below a deleted folder are deleted as well
+                continue;
+            }
+            try {
+                for (CmsResource file : cms.readResources(
+                    folder.getRootPath(),
+                    CmsResourceFilter.ALL.addRequireFile())) {
+                    CmsPublishedResource pubRes = new CmsPublishedResource(file);
+                    if (contained.add(pubRes)) {
+                        updateResources.add(pubRes);
+                    }
+                }
+            } catch (CmsException e) {
+                LOG.warn(
+                    Messages.get().getBundle().key(Messages.LOG_UNABLE_TO_READ_SUBTREE_1, folder.getRootPath()),
+                    e);
+            }
+        }
+    }
+
     /**
      * Cleans up the extraction result cache.<p>
      */
@@ -2456,6 +2583,28 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Returns the folder of a resource modification event, if the permissions of the folder have been changed
+     * and at least one Solr index checks the read permissions by a filter query.<p>
+     *
+     * @param event the resource modification event
+     *
+     * @return the folder with changed permissions, or <code>null</code>
+     */
+    protected CmsResource getPermissionChangedFolder(CmsEvent event) {
+
+        Object change = event.getData().get(I_CmsEventListener.KEY_CHANGE);
+        Object resource = event.getData().get(I_CmsEventListener.KEY_RESOURCE);
+        if ((change instanceof Integer)
+            && ((((Integer)change).intValue() & CmsDriverManager.CHANGED_ACCESSCONTROL) > 0)
+            && (resource instanceof CmsResource)
+            && ((CmsResource)resource).isFolder()
+            && hasPermissionFilterIndex()) {
+            return (CmsResource)resource;
+        }
+        return null;
+    }
+
     /**
      * Returns a new thread manager for the indexing threads.<p>
      *
@@ -2463,7 +2612,11 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     protected CmsIndexingThreadManager getThreadManager() {
 
-        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit);
+        int extractionThreads = m_extractionThreads;
+        if (extractionThreads <= 0) {
+            extractionThreads = Runtime.getRuntime().availableProcessors();
+        }
+        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit, extractionThreads);
     }
 
     /**
@@ -2665,6 +2818,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 }
             }
 
+            addPermissionChangedSubtrees(adminCms, publishedResources, m_permissionChangedFolders, updateResources);
             findRelatedContainerPages(adminCms, updateResources);
             if (!updateResources.isEmpty()) {
                 // sort the resource to update
@@ -2774,10 +2928,13 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     CmsSearchIndexSource source = sources.next();
                     // create the indexer
                     I_CmsIndexer indexer = source.getIndexer().newInstance(cms, report, index);
-                    // new index creation, use all resources from the index source
-                    indexer.rebuildIndex(writer, threadManager, source);
-
-                    // wait for indexing threads to finish
+                    try {
+                        // new index creation, use all resources from the index source
+                        indexer.rebuildIndex(writer, threadManager, source);
+                    } finally {
+                        // wait for indexing threads to finish, this also releases the extraction threads
+                        threadManager.finishIndexing();
+                    }
                     while (threadManager.isRunning()) {
                         try {
                             Thread.sleep(500);
@@ -2927,18 +3084,21 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     // create a new thread manager
                     CmsIndexingThreadManager threadManager = getThreadManager();
 
-                    Iterator<CmsSearchIndexUpdateData> i = updateCollections.iterator();
-                    while (i.hasNext()) {
-                        CmsSearchIndexUpdateData updateCollection = i.next();
-                        if (updateCollection.hasResourceToUpdate()) {
-                            updateCollection.getIndexer().updateResources(
-                                writer,
-                                threadManager,
-                                updateCollection.getResourcesToUpdate());
+                    try {
+                        Iterator<CmsSearchIndexUpdateData> i = updateCollections.iterator();
+                        while (i.hasNext()) {
+                            CmsSearchIndexUpdateData updateCollection = i.next();
+                            if (updateCollection.hasResourceToUpdate()) {
+                                updateCollection.getIndexer().updateResources(
+                                    writer,
+                                    threadManager,
+                                    updateCollection.getResourcesToUpdate());
+                            }
                         }
+                    } finally {
+                        // wait for indexing threads to finish, this also releases the extraction threads
+                        threadManager.finishIndexing();
                     }
-
-                    // wait for indexing threads to finish
                     while (threadManager.isRunning()) {
                         try {
                             Thread.sleep(500);
@@ -3106,6 +3266,21 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Checks if at least one Solr index checks the read permissions by a filter query.<p>
+     *
+     * @return <code>true</code> if at least one Solr index checks the read permissions by a filter query
+     */
+    private boolean hasPermissionFilterIndex() {
+
+        for (CmsSearchIndex index : m_indexes) {
+            if ((index instanceof CmsSolrIndex) && ((CmsSolrIndex)index).isPermissionFilter()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Shuts down the Solr core container.<p>
      */
@@ -55,7 +55,12 @@ import org.opencms.search.fields.CmsSearchFieldConfiguration;
 import org.opencms.search.fields.CmsSearchFieldMapping;
 import org.opencms.search.fields.CmsSearchFieldMappingType;
 import org.opencms.search.fields.I_CmsSearchFieldMapping;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.CmsPermissionSetCustom;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.containerpage.CmsContainerElementBean;
 import org.opencms.xml.containerpage.CmsContainerPageBean;
@@ -68,6 +73,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -100,6 +106,48 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         super();
     }
 
+    /**
+     * Returns the values of the read permission fields for the given access control list.<p>
+     *
+     * A principal which is denied to read is not stored as allowed, since a denied permission
+     * always wins, no matter which other principals of the user allow it.
+     * The entry for all others is not stored as principal, since it only applies
+     * if there is no entry for any principal of the user.<p>
+     *
+     * @param acl the resolved access control list of the resource
+     *
+     * @return the ids of the principals by field name, only for fields with at least one principal
+     */
+    static Map<String, List<String>> getPermissionFields(CmsAccessControlList acl) {
+
+        List<String> principals = new ArrayList<String>();
+        List<String> allowed = new ArrayList<String>();
+        List<String> denied = new ArrayList<String>();
+        for (Map.Entry<CmsUUID, CmsPermissionSetCustom> entry : acl.getPermissionMap().entrySet()) {
+            String principal = entry.getKey().toString();
+            if (!CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID.equals(entry.getKey())) {
+                principals.add(principal);
+            }
+            CmsPermissionSet permissions = entry.getValue();
+            if ((permissions.getDeniedPermissions() & CmsPermissionSet.PERMISSION_READ) > 0) {
+                denied.add(principal);
+            } else if ((permissions.getAllowedPermissions() & CmsPermissionSet.PERMISSION_READ) > 0) {
+                allowed.add(principal);
+            }
+        }
+        Map<String, List<String>> result = new LinkedHashMap<String, List<String>>();
+        if (!principals.isEmpty()) {
+            result.put(CmsSearchField.FIELD_ACL_PRINCIPALS, principals);
+        }
+        if (!allowed.isEmpty()) {
+            result.put(CmsSearchField.FIELD_ACL_READ_ALLOWED, allowed);
+        }
+        if (!denied.isEmpty()) {
+            result.put(CmsSearchField.FIELD_ACL_READ_DENIED, denied);
+        }
+        return result;
+    }
+
     /**
      * Adds the additional fields to the configuration, if they are not null.<p>
      *
@@ -225,6 +273,10 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         } else {
             document.addSearchField(m_solrFields.get(CmsSearchField.FIELD_SEARCH_CHANNEL), "content");
         }
+        if ((getIndex() instanceof CmsSolrIndex) && ((CmsSolrIndex)getIndex()).isPermissionFilter()) {
+            // the permissions are only needed by the filter query of the index
+            appendPermissions(document, cms, resource);
+        }
 
         return document;
     }
@@ -511,6 +563,37 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         return document;
     }
 
+    /**
+     * Appends the read permissions of the resource to the document.<p>
+     *
+     * The principals are taken from the resolved access control list of the resource, including the
+     * inherited entries, so the index can filter the search results for the current user,
+     * see {@link CmsSolrIndex#PERMISSION_FILTER}.<p>
+     *
+     * @param document the document to extend
+     * @param cms the OpenCms context used for building the search index
+     * @param resource the resource that is indexed
+     *
+     * @return the document extended by the read permissions
+     */
+    protected I_CmsSearchDocument appendPermissions(
+        I_CmsSearchDocument document,
+        CmsObject cms,
+        CmsResource resource) {
+
+        try {
+            CmsAccessControlList acl = cms.getAccessControlList(cms.getSitePath(resource));
+            for (Map.Entry<String, List<String>> field : getPermissionFields(acl).entrySet()) {
+                document.addSearchField(
+                    m_solrFields.get(field.getKey()),
+                    CmsStringUtil.listAsString(field.getValue(), "\n"));
+            }
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        return document;
+    }
+
     /**
      * @see org.opencms.search.fields.CmsSearchFieldConfiguration#appendProperties(org.opencms.search.I_CmsSearchDocument, org.opencms.file.CmsObject, org.opencms.file.CmsResource, org.opencms.search.extractors.I_CmsExtractionResult, java.util.List, java.util.List)
      */
@@ -718,6 +801,15 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         sfield = new CmsSolrField(CmsSearchField.FIELD_SEARCH_CHANNEL, null, null, null, 0);
         m_solrFields.put(sfield.getName(), sfield);
 
+        sfield = new CmsSolrField(CmsSearchField.FIELD_ACL_PRINCIPALS, null, null, null, 0);
+        m_solrFields.put(sfield.getName(), sfield);
+
+        sfield = new CmsSolrField(CmsSearchField.FIELD_ACL_READ_ALLOWED, null, null, null, 0);
+        m_solrFields.put(sfield.getName(), sfield);
+
+        sfield = new CmsSolrField(CmsSearchField.FIELD_ACL_READ_DENIED, null, null, null, 0);
+        m_solrFields.put(sfield.getName(), sfield);
+
         /*
          * Fields with mapping
          */
@@ -33,10 +33,12 @@ package org.opencms.search.solr;
 
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.CmsUser;
 import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.i18n.CmsEncoder;
@@ -60,6 +62,7 @@ import org.opencms.search.fields.CmsSearchField;
 import org.opencms.search.galleries.CmsGallerySearchParameters;
 import org.opencms.search.galleries.CmsGallerySearchResult;
 import org.opencms.search.galleries.CmsGallerySearchResultList;
+import org.opencms.security.CmsAccessControlEntry;
 import org.opencms.security.CmsRole;
 import org.opencms.security.CmsRoleViolationException;
 import org.opencms.util.CmsRequestUtil;
@@ -120,6 +123,9 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** The name of the default Solr Online index. */
     public static final String DEFAULT_INDEX_NAME_ONLINE = "Solr Online";
 
+    /** Constant for additional parameter to enable the read permission check by a Solr filter query. */
+    public static final String PERMISSION_FILTER = "search.solr.permissionFilter";
+
     /** Constant for additional parameter to set the post processor class name. */
     public static final String POST_PROCESSOR = "search.solr.postProcessor";
 
@@ -174,6 +180,9 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** The post document manipulator. */
     private I_CmsSolrPostSearchProcessor m_postProcessor;
 
+    /** Indicates if the read permissions are checked by a Solr filter query. */
+    private boolean m_permissionFilter;
+
     /** The core name for the index. */
     private String m_coreName;
 
@@ -219,6 +228,40 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return type;
     }
 
+    /**
+     * Returns the filter query that restricts the search result to the documents the given user can read.<p>
+     *
+     * The filter matches the access control fields written by
+     * {@link CmsSolrFieldConfiguration#getPermissionFields(org.opencms.security.CmsAccessControlList)}.<p>
+     *
+     * @param user the user
+     * @param groups the groups of the user
+     * @param roles the roles of the user
+     *
+     * @return the filter query
+     *
+     * @see #getPermissionFilterQuery(CmsObject)
+     */
+    static String getPermissionFilterQuery(CmsUser user, List<CmsGroup> groups, List<CmsRole> roles) {
+
+        List<String> principals = new ArrayList<String>();
+        principals.add(user.getId().toString());
+        for (CmsGroup group : groups) {
+            principals.add(group.getId().toString());
+        }
+        for (CmsRole role : roles) {
+            principals.add(role.forOrgUnit(null).getId().toString());
+        }
+        String terms = "(\"" + CmsStringUtil.listAsString(principals, "\" OR \"") + "\")";
+        StringBuffer result = new StringBuffer();
+        result.append("(+").append(CmsSearchField.FIELD_ACL_READ_ALLOWED).append(':').append(terms);
+        result.append(" -").append(CmsSearchField.FIELD_ACL_READ_DENIED).append(':').append(terms);
+        result.append(") OR (+").append(CmsSearchField.FIELD_ACL_READ_ALLOWED).append(":\"");
+        result.append(CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID).append("\"");
+        result.append(" -").append(CmsSearchField.FIELD_ACL_PRINCIPALS).append(':').append(terms).append(')');
+        return result.toString();
+    }
+
     /**
      * @see org.opencms.search.CmsSearchIndex#addConfigurationParameter(java.lang.String, java.lang.String)
      */
@@ -236,6 +279,8 @@ public class CmsSolrIndex extends CmsSearchIndex {
                     LOG.error(ex.getMessage(), ex);
                 }
             }
+        } else if (PERMISSION_FILTER.equals(key)) {
+            setPermissionFilter(Boolean.valueOf(value).booleanValue());
         }
         super.addConfigurationParameter(key, value);
     }
@@ -314,6 +359,9 @@ public class CmsSolrIndex extends CmsSearchIndex {
         if (getPostProcessor() != null) {
             result.put(POST_PROCESSOR, getPostProcessor().getClass().getName());
         }
+        if (isPermissionFilter()) {
+            result.put(PERMISSION_FILTER, String.valueOf(isPermissionFilter()));
+        }
         return result;
     }
 
@@ -440,6 +488,23 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return null == m_solr;
     }
 
+    /**
+     * Returns <code>true</code> if the read permissions are checked by a Solr filter query.<p>
+     *
+     * With the permission filter, Solr only returns the documents the current user is allowed to read,
+     * so the requested page of the search result is queried directly and the hit count is exact.
+     * Otherwise the found documents are read from the VFS one by one, until the requested page is filled.<p>
+     *
+     * The filter uses the access control fields written to the documents when indexing,
+     * so the index has to be rebuilt after enabling the permission filter.<p>
+     *
+     * @return <code>true</code> if the read permissions are checked by a Solr filter query
+     */
+    public boolean isPermissionFilter() {
+
+        return m_permissionFilter;
+    }
+
     /**
      * Not yet implemented for Solr.<p>
      *
@@ -617,9 +682,24 @@ public class CmsSolrIndex extends CmsSearchIndex {
                 page = Math.round(start / rows) + 1;
             }
 
-            // set the start to '0' and expand the rows before performing the query
-            query.setStart(new Integer(0));
-            query.setRows(new Integer((5 * rows * page) + start));
+            // with the permission filter Solr only finds readable documents, so the requested page can be queried directly
+            String permissionFilter = isPermissionFilter() && isCheckingPermissions()
+            ? getPermissionFilterQuery(searchCms)
+            : null;
+            int offset = 0;
+            if (permissionFilter != null) {
+                if (permissionFilter.length() > 0) {
+                    query.removeFilterQuery(permissionFilter);
+                    query.addFilterQuery(permissionFilter);
+                }
+                offset = rows * Math.max(page - 1, 0);
+                query.setStart(Integer.valueOf(offset));
+                query.setRows(Integer.valueOf(rows));
+            } else {
+                // set the start to '0' and expand the rows before performing the query
+                query.setStart(new Integer(0));
+                query.setRows(new Integer((5 * rows * page) + start));
+            }
 
             // perform the Solr query and remember the original Solr response
             QueryResponse queryResponse = m_solr.query(query);
@@ -651,7 +731,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
 
             // process found documents
             List<CmsSearchResource> allDocs = new ArrayList<CmsSearchResource>();
-            int cnt = 0;
+            int cnt = offset;
             for (int i = 0; (i < queryResponse.getResults().size()) && (cnt < end); i++) {
                 try {
                     SolrDocument doc = queryResponse.getResults().get(i);
@@ -678,8 +758,12 @@ public class CmsSolrIndex extends CmsSearchIndex {
                             }
                             allDocs.add(new CmsSearchResource(resource, searchDoc));
                             cnt++;
-                        } else {
+                        } else if (permissionFilter == null) {
                             visibleHitCount--;
+                        } else {
+                            // with the permission filter, the pages are positions in the Solr result, so a stale
+                            // document, e.g. deleted after indexing, keeps its position and is still counted,
+                            // otherwise the page count would vary between the pages and hide the last documents
                         }
                     } else {
                         // if permission check is not required for this index,
@@ -940,6 +1024,18 @@ public class CmsSolrIndex extends CmsSearchIndex {
         updateCoreName();
     }
 
+    /**
+     * Enables or disables the read permission check by a Solr filter query.<p>
+     *
+     * @param permissionFilter <code>true</code> to check the read permissions by a Solr filter query
+     *
+     * @see #isPermissionFilter()
+     */
+    public void setPermissionFilter(boolean permissionFilter) {
+
+        m_permissionFilter = permissionFilter;
+    }
+
     /**
      * Sets the search post processor.<p>
      *
@@ -1083,6 +1179,42 @@ public class CmsSolrIndex extends CmsSearchIndex {
 
     }
 
+    /**
+     * Returns the filter query that restricts the search result to the documents the current user is allowed to read.<p>
+     *
+     * The filter follows the evaluation of the access control list: A document can be read if an entry
+     * for the user, one of the user's groups or roles allows reading and none of them denies it,
+     * or, if there is no entry for any of them, the entry for all others allows reading.<p>
+     *
+     * @param cms the current OpenCms context
+     *
+     * @return the filter query, an empty String if the user is allowed to read all documents,
+     *      or <code>null</code> if the permissions can not be checked by a filter query for the user
+     *
+     * @throws CmsException if the groups or roles of the user could not be read
+     */
+    protected String getPermissionFilterQuery(CmsObject cms) throws CmsException {
+
+        if (OpenCms.getRoleManager().hasRole(cms, CmsRole.VFS_MANAGER)) {
+            // the permissions are ignored for the VFS manager
+            return "";
+        }
+        CmsUser user = cms.getRequestContext().getCurrentUser();
+        List<CmsRole> roles = new ArrayList<CmsRole>();
+        if (!user.isGuestUser()) {
+            for (CmsRole role : OpenCms.getRoleManager().getRolesOfUser(cms, user.getName(), "", true, false, false)) {
+                for (CmsRole vfsRole = CmsRole.VFS_MANAGER; vfsRole != null; vfsRole = vfsRole.getParentRole()) {
+                    if (vfsRole.getRoleName().equals(role.getRoleName())) {
+                        // the user ignores the permissions for the resources of some organizational unit
+                        return null;
+                    }
+                }
+                roles.add(role);
+            }
+        }
+        return getPermissionFilterQuery(user, cms.getGroupsOfUser(user.getName(), false), roles);
+    }
+
     /**
      * @see org.opencms.search.CmsSearchIndex#indexSearcherClose()
      */
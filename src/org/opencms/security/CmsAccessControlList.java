@@ -32,6 +32,7 @@ import org.opencms.file.CmsUser;
 import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -57,6 +58,86 @@ import java.util.Map;
  */
 public class CmsAccessControlList {
 
+    /**
+     * The permissions of this list compiled for the evaluation with a {@link CmsPrincipalSet}.<p>
+     */
+    private static final class CompiledPermissions {
+
+        /** The allowed permissions of the 'all others' entry, or -1 if there is none. */
+        final int m_allOthersAllowed;
+
+        /** The denied permissions of the 'all others' entry. */
+        final int m_allOthersDenied;
+
+        /** The allowed permissions, by entry. */
+        final int[] m_allowed;
+
+        /** The denied permissions, by entry. */
+        final int[] m_denied;
+
+        /** The index of the group and role ids the entries have been looked up in. */
+        final CmsPrincipalSet.PrincipalIndex m_index;
+
+        /** The interned principal indexes, by entry. */
+        final int[] m_indexes;
+
+        /** The version of the principal index when the entries have been looked up. */
+        final int m_version;
+
+        /**
+         * Compiles the given permission map.<p>
+         *
+         * Only the entries of interned groups and roles are compiled. Entries of users are evaluated
+         * with the permission map, and entries of groups and roles not interned yet can not apply
+         * to any principal set created with the given index until its version changes.<p>
+         *
+         * @param permissions the permission map
+         * @param index the index of the group and role ids
+         */
+        CompiledPermissions(Map<CmsUUID, CmsPermissionSetCustom> permissions, CmsPrincipalSet.PrincipalIndex index) {
+
+            m_index = index;
+            // read the version first, so principals interned while compiling cause a new compilation
+            m_version = index.getVersion();
+            CmsPermissionSet allOthers = permissions.get(CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID);
+            m_allOthersAllowed = (allOthers != null) ? allOthers.getAllowedPermissions() : -1;
+            m_allOthersDenied = (allOthers != null) ? allOthers.getDeniedPermissions() : 0;
+            int size = permissions.size();
+            int[] indexes = new int[size];
+            int[] allowed = new int[size];
+            int[] denied = new int[size];
+            int i = 0;
+            for (Map.Entry<CmsUUID, CmsPermissionSetCustom> entry : permissions.entrySet()) {
+                int principalIndex = index.getIndex(entry.getKey());
+                if (principalIndex == -1) {
+                    continue;
+                }
+                indexes[i] = principalIndex;
+                allowed[i] = entry.getValue().getAllowedPermissions();
+                denied[i] = entry.getValue().getDeniedPermissions();
+                i++;
+            }
+            m_indexes = Arrays.copyOf(indexes, i);
+            m_allowed = Arrays.copyOf(allowed, i);
+            m_denied = Arrays.copyOf(denied, i);
+        }
+
+        /**
+         * Checks if these compiled permissions can be used for the given principal set.<p>
+         *
+         * @param principals the principal set
+         *
+         * @return <code>true</code> if these compiled permissions can be used for the given principal set
+         */
+        boolean isValidFor(CmsPrincipalSet principals) {
+
+            return (principals.getIndex() == m_index) && (m_index.getVersion() == m_version);
+        }
+    }
+
+    /** The compiled permissions, created on the first evaluation with a principal set. */
+    private volatile CompiledPermissions m_compiled;
+
     /**
      * Collected permissions of a principal on this resource .
      */
@@ -84,6 +165,7 @@ public class CmsAccessControlList {
             m_permissions.put(entry.getPrincipal(), p);
         }
         p.addPermissions(entry.getPermissions());
+        m_compiled = null;
     }
 
     /**
@@ -163,6 +245,48 @@ public class CmsAccessControlList {
         return sum;
     }
 
+    /**
+     * Calculates the permissions of the user with the given principal set from the access control list.<p>
+     *
+     * This has the same result as {@link #getPermissions(CmsUser, List, List)}, but only tests
+     * one bit of the principal set for each entry of this list.<p>
+     *
+     * @param principals the compiled principal set of the user
+     *
+     * @return the summarized permission set of the user
+     */
+    public CmsPermissionSetCustom getPermissions(CmsPrincipalSet principals) {
+
+        CompiledPermissions compiled = m_compiled;
+        if ((compiled == null) || !compiled.isValidFor(principals)) {
+            compiled = new CompiledPermissions(m_permissions, principals.getIndex());
+            m_compiled = compiled;
+        }
+        int allowed = 0;
+        int denied = 0;
+        boolean hasPermissions = false;
+        CmsPermissionSet p = m_permissions.get(principals.getUserId());
+        if (p != null) {
+            allowed = p.getAllowedPermissions();
+            denied = p.getDeniedPermissions();
+            hasPermissions = true;
+        }
+        int[] indexes = compiled.m_indexes;
+        for (int i = 0; i < indexes.length; i++) {
+            if (principals.contains(indexes[i])) {
+                allowed |= compiled.m_allowed[i];
+                denied |= compiled.m_denied[i];
+                hasPermissions = true;
+            }
+        }
+        if (!hasPermissions && (compiled.m_allOthersAllowed != -1)) {
+            // if no applicable entry is found use the 'all others' entry
+            allowed = compiled.m_allOthersAllowed;
+            denied = compiled.m_allOthersDenied;
+        }
+        return new CmsPermissionSetCustom(allowed, denied);
+    }
+
     /**
      * Returns the permission set of a principal as stored in the access control list.<p>
      *
@@ -216,6 +340,7 @@ public class CmsAccessControlList {
             m_permissions.put(entry.getPrincipal(), p);
         }
         p.setPermissions(entry.getAllowedPermissions(), p.getDeniedPermissions());
+        m_compiled = null;
     }
 
     /**
@@ -232,5 +357,6 @@ public class CmsAccessControlList {
             m_permissions.put(entry.getPrincipal(), p);
         }
         p.setPermissions(p.getAllowedPermissions(), entry.getDeniedPermissions());
+        m_compiled = null;
     }
 }
\ No newline at end of file
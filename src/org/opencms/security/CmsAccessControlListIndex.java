@@ -0,0 +1,226 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.security;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Path segment tree of the access control lists which folders pass on to their children.<p>
+ *
+ * Each folder node holds two lists: the one inherited by the files in the folder, which contains
+ * all access control entries of the folder, and the one inherited by the sub folders, which only
+ * contains the entries marked to inherit. Both already include everything inherited from the parent folders,
+ * so all children of a folder share the same lists and the folder hierarchy is evaluated only once.<p>
+ *
+ * When access control entries change, only the nodes of the changed subtree need to be removed.<p>
+ *
+ * The cached lists must not be modified, callers have to clone them before adding entries.
+ * Read access is not synchronized, modifications are serialized.<p>
+ *
+ * @since 10.5.0
+ */
+public final class CmsAccessControlListIndex {
+
+    /**
+     * A node of the access control list index.<p>
+     */
+    private static final class Node {
+
+        /** The child nodes, by path segment. */
+        final Map<String, Node> m_children = new ConcurrentHashMap<String, Node>();
+
+        /** The list inherited by the files of the folder, may be <code>null</code>. */
+        volatile CmsAccessControlList m_filesAcl;
+
+        /** The list inherited by the sub folders of the folder, may be <code>null</code>. */
+        volatile CmsAccessControlList m_foldersAcl;
+
+        /**
+         * Counts the lists of this node and its descendants.<p>
+         *
+         * @return the number of lists
+         */
+        int countLists() {
+
+            int result = ((m_filesAcl != null) ? 1 : 0) + ((m_foldersAcl != null) ? 1 : 0);
+            for (Node child : m_children.values()) {
+                result += child.countLists();
+            }
+            return result;
+        }
+    }
+
+    /** The maximum number of lists to keep before the index is cleared. */
+    private final int m_maxSize;
+
+    /** The root node, representing the path "/". */
+    private final Node m_root = new Node();
+
+    /** The number of lists in this index. */
+    private volatile int m_size;
+
+    /**
+     * Creates a new index.<p>
+     *
+     * @param maxSize the maximum number of lists to keep, if exceeded the index is cleared
+     */
+    public CmsAccessControlListIndex(int maxSize) {
+
+        m_maxSize = maxSize;
+    }
+
+    /**
+     * Splits the given root path into its segments.<p>
+     *
+     * @param rootPath the root path to split
+     *
+     * @return the path segments
+     */
+    private static List<String> splitPath(String rootPath) {
+
+        List<String> result = new ArrayList<String>();
+        int start = 0;
+        int length = rootPath.length();
+        while (start < length) {
+            int end = rootPath.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                result.add(rootPath.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Removes all lists from the index.<p>
+     */
+    public synchronized void clear() {
+
+        m_root.m_filesAcl = null;
+        m_root.m_foldersAcl = null;
+        m_root.m_children.clear();
+        m_size = 0;
+    }
+
+    /**
+     * Returns the access control list which the given folder passes on to its children.<p>
+     *
+     * @param folderPath the root path of the folder
+     * @param forFolders <code>true</code> for the list inherited by sub folders, <code>false</code> for the list inherited by files
+     *
+     * @return the cached list, or <code>null</code> if not cached
+     */
+    public CmsAccessControlList get(String folderPath, boolean forFolders) {
+
+        Node node = m_root;
+        for (String segment : splitPath(folderPath)) {
+            node = node.m_children.get(segment);
+            if (node == null) {
+                return null;
+            }
+        }
+        return forFolders ? node.m_foldersAcl : node.m_filesAcl;
+    }
+
+    /**
+     * Adds the access control list which the given folder passes on to its children.<p>
+     *
+     * @param folderPath the root path of the folder
+     * @param forFolders <code>true</code> for the list inherited by sub folders, <code>false</code> for the list inherited by files
+     * @param acl the list to cache, must not be modified afterwards
+     */
+    public synchronized void put(String folderPath, boolean forFolders, CmsAccessControlList acl) {
+
+        if (m_size >= m_maxSize) {
+            clear();
+        }
+        Node node = m_root;
+        for (String segment : splitPath(folderPath)) {
+            Node child = node.m_children.get(segment);
+            if (child == null) {
+                child = new Node();
+                node.m_children.put(segment, child);
+            }
+            node = child;
+        }
+        if (forFolders) {
+            if (node.m_foldersAcl == null) {
+                m_size++;
+            }
+            node.m_foldersAcl = acl;
+        } else {
+            if (node.m_filesAcl == null) {
+                m_size++;
+            }
+            node.m_filesAcl = acl;
+        }
+    }
+
+    /**
+     * Removes the lists of the given resource and of all resources below it.<p>
+     *
+     * For a file nothing is cached, so nothing is removed.<p>
+     *
+     * @param rootPath the root path of the resource
+     */
+    public synchronized void removeSubtree(String rootPath) {
+
+        List<String> segments = splitPath(rootPath);
+        if (segments.isEmpty()) {
+            clear();
+            return;
+        }
+        Node parent = m_root;
+        for (int i = 0; i < (segments.size() - 1); i++) {
+            parent = parent.m_children.get(segments.get(i));
+            if (parent == null) {
+                return;
+            }
+        }
+        Node node = parent.m_children.remove(segments.get(segments.size() - 1));
+        if (node != null) {
+            m_size -= node.countLists();
+        }
+    }
+
+    /**
+     * Returns the number of lists in the index.<p>
+     *
+     * @return the number of lists in the index
+     */
+    public int size() {
+
+        return m_size;
+    }
+}
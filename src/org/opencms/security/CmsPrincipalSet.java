@@ -0,0 +1,215 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.security;
+
+import org.opencms.file.CmsGroup;
+import org.opencms.file.CmsUser;
+import org.opencms.util.CmsUUID;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The compiled set of principals of a user, used to evaluate access control lists.<p>
+ *
+ * The ids of groups and roles are interned to small integers, so the groups and roles of a user are held as a bit set.
+ * Checking if an access control entry of a group or role applies to the user is then a single bit test,
+ * instead of comparing the principal with every group and role of the user.<p>
+ *
+ * Only the groups and roles of principal sets are interned. The ids of users, which are not bounded in number,
+ * are never interned, and access control lists only look up the indexes of their principals.
+ * The interned ids are dropped together with the cached principal sets,
+ * see {@link #clearIndex()}, so ids of deleted groups do not stay in memory.<p>
+ *
+ * @since 10.5.0
+ */
+public final class CmsPrincipalSet {
+
+    /**
+     * The interned ids of groups and roles.<p>
+     */
+    static final class PrincipalIndex {
+
+        /** The interned principal ids. */
+        private final Map<CmsUUID, Integer> m_indexes = new ConcurrentHashMap<CmsUUID, Integer>();
+
+        /** The next index to assign to a principal id. */
+        private final AtomicInteger m_nextIndex = new AtomicInteger();
+
+        /** Incremented after a principal id has been interned. */
+        private final AtomicInteger m_version = new AtomicInteger();
+
+        /**
+         * Returns the index of the given principal id, or -1 if the id has not been interned.<p>
+         *
+         * @param principalId the principal id
+         *
+         * @return the index of the principal id, or -1
+         */
+        int getIndex(CmsUUID principalId) {
+
+            Integer index = m_indexes.get(principalId);
+            return (index != null) ? index.intValue() : -1;
+        }
+
+        /**
+         * Returns the version of this index, which changes whenever a principal id is interned.<p>
+         *
+         * Read the version before looking up indexes: if it is unchanged later, no lookup would have another result.<p>
+         *
+         * @return the version of this index
+         */
+        int getVersion() {
+
+            return m_version.get();
+        }
+
+        /**
+         * Returns the index of the given principal id, assigning a new index if the id was not seen before.<p>
+         *
+         * @param principalId the principal id
+         *
+         * @return the index of the principal id
+         */
+        int intern(CmsUUID principalId) {
+
+            Integer index = m_indexes.get(principalId);
+            if (index == null) {
+                Integer newIndex = Integer.valueOf(m_nextIndex.getAndIncrement());
+                index = m_indexes.putIfAbsent(principalId, newIndex);
+                if (index == null) {
+                    index = newIndex;
+                    m_version.incrementAndGet();
+                }
+            }
+            return index.intValue();
+        }
+
+        /**
+         * Returns the number of interned principal ids.<p>
+         *
+         * @return the number of interned principal ids
+         */
+        int size() {
+
+            return m_indexes.size();
+        }
+    }
+
+    /** The current index of the group and role ids. */
+    private static volatile PrincipalIndex m_currentIndex = new PrincipalIndex();
+
+    /** The index the groups and roles of the user have been interned in. */
+    private final PrincipalIndex m_index;
+
+    /** The indexes of the groups and roles of the user. */
+    private final BitSet m_principals;
+
+    /** The id of the user. */
+    private final CmsUUID m_userId;
+
+    /**
+     * Creates the principal set of the given user.<p>
+     *
+     * @param user the user
+     * @param groups the groups of the user
+     * @param roles the roles of the user
+     */
+    public CmsPrincipalSet(CmsUser user, List<CmsGroup> groups, List<CmsRole> roles) {
+
+        m_userId = user.getId();
+        m_index = m_currentIndex;
+        m_principals = new BitSet();
+        if (groups != null) {
+            for (CmsGroup group : groups) {
+                m_principals.set(m_index.intern(group.getId()));
+            }
+        }
+        if (roles != null) {
+            for (CmsRole role : roles) {
+                m_principals.set(m_index.intern(role.getId()));
+            }
+        }
+    }
+
+    /**
+     * Drops all interned group and role ids.<p>
+     *
+     * Principal sets created before keep working with the ids they have interned,
+     * so this has to be called together with the removal of the cached principal sets.<p>
+     */
+    public static void clearIndex() {
+
+        m_currentIndex = new PrincipalIndex();
+    }
+
+    /**
+     * Returns the current index of the group and role ids.<p>
+     *
+     * @return the current index of the group and role ids
+     */
+    static PrincipalIndex getCurrentIndex() {
+
+        return m_currentIndex;
+    }
+
+    /**
+     * Returns the id of the user.<p>
+     *
+     * @return the id of the user
+     */
+    public CmsUUID getUserId() {
+
+        return m_userId;
+    }
+
+    /**
+     * Checks if the principal with the given index is a group or role of the user.<p>
+     *
+     * @param index the principal index
+     *
+     * @return <code>true</code> if the principal is a group or role of the user
+     */
+    boolean contains(int index) {
+
+        return m_principals.get(index);
+    }
+
+    /**
+     * Returns the index the groups and roles of the user have been interned in.<p>
+     *
+     * @return the index the groups and roles of the user have been interned in
+     */
+    PrincipalIndex getIndex() {
+
+        return m_index;
+    }
+}
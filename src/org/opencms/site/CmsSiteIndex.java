@@ -0,0 +1,219 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.site;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable lookup index for the configured sites, used to resolve requests and root paths to sites.<p>
+ *
+ * Site matchers are looked up by a hash key built from their protocol, host name and port,
+ * site roots that are not below the "/sites/" folder are looked up in a path trie.<p>
+ *
+ * The index is never changed after it has been created, a new index is built when the site configuration changes.<p>
+ *
+ * @since 10.5.0
+ */
+final class CmsSiteIndex {
+
+    /**
+     * A node of the site root path trie.<p>
+     */
+    private static final class PathNode {
+
+        /** The child nodes, with the path segment names as keys. */
+        Map<String, PathNode> m_children = new HashMap<String, PathNode>();
+
+        /** The site root ending at this node, or <code>null</code> if no site root ends here. */
+        String m_siteRoot;
+
+        /**
+         * Creates a new path node.<p>
+         */
+        PathNode() {
+
+            // noop
+        }
+    }
+
+    /** The configured site matchers, with the lookup keys as keys. */
+    private final Map<String, CmsSiteMatcher> m_matchers;
+
+    /** The configured sites, with the lookup keys of their site matchers as keys. */
+    private final Map<String, CmsSite> m_matcherSites;
+
+    /** The map of sites by site matcher this index was built from. */
+    private final Map<CmsSiteMatcher, CmsSite> m_siteMatcherSites;
+
+    /** The map of sites by site root this index was built from. */
+    private final Map<String, CmsSite> m_siteRootSites;
+
+    /** The root of the path trie for the site roots not below the "/sites/" folder. */
+    private final PathNode m_siteRoots;
+
+    /**
+     * Creates a new site index.<p>
+     *
+     * @param siteMatcherSites the configured sites, with their site matchers as keys
+     * @param siteRootSites the configured sites, with their site roots as keys
+     * @param sitesFolder the sites folder, site roots below this folder are not added to the path trie
+     */
+    CmsSiteIndex(
+        Map<CmsSiteMatcher, CmsSite> siteMatcherSites,
+        Map<String, CmsSite> siteRootSites,
+        String sitesFolder) {
+
+        m_siteMatcherSites = siteMatcherSites;
+        m_siteRootSites = siteRootSites;
+
+        Map<String, CmsSiteMatcher> matchers = new HashMap<String, CmsSiteMatcher>(siteMatcherSites.size());
+        Map<String, CmsSite> matcherSites = new HashMap<String, CmsSite>(siteMatcherSites.size());
+        for (Map.Entry<CmsSiteMatcher, CmsSite> entry : siteMatcherSites.entrySet()) {
+            String key = getKey(entry.getKey());
+            matchers.put(key, entry.getKey());
+            matcherSites.put(key, entry.getValue());
+        }
+        m_matchers = Collections.unmodifiableMap(matchers);
+        m_matcherSites = Collections.unmodifiableMap(matcherSites);
+
+        m_siteRoots = new PathNode();
+        for (String siteRoot : siteRootSites.keySet()) {
+            if (siteRoot.startsWith(sitesFolder)) {
+                continue;
+            }
+            PathNode node = m_siteRoots;
+            for (String name : siteRoot.split("/")) {
+                if (name.length() == 0) {
+                    continue;
+                }
+                PathNode child = node.m_children.get(name);
+                if (child == null) {
+                    child = new PathNode();
+                    node.m_children.put(name, child);
+                }
+                node = child;
+            }
+            node.m_siteRoot = siteRoot;
+        }
+    }
+
+    /**
+     * Returns the lookup key for the given site matcher.<p>
+     *
+     * The key is consistent with {@link CmsSiteMatcher#equals(Object)}, so the host name is not case sensitive.<p>
+     *
+     * @param matcher the site matcher
+     *
+     * @return the lookup key for the given site matcher
+     */
+    private static String getKey(CmsSiteMatcher matcher) {
+
+        StringBuffer result = new StringBuffer(64);
+        result.append(matcher.getServerProtocol());
+        result.append("://");
+        result.append(matcher.getServerName().toLowerCase(Locale.ENGLISH));
+        result.append(':');
+        result.append(matcher.getServerPort());
+        return result.toString();
+    }
+
+    /**
+     * Returns the configured site root not below the sites folder that contains the given root path,
+     * or <code>null</code> if there is no such site root.<p>
+     *
+     * If several of these site roots contain the root path, the longest one is returned.<p>
+     *
+     * @param rootPath the root path to look up
+     *
+     * @return the configured site root containing the given root path, or <code>null</code>
+     */
+    String getAdditionalSiteRoot(String rootPath) {
+
+        PathNode node = m_siteRoots;
+        String result = node.m_siteRoot;
+        int start = 0;
+        int length = rootPath.length();
+        while ((start < length) && !node.m_children.isEmpty()) {
+            int end = rootPath.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                node = node.m_children.get(rootPath.substring(start, end));
+                if (node == null) {
+                    break;
+                }
+                if (node.m_siteRoot != null) {
+                    result = node.m_siteRoot;
+                }
+            }
+            start = end + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the configured site matcher equal to the given one, or <code>null</code> if there is none.<p>
+     *
+     * @param matcher the site matcher to look up
+     *
+     * @return the configured site matcher equal to the given one, or <code>null</code>
+     */
+    CmsSiteMatcher getMatcher(CmsSiteMatcher matcher) {
+
+        return m_matchers.get(getKey(matcher));
+    }
+
+    /**
+     * Returns the site configured for the given site matcher, or <code>null</code> if there is none.<p>
+     *
+     * @param matcher the site matcher to look up
+     *
+     * @return the site configured for the given site matcher, or <code>null</code>
+     */
+    CmsSite getSite(CmsSiteMatcher matcher) {
+
+        return m_matcherSites.get(getKey(matcher));
+    }
+
+    /**
+     * Returns <code>true</code> if this index was built from the given site maps.<p>
+     *
+     * @param siteMatcherSites the configured sites, with their site matchers as keys
+     * @param siteRootSites the configured sites, with their site roots as keys
+     *
+     * @return <code>true</code> if this index was built from the given site maps
+     */
+    boolean isBuiltFrom(Map<CmsSiteMatcher, CmsSite> siteMatcherSites, Map<String, CmsSite> siteRootSites) {
+
+        return (m_siteMatcherSites == siteMatcherSites) && (m_siteRootSites == siteRootSites);
+    }
+}
@@ -82,9 +82,6 @@ public final class CmsSiteManagerImpl {
     /** The length of the "/sites/" folder plus 1. */
     private static final int SITES_FOLDER_POS = SITES_FOLDER.length() + 1;
 
-    /** A list of additional site roots, that is site roots that are not below the "/sites/" folder. */
-    private List<String> m_additionalSiteRoots;
-
     /**
      * The list of aliases for the site that is configured at the moment,
      * needed for the sites added during configuration. */
@@ -102,8 +99,8 @@ public final class CmsSiteManagerImpl {
     /** The shared folder name. */
     private String m_sharedFolder;
 
-    /** Contains all configured site matchers in a list for direct access. */
-    private List<CmsSiteMatcher> m_siteMatchers;
+    /** The lookup index for the configured sites, rebuilt on demand after the site configuration has changed. */
+    private volatile CmsSiteIndex m_siteIndex;
 
     /** Maps site matchers to sites. */
     private Map<CmsSiteMatcher, CmsSite> m_siteMatcherSites;
@@ -130,7 +127,6 @@ public final class CmsSiteManagerImpl {
         m_siteRootSites = new HashMap<String, CmsSite>();
         m_aliases = new ArrayList<CmsSiteMatcher>();
         m_siteParams = new TreeMap<String, String>();
-        m_additionalSiteRoots = new ArrayList<String>();
 
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_START_SITE_CONFIG_0));
@@ -300,8 +296,9 @@ public final class CmsSiteManagerImpl {
         m_aliases = new ArrayList<CmsSiteMatcher>();
         site.setParameters(m_siteParams);
         m_siteParams = new TreeMap<String, String>();
-        m_siteRootSites = new HashMap<String, CmsSite>(m_siteRootSites);
-        m_siteRootSites.put(site.getSiteRoot(), site);
+        Map<String, CmsSite> siteRootSites = new HashMap<String, CmsSite>(m_siteRootSites);
+        siteRootSites.put(site.getSiteRoot(), site);
+        m_siteRootSites = siteRootSites;
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_SITE_ROOT_ADDED_1, site.toString()));
         }
@@ -809,13 +806,6 @@ public final class CmsSiteManagerImpl {
             // set site lists to unmodifiable
             setSiteMatcherSites(m_siteMatcherSites);
 
-            // store additional site roots to optimize lookups later
-            for (String root : m_siteRootSites.keySet()) {
-                if (!root.startsWith(SITES_FOLDER)) {
-                    m_additionalSiteRoots.add(root);
-                }
-            }
-
             // initialization is done, set the frozen flag to true
             m_frozen = true;
         } catch (CmsException e) {
@@ -833,7 +823,7 @@ public final class CmsSiteManagerImpl {
      */
     public boolean isMatching(CmsSiteMatcher matcher) {
 
-        boolean result = m_siteMatcherSites.get(matcher) != null;
+        boolean result = getSiteIndex().getSite(matcher) != null;
         if (!result) {
             // try to match the workplace site
             result = (m_workplaceSiteMatcher != null) && m_workplaceSiteMatcher.equals(matcher);
@@ -851,7 +841,7 @@ public final class CmsSiteManagerImpl {
      */
     public boolean isMatchingCurrentSite(CmsObject cms, CmsSiteMatcher matcher) {
 
-        return m_siteMatcherSites.get(matcher) == getCurrentSite(cms);
+        return getSiteIndex().getSite(matcher) == getCurrentSite(cms);
     }
 
     /**
@@ -950,7 +940,7 @@ public final class CmsSiteManagerImpl {
      */
     public CmsSite matchSite(CmsSiteMatcher matcher) {
 
-        CmsSite site = m_siteMatcherSites.get(matcher);
+        CmsSite site = getSiteIndex().getSite(matcher);
         if (site == null) {
             // return the default site (might be null as well)
             site = m_defaultSite;
@@ -1171,11 +1161,29 @@ public final class CmsSiteManagerImpl {
 
         CmsSiteMatcher matcher = new CmsSiteMatcher(req.getScheme(), req.getServerName(), req.getServerPort());
         // this is required to get the right configured time offset
-        int index = m_siteMatchers.indexOf(matcher);
-        if (index < 0) {
-            return matcher;
+        CmsSiteMatcher result = getSiteIndex().getMatcher(matcher);
+        return (result != null) ? result : matcher;
+    }
+
+    /**
+     * Returns the lookup index for the configured sites, rebuilding it if the site configuration has changed.<p>
+     *
+     * The site maps are replaced, not modified, on every configuration change,
+     * so the index is current as long as it was built from the current maps.<p>
+     *
+     * @return the lookup index for the configured sites
+     */
+    private CmsSiteIndex getSiteIndex() {
+
+        Map<CmsSiteMatcher, CmsSite> siteMatcherSites = m_siteMatcherSites;
+        Map<String, CmsSite> siteRootSites = m_siteRootSites;
+        CmsSiteIndex result = m_siteIndex;
+        if ((result == null) || !result.isBuiltFrom(siteMatcherSites, siteRootSites)) {
+            // build the complete index first, so other threads never see a partial index
+            result = new CmsSiteIndex(siteMatcherSites, siteRootSites, SITES_FOLDER);
+            m_siteIndex = result;
         }
-        return m_siteMatchers.get(index);
+        return result;
     }
 
     /**
@@ -1187,13 +1195,7 @@ public final class CmsSiteManagerImpl {
      */
     private String lookupAdditionalSite(String rootPath) {
 
-        for (int i = 0, size = m_additionalSiteRoots.size(); i < size; i++) {
-            String siteRoot = m_additionalSiteRoots.get(i);
-            if (rootPath.startsWith(siteRoot)) {
-                return siteRoot;
-            }
-        }
-        return null;
+        return getSiteIndex().getAdditionalSiteRoot(rootPath);
     }
 
     /**
@@ -1217,7 +1219,7 @@ public final class CmsSiteManagerImpl {
     }
 
     /**
-     * Sets the class member variables {@link #m_siteMatcherSites} and  {@link #m_siteMatchers}
+     * Sets the class member variable {@link #m_siteMatcherSites}
      * from the provided map of configured site matchers.<p>
      *
      * @param siteMatcherSites the site matches to set
@@ -1225,6 +1227,5 @@ public final class CmsSiteManagerImpl {
     private void setSiteMatcherSites(Map<CmsSiteMatcher, CmsSite> siteMatcherSites) {
 
         m_siteMatcherSites = Collections.unmodifiableMap(siteMatcherSites);
-        m_siteMatchers = Collections.unmodifiableList(new ArrayList<CmsSiteMatcher>(m_siteMatcherSites.keySet()));
     }
 }
\ No newline at end of file
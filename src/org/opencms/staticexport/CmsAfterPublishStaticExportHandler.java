@@ -37,6 +37,7 @@ import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.report.CmsLineBufferedReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsRequestUtil;
@@ -46,6 +47,7 @@ import org.opencms.workplace.CmsWorkplace;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.ArrayList;
@@ -57,6 +59,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletResponse;
@@ -277,6 +285,63 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
     }
 
+    /**
+     * Exports a single non template resource and writes the result to the report.<p>
+     *
+     * @param cms the current cms object
+     * @param exportData the export data of the resource
+     * @param count the number of the resource in the list of resources to export
+     * @param size the number of resources to export
+     * @param report an I_CmsReport instance to print output message
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet
+     */
+    protected void exportNonTemplateResource(
+        CmsObject cms,
+        CmsStaticExportData exportData,
+        int count,
+        int size,
+        I_CmsReport report) throws CmsException, IOException, ServletException {
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_EXPORT_FILE_2,
+                    exportData.getVfsName(),
+                    exportData.getRfsName()));
+        }
+
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_2,
+                new Integer(count),
+                new Integer(size)),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_ARGUMENT_1,
+                exportData.getVfsName()));
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+        int status = OpenCms.getStaticExportManager().export(null, null, cms, exportData);
+        if (status == HttpServletResponse.SC_OK) {
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                I_CmsReport.FORMAT_OK);
+        } else {
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                I_CmsReport.FORMAT_NOTE);
+        }
+
+        if (LOG.isInfoEnabled()) {
+            Object[] arguments = new Object[] {exportData.getVfsName(), exportData.getRfsName(), new Integer(status)};
+            LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
+        }
+    }
+
     /**
      * Exports all non template resources found in a list of published resources.<p>
      *
@@ -310,55 +375,22 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         List<CmsStaticExportData> resourcesToExport = new ArrayList<CmsStaticExportData>();
         boolean templatesFound = readNonTemplateResourcesToExport(cms, publishedResources, resourcesToExport);
 
-        int count = 1;
         int size = resourcesToExport.size();
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_NUM_EXPORT_1, new Integer(size)));
         }
         // now do the export
-        Iterator<CmsStaticExportData> i = resourcesToExport.iterator();
-        while (i.hasNext()) {
-            CmsStaticExportData exportData = i.next();
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_EXPORT_FILE_2,
-                        exportData.getVfsName(),
-                        exportData.getRfsName()));
-            }
-
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_SUCCESSION_2,
-                    new Integer(count++),
-                    new Integer(size)),
-                I_CmsReport.FORMAT_NOTE);
-            report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_ARGUMENT_1,
-                    exportData.getVfsName()));
-            report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            int status = manager.export(null, null, cms, exportData);
-            if (status == HttpServletResponse.SC_OK) {
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                    I_CmsReport.FORMAT_OK);
-            } else {
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                    I_CmsReport.FORMAT_NOTE);
-            }
-
-            if (LOG.isInfoEnabled()) {
-                Object[] arguments = new Object[] {
-                    exportData.getVfsName(),
-                    exportData.getRfsName(),
-                    new Integer(status)};
-                LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
+        int threads = Math.min(manager.getExportThreads(), size);
+        if (threads > 1) {
+            exportNonTemplateResourcesParallel(cms, resourcesToExport, threads, report);
+        } else {
+            int count = 1;
+            Iterator<CmsStaticExportData> i = resourcesToExport.iterator();
+            while (i.hasNext()) {
+                exportNonTemplateResource(cms, i.next(), count++, size, report);
+                //don't lock up the CPU exclusively - allow other Threads to run as well
+                Thread.yield();
             }
-            //don't lock up the CPU exclusively - allow other Threads to run as well
-            Thread.yield();
         }
 
         resourcesToExport = null;
@@ -370,6 +402,65 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         return templatesFound;
     }
 
+    /**
+     * Exports the given non template resources with the given number of threads.<p>
+     *
+     * Each thread exports its own part of the resources with its own copy of the cms context.
+     * If the export of a resource fails, the other threads still finish their exports,
+     * and the first error is thrown afterwards.<p>
+     *
+     * @param cms the current cms object
+     * @param resourcesToExport the export data of the resources to export
+     * @param threads the number of threads to use
+     * @param report an I_CmsReport instance to print output message
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet
+     */
+    protected void exportNonTemplateResourcesParallel(
+        final CmsObject cms,
+        List<CmsStaticExportData> resourcesToExport,
+        int threads,
+        final I_CmsReport report) throws CmsException, IOException, ServletException {
+
+        final int size = resourcesToExport.size();
+        final AtomicInteger count = new AtomicInteger(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>(threads);
+            for (final List<CmsStaticExportData> part : partition(resourcesToExport, threads)) {
+                results.add(executor.submit(new Callable<Void>() {
+
+                    public Void call() throws Exception {
+
+                        // the cms context must not be shared between threads
+                        CmsObject partCms = OpenCms.initCmsObject(cms);
+                        I_CmsReport partReport = new CmsLineBufferedReport(report);
+                        for (CmsStaticExportData exportData : part) {
+                            exportNonTemplateResource(partCms, exportData, count.getAndIncrement(), size, partReport);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            Throwable error = waitForExports(results);
+            if (error instanceof CmsException) {
+                throw (CmsException)error;
+            } else if (error instanceof IOException) {
+                throw (IOException)error;
+            } else if (error instanceof ServletException) {
+                throw (ServletException)error;
+            } else if (error != null) {
+                throw new CmsStaticExportException(
+                    Messages.get().container(Messages.ERR_EXPORT_THREAD_FAILED_0),
+                    error);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Exports all sitemap resources found in a list of published resources.<p>
      *
@@ -498,6 +589,105 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
     //        return HttpServletResponse.SC_SEE_OTHER;
     //    }
 
+    /**
+     * Exports a single template resource specified by its rfs name, including its detail pages,
+     * and writes the result to the report.<p>
+     *
+     * @param cms the cms context, in the root site as Export user
+     * @param rfsName the rfs name of the resource
+     * @param cookies cookies to keep the session
+     * @param count the counter for the number of the exported resources
+     * @param size the number of resources to export
+     * @param report an I_CmsReport instance to print output message
+     */
+    protected void exportTemplateResource(
+        CmsObject cms,
+        String rfsName,
+        StringBuffer cookies,
+        AtomicInteger count,
+        int size,
+        I_CmsReport report) {
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        CmsStaticExportData data = null;
+        try {
+            data = manager.getVfsNameInternal(cms, rfsName);
+        } catch (CmsVfsResourceNotFoundException e) {
+            String rfsBaseName = rfsName;
+            int pos = rfsName.lastIndexOf('_');
+            if (pos >= 0) {
+                rfsBaseName = rfsName.substring(0, pos);
+            }
+            try {
+                data = manager.getVfsNameInternal(cms, rfsBaseName);
+            } catch (CmsVfsResourceNotFoundException e2) {
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
+                            new String[] {rfsName}));
+                }
+            }
+        }
+        if (data == null) {
+            // no valid resource found for rfs name (already deleted), skip it
+            return;
+        }
+        data.setRfsName(rfsName);
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_2,
+                new Integer(count.getAndIncrement()),
+                new Integer(size)),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, rfsName));
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+
+        try {
+            CmsResource resource = data.getResource();
+            try {
+                Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
+                for (String detailPageUri : detailPages) {
+                    String altRfsName = manager.getRfsName(cms, detailPageUri);
+                    CmsStaticExportData detailData = new CmsStaticExportData(
+                        data.getVfsName(),
+                        altRfsName,
+                        data.getResource(),
+                        data.getParameters());
+                    exportTemplateResource(detailData, cookies);
+                }
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+
+            int status = exportTemplateResource(data, cookies);
+
+            // write the report
+            if (status == HttpServletResponse.SC_OK) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else if (status == HttpServletResponse.SC_SEE_OTHER) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else {
+                report.println(
+                    org.opencms.report.Messages.get().container(
+                        org.opencms.report.Messages.RPT_ARGUMENT_1,
+                        new Integer(status)),
+                    I_CmsReport.FORMAT_OK);
+            }
+        } catch (IOException e) {
+            report.println(e);
+        }
+    }
+
     /**
      * Exports a single (template) resource specified by its export data.<p>
      *
@@ -587,7 +777,8 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_STATICEXPORT_COOKIES_1, cookies));
             }
         }
-        urlcon.disconnect();
+        // read the complete response instead of disconnecting, so that the connection is kept alive and reused
+        consumeResponse(urlcon);
         if (LOG.isInfoEnabled()) {
             LOG.info(
                 Messages.get().getBundle().key(
@@ -610,7 +801,6 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
         CmsStaticExportManager manager = OpenCms.getStaticExportManager();
         int size = publishedTemplateResources.size();
-        int count = 1;
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_EXPORT_TEMPLATES_1, new Integer(size)));
@@ -619,98 +809,73 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_BEGIN_0),
             I_CmsReport.FORMAT_HEADLINE);
 
-        StringBuffer cookies = new StringBuffer();
         // now loop through all of them and request them from the server
-        Iterator<String> i = publishedTemplateResources.iterator();
-        while (i.hasNext()) {
-            String rfsName = i.next();
-            CmsStaticExportData data = null;
-            try {
-                data = manager.getVfsNameInternal(cms, rfsName);
-            } catch (CmsVfsResourceNotFoundException e) {
-                String rfsBaseName = rfsName;
-                int pos = rfsName.lastIndexOf('_');
-                if (pos >= 0) {
-                    rfsBaseName = rfsName.substring(0, pos);
-                }
-                try {
-                    data = manager.getVfsNameInternal(cms, rfsBaseName);
-                } catch (CmsVfsResourceNotFoundException e2) {
-                    if (LOG.isInfoEnabled()) {
-                        LOG.info(
-                            Messages.get().getBundle().key(
-                                Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
-                                new String[] {rfsName}));
-                    }
-                }
-            }
-            if (data != null) {
-                data.setRfsName(rfsName);
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        new Integer(count++),
-                        new Integer(size)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, rfsName));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            } else {
-                // no valid resource found for rfs name (already deleted), skip it
-                continue;
-            }
-
-            try {
-                CmsResource resource = data.getResource();
-                try {
-                    Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
-                    for (String detailPageUri : detailPages) {
-                        String altRfsName = manager.getRfsName(cms, detailPageUri);
-                        CmsStaticExportData detailData = new CmsStaticExportData(
-                            data.getVfsName(),
-                            altRfsName,
-                            data.getResource(),
-                            data.getParameters());
-                        exportTemplateResource(detailData, cookies);
-                    }
-                } catch (CmsException e) {
-                    LOG.error(e.getLocalizedMessage(), e);
-                }
-
-                int status = exportTemplateResource(data, cookies);
-
-                // write the report
-                if (status == HttpServletResponse.SC_OK) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else if (status == HttpServletResponse.SC_SEE_OTHER) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else {
-                    report.println(
-                        org.opencms.report.Messages.get().container(
-                            org.opencms.report.Messages.RPT_ARGUMENT_1,
-                            new Integer(status)),
-                        I_CmsReport.FORMAT_OK);
-                }
-            } catch (IOException e) {
-                report.println(e);
+        int threads = Math.min(manager.getExportThreads(), size);
+        if (threads > 1) {
+            exportTemplateResourcesParallel(cms, publishedTemplateResources, threads, report);
+        } else {
+            StringBuffer cookies = new StringBuffer();
+            AtomicInteger count = new AtomicInteger(1);
+            Iterator<String> i = publishedTemplateResources.iterator();
+            while (i.hasNext()) {
+                exportTemplateResource(cms, i.next(), cookies, count, size, report);
+                //don't lock up the CPU exclusively - allow other Threads to run as well
+                Thread.yield();
             }
-            //don't lock up the CPU exclusively - allow other Threads to run as well
-            Thread.yield();
         }
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0),
             I_CmsReport.FORMAT_HEADLINE);
     }
 
+    /**
+     * Exports the given template resources with the given number of threads.<p>
+     *
+     * Each thread requests its own part of the resources with its own copy of the cms context and its own session,
+     * so that the connections to the server can be kept alive and reused by each thread.<p>
+     *
+     * @param cms the cms context, in the root site as Export user
+     * @param publishedTemplateResources list of potential candidates to export
+     * @param threads the number of threads to use
+     * @param report an I_CmsReport instance to print output message
+     */
+    protected void exportTemplateResourcesParallel(
+        final CmsObject cms,
+        List<String> publishedTemplateResources,
+        int threads,
+        final I_CmsReport report) {
+
+        final int size = publishedTemplateResources.size();
+        final AtomicInteger count = new AtomicInteger(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>(threads);
+            for (final List<String> part : partition(publishedTemplateResources, threads)) {
+                results.add(executor.submit(new Callable<Void>() {
+
+                    public Void call() throws CmsException {
+
+                        // the cms context must not be shared between threads
+                        CmsObject partCms = OpenCms.initCmsObject(cms);
+                        I_CmsReport partReport = new CmsLineBufferedReport(report);
+                        StringBuffer cookies = new StringBuffer();
+                        for (String rfsName : part) {
+                            exportTemplateResource(partCms, rfsName, cookies, count, size, partReport);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            Throwable error = waitForExports(results);
+            if (error != null) {
+                LOG.error(Messages.get().getBundle().key(Messages.ERR_EXPORT_THREAD_FAILED_0), error);
+                report.println(error);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     /**
      * @see org.opencms.staticexport.A_CmsStaticExportHandler#getRelatedFilesToPurge(java.lang.String, java.lang.String)
      */
@@ -895,4 +1060,90 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
         return templatesFound;
     }
-}
\ No newline at end of file
+
+    /**
+     * Splits the given list into the given number of parts with about the same size.<p>
+     *
+     * @param list the list to split
+     * @param parts the number of parts
+     *
+     * @return the parts of the list
+     */
+    private static <T> List<List<T>> partition(List<T> list, int parts) {
+
+        List<List<T>> result = new ArrayList<List<T>>(parts);
+        for (int i = 0; i < parts; i++) {
+            result.add(new ArrayList<T>((list.size() / parts) + 1));
+        }
+        int i = 0;
+        for (T element : list) {
+            result.get(i++ % parts).add(element);
+        }
+        return result;
+    }
+
+    /**
+     * Reads and closes the response of the given connection.<p>
+     *
+     * Unlike {@link HttpURLConnection#disconnect()}, this allows the underlying connection to be reused
+     * for the next request to the same server (HTTP keep-alive).<p>
+     *
+     * @param urlcon the connection
+     */
+    private void consumeResponse(HttpURLConnection urlcon) {
+
+        InputStream in = null;
+        try {
+            try {
+                in = urlcon.getInputStream();
+            } catch (IOException e) {
+                // error responses have to be read from the error stream
+                in = urlcon.getErrorStream();
+            }
+            if (in != null) {
+                byte[] buffer = new byte[4096];
+                while (in.read(buffer) >= 0) {
+                    // discard the response, the server already wrote the export file
+                }
+            }
+        } catch (IOException e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+            urlcon.disconnect();
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until all the given export tasks are finished.<p>
+     *
+     * @param results the results of the export tasks
+     *
+     * @return the first error of the export tasks, or <code>null</code> if all exports were successful
+     */
+    private Throwable waitForExports(List<Future<Void>> results) {
+
+        Throwable error = null;
+        for (Future<Void> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                if (error == null) {
+                    error = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (error == null) {
+                    error = e;
+                }
+            }
+        }
+        return error;
+    }
+}
@@ -68,6 +68,7 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -192,6 +193,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** List of export suffixes where the "export" property default is always <code>true</code>. */
     private List<String> m_exportSuffixes;
 
+    /** The number of threads used to export the resources after publishing. */
+    private int m_exportThreads = 1;
+
     /** Temporary variable for reading the xml config file. */
     private CmsStaticExportExportRule m_exportTmpRule;
 
@@ -1073,6 +1077,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_exportSuffixes;
     }
 
+    /**
+     * Returns the number of threads used to export the resources after publishing.<p>
+     *
+     * @return the number of threads used to export the resources after publishing
+     */
+    public int getExportThreads() {
+
+        return m_exportThreads;
+    }
+
     /**
      * Returns the export URL used for internal requests for exporting resources that require a
      * request / response (like JSP).<p>
@@ -1735,6 +1749,10 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                     Messages.get().getBundle().key(Messages.INIT_EXPORT_OPTIMIZATION_1, getPlainExportOptimization()));
                 CmsLog.INIT.info(
                     Messages.get().getBundle().key(Messages.INIT_EXPORT_TESTRESOURCE_1, getTestResource()));
+                CmsLog.INIT.info(
+                    Messages.get().getBundle().key(
+                        Messages.INIT_EXPORT_THREADS_1,
+                        String.valueOf(getExportThreads())));
                 CmsLog.INIT.info(
                     Messages.get().getBundle().key(
                         Messages.INIT_LINKSUBSTITUTION_HANDLER_1,
@@ -2120,6 +2138,18 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_exportSuffixes.add(suffix.toLowerCase());
     }
 
+    /**
+     * Sets the number of threads used to export the resources after publishing.<p>
+     *
+     * Values lower than 1 are ignored, so the resources are exported one after another.<p>
+     *
+     * @param threads the number of threads used to export the resources after publishing
+     */
+    public void setExportThreads(String threads) {
+
+        m_exportThreads = Math.max(1, Integer.parseInt(threads.trim()));
+    }
+
     /**
      * Sets the export url.<p>
      *
@@ -2617,6 +2647,30 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return false;
     }
 
+    /**
+     * Checks if the given export file already has exactly the given content.<p>
+     *
+     * The file is only read if the size matches, and then both contents are compared.<p>
+     *
+     * @param exportFile the export file
+     * @param content the new content of the export file
+     *
+     * @return <code>true</code> if the export file already has the given content
+     */
+    protected boolean isUnchangedExportFile(File exportFile, byte[] content) {
+
+        if (!exportFile.isFile() || (exportFile.length() != content.length)) {
+            return false;
+        }
+        try {
+            return Arrays.equals(content, CmsFileUtil.readFile(exportFile));
+        } catch (IOException e) {
+            // the file will be overwritten anyway
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+        return false;
+    }
+
     /**
       * Checks if a String is a valid URL.<p>
       *
@@ -2831,25 +2885,35 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         createExportFolder(exportPath, rfsName);
         // generate export file instance and output stream
         File exportFile = new File(exportFileName);
-        // write new exported file content
-        try {
-            FileOutputStream exportStream = new FileOutputStream(exportFile);
-            exportStream.write(content);
-            exportStream.close();
-
-            // log export success
-            if (LOG.isInfoEnabled()) {
-                LOG.info(
+        if (isUnchangedExportFile(exportFile, content)) {
+            // keep the file, so that synchronization tools comparing the content only see real changes
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(
                     Messages.get().getBundle().key(
-                        Messages.LOG_STATIC_EXPORTED_2,
+                        Messages.LOG_STATIC_EXPORT_UNCHANGED_2,
                         resource.getRootPath(),
                         exportFileName));
             }
+        } else {
+            // write new exported file content
+            try {
+                FileOutputStream exportStream = new FileOutputStream(exportFile);
+                exportStream.write(content);
+                exportStream.close();
 
-        } catch (Throwable t) {
-            throw new CmsStaticExportException(
-                Messages.get().container(Messages.ERR_OUTPUT_STREAM_1, exportFileName),
-                t);
+                // log export success
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_STATIC_EXPORTED_2,
+                            resource.getRootPath(),
+                            exportFileName));
+                }
+            } catch (Throwable t) {
+                throw new CmsStaticExportException(
+                    Messages.get().container(Messages.ERR_OUTPUT_STREAM_1, exportFileName),
+                    t);
+            }
         }
         // update the file with the modification date from the server
         if (req != null) {
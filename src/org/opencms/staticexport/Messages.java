@@ -52,6 +52,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_EXPORT_NOT_SUPPORTED_2 = "ERR_EXPORT_NOT_SUPPORTED_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_EXPORT_THREAD_FAILED_0 = "ERR_EXPORT_THREAD_FAILED_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_INVALID_ENCODING_1 = "ERR_INVALID_ENCODING_1";
 
@@ -97,6 +100,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_EXPORT_TESTRESOURCE_1 = "INIT_EXPORT_TESTRESOURCE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_EXPORT_THREADS_1 = "INIT_EXPORT_THREADS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_EXPORT_URL_1 = "INIT_EXPORT_URL_1";
 
@@ -280,6 +286,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_STATIC_EXPORT_SITE_ROOT_2 = "LOG_STATIC_EXPORT_SITE_ROOT_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_STATIC_EXPORT_UNCHANGED_2 = "LOG_STATIC_EXPORT_UNCHANGED_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_STATIC_EXPORTED_2 = "LOG_STATIC_EXPORTED_2";
 
@@ -56,7 +56,8 @@ import org.safehaus.uuid.UUIDGenerator;
  * (without using JNI), the MAC address has to be provided first
  * by using the static {@link #init(String)} method.<p>
  *
- * This class is just a facade wrapper for the "real" UUID implementation.<p>
+ * The UUIDs are generated with the "real" UUID implementation, but stored as two long values,
+ * which keeps the many UUIDs held in the caches small and makes parsing and formatting cheap.<p>
  *
  * @since 6.0.0
  */
@@ -65,6 +66,9 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
     /** A regular expression for matching UUIDs. */
     public static final String UUID_REGEX = "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}";
 
+    /** The lower case hex digits for formatting UUIDs. */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsUUID.class);
 
@@ -77,13 +81,19 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
         "www.opencms.org");
 
     /** Constant for the null UUID. */
-    private static final CmsUUID NULL_UUID = new CmsUUID(UUID.getNullUUID());
+    private static final CmsUUID NULL_UUID = new CmsUUID(0L, 0L);
 
     /** Serial version UID required for safe serialization. */
     private static final long serialVersionUID = 1736324454709298676L;
 
-    /** Internal UUID implementation. */
-    private transient UUID m_uuid;
+    /** The cached hash code, 0 if not calculated yet. */
+    private transient int m_hashCode;
+
+    /** The lower 64 bits of the UUID. */
+    private transient long m_leastSignificantBits;
+
+    /** The upper 64 bits of the UUID. */
+    private transient long m_mostSignificantBits;
 
     /**
      * Creates a new UUID.<p>
@@ -99,7 +109,7 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
             // since the empty constructor is called when the de-serialization takes place
             init(CmsStringUtil.getEthernetAddress());
         }
-        m_uuid = UUIDGenerator.getInstance().generateTimeBasedUUID(m_ethernetAddress);
+        setBytes(UUIDGenerator.getInstance().generateTimeBasedUUID(m_ethernetAddress).asByteArray());
     }
 
     /**
@@ -109,7 +119,7 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
      */
     public CmsUUID(byte[] data) {
 
-        m_uuid = new UUID(data);
+        setBytes(data);
     }
 
     /**
@@ -121,17 +131,24 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
     public CmsUUID(String uuid)
     throws NumberFormatException {
 
-        m_uuid = new UUID(uuid);
+        if (uuid.length() != 36) {
+            throw new NumberFormatException(
+                "UUID has to be represented by the standard 36-char representation: " + uuid);
+        }
+        m_mostSignificantBits = (parseHex(uuid, 0, 8) << 32) | (parseHex(uuid, 9, 13) << 16) | parseHex(uuid, 14, 18);
+        m_leastSignificantBits = (parseHex(uuid, 19, 23) << 48) | parseHex(uuid, 24, 36);
     }
 
     /**
-     * Create a new UUID based on another one (used internal for cloning).<p>
+     * Create a UUID based on its two long values (used internal for cloning).<p>
      *
-     * @param uuid the UUID to clone
+     * @param mostSignificantBits the upper 64 bits of the UUID
+     * @param leastSignificantBits the lower 64 bits of the UUID
      */
-    private CmsUUID(UUID uuid) {
+    private CmsUUID(long mostSignificantBits, long leastSignificantBits) {
 
-        m_uuid = uuid;
+        m_mostSignificantBits = mostSignificantBits;
+        m_leastSignificantBits = leastSignificantBits;
     }
 
     /**
@@ -161,7 +178,7 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
      */
     public static CmsUUID getConstantUUID(String name) {
 
-        return new CmsUUID(UUIDGenerator.getInstance().generateNameBasedUUID(m_opencmsUUID, name));
+        return new CmsUUID(UUIDGenerator.getInstance().generateNameBasedUUID(m_opencmsUUID, name).asByteArray());
     }
 
     /**
@@ -193,7 +210,7 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
      */
     public static CmsUUID getOpenCmsUUID() {
 
-        return new CmsUUID(m_opencmsUUID);
+        return new CmsUUID(m_opencmsUUID.asByteArray());
     }
 
     /**
@@ -224,12 +241,21 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
      */
     public static boolean isValidUUID(String uuid) {
 
-        try {
-            return (null != uuid) && (null != UUID.valueOf(uuid));
-        } catch (NumberFormatException e) {
-            // return false
+        if ((uuid == null) || (uuid.length() != 36)) {
+            return false;
         }
-        return false;
+        for (int i = 0; i < 36; i++) {
+            char c = uuid.charAt(i);
+            if ((i == 8) || (i == 13) || (i == 18) || (i == 23)) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (hexDigit(c) < 0) {
+                // only ASCII hex digits, like the constructor
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -243,7 +269,75 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
      */
     public static CmsUUID valueOf(String uuid) throws NumberFormatException {
 
-        return new CmsUUID(UUID.valueOf(uuid));
+        return new CmsUUID(uuid);
+    }
+
+    /**
+     * Compares two long values as unsigned values.<p>
+     *
+     * @param a the first value
+     * @param b the second value
+     *
+     * @return a negative number, zero or a positive number if the first value is less than,
+     *      equal to or greater than the second
+     */
+    private static int compareUnsigned(long a, long b) {
+
+        a += Long.MIN_VALUE;
+        b += Long.MIN_VALUE;
+        return (a < b) ? -1 : ((a == b) ? 0 : 1);
+    }
+
+    /**
+     * Returns the value of the given ASCII hex digit.<p>
+     *
+     * Unlike {@link Character#digit(char, int)}, this does not accept non ASCII digits.<p>
+     *
+     * @param c the character
+     *
+     * @return the value of the hex digit, or -1 if the character is no ASCII hex digit
+     */
+    private static int hexDigit(char c) {
+
+        if ((c >= '0') && (c <= '9')) {
+            return c - '0';
+        } else if ((c >= 'a') && (c <= 'f')) {
+            return (c - 'a') + 10;
+        } else if ((c >= 'A') && (c <= 'F')) {
+            return (c - 'A') + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Parses the hex digits of the given String between the given positions, without creating any objects.<p>
+     *
+     * The UUID separator '-' is expected at the end position, if the end position is not the end of the String.<p>
+     *
+     * @param uuid the String to parse
+     * @param start the position of the first hex digit
+     * @param end the position after the last hex digit
+     *
+     * @return the parsed value
+     *
+     * @throws NumberFormatException in case the String contains a character which is not a hex digit or separator
+     */
+    private static long parseHex(String uuid, int start, int end) throws NumberFormatException {
+
+        if ((end < uuid.length()) && (uuid.charAt(end) != '-')) {
+            throw new NumberFormatException(
+                "UUID has to be represented by the standard 36-char representation: " + uuid);
+        }
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            char c = uuid.charAt(i);
+            int digit = hexDigit(c);
+            if (digit < 0) {
+                throw new NumberFormatException("Non-hex character '" + c + "' in UUID: " + uuid);
+            }
+            result = (result << 4) | digit;
+        }
+        return result;
     }
 
     /**
@@ -257,15 +351,29 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
         if (this == NULL_UUID) {
             return NULL_UUID;
         }
-        return new CmsUUID((UUID)m_uuid.clone());
+        return new CmsUUID(m_mostSignificantBits, m_leastSignificantBits);
     }
 
     /**
+     * Compares the UUIDs by their type first, time based UUIDs are then ordered by their time stamp.<p>
+     *
      * @see java.lang.Comparable#compareTo(Object)
      */
     public int compareTo(CmsUUID obj) {
 
-        return m_uuid.compareTo(obj.m_uuid);
+        int result = getType() - obj.getType();
+        if (result != 0) {
+            return result;
+        }
+        if (getType() == UUID.TYPE_TIME_BASED) {
+            result = compareUnsigned(getTimestampBits(), obj.getTimestampBits());
+        } else {
+            result = compareUnsigned(m_mostSignificantBits, obj.m_mostSignificantBits);
+        }
+        if (result != 0) {
+            return result;
+        }
+        return compareUnsigned(m_leastSignificantBits, obj.m_leastSignificantBits);
     }
 
     /**
@@ -278,7 +386,9 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
             return true;
         }
         if (obj instanceof CmsUUID) {
-            return ((CmsUUID)obj).m_uuid.equals(m_uuid);
+            CmsUUID other = (CmsUUID)obj;
+            return (other.m_mostSignificantBits == m_mostSignificantBits)
+                && (other.m_leastSignificantBits == m_leastSignificantBits);
         }
         return false;
     }
@@ -303,7 +413,13 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
     @Override
     public int hashCode() {
 
-        return m_uuid.hashCode();
+        int result = m_hashCode;
+        if (result == 0) {
+            long bits = m_mostSignificantBits ^ m_leastSignificantBits;
+            result = (int)(bits >> 32) ^ (int)bits;
+            m_hashCode = result;
+        }
+        return result;
     }
 
     /**
@@ -313,10 +429,7 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
      */
     public boolean isNullUUID() {
 
-        if (this == NULL_UUID) {
-            return true;
-        }
-        return m_uuid.equals(UUID.getNullUUID());
+        return (m_mostSignificantBits == 0L) && (m_leastSignificantBits == 0L);
     }
 
     /**
@@ -346,11 +459,11 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_READ_UUID_1, o));
             }
-            m_uuid = new UUID((String)o);
-        }
-
-        // log an error if the uuid could not be deserialized
-        if (m_uuid == null) {
+            CmsUUID uuid = new CmsUUID((String)o);
+            m_mostSignificantBits = uuid.m_mostSignificantBits;
+            m_leastSignificantBits = uuid.m_leastSignificantBits;
+            m_hashCode = 0;
+        } else {
             // UUID cannot be deserialized
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_READ_UUID_0));
@@ -365,7 +478,12 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
      */
     public byte[] toByteArray() {
 
-        return m_uuid.toByteArray();
+        byte[] result = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            result[i] = (byte)(m_mostSignificantBits >>> (56 - (8 * i)));
+            result[i + 8] = (byte)(m_leastSignificantBits >>> (56 - (8 * i)));
+        }
+        return result;
     }
 
     /**
@@ -374,7 +492,17 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
     @Override
     public String toString() {
 
-        return m_uuid.toString();
+        char[] result = new char[36];
+        formatHex(m_mostSignificantBits >>> 32, result, 0, 8);
+        result[8] = '-';
+        formatHex(m_mostSignificantBits >>> 16, result, 9, 4);
+        result[13] = '-';
+        formatHex(m_mostSignificantBits, result, 14, 4);
+        result[18] = '-';
+        formatHex(m_leastSignificantBits >>> 48, result, 19, 4);
+        result[23] = '-';
+        formatHex(m_leastSignificantBits, result, 24, 12);
+        return new String(result);
     }
 
     /**
@@ -388,4 +516,60 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
         }
         out.writeObject(toString());
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the given number of lower hex digits of the given value to the given char array.<p>
+     *
+     * @param value the value to format
+     * @param result the char array to write to
+     * @param offset the position of the first hex digit in the char array
+     * @param digits the number of hex digits to write
+     */
+    private void formatHex(long value, char[] result, int offset, int digits) {
+
+        for (int i = (offset + digits) - 1; i >= offset; i--) {
+            result[i] = HEX_DIGITS[(int)(value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    /**
+     * Returns the time stamp of a time based UUID, with the high bits first so that it can be compared.<p>
+     *
+     * @return the time stamp of a time based UUID
+     */
+    private long getTimestampBits() {
+
+        // time_hi_and_version, time_mid, time_low
+        return (m_mostSignificantBits << 48)
+            | ((m_mostSignificantBits & 0xFFFF0000L) << 16)
+            | (m_mostSignificantBits >>> 32);
+    }
+
+    /**
+     * Returns the type (version) of this UUID.<p>
+     *
+     * @return the type of this UUID
+     */
+    private int getType() {
+
+        return (int)((m_mostSignificantBits >>> 12) & 0xF);
+    }
+
+    /**
+     * Sets the value of this UUID from the first 16 bytes of the given binary data array.<p>
+     *
+     * @param data a binary data array representing a UUID
+     */
+    private void setBytes(byte[] data) {
+
+        long mostSignificantBits = 0;
+        long leastSignificantBits = 0;
+        for (int i = 0; i < 8; i++) {
+            mostSignificantBits = (mostSignificantBits << 8) | (data[i] & 0xFF);
+            leastSignificantBits = (leastSignificantBits << 8) | (data[i + 8] & 0xFF);
+        }
+        m_mostSignificantBits = mostSignificantBits;
+        m_leastSignificantBits = leastSignificantBits;
+    }
+}
@@ -68,6 +68,9 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
     /** Maximum size of the content definition cache. */
     public static final int CONTENT_DEFINITION_CACHE_SIZE = 2048;
 
+    /** Maximum size of the parsed XML schema grammar caches. */
+    public static final int GRAMMAR_CACHE_SIZE = 512;
+
     /** Scheme for files which should be retrieved from the classpath. */
     public static final String INTERNAL_SCHEME = "internal://";
 
@@ -97,6 +100,12 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
     /** A temporary cache to avoid multiple readings of often used files from the VFS. */
     private static Map<String, byte[]> m_cacheTemporary;
 
+    /** A cache for the parsed XML schema grammars of the offline projects. */
+    private static CmsXmlGrammarPool m_grammarPoolOffline;
+
+    /** A cache for the parsed XML schema grammars of the online project. */
+    private static CmsXmlGrammarPool m_grammarPoolOnline;
+
     /** The location of the XML page XML schema. */
     private static final String XMLPAGE_OLD_DTD_LOCATION = "org/opencms/xml/page/xmlpage.dtd";
 
@@ -211,6 +220,9 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
             m_cachePermanent = new ConcurrentHashMap<String, byte[]>(32);
 
             m_cacheContentDefinitions = CmsMemoryMonitor.createLRUCacheMap(CONTENT_DEFINITION_CACHE_SIZE);
+
+            m_grammarPoolOffline = new CmsXmlGrammarPool(GRAMMAR_CACHE_SIZE);
+            m_grammarPoolOnline = new CmsXmlGrammarPool(GRAMMAR_CACHE_SIZE);
         }
         if (OpenCms.getRunLevel() > OpenCms.RUNLEVEL_1_CORE_OBJECT) {
             if ((OpenCms.getMemoryMonitor() != null)
@@ -292,6 +304,7 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
                 if (isSchemaDefinitionInPublishList(publishHistoryId)) {
                     m_cacheTemporary.clear();
                     m_cacheContentDefinitions.clear();
+                    m_grammarPoolOnline.clear();
                     if (LOG.isDebugEnabled()) {
                         LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_FLUSHED_CACHES_0));
                     }
@@ -301,6 +314,8 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
                 // flush cache
                 m_cacheTemporary.clear();
                 m_cacheContentDefinitions.clear();
+                m_grammarPoolOffline.clear();
+                m_grammarPoolOnline.clear();
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_FLUSHED_CACHES_0));
                 }
@@ -476,6 +491,10 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
                         getCacheKey(systemId, false)));
             }
         }
+        if ((null != o) || isSchemaDefinition(systemId)) {
+            // the parsed grammars may contain the changed schema as nested subschema
+            m_grammarPoolOffline.clear();
+        }
     }
 
     /**
@@ -493,6 +512,19 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
         return result;
     }
 
+    /**
+     * Returns the cache for the parsed XML schema grammars of the project of the internal CmsObject.<p>
+     *
+     * @return the cache for the parsed XML schema grammars
+     */
+    CmsXmlGrammarPool getGrammarPool() {
+
+        if ((m_cms != null) && m_cms.getRequestContext().getCurrentProject().isOnlineProject()) {
+            return m_grammarPoolOnline;
+        }
+        return m_grammarPoolOffline;
+    }
+
     /**
      * Returns a cache key for the given system id (filename) based on the status
      * of the given project flag.<p>
@@ -531,6 +563,19 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
         return getCacheKey(systemId, project);
     }
 
+    /**
+     * Checks if the given root path is the path of a xsd or dtd file.<p>
+     *
+     * @param rootPath the root path to check
+     *
+     * @return true, if the given root path is the path of a xsd or dtd file, otherwise false
+     */
+    private boolean isSchemaDefinition(String rootPath) {
+
+        String rootPathLowerCase = rootPath.toLowerCase();
+        return rootPathLowerCase.endsWith(".xsd") || rootPathLowerCase.endsWith(".dtd");
+    }
+
     /**
      * Proves if there is at least one xsd or dtd file in the list of resources to publish.<p>
      *
@@ -548,9 +593,7 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
             List<CmsPublishedResource> publishedResources = m_cms.readPublishedResources(publishHistoryId);
             for (CmsPublishedResource cmsPublishedResource : publishedResources) {
                 String resourceRootPath = cmsPublishedResource.getRootPath();
-                String resourceRootPathLowerCase = resourceRootPath.toLowerCase();
-                if (resourceRootPathLowerCase.endsWith(".xsd")
-                    || resourceRootPathLowerCase.endsWith(".dtd")
+                if (isSchemaDefinition(resourceRootPath)
                     || m_cacheTemporary.containsKey(getCacheKey(resourceRootPath, true))) {
                     return true;
                 }
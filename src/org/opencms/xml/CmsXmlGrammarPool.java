@@ -0,0 +1,199 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml;
+
+import org.opencms.monitor.CmsMemoryMonitor;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.xerces.xni.grammars.Grammar;
+import org.apache.xerces.xni.grammars.XMLGrammarDescription;
+import org.apache.xerces.xni.grammars.XMLGrammarPool;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Caches the parsed XML schema grammars used for validating XML documents, so that the schemas
+ * are not parsed again for every validation.<p>
+ *
+ * Xerces looks up pooled grammars by their target namespace before it resolves the schema location of a document.
+ * Since the OpenCms XML content definitions have no target namespace, the grammars are cached by the system id
+ * of the schema instead, and a grammar is only returned for a system id that has already been resolved
+ * during the current validation. Use {@link #createValidationPool(EntityResolver)} to get the grammar pool
+ * and the entity resolver for a single validation.<p>
+ *
+ * @since 10.5.0
+ */
+final class CmsXmlGrammarPool {
+
+    /**
+     * The grammar pool and entity resolver for a single validation.<p>
+     */
+    final class ValidationPool implements XMLGrammarPool, EntityResolver {
+
+        /** The entity resolver to delegate to. */
+        private EntityResolver m_resolver;
+
+        /** The system ids resolved during the validation. */
+        private Set<String> m_resolvedSystemIds = new HashSet<String>();
+
+        /**
+         * Creates a new grammar pool for a single validation.<p>
+         *
+         * @param resolver the entity resolver to delegate to
+         */
+        ValidationPool(EntityResolver resolver) {
+
+            m_resolver = resolver;
+        }
+
+        /**
+         * @see org.apache.xerces.xni.grammars.XMLGrammarPool#cacheGrammars(java.lang.String, org.apache.xerces.xni.grammars.Grammar[])
+         */
+        public void cacheGrammars(String grammarType, Grammar[] grammars) {
+
+            if (!XMLGrammarDescription.XML_SCHEMA.equals(grammarType)) {
+                return;
+            }
+            for (Grammar grammar : grammars) {
+                String systemId = grammar.getGrammarDescription().getLiteralSystemId();
+                if ((systemId != null) && m_resolvedSystemIds.contains(systemId)) {
+                    m_grammars.put(systemId, grammar);
+                }
+            }
+        }
+
+        /**
+         * @see org.apache.xerces.xni.grammars.XMLGrammarPool#clear()
+         */
+        public void clear() {
+
+            CmsXmlGrammarPool.this.clear();
+        }
+
+        /**
+         * @see org.apache.xerces.xni.grammars.XMLGrammarPool#lockPool()
+         */
+        public void lockPool() {
+
+            // noop
+        }
+
+        /**
+         * @see org.xml.sax.EntityResolver#resolveEntity(java.lang.String, java.lang.String)
+         */
+        public InputSource resolveEntity(String publicId, String systemId) throws SAXException, IOException {
+
+            InputSource result = m_resolver.resolveEntity(publicId, systemId);
+            if ((result != null) && (systemId != null)) {
+                m_resolvedSystemIds.add(systemId);
+            }
+            return result;
+        }
+
+        /**
+         * @see org.apache.xerces.xni.grammars.XMLGrammarPool#retrieveGrammar(org.apache.xerces.xni.grammars.XMLGrammarDescription)
+         */
+        public Grammar retrieveGrammar(XMLGrammarDescription desc) {
+
+            String systemId = desc.getLiteralSystemId();
+            if (!XMLGrammarDescription.XML_SCHEMA.equals(desc.getGrammarType())
+                || (systemId == null)
+                || !m_resolvedSystemIds.contains(systemId)) {
+                return null;
+            }
+            return m_grammars.get(systemId);
+        }
+
+        /**
+         * @see org.apache.xerces.xni.grammars.XMLGrammarPool#retrieveInitialGrammarSet(java.lang.String)
+         */
+        public Grammar[] retrieveInitialGrammarSet(String grammarType) {
+
+            return new Grammar[0];
+        }
+
+        /**
+         * @see org.apache.xerces.xni.grammars.XMLGrammarPool#unlockPool()
+         */
+        public void unlockPool() {
+
+            // noop
+        }
+    }
+
+    /** The cached grammars by system id. */
+    private Map<String, Grammar> m_grammars;
+
+    /**
+     * Creates a new grammar pool.<p>
+     *
+     * @param size the maximum number of grammars to cache
+     */
+    CmsXmlGrammarPool(int size) {
+
+        m_grammars = CmsMemoryMonitor.createLRUCacheMap(size);
+    }
+
+    /**
+     * Removes all cached grammars.<p>
+     */
+    void clear() {
+
+        m_grammars.clear();
+    }
+
+    /**
+     * Creates the grammar pool for a single validation.<p>
+     *
+     * The returned object must be set both as the Xerces grammar pool and as the entity resolver of the
+     * validating XML reader, and must not be used for more than one validation.<p>
+     *
+     * @param resolver the entity resolver to resolve the schemas with
+     *
+     * @return the grammar pool for a single validation
+     */
+    ValidationPool createValidationPool(EntityResolver resolver) {
+
+        return new ValidationPool(resolver);
+    }
+
+    /**
+     * Returns the number of cached grammars.<p>
+     *
+     * @return the number of cached grammars
+     */
+    int size() {
+
+        return m_grammars.size();
+    }
+}
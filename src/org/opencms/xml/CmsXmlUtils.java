@@ -40,6 +40,8 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import org.apache.commons.logging.Log;
 
@@ -64,9 +66,30 @@ import org.xml.sax.helpers.XMLReaderFactory;
  */
 public final class CmsXmlUtils {
 
+    /** The SAX feature to turn loading external DTDs on or off. */
+    private static final String FEATURE_LOAD_EXTERNAL_DTD = "http://apache.org/xml/features/"
+        + "nonvalidating/load-external-dtd";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsXmlUtils.class);
 
+    /** The Xerces property for the grammar pool. */
+    private static final String PROPERTY_GRAMMAR_POOL = "http://apache.org/xml/properties/internal/grammar-pool";
+
+    /** The SAX property for the lexical handler. */
+    private static final String PROPERTY_LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
+    /** The maximum number of idle XML readers kept in each of the XML reader pools. */
+    private static final int READER_POOL_SIZE = 32;
+
+    /** The pool of idle XML readers for unmarshalling XML documents. */
+    private static final BlockingQueue<XMLReader> UNMARSHAL_READERS = new ArrayBlockingQueue<XMLReader>(
+        READER_POOL_SIZE);
+
+    /** The pool of idle Xerces XML readers for validating XML documents. */
+    private static final BlockingQueue<XMLReader> VALIDATION_READERS = new ArrayBlockingQueue<XMLReader>(
+        READER_POOL_SIZE);
+
     /**
      * Prevents instances of this class from being generated.<p>
      */
@@ -679,7 +702,12 @@ public final class CmsXmlUtils {
     throws CmsXmlException {
 
         try {
-            SAXReader reader = new SAXReader();
+            // reuse an idle XML reader, creating it is much more expensive than creating the SAX reader
+            XMLReader xmlReader = UNMARSHAL_READERS.poll();
+            if (xmlReader == null) {
+                xmlReader = new SAXReader().getXMLReader();
+            }
+            SAXReader reader = new SAXReader(xmlReader);
             if (resolver != null) {
                 reader.setEntityResolver(resolver);
             }
@@ -687,9 +715,13 @@ public final class CmsXmlUtils {
             reader.setStripWhitespaceText(true);
             if (!validate) {
                 reader.setValidation(false);
-                reader.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
             }
-            return reader.read(source);
+            // always set this feature since the pooled XML readers are used in both modes
+            reader.setFeature(FEATURE_LOAD_EXTERNAL_DTD, validate);
+            Document result = reader.read(source);
+            // XML readers that failed are not reused
+            releaseReader(xmlReader, UNMARSHAL_READERS);
+            return result;
         } catch (DocumentException e) {
             throw new CmsXmlException(
                 Messages.get().container(
@@ -767,25 +799,12 @@ public final class CmsXmlUtils {
      */
     public static void validateXmlStructure(InputStream xmlStream, EntityResolver resolver) throws CmsXmlException {
 
-        XMLReader reader;
+        // reuse an idle validating XML reader
+        XMLReader reader = VALIDATION_READERS.poll();
         try {
-            reader = XMLReaderFactory.createXMLReader("org.apache.xerces.parsers.SAXParser");
-        } catch (SAXException e) {
-            // xerces parser not available - no schema validation possible
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_VALIDATION_INIT_XERXES_SAX_READER_FAILED_0), e);
+            if (reader == null) {
+                reader = createValidationReader();
             }
-            // no validation of the content is possible
-            return;
-        }
-        // turn on validation
-        try {
-            reader.setFeature("http://xml.org/sax/features/validation", true);
-            // turn on schema validation
-            reader.setFeature("http://apache.org/xml/features/validation/schema", true);
-            // configure namespace support
-            reader.setFeature("http://xml.org/sax/features/namespaces", true);
-            reader.setFeature("http://xml.org/sax/features/namespace-prefixes", false);
         } catch (SAXNotRecognizedException e) {
             // should not happen as Xerces 2 support this feature
             if (LOG.isWarnEnabled()) {
@@ -800,19 +819,34 @@ public final class CmsXmlUtils {
             }
             // no validation of the content is possible
             return;
+        } catch (SAXException e) {
+            // xerces parser not available - no schema validation possible
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_VALIDATION_INIT_XERXES_SAX_READER_FAILED_0), e);
+            }
+            // no validation of the content is possible
+            return;
         }
 
         // add an error handler which turns any errors into XML
         CmsXmlValidationErrorHandler errorHandler = new CmsXmlValidationErrorHandler();
         reader.setErrorHandler(errorHandler);
 
-        if (resolver != null) {
+        CmsXmlGrammarPool.ValidationPool grammarPool = null;
+        if (resolver instanceof CmsXmlEntityResolver) {
+            // reuse the schemas parsed by previous validations
+            grammarPool = ((CmsXmlEntityResolver)resolver).getGrammarPool().createValidationPool(resolver);
+            // the grammar pool has to see which schemas are resolved
+            reader.setEntityResolver(grammarPool);
+        } else if (resolver != null) {
             // set the resolver for the "opencms://" URIs
             reader.setEntityResolver(resolver);
         }
 
         try {
+            reader.setProperty(PROPERTY_GRAMMAR_POOL, grammarPool);
             reader.parse(new InputSource(xmlStream));
+            reader.setProperty(PROPERTY_GRAMMAR_POOL, null);
         } catch (IOException e) {
             // should not happen since we read form a byte array
             if (LOG.isErrorEnabled()) {
@@ -826,6 +860,8 @@ public final class CmsXmlUtils {
             }
             return;
         }
+        // XML readers that failed are not reused
+        releaseReader(reader, VALIDATION_READERS);
 
         if (errorHandler.getErrors().elements().size() > 0) {
             // there was at last one validation error, so throw an exception
@@ -846,4 +882,48 @@ public final class CmsXmlUtils {
             throw new CmsXmlException(Messages.get().container(Messages.ERR_XML_VALIDATION_1, out.toString()));
         }
     }
+
+    /**
+     * Creates a new Xerces XML reader for validating XML documents with their DTD or XML schema.<p>
+     *
+     * @return the new XML reader
+     *
+     * @throws SAXException if the Xerces XML reader is not available or does not support validation
+     */
+    private static XMLReader createValidationReader() throws SAXException {
+
+        XMLReader reader = XMLReaderFactory.createXMLReader("org.apache.xerces.parsers.SAXParser");
+        // turn on validation
+        reader.setFeature("http://xml.org/sax/features/validation", true);
+        // turn on schema validation
+        reader.setFeature("http://apache.org/xml/features/validation/schema", true);
+        // configure namespace support
+        reader.setFeature("http://xml.org/sax/features/namespaces", true);
+        reader.setFeature("http://xml.org/sax/features/namespace-prefixes", false);
+        return reader;
+    }
+
+    /**
+     * Returns an XML reader to the given pool of idle XML readers after it has been used.<p>
+     *
+     * The handlers are removed from the XML reader first, since they reference the last document read.
+     * If the pool is full, the XML reader is discarded.<p>
+     *
+     * @param reader the XML reader to release
+     * @param readers the pool of idle XML readers
+     */
+    private static void releaseReader(XMLReader reader, BlockingQueue<XMLReader> readers) {
+
+        reader.setContentHandler(null);
+        reader.setDTDHandler(null);
+        reader.setEntityResolver(null);
+        reader.setErrorHandler(null);
+        try {
+            reader.setProperty(PROPERTY_LEXICAL_HANDLER, null);
+        } catch (SAXException e) {
+            // the lexical handler can not be removed, so the XML reader is not reused
+            return;
+        }
+        readers.offer(reader);
+    }
 }
\ No newline at end of file
@@ -30,8 +30,12 @@ package org.opencms.xml.containerpage;
 import org.opencms.cache.CmsVfsCache;
 import org.opencms.file.CmsResource;
 import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
+import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.main.CmsLog;
+import org.opencms.monitor.CmsCacheStatistics;
 import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.monitor.CmsMonitoredCacheMap;
+import org.opencms.monitor.CmsWeightedCacheMap;
 import org.opencms.util.CmsUUID;
 import org.opencms.xml.content.CmsXmlContent;
 
@@ -52,6 +56,9 @@ public final class CmsADECache extends CmsVfsCache {
     /** The log to use (static for performance reasons).<p> */
     private static final Log LOG = CmsLog.getLog(CmsADECache.class);
 
+    /** The concurrency level of the XML content caches. */
+    private static final int XML_CONTENT_CONCURRENCY_LEVEL = 8;
+
     /** Cache for offline container pages. */
     private Map<String, CmsXmlContainerPage> m_containerPagesOffline;
 
@@ -67,6 +74,12 @@ public final class CmsADECache extends CmsVfsCache {
     /** Read-write lock to ensure that the cache maps aren't accessed while we iterate through them to remove invalid entries. */
     private ReadWriteLock m_lock = new ReentrantReadWriteLock(true);
 
+    /** Cache for offline XML contents, limited by the estimated memory size of the contents. */
+    private Map<String, CmsXmlContent> m_xmlContentsOffline;
+
+    /** Cache for online XML contents, limited by the estimated memory size of the contents. */
+    private Map<String, CmsXmlContent> m_xmlContentsOnline;
+
     /**
      * Initializes the cache. Only intended to be called during startup.<p>
      *
@@ -119,6 +132,25 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Flushes the XML contents cache.<p>
+     *
+     * @param online if to flush the online or offline cache
+     */
+    public void flushXmlContents(boolean online) {
+
+        try {
+            m_lock.writeLock().lock();
+            if (online) {
+                m_xmlContentsOnline.clear();
+            } else {
+                m_xmlContentsOffline.clear();
+            }
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Returns the cached container page under the given key and for the given project.<p>
      *
@@ -226,6 +258,45 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Returns the cached XML content under the given key and for the given project.<p>
+     *
+     * The cached XML content is shared by all requests, so it must not be modified or handed out directly.
+     * Use a clone of it instead.<p>
+     *
+     * @param key the cache key
+     * @param online if cached in online or offline project
+     *
+     * @return the cached XML content or <code>null</code> if not found
+     *
+     * @see #getXmlContentCacheKey(CmsUUID, long)
+     */
+    public CmsXmlContent getCacheXmlContent(String key, boolean online) {
+
+        try {
+            m_lock.readLock().lock();
+            CmsXmlContent retValue = online ? m_xmlContentsOnline.get(key) : m_xmlContentsOffline.get(key);
+            if (LOG.isDebugEnabled()) {
+                if (retValue == null) {
+                    LOG.debug(
+                        Messages.get().getBundle().key(
+                            online ? Messages.LOG_DEBUG_CACHE_MISSED_ONLINE_1 : Messages.LOG_DEBUG_CACHE_MISSED_OFFLINE_1,
+                            new Object[] {key}));
+                } else {
+                    LOG.debug(
+                        Messages.get().getBundle().key(
+                            online
+                            ? Messages.LOG_DEBUG_CACHE_MATCHED_ONLINE_2
+                            : Messages.LOG_DEBUG_CACHE_MATCHED_OFFLINE_2,
+                            new Object[] {key, retValue}));
+                }
+            }
+            return retValue;
+        } finally {
+            m_lock.readLock().unlock();
+        }
+    }
+
     /**
      * Returns the cache key for the given parameters.<p>
      *
@@ -239,6 +310,23 @@ public final class CmsADECache extends CmsVfsCache {
         return structureId.toString() + "_" + keepEncoding;
     }
 
+    /**
+     * Returns the cache key for an XML content with the given structure id and modification date.<p>
+     *
+     * Since the modification date is part of the key, a changed XML content is never matched by an older cached version.
+     * Changes of the XML schema are not covered by the key, so the offline XML contents are flushed when a schema or DTD
+     * is modified, and the online XML contents whenever a project is published.<p>
+     *
+     * @param structureId the XML content's structure id
+     * @param dateLastModified the XML content's date of last modification
+     *
+     * @return the cache key for the given XML content
+     */
+    public String getXmlContentCacheKey(CmsUUID structureId, long dateLastModified) {
+
+        return structureId.toString() + "_" + dateLastModified;
+    }
+
     /**
      * Caches the given container page under the given key and for the given project.<p>
      *
@@ -307,6 +395,37 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Caches the given XML content under the given key and for the given project.<p>
+     *
+     * The XML content is shared by all requests afterwards, so it must not be modified after caching.<p>
+     *
+     * @param key the cache key
+     * @param xmlContent the object to cache
+     * @param online if to cache in online or offline project
+     *
+     * @see #getXmlContentCacheKey(CmsUUID, long)
+     */
+    public void setCacheXmlContent(String key, CmsXmlContent xmlContent, boolean online) {
+
+        try {
+            m_lock.writeLock().lock();
+            if (online) {
+                m_xmlContentsOnline.put(key, xmlContent);
+            } else {
+                m_xmlContentsOffline.put(key, xmlContent);
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(
+                    Messages.get().getBundle().key(
+                        online ? Messages.LOG_DEBUG_CACHE_SET_ONLINE_2 : Messages.LOG_DEBUG_CACHE_SET_OFFLINE_2,
+                        new Object[] {key, xmlContent}));
+            }
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Removes the container page identified by its structure id from the cache.<p>
      *
@@ -361,6 +480,7 @@ public final class CmsADECache extends CmsVfsCache {
             m_lock.writeLock().lock();
             flushContainerPages(online);
             flushGroupContainers(online);
+            flushXmlContents(online);
         } finally {
             m_lock.writeLock().unlock();
         }
@@ -378,16 +498,43 @@ public final class CmsADECache extends CmsVfsCache {
                 LOG.warn(Messages.get().container(Messages.LOG_WARN_UNCACHE_NULL_0));
                 return;
             }
+            if (isSchemaDefinition(resource)) {
+                // the cached XML contents keep the content definition they have been unmarshalled with,
+                // and the changed schema may be included by the schemas of any of them
+                m_xmlContentsOffline.clear();
+            }
             if (CmsResourceTypeXmlContainerPage.isContainerPage(resource)) {
                 removeCachedContent(resource, m_containerPagesOffline);
             } else {
                 removeCachedContent(resource, m_groupContainersOffline);
             }
+            if (CmsResourceTypeXmlContent.isXmlContent(resource)) {
+                removeCachedContent(resource, m_xmlContentsOffline);
+            }
         } finally {
             m_lock.writeLock().unlock();
         }
     }
 
+    /**
+     * Creates a cache for XML contents which is limited by the estimated memory size of the contents.<p>
+     *
+     * @param memMonitor the memory monitor instance
+     * @param name the name to register the cache and its statistics with
+     * @param maxBytes the maximum estimated memory size of the cache in bytes
+     *
+     * @return the cache
+     */
+    private Map<String, CmsXmlContent> createXmlContentCache(CmsMemoryMonitor memMonitor, String name, long maxBytes) {
+
+        CmsCacheStatistics statistics = memMonitor.getCacheStatistics(name);
+        Map<String, CmsXmlContent> cache = new CmsMonitoredCacheMap<String, CmsXmlContent>(
+            new CmsWeightedCacheMap<String, CmsXmlContent>(maxBytes, XML_CONTENT_CONCURRENCY_LEVEL, statistics),
+            statistics);
+        memMonitor.register(name, cache);
+        return cache;
+    }
+
     /**
      * Initializes the caches.<p>
      *
@@ -409,6 +556,29 @@ public final class CmsADECache extends CmsVfsCache {
 
         m_groupContainersOnline = CmsMemoryMonitor.createLRUCacheMap(cacheSettings.getGroupContainerOnlineSize());
         memMonitor.register(CmsADECache.class.getName() + ".groupContainersOnline", m_groupContainersOnline);
+
+        // XML content caches
+        m_xmlContentsOffline = createXmlContentCache(
+            memMonitor,
+            CmsADECache.class.getName() + ".xmlContentsOffline",
+            cacheSettings.getXmlContentOfflineBytes());
+        m_xmlContentsOnline = createXmlContentCache(
+            memMonitor,
+            CmsADECache.class.getName() + ".xmlContentsOnline",
+            cacheSettings.getXmlContentOnlineBytes());
+    }
+
+    /**
+     * Checks if the given resource is a XML schema or DTD.<p>
+     *
+     * @param resource the resource to check
+     *
+     * @return <code>true</code> if the given resource is a XML schema or DTD
+     */
+    private boolean isSchemaDefinition(CmsResource resource) {
+
+        String rootPath = resource.getRootPath().toLowerCase();
+        return rootPath.endsWith(".xsd") || rootPath.endsWith(".dtd");
     }
 
     /**
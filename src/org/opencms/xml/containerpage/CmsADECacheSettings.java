@@ -52,6 +52,15 @@ public class CmsADECacheSettings {
     /** The size of the group container online cache. */
     private int m_groupContainerOnlineSize;
 
+    /** Default memory size in bytes for XML content caches. */
+    private static final long DEFAULT_XML_CONTENT_BYTES = 32L * 1024L * 1024L;
+
+    /** The memory size in bytes of the XML content offline cache. */
+    private long m_xmlContentOfflineBytes;
+
+    /** The memory size in bytes of the XML content online cache. */
+    private long m_xmlContentOnlineBytes;
+
     /**
      * Default constructor.<p>
      */
@@ -132,6 +141,32 @@ public class CmsADECacheSettings {
         return m_groupContainerOnlineSize;
     }
 
+    /**
+     * Returns the memory size in bytes of the XML content offline cache.<p>
+     *
+     * @return the memory size in bytes of the XML content offline cache
+     */
+    public long getXmlContentOfflineBytes() {
+
+        if (m_xmlContentOfflineBytes <= 0) {
+            return DEFAULT_XML_CONTENT_BYTES;
+        }
+        return m_xmlContentOfflineBytes;
+    }
+
+    /**
+     * Returns the memory size in bytes of the XML content online cache.<p>
+     *
+     * @return the memory size in bytes of the XML content online cache
+     */
+    public long getXmlContentOnlineBytes() {
+
+        if (m_xmlContentOnlineBytes <= 0) {
+            return DEFAULT_XML_CONTENT_BYTES;
+        }
+        return m_xmlContentOnlineBytes;
+    }
+
     /**
      * Sets the size of the cache for offline group containers.<p>
      *
@@ -152,6 +187,26 @@ public class CmsADECacheSettings {
         m_groupContainerOnlineSize = getIntValue(size, DEFAULT_GROUP_CONTAINER_SIZE);
     }
 
+    /**
+     * Sets the memory size in bytes of the cache for offline XML contents.<p>
+     *
+     * @param bytes the memory size in bytes of the cache for offline XML contents
+     */
+    public void setXmlContentOfflineBytes(String bytes) {
+
+        m_xmlContentOfflineBytes = getLongValue(bytes, DEFAULT_XML_CONTENT_BYTES);
+    }
+
+    /**
+     * Sets the memory size in bytes of the cache for online XML contents.<p>
+     *
+     * @param bytes the memory size in bytes of the cache for online XML contents
+     */
+    public void setXmlContentOnlineBytes(String bytes) {
+
+        m_xmlContentOnlineBytes = getLongValue(bytes, DEFAULT_XML_CONTENT_BYTES);
+    }
+
     /**
      * Turns a string into an int.<p>
      *
@@ -169,4 +224,22 @@ public class CmsADECacheSettings {
         }
         return defaultValue;
     }
+
+    /**
+     * Turns a string into a long.<p>
+     *
+     * @param str the string to be converted
+     * @param defaultValue a default value to be returned in case the string could not be parsed or the parsed long value is <= 0
+     * @return the long value of the string
+     */
+    private long getLongValue(String str, long defaultValue) {
+
+        try {
+            long longValue = Long.parseLong(str);
+            return (longValue > 0) ? longValue : defaultValue;
+        } catch (NumberFormatException e) {
+            // intentionally left blank
+        }
+        return defaultValue;
+    }
 }
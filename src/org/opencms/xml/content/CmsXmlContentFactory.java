@@ -31,15 +31,19 @@ import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.history.I_CmsHistoryResource;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.loader.CmsLoaderException;
 import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
+import org.opencms.security.CmsPermissionSet;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
 import org.opencms.xml.CmsXmlException;
 import org.opencms.xml.CmsXmlUtils;
+import org.opencms.xml.containerpage.CmsADECache;
 
 import java.io.UnsupportedEncodingException;
 import java.util.Locale;
@@ -288,9 +292,14 @@ public final class CmsXmlContentFactory {
         CmsXmlContent content = (CmsXmlContent)req.getAttribute(rootPath);
 
         if (content == null) {
-            // unmarshal XML structure from the file content
-            CmsFile file = resource instanceof CmsFile ? (CmsFile)resource : cms.readFile(resource);
-            content = unmarshal(cms, file);
+            // try to get a copy of the content already parsed by an earlier request
+            content = getCache(cms, resource);
+            if (content == null) {
+                // unmarshal XML structure from the file content
+                CmsFile file = resource instanceof CmsFile ? (CmsFile)resource : cms.readFile(resource);
+                content = unmarshal(cms, file);
+                setCache(cms, resource, content);
+            }
             // store the content as request attribute for future read requests
             req.setAttribute(rootPath, content);
         }
@@ -376,4 +385,93 @@ public final class CmsXmlContentFactory {
 
         return unmarshal(null, xmlData, encoding, resolver);
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a copy of the given XML content which shares no mutable state with it.<p>
+     *
+     * The DOM tree and the file are cloned, so the XML is not parsed again.<p>
+     *
+     * @param content the XML content to copy
+     *
+     * @return the copy
+     */
+    static CmsXmlContent copy(CmsXmlContent content) {
+
+        CmsXmlContent copy = content.clone();
+        copy.setFile((CmsFile)content.getFile().clone());
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the cached XML content for the given resource.<p>
+     *
+     * The copy shares no mutable state with the cached XML content, but the XML is not parsed again.<p>
+     *
+     * @param cms the cms context
+     * @param resource the XML content resource
+     *
+     * @return a copy of the cached XML content, or <code>null</code> if not found
+     *
+     * @throws CmsException if something goes wrong checking the permissions
+     */
+    private static CmsXmlContent getCache(CmsObject cms, CmsResource resource) throws CmsException {
+
+        CmsADECache cache = getCache();
+        if ((cache == null) || !isCacheable(resource)) {
+            return null;
+        }
+        CmsXmlContent cached = cache.getCacheXmlContent(
+            cache.getXmlContentCacheKey(resource.getStructureId(), resource.getDateLastModified()),
+            cms.getRequestContext().getCurrentProject().isOnlineProject());
+        if ((cached == null)
+            || !cms.hasPermissions(resource, CmsPermissionSet.ACCESS_READ, true, CmsResourceFilter.ALL)) {
+            // without read permission, reading the file will fail with the proper error
+            return null;
+        }
+        return copy(cached);
+    }
+
+    /**
+     * Returns the cache for XML contents.<p>
+     *
+     * @return the cache for XML contents, or <code>null</code> if not available
+     */
+    private static CmsADECache getCache() {
+
+        return OpenCms.getADEManager() != null ? OpenCms.getADEManager().getCache() : null;
+    }
+
+    /**
+     * Checks if the XML content of the given resource can be cached.<p>
+     *
+     * Historic versions are not cached, and neither are files which may contain unsaved content.<p>
+     *
+     * @param resource the resource to check
+     *
+     * @return <code>true</code> if the XML content of the given resource can be cached
+     */
+    private static boolean isCacheable(CmsResource resource) {
+
+        return !(resource instanceof I_CmsHistoryResource) && !(resource instanceof CmsFile);
+    }
+
+    /**
+     * Caches a copy of the given XML content, which is not modified by the current request.<p>
+     *
+     * @param cms the cms context
+     * @param resource the XML content resource
+     * @param content the XML content unmarshalled from the resource
+     */
+    private static void setCache(CmsObject cms, CmsResource resource, CmsXmlContent content) {
+
+        CmsADECache cache = getCache();
+        if ((cache == null) || !isCacheable(resource)
+            || (content.getFile() instanceof I_CmsHistoryResource)) {
+            return;
+        }
+        cache.setCacheXmlContent(
+            cache.getXmlContentCacheKey(resource.getStructureId(), content.getFile().getDateLastModified()),
+            copy(content),
+            cms.getRequestContext().getCurrentProject().isOnlineProject());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+/**
+ * Simple LRU cache object with fixed costs for testing the LRU caches.<p>
+ */
+public class CmsTestLruCacheObject implements I_CmsLruCacheObject {
+
+    /** Indicates if this object is currently cached. */
+    private volatile boolean m_cached;
+
+    /** The cache costs. */
+    private int m_costs;
+
+    /** The next object in the LRU list. */
+    private I_CmsLruCacheObject m_next;
+
+    /** The previous object in the LRU list. */
+    private I_CmsLruCacheObject m_previous;
+
+    /**
+     * Creates a new test cache object.<p>
+     *
+     * @param costs the cache costs
+     */
+    public CmsTestLruCacheObject(int costs) {
+
+        m_costs = costs;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+     */
+    public void addToLruCache() {
+
+        m_cached = true;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+     */
+    public int getLruCacheCosts() {
+
+        return m_costs;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+     */
+    public I_CmsLruCacheObject getNextLruObject() {
+
+        return m_next;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+     */
+    public I_CmsLruCacheObject getPreviousLruObject() {
+
+        return m_previous;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+     */
+    public Object getValue() {
+
+        return this;
+    }
+
+    /**
+     * Returns if this object is currently cached.<p>
+     *
+     * @return <code>true</code> if this object is currently cached
+     */
+    public boolean isCached() {
+
+        return m_cached;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+     */
+    public void removeFromLruCache() {
+
+        m_cached = false;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    public void setNextLruObject(I_CmsLruCacheObject theNextObject) {
+
+        m_next = theNextObject;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    public void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject) {
+
+        m_previous = thePreviousObject;
+    }
+}
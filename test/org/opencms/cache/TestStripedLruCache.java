@@ -0,0 +1,180 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.monitor.CmsCacheStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the striped LRU cache.<p>
+ */
+public class TestStripedLruCache extends TestCase {
+
+    /**
+     * Tests that the costs of all cached objects stay within the maximum costs, also with concurrent access.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testConcurrentBudget() throws Exception {
+
+        final CmsStripedLruCache cache = new CmsStripedLruCache(10000, 8000, 100, 8);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        List<CmsTestLruCacheObject> objects = new ArrayList<CmsTestLruCacheObject>();
+                        for (int i = 0; i < 2000; i++) {
+                            CmsTestLruCacheObject object = new CmsTestLruCacheObject(10 + (i % 90));
+                            cache.add(object);
+                            objects.add(object);
+                            cache.touch(objects.get(i / 2));
+                            if ((i % 7) == 0) {
+                                cache.remove(objects.get(i / 3));
+                            }
+                        }
+                    } catch (Throwable e) {
+                        error.set(e);
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(error.get());
+        assertTrue(cache.getObjectCosts() <= cache.getMaxCacheCosts());
+        assertTrue(cache.size() > 0);
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getObjectCosts());
+    }
+
+    /**
+     * Tests adding, touching and removing objects.<p>
+     */
+    public void testCosts() {
+
+        CmsStripedLruCache cache = new CmsStripedLruCache(1000, 800, 100, 4);
+        assertEquals(4, cache.getSegmentCount());
+
+        CmsTestLruCacheObject tooBig = new CmsTestLruCacheObject(101);
+        assertFalse(cache.add(tooBig));
+        assertFalse(tooBig.isCached());
+        assertFalse(cache.add(null));
+
+        List<CmsTestLruCacheObject> objects = new ArrayList<CmsTestLruCacheObject>();
+        for (int i = 0; i < 100; i++) {
+            CmsTestLruCacheObject object = new CmsTestLruCacheObject(50);
+            assertTrue(cache.add(object));
+            objects.add(object);
+            assertTrue(cache.getObjectCosts() <= 1000);
+        }
+        int cached = 0;
+        for (CmsTestLruCacheObject object : objects) {
+            if (object.isCached()) {
+                cached++;
+                assertTrue(cache.touch(object));
+            } else {
+                assertFalse(cache.touch(object));
+            }
+        }
+        assertEquals(cached, cache.size());
+        assertEquals(cached * 50, cache.getObjectCosts());
+
+        // the most recently added object is always cached
+        CmsTestLruCacheObject last = objects.get(objects.size() - 1);
+        assertSame(last, cache.remove(last));
+        assertFalse(last.isCached());
+        assertNull(cache.remove(last));
+        assertEquals(cached - 1, cache.size());
+    }
+
+    /**
+     * Tests that only objects removed because of the cache costs are recorded as evictions.<p>
+     */
+    public void testEvictionStatistics() {
+
+        CmsCacheStatistics statistics = new CmsCacheStatistics("test");
+        CmsLruCache cache = new CmsLruCache(1000, 500, 100);
+        cache.setStatistics(statistics);
+        for (int i = 0; i < 10; i++) {
+            cache.add(new CmsTestLruCacheObject(100));
+        }
+        assertEquals(0, statistics.getEvictionCount());
+        // exceeding the maximum costs removes objects until the costs are below the average costs
+        cache.add(new CmsTestLruCacheObject(100));
+        assertEquals(7, statistics.getEvictionCount());
+        assertEquals(4, cache.size());
+
+        // removing and clearing are no evictions
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(7, statistics.getEvictionCount());
+
+        // the segments of a striped cache record in the same statistics
+        statistics.reset();
+        CmsStripedLruCache striped = new CmsStripedLruCache(1000, 800, 100, 4);
+        striped.setStatistics(statistics);
+        int added = 0;
+        for (int i = 0; i < 100; i++) {
+            if (striped.add(new CmsTestLruCacheObject(50))) {
+                added++;
+            }
+        }
+        long evictions = statistics.getEvictionCount();
+        assertTrue(evictions > 0);
+        assertEquals(added - striped.size(), evictions);
+        striped.clear();
+        assertEquals(evictions, statistics.getEvictionCount());
+    }
+
+    /**
+     * Tests the calculation of the number of segments.<p>
+     */
+    public void testSegmentCount() {
+
+        assertEquals(32, CmsStripedLruCache.getSegmentCount(8, 100000000, 1000));
+        assertEquals(64, CmsStripedLruCache.getSegmentCount(128, 100000000, -1));
+        // default FlexCache configuration: 60 MB average costs and 4 MB per entry
+        assertEquals(8, CmsStripedLruCache.getSegmentCount(8, 60000000, 4000000));
+        assertEquals(1, CmsStripedLruCache.getSegmentCount(8, 1000, 1000));
+        assertEquals(8, new CmsStripedLruCache(1000, 800, 100, 12).getSegmentCount());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the overlap check of publish lists, used to decide which publish jobs can run concurrently.<p>
+ */
+public class TestPublishListOverlap extends TestCase {
+
+    /**
+     * Creates a new publish list for the given resources.<p>
+     *
+     * @param resources the resources
+     *
+     * @return the publish list
+     */
+    private static CmsPublishList createPublishList(CmsResource... resources) {
+
+        CmsPublishList publishList = new CmsPublishList(Collections.<CmsResource> emptyList(), false);
+        for (CmsResource resource : resources) {
+            publishList.add(resource, true);
+        }
+        return publishList;
+    }
+
+    /**
+     * Creates a new changed resource.<p>
+     *
+     * @param rootPath the root path, folders end with a slash
+     * @param resourceId the resource id
+     *
+     * @return the resource
+     */
+    private static CmsResource createResource(String rootPath, CmsUUID resourceId) {
+
+        return new CmsResource(
+            new CmsUUID(),
+            resourceId,
+            rootPath,
+            rootPath.endsWith("/") ? 0 : 1,
+            rootPath.endsWith("/"),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResourceState.STATE_CHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+
+    /**
+     * Tests that the publish lists of different subtrees do not overlap, but parents, siblings and the same resource do.<p>
+     */
+    public void testOverlapping() {
+
+        CmsUUID siblingId = new CmsUUID();
+        CmsPublishList listA = createPublishList(
+            createResource("/sites/default/a/", new CmsUUID()),
+            createResource("/sites/default/a/index.html", siblingId));
+        CmsPublishList listB = createPublishList(createResource("/sites/default/b/index.html", new CmsUUID()));
+        CmsPublishList listChild = createPublishList(createResource("/sites/default/a/b/c.html", new CmsUUID()));
+        CmsPublishList listParent = createPublishList(createResource("/sites/default/", new CmsUUID()));
+        CmsPublishList listSibling = createPublishList(createResource("/sites/default/c/sibling.html", siblingId));
+        CmsPublishList listPrefix = createPublishList(createResource("/sites/default/ab/index.html", new CmsUUID()));
+
+        assertFalse(listA.isOverlapping(listB));
+        assertFalse(listB.isOverlapping(listA));
+        assertFalse(listA.isOverlapping(listPrefix));
+        assertTrue(listA.isOverlapping(listChild));
+        assertTrue(listChild.isOverlapping(listA));
+        assertTrue(listA.isOverlapping(listParent));
+        assertTrue(listParent.isOverlapping(listB));
+        assertTrue(listA.isOverlapping(listSibling));
+        assertTrue(listA.isOverlapping(listA));
+    }
+}
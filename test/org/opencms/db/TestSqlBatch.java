@@ -0,0 +1,193 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsSqlManager;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the batched statement mode of the generic SQL manager against an in-memory HSQLDB database.<p>
+ */
+public class TestSqlBatch extends TestCase {
+
+    /**
+     * Prepared statement wrapper which counts the statement executions, i.e. the round-trips to the database.<p>
+     */
+    private static class CountingHandler implements InvocationHandler {
+
+        /** The number of round-trips. */
+        int m_roundTrips;
+
+        /** The wrapped statement. */
+        private PreparedStatement m_stmt;
+
+        /**
+         * Creates a new counting handler.<p>
+         *
+         * @param stmt the statement to wrap
+         */
+        CountingHandler(PreparedStatement stmt) {
+
+            m_stmt = stmt;
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            if (method.getName().startsWith("execute")) {
+                m_roundTrips++;
+            }
+            try {
+                return method.invoke(m_stmt, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /** The database connection. */
+    private Connection m_conn;
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        Class.forName("org.hsqldb.jdbc.JDBCDriver");
+        m_conn = DriverManager.getConnection("jdbc:hsqldb:mem:batchtest", "SA", "");
+        Statement stmt = m_conn.createStatement();
+        stmt.execute("CREATE TABLE CMS_TEST_BATCH (RESOURCE_PATH VARCHAR(1024), LOCK_TYPE INT)");
+        stmt.close();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        Statement stmt = m_conn.createStatement();
+        stmt.execute("DROP TABLE CMS_TEST_BATCH");
+        stmt.close();
+        m_conn.close();
+    }
+
+    /**
+     * Tests that batching reduces the number of round-trips and that all rows are written.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testBatchedInsert() throws Exception {
+
+        CmsSqlManager sqlManager = new CmsSqlManager();
+        assertEquals(CmsSqlManager.DEFAULT_BATCH_SIZE, sqlManager.getBatchSize());
+        assertEquals(3, insertRows(sqlManager, 1200));
+        assertEquals(1200, countRows());
+
+        sqlManager.setBatchSize(100);
+        assertEquals(12, insertRows(sqlManager, 1200));
+        assertEquals(2400, countRows());
+
+        // an exact multiple of the batch size must not cause an additional empty batch
+        assertEquals(1, insertRows(sqlManager, 100));
+        assertEquals(2500, countRows());
+    }
+
+    /**
+     * Tests that every statement is executed on its own if batching is disabled.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testBatchingDisabled() throws Exception {
+
+        CmsSqlManager sqlManager = new CmsSqlManager();
+        sqlManager.setBatchSize(1);
+        assertEquals(250, insertRows(sqlManager, 250));
+        assertEquals(250, countRows());
+    }
+
+    /**
+     * Counts the rows in the test table.<p>
+     *
+     * @return the number of rows
+     *
+     * @throws Exception if something goes wrong
+     */
+    private int countRows() throws Exception {
+
+        Statement stmt = m_conn.createStatement();
+        ResultSet res = stmt.executeQuery("SELECT COUNT(*) FROM CMS_TEST_BATCH");
+        res.next();
+        int result = res.getInt(1);
+        stmt.close();
+        return result;
+    }
+
+    /**
+     * Inserts the given number of rows using the batch mode of the SQL manager.<p>
+     *
+     * @param sqlManager the SQL manager
+     * @param rows the number of rows to insert
+     *
+     * @return the number of round-trips to the database
+     *
+     * @throws Exception if something goes wrong
+     */
+    private int insertRows(CmsSqlManager sqlManager, int rows) throws Exception {
+
+        CountingHandler handler = new CountingHandler(
+            m_conn.prepareStatement("INSERT INTO CMS_TEST_BATCH (RESOURCE_PATH, LOCK_TYPE) VALUES (?, ?)"));
+        PreparedStatement stmt = (PreparedStatement)Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {PreparedStatement.class},
+            handler);
+        int batchCount = 0;
+        for (int i = 0; i < rows; i++) {
+            stmt.setString(1, "/sites/default/file" + i + ".html");
+            stmt.setInt(2, i % 4);
+            batchCount = sqlManager.addBatch(stmt, batchCount);
+        }
+        sqlManager.executeBatch(stmt, batchCount);
+        stmt.close();
+        return handler.m_roundTrips;
+    }
+}
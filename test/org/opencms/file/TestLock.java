@@ -32,6 +32,7 @@ import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.lock.CmsLockException;
 import org.opencms.lock.CmsLockFilter;
 import org.opencms.lock.CmsLockType;
+import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
 import org.opencms.security.CmsAccessControlEntry;
 import org.opencms.security.CmsPermissionSet;
@@ -40,12 +41,18 @@ import org.opencms.security.I_CmsPrincipal;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.test.OpenCmsTestResourceFilter;
+import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.extensions.TestSetup;
+import junit.framework.AssertionFailedError;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
@@ -76,6 +83,7 @@ public class TestLock extends OpenCmsTestCase {
         TestSuite suite = new TestSuite();
         suite.setName(TestLock.class.getName());
 
+        suite.addTest(new TestLock("testConcurrentLocking"));
         suite.addTest(new TestLock("testLockFilter"));
         suite.addTest(new TestLock("testLockWithDeletedNewFiles"));
         suite.addTest(new TestLock("testLockOtherUser"));
@@ -110,6 +118,95 @@ public class TestLock extends OpenCmsTestCase {
         return wrapper;
     }
 
+    /**
+     * Tests that several users locking files and their folders at the same time never
+     * hold conflicting locks.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testConcurrentLocking() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing concurrent locking of files and folders by several users");
+
+        final String[] folders = {"/folder1/subfolder11/", "/folder1/subfolder12/"};
+        final List<String> files = new ArrayList<String>();
+        for (String folder : folders) {
+            for (CmsResource resource : cms.readResources(folder, CmsResourceFilter.DEFAULT_FILES, false)) {
+                files.add(cms.getSitePath(resource));
+            }
+        }
+        assertFalse(files.isEmpty());
+
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        final AtomicInteger folderLocks = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        String[][] users = {{"Admin", "admin"}, {"test1", "test1"}, {"test2", "test2"}};
+        for (int u = 0; u < users.length; u++) {
+            // every thread needs its own context
+            final CmsObject userCms = OpenCms.initCmsObject(cms);
+            userCms.loginUser(users[u][0], users[u][1]);
+            userCms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+            final CmsUUID userId = userCms.getRequestContext().getCurrentUser().getId();
+            final Random random = new Random(u);
+            Thread thread = new Thread(new Runnable() {
+
+                public void run() {
+
+                    try {
+                        start.await();
+                        for (int i = 0; i < 200; i++) {
+                            boolean lockFolder = random.nextInt(4) == 0;
+                            String path = lockFolder
+                            ? folders[random.nextInt(folders.length)]
+                            : files.get(random.nextInt(files.size()));
+                            try {
+                                userCms.lockResource(path);
+                            } catch (CmsLockException e) {
+                                // locked by another user
+                                continue;
+                            }
+                            if (lockFolder) {
+                                folderLocks.incrementAndGet();
+                                // as long as the folder is locked, no other user may hold a lock below it
+                                List<String> foreignLocks = userCms.getLockedResources(
+                                    path,
+                                    CmsLockFilter.FILTER_ALL.filterNotOwnedByUserId(userId));
+                                if (!foreignLocks.isEmpty()) {
+                                    errors.add(new AssertionFailedError(
+                                        "Locks of other users in locked folder " + path + ": " + foreignLocks));
+                                }
+                                userCms.unlockResource(path);
+                            } else {
+                                try {
+                                    userCms.unlockResource(path);
+                                } catch (CmsException e) {
+                                    // the lock has been removed by a folder lock of another user
+                                }
+                            }
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(120000);
+            assertFalse(thread.isAlive());
+        }
+
+        assertEquals(Collections.<Throwable> emptyList(), errors);
+        assertTrue(folderLocks.get() > 0);
+        for (String folder : folders) {
+            assertEquals(Collections.<String> emptyList(), cms.getLockedResources(folder, CmsLockFilter.FILTER_ALL));
+        }
+    }
+
     /**
      * Tests copying a file to a folder locked by another user.<p>
      *
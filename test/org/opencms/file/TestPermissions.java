@@ -41,6 +41,7 @@ import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.util.CmsUUID;
 
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -68,6 +69,7 @@ public class TestPermissions extends OpenCmsTestCase {
         suite.setName(TestPermissions.class.getName());
 
         suite.addTest(new TestPermissions("testLockStatusPermission"));
+        suite.addTest(new TestPermissions("testBulkPermissions"));
         suite.addTest(new TestPermissions("testPublishPermissions"));
         suite.addTest(new TestPermissions("testSiblingPermissions"));
         suite.addTest(new TestPermissions("testVisiblePermission"));
@@ -106,6 +108,42 @@ public class TestPermissions extends OpenCmsTestCase {
         super(arg0);
     }
 
+    /**
+     * Tests that the bulk permission check has the same results as the checks of the single resources.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testBulkPermissions() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the permission check of a list of resources");
+
+        List<CmsResource> resources = cms.readResources("/", CmsResourceFilter.ALL);
+        Collections.reverse(resources);
+        assertTrue(resources.size() > 1);
+
+        cms.loginUser("test1", "test1");
+        cms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+        CmsPermissionSet[] permissionSets = new CmsPermissionSet[] {
+            CmsPermissionSet.ACCESS_READ,
+            CmsPermissionSet.ACCESS_WRITE,
+            CmsPermissionSet.ACCESS_VIEW};
+        for (CmsPermissionSet permissions : permissionSets) {
+            BitSet result = cms.hasPermissions(resources, permissions, true, CmsResourceFilter.ONLY_VISIBLE);
+            for (int i = 0; i < resources.size(); i++) {
+                assertEquals(
+                    resources.get(i).getRootPath(),
+                    cms.hasPermissions(resources.get(i), permissions, true, CmsResourceFilter.ONLY_VISIBLE),
+                    result.get(i));
+            }
+        }
+        assertTrue(cms.hasPermissions(
+            Collections.<CmsResource> emptyList(),
+            CmsPermissionSet.ACCESS_READ,
+            false,
+            CmsResourceFilter.ALL).isEmpty());
+    }
+
     /**
      * @throws Throwable if something goes wrong
      */
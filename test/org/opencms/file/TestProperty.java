@@ -30,12 +30,14 @@ package org.opencms.file;
 import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsRuntimeException;
+import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.report.CmsShellReport;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.test.OpenCmsTestResourceFilter;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -224,6 +226,7 @@ public class TestProperty extends OpenCmsTestCase {
         suite.addTest(new TestProperty("testCaseSensitiveProperties"));
         suite.addTest(new TestProperty("testReadResourcesWithProperty"));
         suite.addTest(new TestProperty("testReadLocalizedProperty"));
+        suite.addTest(new TestProperty("testBulkReadProperties"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -309,6 +312,44 @@ public class TestProperty extends OpenCmsTestCase {
         tc.assertPropertyChanged(cms, resource1, property1);
     }
 
+    /**
+     * Tests reading the properties of a list of resources at once.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testBulkReadProperties() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading the properties of a list of resources at once");
+
+        List<CmsResource> resources = cms.readResources("/", CmsResourceFilter.ALL, true);
+        resources.add(cms.readResource("/"));
+        for (boolean search : new boolean[] {false, true}) {
+            // read the expected properties from the database, not from the caches filled by the bulk read
+            Map<CmsUUID, List<CmsProperty>> expectedProperties = new HashMap<CmsUUID, List<CmsProperty>>();
+            for (CmsResource resource : resources) {
+                OpenCms.fireCmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, Collections.<String, Object> emptyMap());
+                expectedProperties.put(resource.getStructureId(), cms.readPropertyObjects(resource, search));
+            }
+            // start with empty caches, so the properties of all resources are read together
+            OpenCms.fireCmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, Collections.<String, Object> emptyMap());
+            Map<CmsUUID, List<CmsProperty>> properties = cms.readPropertyObjects(resources, search);
+            assertEquals(resources.size(), properties.size());
+            for (CmsResource resource : resources) {
+                List<CmsProperty> expected = expectedProperties.get(resource.getStructureId());
+                List<CmsProperty> actual = properties.get(resource.getStructureId());
+                assertNotNull(resource.getRootPath(), actual);
+                assertEquals(resource.getRootPath(), expected.size(), actual.size());
+                for (CmsProperty property : expected) {
+                    CmsProperty other = actual.get(actual.indexOf(property));
+                    assertEquals(property.getStructureValue(), other.getStructureValue());
+                    assertEquals(property.getResourceValue(), other.getResourceValue());
+                    assertEquals(property.getOrigin(), other.getOrigin());
+                }
+            }
+        }
+    }
+
     /**
      * Tests the proper behaviour for case sensitiveness in property definition names.<p>
      *
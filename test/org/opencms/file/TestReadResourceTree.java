@@ -32,6 +32,7 @@ import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.test.OpenCmsTestResourceFilter;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import junit.extensions.TestSetup;
@@ -73,6 +74,7 @@ public class TestReadResourceTree extends OpenCmsTestCase {
         suite.addTest(new TestReadResourceTree("testReadResources"));
         suite.addTest(new TestReadResourceTree("testReadModifiedResources"));
         suite.addTest(new TestReadResourceTree("testReadResourcesInTimerange"));
+        suite.addTest(new TestReadResourceTree("testReadResourcesCursor"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -290,6 +292,51 @@ public class TestReadResourceTree extends OpenCmsTestCase {
         assertEquals(1, result.size());
     }
 
+    /**
+     * Test readResourcesCursor for reading a subtree page by page.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadResourcesCursor() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing readResourcesCursor: reading a subtree page by page");
+
+        cms.getRequestContext().setSiteRoot("/");
+        String path = "/sites/default/";
+
+        for (CmsResourceFilter filter : new CmsResourceFilter[] {
+            CmsResourceFilter.ALL,
+            CmsResourceFilter.DEFAULT_FILES,
+            CmsResourceFilter.DEFAULT_FOLDERS}) {
+            for (boolean readTree : new boolean[] {true, false}) {
+                List<CmsResource> expected = cms.readResources(path, filter, readTree);
+                List<String> expectedPaths = new ArrayList<String>();
+                for (CmsResource resource : expected) {
+                    expectedPaths.add(resource.getRootPath());
+                }
+                // the cursor returns the resources ordered by path, using a small page size to read many pages
+                CmsResourceCursor cursor = cms.readResourcesCursor(path, filter, readTree, 3);
+                List<String> paths = new ArrayList<String>();
+                while (cursor.hasNext()) {
+                    String rootPath = cursor.next().getRootPath();
+                    if (!paths.isEmpty()) {
+                        assertTrue(paths.get(paths.size() - 1).compareTo(rootPath) < 0);
+                    }
+                    paths.add(rootPath);
+                }
+                assertFalse(cursor.hasNext());
+                assertEquals(expectedPaths.size(), paths.size());
+                assertTrue(paths.containsAll(expectedPaths));
+            }
+        }
+
+        // stop reading early
+        CmsResourceCursor cursor = cms.readResourcesCursor(path, CmsResourceFilter.ALL, true, 2);
+        assertTrue(cursor.hasNext());
+        assertTrue(cursor.next().getRootPath().startsWith(path));
+    }
+
     /**
      * Test readResources for reading resources modified within a timerange.<p>
      *
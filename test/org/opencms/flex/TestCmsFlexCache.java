@@ -0,0 +1,92 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tests for the CmsFlexCache.<p>
+ */
+public class TestCmsFlexCache extends OpenCmsTestCase {
+
+    /** The name of the background thread of the cache. */
+    private static final String CLEANUP_THREAD_NAME = "OpenCms: FlexCache cleanup";
+
+    /**
+     * Tests that shutting down the cache stops its background thread.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testShutDownStopsCleanupThread() throws Exception {
+
+        Set<Thread> existingThreads = getCleanupThreads();
+        CmsFlexCacheConfiguration configuration = new CmsFlexCacheConfiguration();
+        configuration.initialize("true", "true", "1000000", "500000", "10000", "100");
+        CmsFlexCache cache = new CmsFlexCache(configuration);
+        assertTrue(cache.isEnabled());
+
+        // clearing the cache starts the background thread
+        cache.cmsEvent(new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, Collections.<String, Object> emptyMap()));
+        Set<Thread> threads = getCleanupThreads();
+        threads.removeAll(existingThreads);
+        assertEquals(1, threads.size());
+        Thread thread = threads.iterator().next();
+
+        cache.shutDown();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertFalse(cache.isEnabled());
+        assertEquals(0, cache.size());
+
+        // events after the shut down are ignored
+        cache.cmsEvent(new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, Collections.<String, Object> emptyMap()));
+        cache.shutDown();
+    }
+
+    /**
+     * Returns the currently running background threads of all FlexCache instances.<p>
+     *
+     * @return the background threads
+     */
+    private Set<Thread> getCleanupThreads() {
+
+        Set<Thread> result = new HashSet<Thread>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (CLEANUP_THREAD_NAME.equals(thread.getName()) && thread.isAlive()) {
+                result.add(thread);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.flex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the off-heap tier of the FlexCache.<p>
+ */
+public class TestCmsFlexOffHeapStore extends TestCase {
+
+    /**
+     * Tests the accounting of the budget of the store.<p>
+     */
+    public void testBudget() {
+
+        CmsFlexOffHeapStore store = new CmsFlexOffHeapStore(1000, 100);
+
+        // output below the minimum size stays on the heap
+        assertNull(store.store(new byte[99]));
+        assertEquals(0, store.getSize());
+
+        ByteBuffer first = store.store(new byte[600]);
+        assertNotNull(first);
+        assertTrue(first.isDirect());
+        assertTrue(first.isReadOnly());
+        assertEquals(600, store.getSize());
+
+        // the budget is exceeded, the failed reservation is not counted
+        assertNull(store.store(new byte[401]));
+        assertEquals(600, store.getSize());
+        ByteBuffer second = store.store(new byte[400]);
+        assertNotNull(second);
+        assertEquals(1000, store.getSize());
+
+        store.release(first);
+        assertEquals(400, store.getSize());
+        assertNotNull(store.store(new byte[600]));
+        assertEquals(1000, store.getSize());
+    }
+
+    /**
+     * Tests moving the output of a cache entry to the store and releasing it.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMoveToOffHeap() throws Exception {
+
+        CmsFlexOffHeapStore store = new CmsFlexOffHeapStore(1000, 100);
+        byte[] large = createBytes(500);
+        byte[] small = createBytes(50);
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.add(large);
+        entry.add(small);
+        entry.complete();
+        int heapCosts = entry.getLruCacheCosts();
+
+        entry.moveToOffHeap(store);
+        assertEquals(500, store.getSize());
+        assertTrue(entry.getLruCacheCosts() < (heapCosts - 400));
+        List<Object> elements = entry.elements();
+        assertTrue(elements.get(0) instanceof ByteBuffer);
+        assertSame(small, elements.get(1));
+        assertTrue(Arrays.equals(large, read((ByteBuffer)elements.get(0))));
+
+        // moving again does not store the output twice
+        entry.moveToOffHeap(store);
+        assertEquals(500, store.getSize());
+
+        // releasing is done only once, the buffer stays readable for requests still streaming it
+        entry.releaseOffHeap();
+        assertEquals(0, store.getSize());
+        entry.releaseOffHeap();
+        assertEquals(0, store.getSize());
+        assertTrue(Arrays.equals(large, read((ByteBuffer)elements.get(0))));
+    }
+
+    /**
+     * Tests that an entry keeps its output on the heap if the store is full.<p>
+     */
+    public void testMoveToOffHeapStoreFull() {
+
+        CmsFlexOffHeapStore store = new CmsFlexOffHeapStore(1000, 100);
+        assertNotNull(store.store(new byte[800]));
+        byte[] large = createBytes(500);
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.add(large);
+        entry.complete();
+
+        entry.moveToOffHeap(store);
+        assertSame(large, entry.elements().get(0));
+        assertEquals(800, store.getSize());
+
+        // releasing an entry without off-heap output does not change the budget
+        entry.releaseOffHeap();
+        assertEquals(800, store.getSize());
+    }
+
+    /**
+     * Tests writing a buffer to an output stream.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testWrite() throws Exception {
+
+        CmsFlexOffHeapStore store = new CmsFlexOffHeapStore(100000, 1);
+        byte[] bytes = createBytes(20000);
+        ByteBuffer buffer = store.store(bytes);
+        assertTrue(Arrays.equals(bytes, read(buffer)));
+
+        // the position of the buffer is not changed, so it can be written again
+        assertEquals(0, buffer.position());
+        assertTrue(Arrays.equals(bytes, read(buffer)));
+    }
+
+    /**
+     * Creates some output.<p>
+     *
+     * @param length the length of the output
+     *
+     * @return the output
+     */
+    private byte[] createBytes(int length) {
+
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte)i;
+        }
+        return bytes;
+    }
+
+    /**
+     * Reads the content of a buffer.<p>
+     *
+     * @param buffer the buffer
+     *
+     * @return the content of the buffer
+     *
+     * @throws IOException if writing the buffer fails
+     */
+    private byte[] read(ByteBuffer buffer) throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CmsFlexOffHeapStore.write(buffer, out);
+        return out.toByteArray();
+    }
+}
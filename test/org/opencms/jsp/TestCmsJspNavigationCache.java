@@ -0,0 +1,316 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.jsp;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.jsp.CmsJspNavigationCache.FolderSnapshot;
+import org.opencms.main.OpenCms;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests for the {@link CmsJspNavigationCache}.<p>
+ */
+public class TestCmsJspNavigationCache extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsJspNavigationCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsJspNavigationCache.class.getName());
+
+        suite.addTest(new TestCmsJspNavigationCache("testCacheHit"));
+        suite.addTest(new TestCmsJspNavigationCache("testPublishInvalidation"));
+        suite.addTest(new TestCmsJspNavigationCache("testMoveInvalidation"));
+        suite.addTest(new TestCmsJspNavigationCache("testPermissionFiltering"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that the snapshots are cached for the online project only.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testCacheHit() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that the navigation snapshots are cached");
+
+        CmsObject onlineCms = getOnlineCmsObject(cms);
+        String folder = cms.getRequestContext().addSiteRoot("/folder1/");
+        FolderSnapshot snapshot = CmsJspNavigationCache.getSnapshot(onlineCms, folder);
+        assertNotNull(snapshot);
+        assertSame(snapshot, CmsJspNavigationCache.getSnapshot(onlineCms, folder));
+        assertSame(snapshot, CmsJspNavigationCache.getSnapshot(OpenCms.initCmsObject(onlineCms), folder));
+
+        // the offline project is never cached
+        assertNull(CmsJspNavigationCache.getSnapshot(cms, folder));
+    }
+
+    /**
+     * Tests that a move removes the snapshots of the source and the target folder and of the moved sub tree.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testMoveInvalidation() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that a published move removes the affected navigation snapshots");
+
+        cms.createResource(
+            "/folder1/navmove/",
+            OpenCms.getResourceManager().getResourceType(CmsResourceTypeFolder.getStaticTypeName()));
+        createNavFile(cms, "/folder1/navmove/navpage.html");
+        OpenCms.getPublishManager().publishResource(cms, "/folder1/navmove/");
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        cms.lockResource("/folder1/navmove/");
+        cms.moveResource("/folder1/navmove/", "/folder2/navmove/");
+
+        // the online snapshots are read after the offline move and must only change with the publish
+        CmsObject onlineCms = getOnlineCmsObject(cms);
+        String source = cms.getRequestContext().addSiteRoot("/folder1/");
+        String target = cms.getRequestContext().addSiteRoot("/folder2/");
+        String movedSource = cms.getRequestContext().addSiteRoot("/folder1/navmove/");
+        String movedTarget = cms.getRequestContext().addSiteRoot("/folder2/navmove/");
+        FolderSnapshot sourceSnapshot = CmsJspNavigationCache.getSnapshot(onlineCms, source);
+        FolderSnapshot targetSnapshot = CmsJspNavigationCache.getSnapshot(onlineCms, target);
+        FolderSnapshot movedSnapshot = CmsJspNavigationCache.getSnapshot(onlineCms, movedSource);
+        assertTrue(containsResource(sourceSnapshot, movedSource));
+        assertFalse(containsResource(targetSnapshot, movedTarget));
+        assertTrue(containsResource(movedSnapshot, movedSource + "navpage.html"));
+        assertSame(sourceSnapshot, CmsJspNavigationCache.getSnapshot(onlineCms, source));
+
+        OpenCms.getPublishManager().publishResource(cms, "/folder2/navmove/");
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        FolderSnapshot newSourceSnapshot = CmsJspNavigationCache.getSnapshot(onlineCms, source);
+        FolderSnapshot newTargetSnapshot = CmsJspNavigationCache.getSnapshot(onlineCms, target);
+        assertNotSame(sourceSnapshot, newSourceSnapshot);
+        assertNotSame(targetSnapshot, newTargetSnapshot);
+        assertFalse(containsResource(newSourceSnapshot, movedSource));
+        assertTrue(containsResource(newTargetSnapshot, movedTarget));
+        // the moved folder does not exist any more at the old path
+        assertNull(CmsJspNavigationCache.getSnapshot(onlineCms, movedSource));
+        assertTrue(
+            containsResource(
+                CmsJspNavigationCache.getSnapshot(onlineCms, movedTarget),
+                movedTarget + "navpage.html"));
+    }
+
+    /**
+     * Tests that the navigation is filtered by the permissions of the current user,
+     * although all users share the same snapshot.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testPermissionFiltering() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that the cached navigation is filtered by the permissions of the current user");
+
+        createNavFile(cms, "/folder1/navallowed.html");
+        createNavFile(cms, "/folder1/navdenied.html");
+        cms.chacc("/folder1/navdenied.html", I_CmsPrincipal.PRINCIPAL_USER, "test1", "-r");
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsObject onlineCms = getOnlineCmsObject(cms);
+        List<String> adminNavigation = getNavigationPaths(onlineCms, "/folder1/");
+        assertTrue(adminNavigation.contains("/folder1/navallowed.html"));
+        assertTrue(adminNavigation.contains("/folder1/navdenied.html"));
+        FolderSnapshot snapshot = CmsJspNavigationCache.getSnapshot(
+            onlineCms,
+            cms.getRequestContext().addSiteRoot("/folder1/"));
+
+        CmsObject userCms = OpenCms.initCmsObject(cms);
+        userCms.loginUser("test1", "test1");
+        userCms.getRequestContext().setSiteRoot(cms.getRequestContext().getSiteRoot());
+        userCms = getOnlineCmsObject(userCms);
+        List<String> userNavigation = getNavigationPaths(userCms, "/folder1/");
+        assertTrue(userNavigation.contains("/folder1/navallowed.html"));
+        assertFalse(userNavigation.contains("/folder1/navdenied.html"));
+
+        // the user navigation has been built from the same snapshot as the admin navigation
+        assertSame(
+            snapshot,
+            CmsJspNavigationCache.getSnapshot(userCms, cms.getRequestContext().addSiteRoot("/folder1/")));
+        assertTrue(containsResource(snapshot, cms.getRequestContext().addSiteRoot("/folder1/navdenied.html")));
+        // and the admin still sees the resource afterwards
+        assertTrue(getNavigationPaths(onlineCms, "/folder1/").contains("/folder1/navdenied.html"));
+    }
+
+    /**
+     * Tests that publishing a resource removes the snapshot of its parent folder, and only that snapshot.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishInvalidation() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that publishing a resource removes the snapshot of its parent folder");
+
+        createNavFile(cms, "/folder1/navnew.html");
+
+        // the online snapshots are read after the offline change and must only change with the publish
+        CmsObject onlineCms = getOnlineCmsObject(cms);
+        String parent = cms.getRequestContext().addSiteRoot("/folder1/");
+        String other = cms.getRequestContext().addSiteRoot("/folder2/");
+        FolderSnapshot parentSnapshot = CmsJspNavigationCache.getSnapshot(onlineCms, parent);
+        FolderSnapshot otherSnapshot = CmsJspNavigationCache.getSnapshot(onlineCms, other);
+        assertFalse(containsResource(parentSnapshot, parent + "navnew.html"));
+        assertFalse(getNavigationPaths(onlineCms, "/folder1/").contains("/folder1/navnew.html"));
+
+        OpenCms.getPublishManager().publishResource(cms, "/folder1/navnew.html");
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        FolderSnapshot newParentSnapshot = CmsJspNavigationCache.getSnapshot(onlineCms, parent);
+        assertNotSame(parentSnapshot, newParentSnapshot);
+        assertTrue(containsResource(newParentSnapshot, parent + "navnew.html"));
+        assertTrue(getNavigationPaths(onlineCms, "/folder1/").contains("/folder1/navnew.html"));
+        // other folders are not affected
+        assertSame(otherSnapshot, CmsJspNavigationCache.getSnapshot(onlineCms, other));
+    }
+
+    /**
+     * Checks if the given snapshot contains a resource with the given root path.<p>
+     *
+     * @param snapshot the snapshot
+     * @param rootPath the root path of the resource
+     *
+     * @return <code>true</code> if the snapshot contains a resource with the given root path
+     */
+    private boolean containsResource(FolderSnapshot snapshot, String rootPath) {
+
+        assertNotNull(snapshot);
+        for (CmsResource resource : snapshot.getResources()) {
+            if (resource.getRootPath().equals(rootPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a plain file which is visible in the navigation.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param sitePath the site path of the file
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createNavFile(CmsObject cms, String sitePath) throws Exception {
+
+        cms.createResource(
+            sitePath,
+            OpenCms.getResourceManager().getResourceType(CmsResourceTypePlain.getStaticTypeName()),
+            "content".getBytes(),
+            Collections.singletonList(
+                new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVTEXT, CmsResource.getName(sitePath), null)));
+    }
+
+    /**
+     * Returns the site paths of the navigation elements of the given folder.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param folder the site path of the folder
+     *
+     * @return the site paths of the navigation elements
+     */
+    private List<String> getNavigationPaths(CmsObject cms, String folder) {
+
+        List<String> result = new ArrayList<String>();
+        for (CmsJspNavElement element : new CmsJspNavBuilder(cms).getNavigationForFolder(folder)) {
+            result.add(element.getSitePath());
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of the given context in the online project.<p>
+     *
+     * @param cms the current users OpenCms context
+     *
+     * @return a copy of the given context in the online project
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsObject getOnlineCmsObject(CmsObject cms) throws Exception {
+
+        CmsObject result = OpenCms.initCmsObject(cms);
+        result.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        return result;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the parsing of HTTP "Range" headers in the dump loader.<p>
+ */
+public class TestCmsDumpLoaderRange extends TestCase {
+
+    /**
+     * Tests single byte ranges, suffix ranges and open ranges.<p>
+     */
+    public void testValidRanges() {
+
+        assertRange(0, 499, "bytes=0-499", 1000);
+        assertRange(500, 999, "bytes=500-", 1000);
+        assertRange(900, 999, "bytes=-100", 1000);
+        // ranges are cut at the end of the content
+        assertRange(0, 999, "bytes=-2000", 1000);
+        assertRange(990, 999, "bytes=990-2000", 1000);
+    }
+
+    /**
+     * Tests ranges which can not be satisfied.<p>
+     */
+    public void testUnsatisfiableRanges() {
+
+        assertEquals(0, CmsDumpLoader.parseRange("bytes=1000-", 1000).length);
+        assertEquals(0, CmsDumpLoader.parseRange("bytes=1000-2000", 1000).length);
+        assertEquals(0, CmsDumpLoader.parseRange("bytes=-0", 1000).length);
+        assertEquals(0, CmsDumpLoader.parseRange("bytes=0-", 0).length);
+    }
+
+    /**
+     * Tests that invalid and multiple ranges are ignored.<p>
+     */
+    public void testIgnoredRanges() {
+
+        assertNull(CmsDumpLoader.parseRange(null, 1000));
+        assertNull(CmsDumpLoader.parseRange("items=0-10", 1000));
+        assertNull(CmsDumpLoader.parseRange("bytes=0-10,20-30", 1000));
+        assertNull(CmsDumpLoader.parseRange("bytes=10-5", 1000));
+        assertNull(CmsDumpLoader.parseRange("bytes=a-b", 1000));
+        assertNull(CmsDumpLoader.parseRange("bytes=-", 1000));
+    }
+
+    /**
+     * Asserts that the given range header is parsed to the given range.<p>
+     *
+     * @param first the expected first position
+     * @param last the expected last position
+     * @param range the range header
+     * @param length the content length
+     */
+    private void assertRange(long first, long last, String range, long length) {
+
+        long[] result = CmsDumpLoader.parseRange(range, length);
+        assertNotNull(result);
+        assertTrue(Arrays.toString(result), Arrays.equals(new long[] {first, last}, result));
+    }
+}
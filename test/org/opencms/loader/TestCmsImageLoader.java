@@ -0,0 +1,284 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.cache.CmsVfsNameBasedDiskCache;
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the image scaling jobs of the image loader.<p>
+ */
+public class TestCmsImageLoader extends TestCase {
+
+    /**
+     * Image scaler that waits until it is released, and counts how often it is called.<p>
+     */
+    private static class BlockingScaler extends CmsImageScaler {
+
+        /** The number of scaled images. */
+        final AtomicInteger m_count = new AtomicInteger();
+
+        /** Released to finish the scaling. */
+        final CountDownLatch m_release = new CountDownLatch(1);
+
+        /**
+         * Creates a new blocking scaler.<p>
+         */
+        BlockingScaler() {
+
+            super("w:10,h:10");
+        }
+
+        /**
+         * @see org.opencms.loader.CmsImageScaler#scaleImage(org.opencms.file.CmsFile)
+         */
+        @Override
+        public byte[] scaleImage(CmsFile file) {
+
+            m_count.incrementAndGet();
+            try {
+                m_release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return SCALED.clone();
+        }
+    }
+
+    /** The content of the original image. */
+    static final byte[] ORIGINAL = {1, 2, 3, 4};
+
+    /** The content of the scaled image. */
+    static final byte[] SCALED = {5, 6};
+
+    /** The folder of the scaled images. */
+    private File m_cacheFolder;
+
+    /** The executor used by the test. */
+    private ThreadPoolExecutor m_executor;
+
+    /** The loader to test. */
+    private CmsImageLoader m_loader;
+
+    /**
+     * Tests that concurrent requests for the same scaled image share one scaling job.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCoalescedScaling() throws Exception {
+
+        final BlockingScaler scaler = new BlockingScaler();
+        final String cacheName = new File(m_cacheFolder, "coalesced.jpg").getPath();
+        int requests = 4;
+        ExecutorService requestThreads = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<CmsFile>> results = new ArrayList<Future<CmsFile>>();
+            for (int i = 0; i < requests; i++) {
+                results.add(requestThreads.submit(new Callable<CmsFile>() {
+
+                    public CmsFile call() throws Exception {
+
+                        return m_loader.getScaledImageFromJob(createCms(), createImage(), scaler, cacheName);
+                    }
+                }));
+            }
+            // wait until all requests except the first one wait for the scaling job
+            long end = System.currentTimeMillis() + 10000;
+            while ((CmsImageLoader.m_scalingStatistics.getCoalescedWaitCount() < (requests - 1))
+                && (System.currentTimeMillis() < end)) {
+                Thread.sleep(10);
+            }
+            assertEquals(requests - 1, CmsImageLoader.m_scalingStatistics.getCoalescedWaitCount());
+            scaler.m_release.countDown();
+
+            for (Future<CmsFile> result : results) {
+                assertTrue(Arrays.equals(SCALED, result.get(10, TimeUnit.SECONDS).getContents()));
+            }
+        } finally {
+            scaler.m_release.countDown();
+            requestThreads.shutdown();
+        }
+        assertEquals(1, scaler.m_count.get());
+        assertEquals(1, CmsImageLoader.m_scalingStatistics.getScaleCount());
+        assertTrue(Arrays.equals(SCALED, CmsFileUtil.readFile(new File(cacheName))));
+        assertTrue(CmsImageLoader.m_scalingJobs.isEmpty());
+    }
+
+    /**
+     * Tests that the original image is delivered and not cached if all scaling threads are busy.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testOverload() throws Exception {
+
+        // occupy the scaling thread and the queue
+        final CountDownLatch release = new CountDownLatch(1);
+        Runnable blocker = new Runnable() {
+
+            public void run() {
+
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        m_executor.execute(blocker);
+        m_executor.execute(blocker);
+        try {
+            BlockingScaler scaler = new BlockingScaler();
+            String cacheName = new File(m_cacheFolder, "overload.jpg").getPath();
+            CmsFile file = m_loader.getScaledImageFromJob(createCms(), createImage(), scaler, cacheName);
+
+            assertTrue(Arrays.equals(ORIGINAL, file.getContents()));
+            assertEquals(0, scaler.m_count.get());
+            assertEquals(1, CmsImageLoader.m_scalingStatistics.getRejectedCount());
+            assertFalse(new File(cacheName).exists());
+            assertTrue(CmsImageLoader.m_scalingJobs.isEmpty());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Tests that the original image is delivered if the scaling job takes longer than the timeout.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testTimeout() throws Exception {
+
+        CmsImageLoader.m_scalingTimeout = 100;
+        BlockingScaler scaler = new BlockingScaler();
+        String cacheName = new File(m_cacheFolder, "timeout.jpg").getPath();
+        try {
+            CmsFile file = m_loader.getScaledImageFromJob(createCms(), createImage(), scaler, cacheName);
+            assertTrue(Arrays.equals(ORIGINAL, file.getContents()));
+        } finally {
+            scaler.m_release.countDown();
+        }
+        // the job still finishes and caches the scaled image
+        m_executor.shutdown();
+        assertTrue(m_executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(Arrays.equals(SCALED, CmsFileUtil.readFile(new File(cacheName))));
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        m_cacheFolder = File.createTempFile("imagecache", "");
+        m_cacheFolder.delete();
+        m_cacheFolder.mkdirs();
+        m_executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(1));
+        CmsImageLoader.m_scalingExecutor = m_executor;
+        CmsImageLoader.m_scalingStatistics = new CmsImageScalingStatistics(m_executor);
+        CmsImageLoader.m_scalingTimeout = CmsImageLoader.SCALING_DEFAULT_TIMEOUT;
+        CmsImageLoader.m_vfsDiskCache = new CmsVfsNameBasedDiskCache(m_cacheFolder.getPath(), "/");
+        m_loader = new CmsImageLoader();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        m_executor.shutdownNow();
+        m_loader.destroy();
+        CmsImageLoader.m_scalingStatistics = null;
+        CmsImageLoader.m_scalingTimeout = CmsImageLoader.SCALING_DEFAULT_TIMEOUT;
+        CmsImageLoader.m_scalingJobs.clear();
+        CmsFileUtil.purgeDirectory(m_cacheFolder);
+    }
+
+    /**
+     * Creates a context which can read files with already loaded content.<p>
+     *
+     * @return the context
+     */
+    CmsObject createCms() {
+
+        return new CmsObject(null, null);
+    }
+
+    /**
+     * Creates an image file with the original content.<p>
+     *
+     * @return the image file
+     */
+    CmsFile createImage() {
+
+        long date = 1400000000000L;
+        CmsResource resource = new CmsResource(
+            CmsUUID.getNullUUID(),
+            CmsUUID.getNullUUID(),
+            "/image.jpg",
+            CmsResourceTypePlain.getStaticTypeId(),
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            date,
+            CmsUUID.getNullUUID(),
+            date,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            ORIGINAL.length,
+            date,
+            0);
+        CmsFile file = new CmsFile(resource);
+        file.setContents(ORIGINAL.clone());
+        return file;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.lock;
+
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the lock path index.<p>
+ */
+public class TestCmsLockIndex extends TestCase {
+
+    /** The user id used for the test locks. */
+    private static final CmsUUID USER_ID = new CmsUUID();
+
+    /**
+     * Creates an exclusive test lock for the given path.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the lock
+     */
+    private static CmsLock createLock(String rootPath) {
+
+        return new CmsLock(rootPath, USER_ID, null, CmsLockType.EXCLUSIVE);
+    }
+
+    /**
+     * Returns the resource names of the given locks.<p>
+     *
+     * @param locks the locks
+     *
+     * @return the set of resource names
+     */
+    private static Set<String> names(List<CmsLock> locks) {
+
+        Set<String> result = new HashSet<String>();
+        for (CmsLock lock : locks) {
+            result.add(lock.getResourceName());
+        }
+        return result;
+    }
+
+    /**
+     * Tests the lookup of the parent folder locks.<p>
+     */
+    public void testParentFolderLocks() {
+
+        CmsLockIndex index = new CmsLockIndex();
+        index.put(createLock("/"));
+        index.put(createLock("/sites/"));
+        index.put(createLock("/sites/default/a.html"));
+        index.put(createLock("/sites/default/folder/"));
+        index.put(createLock("/sites/default/folder/b.html"));
+
+        List<CmsLock> parents = index.getParentFolderLocks("/sites/default/folder/b.html");
+        assertEquals(3, parents.size());
+        assertEquals("/sites/default/folder/", parents.get(0).getResourceName());
+        assertEquals("/sites/", parents.get(1).getResourceName());
+        assertEquals("/", parents.get(2).getResourceName());
+
+        // the lock of the resource itself is never included
+        parents = index.getParentFolderLocks("/sites/default/folder/");
+        assertEquals(2, parents.size());
+        assertEquals("/sites/", parents.get(0).getResourceName());
+
+        // file locks are never parent locks
+        assertTrue(names(index.getParentFolderLocks("/sites/default/a.html/x")).contains("/sites/"));
+        assertFalse(names(index.getParentFolderLocks("/sites/default/a.html/x")).contains("/sites/default/a.html"));
+
+        assertTrue(index.getParentFolderLocks("/").isEmpty());
+    }
+
+    /**
+     * Tests the lookup by root path prefix.<p>
+     */
+    public void testPrefixLocks() {
+
+        CmsLockIndex index = new CmsLockIndex();
+        index.put(createLock("/sites/default/a.html"));
+        index.put(createLock("/sites/default/ab.html"));
+        index.put(createLock("/sites/default/folder/"));
+        index.put(createLock("/sites/default/folder/b.html"));
+        index.put(createLock("/sites/default/folder2/c.html"));
+        index.put(createLock("/system/d.html"));
+
+        assertEquals(6, index.getLocksByPrefix("/").size());
+        assertEquals(
+            names(index.getLocksByPrefix("/sites/default/folder/")),
+            new HashSet<String>(Arrays.asList("/sites/default/folder/", "/sites/default/folder/b.html")));
+        assertEquals(
+            names(index.getLocksByPrefix("/sites/default/folder")),
+            new HashSet<String>(
+                Arrays.asList(
+                    "/sites/default/folder/",
+                    "/sites/default/folder/b.html",
+                    "/sites/default/folder2/c.html")));
+        assertEquals(
+            names(index.getLocksByPrefix("/sites/default/a")),
+            new HashSet<String>(Arrays.asList("/sites/default/a.html", "/sites/default/ab.html")));
+        assertTrue(index.getLocksByPrefix("/sites/other/").isEmpty());
+    }
+
+    /**
+     * Tests adding and removing locks.<p>
+     */
+    public void testPutRemove() {
+
+        CmsLockIndex index = new CmsLockIndex();
+        index.put(createLock("/sites/default/folder/"));
+        index.put(createLock("/sites/default/folder/b.html"));
+        index.put(createLock("/sites/default/folder/b.html"));
+        assertEquals(2, index.size());
+
+        // removing a path which is not locked does nothing
+        index.remove("/sites/default/");
+        index.remove("/sites/default/folder/x.html");
+        assertEquals(2, index.size());
+
+        index.remove("/sites/default/folder/");
+        assertEquals(1, index.size());
+        assertTrue(index.getParentFolderLocks("/sites/default/folder/b.html").isEmpty());
+        assertEquals(1, index.getLocksByPrefix("/sites/").size());
+
+        index.remove("/sites/default/folder/b.html");
+        assertEquals(0, index.size());
+        assertTrue(index.getLocksByPrefix("/").isEmpty());
+
+        index.put(createLock("/a/"));
+        index.clear();
+        assertEquals(0, index.size());
+        assertTrue(index.getLocksByPrefix("/").isEmpty());
+    }
+
+    /**
+     * Tests that the parent lock lookup finds the same locks as a linear scan of all locks.<p>
+     */
+    public void testLookupMatchesScan() {
+
+        int count = 10000;
+        CmsLockIndex index = new CmsLockIndex();
+        Map<String, CmsLock> locks = new LinkedHashMap<String, CmsLock>();
+        List<String> paths = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            String folder = "/sites/default/f" + (i % 100) + "/s" + (i % 1000) + "/";
+            CmsLock lock = createLock((i % 10) == 0 ? folder : folder + "r" + i + ".html");
+            locks.put(lock.getResourceName(), lock);
+            index.put(lock);
+            paths.add(folder + "x" + i + ".html");
+        }
+        int hits = 0;
+        for (int i = 0; i < 1000; i++) {
+            String path = paths.get((i * 7919) % count);
+            Set<String> expected = new HashSet<String>();
+            for (CmsLock lock : locks.values()) {
+                String name = lock.getResourceName();
+                if (name.endsWith("/") && path.startsWith(name) && !path.equals(name)) {
+                    expected.add(name);
+                }
+            }
+            Set<String> found = new HashSet<String>();
+            for (CmsLock lock : index.getParentFolderLocks(path)) {
+                found.add(lock.getResourceName());
+            }
+            assertEquals(expected, found);
+            hits += found.size();
+        }
+        assertTrue(hits > 0);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.lock;
+
+import org.opencms.lock.CmsLockTable.CmsLockTableLocks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the striped lock table of the lock manager.<p>
+ */
+public class TestCmsLockTable extends TestCase {
+
+    /**
+     * Locks the given path in a separate thread.<p>
+     *
+     * @param table the lock table
+     * @param rootPath the root path to lock
+     * @param acquired the latch to count down when the lock has been acquired
+     *
+     * @return the started thread, which releases the lock immediately
+     */
+    private static Thread lockInThread(final CmsLockTable table, final String rootPath, final CountDownLatch acquired) {
+
+        Thread thread = new Thread(new Runnable() {
+
+            public void run() {
+
+                CmsLockTableLocks locks = table.lock(Collections.singletonList(rootPath));
+                acquired.countDown();
+                locks.unlock();
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Tests that a lock on a folder blocks the resources below the folder, but not unrelated resources.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFolderExclusion() throws Exception {
+
+        CmsLockTable table = new CmsLockTable(1024);
+        String folder = "/sites/default/a/";
+        // find an unrelated path, which does not share a stripe with the folder
+        String unrelated = null;
+        for (int i = 0; unrelated == null; i++) {
+            String candidate = "/sites/default/b" + i + "/index.html";
+            if ((table.getStripe(candidate) != table.getStripe(folder))
+                && (table.getStripe("/sites/default/b" + i + "/") != table.getStripe(folder))) {
+                unrelated = candidate;
+            }
+        }
+
+        CmsLockTableLocks folderLocks = table.lock(Collections.singletonList(folder));
+        try {
+            CountDownLatch unrelatedAcquired = new CountDownLatch(1);
+            lockInThread(table, unrelated, unrelatedAcquired).join(5000);
+            assertTrue(unrelatedAcquired.await(0, TimeUnit.MILLISECONDS));
+
+            CountDownLatch childAcquired = new CountDownLatch(1);
+            Thread child = lockInThread(table, folder + "index.html", childAcquired);
+            assertFalse(childAcquired.await(200, TimeUnit.MILLISECONDS));
+            folderLocks.unlock();
+            folderLocks = null;
+            assertTrue(childAcquired.await(5, TimeUnit.SECONDS));
+            child.join();
+        } finally {
+            if (folderLocks != null) {
+                folderLocks.unlock();
+            }
+        }
+    }
+
+    /**
+     * Tests that locking several paths, which map to the same stripes in different order, does not dead lock.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testNoDeadlock() throws Exception {
+
+        final CmsLockTable table = new CmsLockTable(4);
+        final CountDownLatch done = new CountDownLatch(2);
+        final List<String> forward = Arrays.asList("/a/x.html", "/b/y.html", "/c/z.html");
+        final List<String> backward = new ArrayList<String>(forward);
+        Collections.reverse(backward);
+        for (final List<String> paths : Arrays.asList(forward, backward)) {
+            new Thread(new Runnable() {
+
+                public void run() {
+
+                    for (int i = 0; i < 10000; i++) {
+                        table.lock(paths).unlock();
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+    }
+}
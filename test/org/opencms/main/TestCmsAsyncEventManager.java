@@ -0,0 +1,304 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the asynchronous event manager and its event queues.<p>
+ */
+public class TestCmsAsyncEventManager extends TestCase {
+
+    /**
+     * Asynchronous listener that blocks until it is released.<p>
+     */
+    private static class BlockingAsyncListener implements I_CmsAsyncEventListener {
+
+        /** The received events. */
+        final List<CmsEvent> m_events = Collections.synchronizedList(new ArrayList<CmsEvent>());
+
+        /** The latch to release the listener. */
+        final CountDownLatch m_release = new CountDownLatch(1);
+
+        /** The latch counted down when the first event has been received. */
+        final CountDownLatch m_started = new CountDownLatch(1);
+
+        /** The threads that delivered the events. */
+        final List<Thread> m_threads = Collections.synchronizedList(new ArrayList<Thread>());
+
+        /**
+         * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+         */
+        public void cmsEvent(CmsEvent event) {
+
+            m_threads.add(Thread.currentThread());
+            m_started.countDown();
+            try {
+                m_release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // ignore
+            }
+            m_events.add(event);
+        }
+    }
+
+    /**
+     * Tests that duplicate flush events are coalesced while they wait in the queue.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCoalescing() throws Exception {
+
+        CmsAsyncEventManager manager = new CmsAsyncEventManager(10);
+        BlockingAsyncListener listener = new BlockingAsyncListener();
+        manager.addCmsEventListener(listener);
+
+        // the first event blocks the worker thread, the next ones wait in the queue
+        manager.fireEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT);
+        assertTrue(listener.m_started.await(10, TimeUnit.SECONDS));
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        manager.fireEvent(I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY);
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        manager.fireEvent(I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY);
+        manager.fireEvent(
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            Collections.<String, Object> singletonMap("key", "value"));
+
+        CmsEventQueue queue = manager.getEventQueues().get(0);
+        assertEquals(3, queue.getSize());
+        assertEquals(2, queue.getCoalescedCount());
+
+        listener.m_release.countDown();
+        manager.shutDown();
+        assertEquals(4, listener.m_events.size());
+        assertEquals(4, queue.getProcessedCount());
+        assertEquals(0, queue.getOverflowCount());
+        for (Thread thread : listener.m_threads) {
+            assertNotSame(Thread.currentThread(), thread);
+        }
+    }
+
+    /**
+     * Tests that an asynchronous listener can remove itself from the event manager while it processes an event.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testListenerRemovesItself() throws Exception {
+
+        final CmsAsyncEventManager manager = new CmsAsyncEventManager(10);
+        final CountDownLatch removed = new CountDownLatch(1);
+        final List<Boolean> interrupted = Collections.synchronizedList(new ArrayList<Boolean>());
+        I_CmsEventListener listener = new I_CmsAsyncEventListener() {
+
+            public void cmsEvent(CmsEvent event) {
+
+                manager.removeCmsEventListener(this);
+                interrupted.add(Boolean.valueOf(Thread.currentThread().isInterrupted()));
+                removed.countDown();
+            }
+        };
+        manager.addCmsEventListener(listener);
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+
+        // the worker thread must not wait for itself
+        assertTrue(removed.await(2, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(Boolean.FALSE), interrupted);
+        assertTrue(manager.getEventQueues().isEmpty());
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        assertEquals(1, interrupted.size());
+    }
+
+    /**
+     * Tests that an event fired by the listener itself while its queue is full is delivered directly.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testListenerFiresWhenQueueFull() throws Exception {
+
+        final CmsAsyncEventManager manager = new CmsAsyncEventManager(1);
+        final List<Integer> types = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch done = new CountDownLatch(3);
+        I_CmsEventListener listener = new I_CmsAsyncEventListener() {
+
+            public void cmsEvent(CmsEvent event) {
+
+                types.add(event.getTypeInteger());
+                if (event.getType() == I_CmsEventListener.EVENT_PUBLISH_PROJECT) {
+                    // the first event is queued, the queue is full for the second one
+                    manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED);
+                    manager.fireEvent(I_CmsEventListener.EVENT_RESOURCES_MODIFIED);
+                }
+                done.countDown();
+            }
+        };
+        manager.addCmsEventListener(listener);
+        manager.fireEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT);
+
+        // the worker thread must not wait for its own queue
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        CmsEventQueue queue = manager.getEventQueues().get(0);
+        assertEquals(1, queue.getOverflowCount());
+        assertEquals(1, queue.getSynchronousCount());
+        assertEquals(
+            Arrays.asList(
+                Integer.valueOf(I_CmsEventListener.EVENT_PUBLISH_PROJECT),
+                Integer.valueOf(I_CmsEventListener.EVENT_RESOURCES_MODIFIED),
+                Integer.valueOf(I_CmsEventListener.EVENT_RESOURCE_MODIFIED)),
+            types);
+        manager.shutDown();
+    }
+
+    /**
+     * Tests that the statistics of the event queues are registered with the platform MBean server.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMBean() throws Exception {
+
+        CmsAsyncEventManager manager = new CmsAsyncEventManager(10);
+        BlockingAsyncListener listener = new BlockingAsyncListener();
+        listener.m_release.countDown();
+        manager.addCmsEventListener(listener);
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName query = new ObjectName("org.opencms:type=EventQueue,*");
+        ObjectName name = null;
+        for (ObjectName queueName : server.queryNames(query, null)) {
+            if (BlockingAsyncListener.class.getName().equals(server.getAttribute(queueName, "ListenerClass"))) {
+                assertNull(name);
+                name = queueName;
+            }
+        }
+        assertNotNull(name);
+        assertEquals(Integer.valueOf(10), server.getAttribute(name, "Capacity"));
+
+        manager.shutDown();
+        assertEquals(1, listener.m_events.size());
+        assertFalse(server.isRegistered(name));
+    }
+
+    /**
+     * Tests that a thread firing an event waits if the queue is full, so the events stay in order.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testOverflow() throws Exception {
+
+        final CmsAsyncEventManager manager = new CmsAsyncEventManager(1);
+        BlockingAsyncListener listener = new BlockingAsyncListener();
+        TestEventListener syncListener = new TestEventListener();
+        manager.addCmsEventListener(listener);
+        manager.addCmsEventListener(syncListener);
+
+        manager.fireEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT);
+        assertTrue(listener.m_started.await(10, TimeUnit.SECONDS));
+        manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED);
+        // the queue is full now, so firing the next event waits until the listener has made room
+        Thread firing = new Thread() {
+
+            @Override
+            public void run() {
+
+                manager.fireEvent(I_CmsEventListener.EVENT_RESOURCES_MODIFIED);
+            }
+        };
+        firing.start();
+        firing.join(300);
+        assertTrue(firing.isAlive());
+        listener.m_release.countDown();
+        firing.join(10000);
+        assertFalse(firing.isAlive());
+
+        CmsEventQueue queue = manager.getEventQueues().get(0);
+        assertEquals(1, queue.getOverflowCount());
+        assertEquals(0, queue.getSynchronousCount());
+        assertTrue(queue.getTotalBlockedTime() >= 200);
+        assertEquals(3, syncListener.getEvents().size());
+
+        manager.shutDown();
+        assertEquals(3, listener.m_events.size());
+        assertEquals(3, queue.getProcessedCount());
+        assertEquals(I_CmsEventListener.EVENT_PUBLISH_PROJECT, listener.m_events.get(0).getType());
+        assertEquals(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, listener.m_events.get(1).getType());
+        assertEquals(I_CmsEventListener.EVENT_RESOURCES_MODIFIED, listener.m_events.get(2).getType());
+        for (Thread thread : listener.m_threads) {
+            assertNotSame(Thread.currentThread(), thread);
+            assertNotSame(firing, thread);
+        }
+        // no events are queued after shutdown
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        assertEquals(4, listener.m_events.size());
+        assertTrue(manager.getEventQueues().isEmpty());
+    }
+
+    /**
+     * Tests that removing a listener processes its remaining events without interrupting it.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRemoveListenerDrainsQueue() throws Exception {
+
+        CmsAsyncEventManager manager = new CmsAsyncEventManager(10);
+        final BlockingAsyncListener listener = new BlockingAsyncListener();
+        manager.addCmsEventListener(listener);
+
+        manager.fireEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT);
+        assertTrue(listener.m_started.await(10, TimeUnit.SECONDS));
+        manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED);
+        new Thread() {
+
+            @Override
+            public void run() {
+
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+                listener.m_release.countDown();
+            }
+        }.start();
+        manager.removeCmsEventListener(listener);
+
+        // both events have been processed before the removal returned, and the listener was not interrupted
+        assertEquals(2, listener.m_events.size());
+        assertEquals(0, listener.m_release.getCount());
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the cache statistics and the monitored cache map.<p>
+ */
+public class TestCmsCacheStatistics extends TestCase {
+
+    /**
+     * Tests that the LRU cache maps record only the entries removed because of their capacity as evictions.<p>
+     */
+    public void testEvictions() {
+
+        CmsCacheStatistics statistics = new CmsCacheStatistics("test");
+        ConcurrentMap<String, String> cache = CmsMemoryMonitor.createLRUCacheMap(10, statistics);
+        for (int i = 0; i < 10; i++) {
+            cache.put("key" + i, "value");
+        }
+        assertEquals(0, statistics.getEvictionCount());
+        for (int i = 10; i < 15; i++) {
+            cache.put("key" + i, "value");
+        }
+        assertEquals(5, statistics.getEvictionCount());
+
+        // replacing, removing and clearing are no evictions
+        cache.put("key14", "other");
+        cache.remove("key13");
+        cache.clear();
+        assertEquals(5, statistics.getEvictionCount());
+    }
+
+    /**
+     * Tests counting hits and misses.<p>
+     */
+    public void testHitsAndMisses() {
+
+        CmsCacheStatistics statistics = new CmsCacheStatistics("test");
+        assertEquals(1.0, statistics.getHitRate(), 0.0);
+        statistics.recordHit();
+        statistics.recordHit();
+        statistics.recordHit();
+        statistics.recordMiss();
+        assertEquals(3, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+        assertEquals(4, statistics.getRequestCount());
+        assertEquals(0.75, statistics.getHitRate(), 0.0);
+        assertEquals(0, statistics.getLoadCount());
+        assertEquals("test", statistics.getName());
+
+        statistics.recordEviction();
+        statistics.recordLoad(1000000);
+        statistics.reset();
+        assertEquals(0, statistics.getRequestCount());
+        assertEquals(0, statistics.getLoadCount());
+        assertEquals(0, statistics.getEvictionCount());
+        assertEquals(0.0, statistics.getAverageLoadTime(), 0.0);
+    }
+
+    /**
+     * Tests measuring the time from a miss until the entry is put into the cache.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testLoads() throws Exception {
+
+        final CmsCacheStatistics statistics = new CmsCacheStatistics("test");
+        statistics.recordLoad(4000000);
+        statistics.recordLoad(-5);
+        assertEquals(2, statistics.getLoadCount());
+        assertEquals(2.0, statistics.getAverageLoadTime(), 0.0);
+        assertEquals(4, statistics.getTotalLoadTime());
+        statistics.reset();
+
+        // a put without a miss is no load
+        statistics.recordPut("a");
+        assertEquals(0, statistics.getLoadCount());
+
+        statistics.recordMiss("a");
+        Thread.sleep(5);
+        statistics.recordPut("a");
+        assertEquals(1, statistics.getLoadCount());
+        assertTrue(statistics.getTotalLoadTime() >= 5);
+        // the load is only recorded once
+        statistics.recordPut("a");
+        assertEquals(1, statistics.getLoadCount());
+
+        // a put of another thread is no load of this thread
+        statistics.recordMiss("b");
+        Thread thread = new Thread() {
+
+            @Override
+            public void run() {
+
+                statistics.recordPut("b");
+            }
+        };
+        thread.start();
+        thread.join();
+        assertEquals(1, statistics.getLoadCount());
+        statistics.recordPut("b");
+        assertEquals(2, statistics.getLoadCount());
+
+        // misses which are never followed by a put are forgotten
+        statistics.recordMiss("c");
+        for (int i = 0; i < 20; i++) {
+            statistics.recordMiss("other" + i);
+        }
+        statistics.recordPut("c");
+        assertEquals(2, statistics.getLoadCount());
+        assertEquals(23, statistics.getMissCount());
+    }
+
+    /**
+     * Tests the accounting of the monitored cache map.<p>
+     */
+    public void testMonitoredCacheMap() {
+
+        CmsCacheStatistics statistics = new CmsCacheStatistics("test");
+        Map<String, String> cache = new CmsMonitoredCacheMap<String, String>(
+            new ConcurrentHashMap<String, String>(),
+            statistics);
+        assertNull(cache.get("a"));
+        cache.put("a", "value");
+        assertEquals("value", cache.get("a"));
+        assertEquals("value", cache.get("a"));
+        assertEquals(2, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+        assertEquals(1, statistics.getLoadCount());
+
+        // putIfAbsent also completes a load
+        assertNull(cache.get("b"));
+        ((ConcurrentMap<String, String>)cache).putIfAbsent("b", "value");
+        assertEquals(2, statistics.getLoadCount());
+
+        // other operations are not counted
+        assertTrue(cache.containsKey("a"));
+        cache.remove("a");
+        assertEquals(1, cache.size());
+        assertEquals(4, statistics.getRequestCount());
+
+        // without load recording, only hits and misses are counted
+        CmsCacheStatistics hitsOnly = new CmsCacheStatistics("hits");
+        Map<String, String> hotCache = new CmsMonitoredCacheMap<String, String>(
+            new ConcurrentHashMap<String, String>(),
+            hitsOnly,
+            false);
+        assertNull(hotCache.get("a"));
+        hotCache.put("a", "value");
+        assertEquals("value", hotCache.get("a"));
+        assertEquals(1, hitsOnly.getHitCount());
+        assertEquals(1, hitsOnly.getMissCount());
+        assertEquals(0, hitsOnly.getLoadCount());
+    }
+}
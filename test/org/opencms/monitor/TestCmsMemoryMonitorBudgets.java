@@ -0,0 +1,82 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.monitor;
+
+import org.opencms.db.CmsCacheSettings;
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
+
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests how the memory monitor adjusts the memory budgets of the caches.<p>
+ */
+public class TestCmsMemoryMonitorBudgets extends TestCase {
+
+    /**
+     * Tests that the budgets are only increased again after several relaxed monitor runs.<p>
+     */
+    public void testGrowBudgetsWithHysteresis() {
+
+        CmsMemoryMonitor monitor = new CmsMemoryMonitor();
+        CmsCacheSettings settings = new CmsCacheSettings();
+        settings.addMemoryBudget(CacheType.RESOURCE.name(), "80000");
+        Map<String, Object> map = monitor.createCacheMap(settings, CacheType.RESOURCE, 100);
+        CmsWeightedCacheMap<?, ?> cache = (CmsWeightedCacheMap<?, ?>)((CmsMonitoredCacheMap<?, ?>)map).getCache();
+
+        assertTrue(monitor.shrinkCacheBudgets());
+        assertTrue(monitor.shrinkCacheBudgets());
+        assertEquals(20000, cache.getBudget());
+
+        // two relaxed runs are not enough
+        assertFalse(monitor.growCacheBudgets(true));
+        assertFalse(monitor.growCacheBudgets(true));
+        // a run near the limit starts over
+        assertFalse(monitor.growCacheBudgets(false));
+        assertFalse(monitor.growCacheBudgets(true));
+        assertFalse(monitor.growCacheBudgets(true));
+        assertEquals(20000, cache.getBudget());
+        assertTrue(monitor.growCacheBudgets(true));
+        assertEquals(25000, cache.getBudget());
+
+        // the next increase again needs several relaxed runs
+        assertFalse(monitor.growCacheBudgets(true));
+        assertFalse(monitor.growCacheBudgets(true));
+        assertEquals(25000, cache.getBudget());
+        assertTrue(monitor.growCacheBudgets(true));
+
+        // a low memory run resets the relaxed runs as well
+        assertFalse(monitor.growCacheBudgets(true));
+        assertTrue(monitor.shrinkCacheBudgets());
+        assertFalse(monitor.growCacheBudgets(true));
+        assertFalse(monitor.growCacheBudgets(true));
+        assertTrue(monitor.growCacheBudgets(true));
+    }
+}
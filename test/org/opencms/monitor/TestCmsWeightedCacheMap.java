@@ -0,0 +1,191 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.monitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the memory budget of the weighted cache map.<p>
+ */
+public class TestCmsWeightedCacheMap extends TestCase {
+
+    /**
+     * Returns the test key with the given number.<p>
+     *
+     * @param i the number
+     *
+     * @return the key
+     */
+    private static String key(int i) {
+
+        return String.format("k%02d", Integer.valueOf(i));
+    }
+
+    /**
+     * Tests that the budget is reduced down to the minimum and increased up to the maximum size.<p>
+     */
+    public void testBudgetLimits() {
+
+        CmsWeightedCacheMap<String, byte[]> cache = new CmsWeightedCacheMap<String, byte[]>(8000, 1, null);
+        assertTrue(cache.shrinkBudget(0.5));
+        assertTrue(cache.shrinkBudget(0.5));
+        assertTrue(cache.shrinkBudget(0.5));
+        assertEquals(1000, cache.getBudget());
+        assertFalse(cache.shrinkBudget(0.5));
+        for (int i = 0; i < 10; i++) {
+            cache.growBudget(1.25);
+        }
+        assertEquals(8000, cache.getBudget());
+        assertFalse(cache.growBudget(1.25));
+    }
+
+    /**
+     * Tests that a reduced budget removes the least recently used entries.<p>
+     */
+    public void testShrinkBudgetEvictsLeastRecentlyUsed() {
+
+        byte[] value = new byte[1000];
+        int weight = CmsWeightedCacheMap.getWeight(key(0), value);
+        CmsCacheStatistics statistics = new CmsCacheStatistics("test");
+        CmsWeightedCacheMap<String, byte[]> cache = new CmsWeightedCacheMap<String, byte[]>(
+            20 * weight,
+            1,
+            statistics);
+        for (int i = 0; i < 16; i++) {
+            cache.put(key(i), value);
+        }
+        // a small reduction does not remove anything, but starts recording the accesses
+        assertTrue(cache.shrinkBudget(0.95));
+        assertEquals(16, cache.size());
+        for (int i : new int[] {8, 9, 10, 11, 12, 13, 14, 15, 0, 1, 2, 3}) {
+            assertNotNull(cache.get(key(i)));
+        }
+
+        // the budget now fits 9 entries, and some more entries than required are removed:
+        // first the ones not used since the first reduction, then the least recently used ones
+        assertTrue(cache.shrinkBudget(0.5));
+        assertEquals(keys(0, 1, 2, 3, 12, 13, 14, 15), sortedKeys(cache));
+        assertEquals(8, statistics.getEvictionCount());
+
+        // new and used entries become the most recently used ones
+        cache.put(key(16), value);
+        assertNotNull(cache.get(key(12)));
+        cache.put(key(17), value);
+        // the writing thread only schedules the removal for the maintenance thread
+        awaitBudget(cache);
+        assertEquals(keys(0, 1, 2, 3, 12, 15, 16, 17), sortedKeys(cache));
+    }
+
+    /**
+     * Tests that the size stored with an entry is subtracted on removal, even if the cached value has changed.<p>
+     */
+    public void testSizeOfChangedValues() {
+
+        CmsWeightedCacheMap<String, List<String>> cache = new CmsWeightedCacheMap<String, List<String>>(
+            1000000,
+            1,
+            null);
+        List<String> value = new ArrayList<String>();
+        value.add("a");
+        cache.put(key(0), value);
+        cache.put(key(1), new ArrayList<String>(value));
+        long size = cache.getSize();
+        assertTrue(size > 0);
+
+        // the value grows after it has been cached, this must not change the size of the cache
+        for (int i = 0; i < 100; i++) {
+            value.add("value" + i);
+        }
+        assertTrue(CmsWeightedCacheMap.getWeight(key(0), value) > (size / 2));
+        assertEquals(size, cache.getSize());
+        assertSame(value, cache.remove(key(0)));
+        assertEquals(size / 2, cache.getSize());
+
+        // replacing, removing with a value and clearing also subtract the stored sizes
+        cache.put(key(0), value);
+        cache.put(key(0), new ArrayList<String>());
+        assertTrue(cache.remove(key(1), value.subList(0, 1)));
+        cache.put(key(2), value);
+        value.clear();
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertTrue(cache.isEmpty());
+    }
+
+    /**
+     * Waits until the maintenance thread has removed the entries exceeding the budget of the given cache.<p>
+     *
+     * @param cache the cache
+     */
+    private void awaitBudget(CmsWeightedCacheMap<?, ?> cache) {
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((cache.getSize() > cache.getBudget()) && (System.currentTimeMillis() < deadline)) {
+            Thread.yield();
+        }
+        assertTrue(cache.getSize() <= cache.getBudget());
+        synchronized (cache) {
+            // the maintenance thread holds the lock of the cache until it has removed all entries
+        }
+    }
+
+    /**
+     * Returns the keys with the given numbers.<p>
+     *
+     * @param numbers the numbers
+     *
+     * @return the keys
+     */
+    private List<String> keys(int... numbers) {
+
+        List<String> result = new ArrayList<String>();
+        for (int i : numbers) {
+            result.add(key(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sorted keys of the given cache.<p>
+     *
+     * @param cache the cache
+     *
+     * @return the sorted keys
+     */
+    private List<String> sortedKeys(CmsWeightedCacheMap<String, ?> cache) {
+
+        List<String> result = new ArrayList<String>(cache.keySet());
+        Collections.sort(result);
+        return result;
+    }
+}
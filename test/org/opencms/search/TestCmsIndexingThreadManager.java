@@ -0,0 +1,344 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.search;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.report.I_CmsReport;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.lucene.document.Document;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the extraction and writer pipeline of the indexing thread manager with a stub index writer.<p>
+ */
+public class TestCmsIndexingThreadManager extends TestCase {
+
+    /**
+     * Index writer which records the modifications and checks that it is only used by a single thread.<p>
+     */
+    static class TestIndexWriter implements I_CmsIndexWriter {
+
+        /** The number of commits. */
+        int m_commits;
+
+        /** The root paths of the deleted documents. */
+        List<String> m_deleted = Collections.synchronizedList(new ArrayList<String>());
+
+        /** The root paths of the updated documents. */
+        List<String> m_updated = Collections.synchronizedList(new ArrayList<String>());
+
+        /** The thread which has used this writer first. */
+        private Thread m_thread;
+
+        /**
+         * @see org.opencms.search.I_CmsIndexWriter#close()
+         */
+        public void close() {
+
+            // nothing to do
+        }
+
+        /**
+         * @see org.opencms.search.I_CmsIndexWriter#commit()
+         */
+        public void commit() {
+
+            checkThread();
+            m_commits++;
+        }
+
+        /**
+         * @see org.opencms.search.I_CmsIndexWriter#deleteDocument(org.opencms.db.CmsPublishedResource)
+         */
+        public void deleteDocument(CmsPublishedResource resource) {
+
+            checkThread();
+            m_deleted.add(resource.getRootPath());
+        }
+
+        /**
+         * @see org.opencms.search.I_CmsIndexWriter#optimize()
+         */
+        public void optimize() {
+
+            // nothing to do
+        }
+
+        /**
+         * @see org.opencms.search.I_CmsIndexWriter#updateDocument(java.lang.String, org.opencms.search.I_CmsSearchDocument)
+         */
+        public void updateDocument(String rootPath, I_CmsSearchDocument document) {
+
+            checkThread();
+            m_updated.add(rootPath);
+        }
+
+        /**
+         * Checks that the writer is always used by the same thread.<p>
+         */
+        private void checkThread() {
+
+            if (m_thread == null) {
+                m_thread = Thread.currentThread();
+            }
+            assertSame(m_thread, Thread.currentThread());
+        }
+    }
+
+    /**
+     * Thread manager which extracts documents with {@link #extract(CmsResource)} instead of the search index.<p>
+     */
+    class TestThreadManager extends CmsIndexingThreadManager {
+
+        /**
+         * Creates a new thread manager.<p>
+         *
+         * @param timeout timeout after a thread is abandoned
+         * @param maxModificationsBeforeCommit the maximum number of modifications before a commit
+         * @param extractionThreads the maximum number of documents extracted at the same time
+         */
+        TestThreadManager(long timeout, int maxModificationsBeforeCommit, int extractionThreads) {
+
+            super(timeout, maxModificationsBeforeCommit, extractionThreads);
+        }
+
+        /**
+         * @see org.opencms.search.CmsIndexingThreadManager#newIndexingThread(org.opencms.search.CmsVfsIndexer, org.opencms.file.CmsResource, int, org.opencms.report.I_CmsReport)
+         */
+        @Override
+        protected CmsIndexingThread newIndexingThread(
+            CmsVfsIndexer indexer,
+            CmsResource res,
+            int count,
+            I_CmsReport report) {
+
+            return new CmsIndexingThread(null, res, null, count, report) {
+
+                @Override
+                protected I_CmsSearchDocument createIndexDocument(
+                    CmsObject cms,
+                    CmsResource resource,
+                    CmsSearchIndex index,
+                    int documentCount,
+                    I_CmsReport documentReport) {
+
+                    return extract(resource);
+                }
+            };
+        }
+    }
+
+    /** The maximum number of documents extracted at the same time. */
+    final AtomicInteger m_maxExtracting = new AtomicInteger();
+
+    /** Signals that the extraction of the hanging document has been interrupted. */
+    CountDownLatch m_interrupted;
+
+    /** The number of documents currently extracted. */
+    private final AtomicInteger m_extracting = new AtomicInteger();
+
+    /**
+     * Returns a test resource.<p>
+     *
+     * @param name the name of the resource
+     *
+     * @return the test resource
+     */
+    private static CmsResource resource(String name) {
+
+        return new CmsResource(
+            new CmsUUID(),
+            new CmsUUID(),
+            "/sites/default/" + name,
+            1,
+            false,
+            0,
+            CmsUUID.getOpenCmsUUID(),
+            CmsResource.STATE_CHANGED,
+            1,
+            CmsUUID.getOpenCmsUUID(),
+            2,
+            CmsUUID.getOpenCmsUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() {
+
+        m_interrupted = new CountDownLatch(1);
+        m_maxExtracting.set(0);
+        m_extracting.set(0);
+    }
+
+    /**
+     * Tests that a document exceeding the timeout is abandoned and removed from the index,
+     * without blocking the other documents.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testAbandonOnTimeout() throws Exception {
+
+        TestIndexWriter writer = new TestIndexWriter();
+        CmsIndexingThreadManager manager = new TestThreadManager(300, 100, 2);
+        CmsVfsIndexer indexer = new CmsVfsIndexer();
+        manager.createIndexingThread(indexer, writer, resource("hang.txt"));
+        for (int i = 0; i < 5; i++) {
+            manager.createIndexingThread(indexer, writer, resource("doc" + i + ".txt"));
+        }
+        manager.finishIndexing();
+
+        // the hanging extraction has been interrupted, and the resource has been removed from the index
+        assertTrue(m_interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("/sites/default/hang.txt"), writer.m_deleted);
+        assertEquals(5, writer.m_updated.size());
+        assertFalse(writer.m_updated.contains("/sites/default/hang.txt"));
+        assertFalse(manager.isRunning());
+    }
+
+    /**
+     * Tests that the number of documents extracted at the same time is bounded,
+     * and that the documents are written and committed by the calling thread.<p>
+     */
+    public void testBoundedExtraction() {
+
+        TestIndexWriter writer = new TestIndexWriter();
+        CmsIndexingThreadManager manager = new TestThreadManager(10000, 4, 3);
+        CmsVfsIndexer indexer = new CmsVfsIndexer();
+        for (int i = 0; i < 12; i++) {
+            manager.createIndexingThread(indexer, writer, resource("doc" + i + ".txt"));
+            assertTrue(m_extracting.get() <= 3);
+        }
+        manager.finishIndexing();
+
+        assertEquals(0, m_extracting.get());
+        assertTrue(m_maxExtracting.get() <= 3);
+        assertEquals(12, writer.m_updated.size());
+        assertTrue(writer.m_deleted.isEmpty());
+        assertEquals(3, writer.m_commits);
+        assertSame(Thread.currentThread(), writer.m_thread);
+    }
+
+    /**
+     * Tests that finishing the indexing in a finally block writes the documents still in the pipeline
+     * when the indexer fails, and releases the extraction threads.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFinishIndexingAfterFailure() throws Exception {
+
+        TestIndexWriter writer = new TestIndexWriter();
+        CmsIndexingThreadManager manager = new TestThreadManager(10000, 100, 4);
+        CmsVfsIndexer indexer = new CmsVfsIndexer();
+        try {
+            for (int i = 0; i < 10; i++) {
+                if (i == 6) {
+                    throw new IllegalStateException("indexer failure");
+                }
+                manager.createIndexingThread(indexer, writer, resource("doc" + i + ".txt"));
+            }
+            fail("indexer failure expected");
+        } catch (IllegalStateException e) {
+            // expected, some documents are still extracted
+            assertTrue(writer.m_updated.size() < 6);
+        } finally {
+            manager.finishIndexing();
+        }
+
+        assertEquals(6, writer.m_updated.size());
+        assertFalse(manager.isRunning());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (hasExtractionThreads() && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(10);
+        }
+        assertFalse(hasExtractionThreads());
+    }
+
+    /**
+     * Extracts the document of a test resource.<p>
+     *
+     * The extraction takes 50 milliseconds, the extraction of the resource <code>hang.txt</code> hangs
+     * until it is interrupted.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the document
+     */
+    I_CmsSearchDocument extract(CmsResource resource) {
+
+        int extracting = m_extracting.incrementAndGet();
+        try {
+            int max;
+            do {
+                max = m_maxExtracting.get();
+            } while ((extracting > max) && !m_maxExtracting.compareAndSet(max, extracting));
+            try {
+                Thread.sleep(resource.getName().equals("hang.txt") ? 60000 : 50);
+            } catch (InterruptedException e) {
+                m_interrupted.countDown();
+            }
+            return new CmsLuceneDocument(new Document());
+        } finally {
+            m_extracting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns if there are threads of an extraction pool alive.<p>
+     *
+     * @return <code>true</code> if there are threads of an extraction pool alive
+     */
+    private boolean hasExtractionThreads() {
+
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("OpenCms: Indexing worker") && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
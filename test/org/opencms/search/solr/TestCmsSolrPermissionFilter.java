@@ -0,0 +1,244 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.search.solr;
+
+import org.opencms.file.CmsGroup;
+import org.opencms.file.CmsUser;
+import org.opencms.search.fields.CmsSearchField;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.CmsRole;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.Query;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the Solr filter query for the read permissions against the indexed access control fields.<p>
+ *
+ * The filter query is evaluated by Lucene on an in memory index of a single document,
+ * and compared with the permissions calculated by the access control list.<p>
+ */
+public class TestCmsSolrPermissionFilter extends TestCase {
+
+    /** The analyzer for the indexed principal ids. */
+    private Analyzer m_analyzer;
+
+    /** A group of the user. */
+    private CmsGroup m_editors;
+
+    /** The filter query of the user. */
+    private Query m_filter;
+
+    /** A group the user does not belong to. */
+    private CmsGroup m_guests;
+
+    /** A group of the user. */
+    private CmsGroup m_users;
+
+    /** The user. */
+    private CmsUser m_user;
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        m_analyzer = new WhitespaceAnalyzer();
+        m_user = createUser("user");
+        m_users = createGroup("Users");
+        m_editors = createGroup("Editors");
+        m_guests = createGroup("Guests");
+        m_filter = new QueryParser(CmsSearchField.FIELD_ACL_READ_ALLOWED, m_analyzer).parse(
+            CmsSolrIndex.getPermissionFilterQuery(m_user, getGroups(), getRoles()));
+    }
+
+    /**
+     * Tests that the entry for all others only applies if there is no entry for any principal of the user.<p>
+     */
+    public void testAllOthers() {
+
+        // all others may read
+        CmsAccessControlList acl = new CmsAccessControlList();
+        acl.add(entry(CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID, CmsPermissionSet.PERMISSION_READ, 0));
+        acl.add(entry(m_guests.getId(), 0, CmsPermissionSet.PERMISSION_READ));
+        assertReadable(true, acl);
+
+        // an entry of a group of the user without read permission overrides the entry for all others
+        acl.add(entry(m_users.getId(), CmsPermissionSet.PERMISSION_WRITE, 0));
+        assertReadable(false, acl);
+
+        // all others may not read, but the user may
+        acl = new CmsAccessControlList();
+        acl.add(entry(CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID, 0, CmsPermissionSet.PERMISSION_READ));
+        assertReadable(false, acl);
+        acl.add(entry(m_user.getId(), CmsPermissionSet.PERMISSION_READ, 0));
+        assertReadable(true, acl);
+
+        // without any entry nobody may read
+        assertReadable(false, new CmsAccessControlList());
+    }
+
+    /**
+     * Tests that a denied read permission of any principal of the user overrides all allowed read permissions.<p>
+     */
+    public void testDenyOverridesAllow() {
+
+        CmsAccessControlList acl = new CmsAccessControlList();
+        acl.add(entry(m_user.getId(), CmsPermissionSet.PERMISSION_READ, 0));
+        acl.add(entry(m_users.getId(), CmsPermissionSet.PERMISSION_READ, 0));
+        assertReadable(true, acl);
+
+        acl.add(entry(m_editors.getId(), CmsPermissionSet.PERMISSION_WRITE, CmsPermissionSet.PERMISSION_READ));
+        assertReadable(false, acl);
+
+        // the entry for all others does not apply, since the user has entries
+        acl.add(entry(CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID, CmsPermissionSet.PERMISSION_READ, 0));
+        assertReadable(false, acl);
+
+        // a denied permission of a principal the user does not belong to is ignored
+        acl = new CmsAccessControlList();
+        acl.add(entry(m_editors.getId(), CmsPermissionSet.PERMISSION_READ, 0));
+        acl.add(entry(m_guests.getId(), 0, CmsPermissionSet.PERMISSION_READ));
+        assertReadable(true, acl);
+    }
+
+    /**
+     * Tests the read permissions granted and denied to groups and roles of the user.<p>
+     */
+    public void testGroupAndRolePrincipals() {
+
+        CmsAccessControlList acl = new CmsAccessControlList();
+        acl.add(entry(m_guests.getId(), CmsPermissionSet.PERMISSION_READ, 0));
+        assertReadable(false, acl);
+        acl.add(entry(m_editors.getId(), CmsPermissionSet.PERMISSION_READ, 0));
+        assertReadable(true, acl);
+
+        acl = new CmsAccessControlList();
+        acl.add(entry(CmsRole.WORKPLACE_MANAGER.getId(), CmsPermissionSet.PERMISSION_READ, 0));
+        assertReadable(false, acl);
+        acl.add(entry(CmsRole.ELEMENT_AUTHOR.getId(), CmsPermissionSet.PERMISSION_READ, 0));
+        assertReadable(true, acl);
+        acl.add(entry(CmsRole.WORKPLACE_USER.getId(), 0, CmsPermissionSet.PERMISSION_READ));
+        assertReadable(false, acl);
+    }
+
+    /**
+     * Asserts that the filter query finds the document with the given access control list if and only if
+     * the access control list allows the user to read, and that this is the expected result.<p>
+     *
+     * @param expected the expected result
+     * @param acl the access control list
+     */
+    private void assertReadable(boolean expected, CmsAccessControlList acl) {
+
+        // the effective permissions are the allowed permissions which are not denied
+        int permissions = acl.getPermissions(m_user, getGroups(), getRoles()).getPermissions();
+        assertEquals(expected, (permissions & CmsPermissionSet.PERMISSION_READ) > 0);
+
+        MemoryIndex index = new MemoryIndex();
+        Map<String, List<String>> fields = CmsSolrFieldConfiguration.getPermissionFields(acl);
+        for (Map.Entry<String, List<String>> field : fields.entrySet()) {
+            index.addField(field.getKey(), CmsStringUtil.listAsString(field.getValue(), " "), m_analyzer);
+        }
+        assertEquals(expected, index.search(m_filter) > 0.0f);
+    }
+
+    /**
+     * Creates a test group.<p>
+     *
+     * @param name the group name
+     *
+     * @return the group
+     */
+    private CmsGroup createGroup(String name) {
+
+        return new CmsGroup(new CmsUUID(), CmsUUID.getNullUUID(), name, "", 0);
+    }
+
+    /**
+     * Creates a test user.<p>
+     *
+     * @param name the user name
+     *
+     * @return the user
+     */
+    private CmsUser createUser(String name) {
+
+        return new CmsUser(new CmsUUID(), name, "", "", "", "", 0, I_CmsPrincipal.FLAG_ENABLED, 0, null);
+    }
+
+    /**
+     * Creates an access control entry.<p>
+     *
+     * @param principal the principal id
+     * @param allowed the allowed permissions
+     * @param denied the denied permissions
+     *
+     * @return the access control entry
+     */
+    private CmsAccessControlEntry entry(CmsUUID principal, int allowed, int denied) {
+
+        return new CmsAccessControlEntry(null, principal, allowed, denied, 0);
+    }
+
+    /**
+     * Returns the groups of the user.<p>
+     *
+     * @return the groups of the user
+     */
+    private List<CmsGroup> getGroups() {
+
+        return Arrays.asList(m_users, m_editors);
+    }
+
+    /**
+     * Returns the roles of the user.<p>
+     *
+     * @return the roles of the user
+     */
+    private List<CmsRole> getRoles() {
+
+        return Collections.unmodifiableList(Arrays.asList(CmsRole.WORKPLACE_USER, CmsRole.ELEMENT_AUTHOR));
+    }
+}
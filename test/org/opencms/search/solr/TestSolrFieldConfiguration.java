@@ -42,6 +42,7 @@ import org.opencms.main.OpenCms;
 import org.opencms.report.CmsShellReport;
 import org.opencms.search.CmsSearchException;
 import org.opencms.search.CmsSearchResource;
+import org.opencms.search.I_CmsSearchDocument;
 import org.opencms.search.documents.CmsDocumentDependency;
 import org.opencms.search.fields.CmsSearchField;
 import org.opencms.security.CmsRoleViolationException;
@@ -99,6 +100,7 @@ public class TestSolrFieldConfiguration extends OpenCmsTestCase {
         suite.addTest(new TestSolrFieldConfiguration("testLocaleDependenciesField"));
         suite.addTest(new TestSolrFieldConfiguration("testLuceneMigration"));
         suite.addTest(new TestSolrFieldConfiguration("testOfflineIndexAccess"));
+        suite.addTest(new TestSolrFieldConfiguration("testPermissionFields"));
 
         // this test case must be the last one
         suite.addTest(new TestSolrFieldConfiguration("testIngnoreMaxRows"));
@@ -640,4 +642,35 @@ public class TestSolrFieldConfiguration extends OpenCmsTestCase {
         echo("OK, search could not be executed and the cause was a CmsRoleViolationException.");
         solrIndex.setEnabled(false);
     }
+
+    /**
+     * Tests that the read permissions are only indexed if the permission filter of the index is enabled.<p>
+     *
+     * @throws Throwable if sth. goes wrong
+     */
+    public void testPermissionFields() throws Throwable {
+
+        echo("Testing the read permission fields with and without permission filter.");
+        CmsObject cms = getCmsObject();
+        CmsResource resource = cms.readResource("/");
+        CmsSolrIndex solrIndex = OpenCms.getSearchManager().getIndexSolr(AllTests.SOLR_ONLINE);
+        boolean permissionFilter = solrIndex.isPermissionFilter();
+        try {
+            solrIndex.setPermissionFilter(false);
+            I_CmsSearchDocument document = solrIndex.getFieldConfiguration().createDocument(
+                cms,
+                resource,
+                solrIndex,
+                null);
+            assertNull(document.getFieldValueAsString(CmsSearchField.FIELD_ACL_PRINCIPALS));
+            assertNull(document.getFieldValueAsString(CmsSearchField.FIELD_ACL_READ_ALLOWED));
+            assertNull(document.getFieldValueAsString(CmsSearchField.FIELD_ACL_READ_DENIED));
+
+            solrIndex.setPermissionFilter(true);
+            document = solrIndex.getFieldConfiguration().createDocument(cms, resource, solrIndex, null);
+            assertNotNull(document.getFieldValueAsString(CmsSearchField.FIELD_ACL_READ_ALLOWED));
+        } finally {
+            solrIndex.setPermissionFilter(permissionFilter);
+        }
+    }
 }
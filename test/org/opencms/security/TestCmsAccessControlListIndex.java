@@ -0,0 +1,106 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.security;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the index of inherited access control lists.<p>
+ */
+public class TestCmsAccessControlListIndex extends TestCase {
+
+    /**
+     * Tests that the index is cleared when the maximum size is exceeded.<p>
+     */
+    public void testMaxSize() {
+
+        CmsAccessControlListIndex index = new CmsAccessControlListIndex(2);
+        index.put("/a/", true, new CmsAccessControlList());
+        index.put("/b/", true, new CmsAccessControlList());
+        assertEquals(2, index.size());
+        index.put("/c/", true, new CmsAccessControlList());
+        assertEquals(1, index.size());
+        assertNull(index.get("/a/", true));
+        assertNotNull(index.get("/c/", true));
+    }
+
+    /**
+     * Tests the lookup of the lists inherited by files and sub folders.<p>
+     */
+    public void testPutAndGet() {
+
+        CmsAccessControlListIndex index = new CmsAccessControlListIndex(100);
+        CmsAccessControlList filesAcl = new CmsAccessControlList();
+        CmsAccessControlList foldersAcl = new CmsAccessControlList();
+        index.put("/sites/default/", false, filesAcl);
+        index.put("/sites/default/", true, foldersAcl);
+        index.put("/", true, new CmsAccessControlList());
+
+        assertSame(filesAcl, index.get("/sites/default/", false));
+        assertSame(foldersAcl, index.get("/sites/default/", true));
+        assertNull(index.get("/sites/", true));
+        assertNull(index.get("/sites/default/a/", true));
+        assertNotNull(index.get("/", true));
+        assertNull(index.get("/", false));
+        assertEquals(3, index.size());
+
+        // replacing a list does not change the size
+        index.put("/sites/default/", false, new CmsAccessControlList());
+        assertEquals(3, index.size());
+    }
+
+    /**
+     * Tests that removing a subtree keeps the lists of other folders.<p>
+     */
+    public void testRemoveSubtree() {
+
+        CmsAccessControlListIndex index = new CmsAccessControlListIndex(100);
+        index.put("/sites/", true, new CmsAccessControlList());
+        index.put("/sites/default/", true, new CmsAccessControlList());
+        index.put("/sites/default/a/", false, new CmsAccessControlList());
+        index.put("/sites/default/a/b/", true, new CmsAccessControlList());
+        index.put("/sites/default/ab/", true, new CmsAccessControlList());
+        index.put("/sites/other/", false, new CmsAccessControlList());
+
+        // files are not part of the index
+        index.removeSubtree("/sites/default/a/file.html");
+        assertEquals(6, index.size());
+
+        index.removeSubtree("/sites/default/a/");
+        assertNull(index.get("/sites/default/a/", false));
+        assertNull(index.get("/sites/default/a/b/", true));
+        assertNotNull(index.get("/sites/default/ab/", true));
+        assertNotNull(index.get("/sites/default/", true));
+        assertNotNull(index.get("/sites/other/", false));
+        assertEquals(4, index.size());
+
+        index.removeSubtree("/");
+        assertEquals(0, index.size());
+        assertNull(index.get("/sites/", true));
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.security;
+
+import org.opencms.file.CmsGroup;
+import org.opencms.file.CmsUser;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the evaluation of access control lists with compiled principal sets.<p>
+ */
+public class TestCmsPrincipalSet extends TestCase {
+
+    /**
+     * Creates a test group.<p>
+     *
+     * @param name the group name
+     *
+     * @return the group
+     */
+    private static CmsGroup createGroup(String name) {
+
+        return new CmsGroup(new CmsUUID(), CmsUUID.getNullUUID(), name, "", 0);
+    }
+
+    /**
+     * Creates a test user.<p>
+     *
+     * @param name the user name
+     *
+     * @return the user
+     */
+    private static CmsUser createUser(String name) {
+
+        return new CmsUser(new CmsUUID(), name, "", "", "", "", 0, I_CmsPrincipal.FLAG_ENABLED, 0, null);
+    }
+
+    /**
+     * Tests that clearing the interned ids keeps the evaluation correct for old and new principal sets.<p>
+     */
+    public void testClearIndex() {
+
+        CmsUser user = createUser("clearuser");
+        List<CmsGroup> groups = Arrays.asList(createGroup("cleargroup0"), createGroup("cleargroup1"));
+        List<CmsRole> roles = Collections.singletonList(CmsRole.WORKPLACE_USER);
+        CmsAccessControlList acl = new CmsAccessControlList();
+        acl.add(new CmsAccessControlEntry(null, groups.get(1).getId(), CmsPermissionSet.PERMISSION_WRITE, 0, 0));
+        acl.add(
+            new CmsAccessControlEntry(null, CmsRole.WORKPLACE_USER.getId(), CmsPermissionSet.PERMISSION_READ, 0, 0));
+        CmsPermissionSetCustom expected = acl.getPermissions(user, groups, roles);
+
+        CmsPrincipalSet oldPrincipals = new CmsPrincipalSet(user, groups, roles);
+        assertEquals(expected, acl.getPermissions(oldPrincipals));
+        CmsPrincipalSet.clearIndex();
+        assertEquals(0, CmsPrincipalSet.getCurrentIndex().size());
+        // the new principal set gets other indexes for the same groups
+        CmsPrincipalSet newPrincipals = new CmsPrincipalSet(user, Collections.singletonList(groups.get(1)), roles);
+        assertEquals(expected, acl.getPermissions(newPrincipals));
+        assertEquals(expected, acl.getPermissions(oldPrincipals));
+        assertEquals(expected, acl.getPermissions(newPrincipals));
+    }
+
+    /**
+     * Tests that a list compiled before a group has been interned sees the group afterwards.<p>
+     */
+    public void testGroupInternedAfterCompile() {
+
+        CmsUser user = createUser("lateuser");
+        CmsGroup group = createGroup("lategroup");
+        CmsAccessControlList acl = new CmsAccessControlList();
+        acl.add(new CmsAccessControlEntry(null, group.getId(), CmsPermissionSet.PERMISSION_WRITE, 0, 0));
+        acl.add(new CmsAccessControlEntry(null, CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID, 0, 0, 0));
+
+        // compile the list while the group is not interned
+        CmsPrincipalSet otherPrincipals = new CmsPrincipalSet(user, null, null);
+        assertEquals(new CmsPermissionSetCustom(0, 0), acl.getPermissions(otherPrincipals));
+
+        List<CmsGroup> groups = Collections.singletonList(group);
+        CmsPrincipalSet principals = new CmsPrincipalSet(user, groups, null);
+        assertEquals(acl.getPermissions(user, groups, null), acl.getPermissions(principals));
+        assertTrue(acl.getPermissions(principals).requiresWritePermission());
+    }
+
+    /**
+     * Tests that the evaluation with a principal set has the same result as with the group and role lists.<p>
+     */
+    public void testSameResult() {
+
+        Random random = new Random(42);
+        List<CmsGroup> allGroups = new ArrayList<CmsGroup>();
+        for (int i = 0; i < 20; i++) {
+            allGroups.add(createGroup("group" + i));
+        }
+        List<CmsRole> roles = Arrays.asList(CmsRole.WORKPLACE_USER, CmsRole.ELEMENT_AUTHOR);
+        CmsUser user = createUser("user");
+        List<CmsGroup> groups = allGroups.subList(0, 5);
+        CmsPrincipalSet principals = new CmsPrincipalSet(user, groups, roles);
+
+        for (int i = 0; i < 1000; i++) {
+            CmsAccessControlList acl = new CmsAccessControlList();
+            int entries = random.nextInt(6);
+            for (int j = 0; j < entries; j++) {
+                CmsUUID principal;
+                switch (random.nextInt(4)) {
+                    case 0:
+                        principal = user.getId();
+                        break;
+                    case 1:
+                        principal = CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID;
+                        break;
+                    case 2:
+                        principal = roles.get(random.nextInt(roles.size())).getId();
+                        break;
+                    default:
+                        principal = allGroups.get(random.nextInt(allGroups.size())).getId();
+                }
+                acl.add(new CmsAccessControlEntry(null, principal, random.nextInt(32), random.nextInt(32), 0));
+            }
+            CmsPermissionSetCustom expected = acl.getPermissions(user, groups, roles);
+            CmsPermissionSetCustom result = acl.getPermissions(principals);
+            assertEquals(expected, result);
+            // a second evaluation uses the compiled list
+            assertEquals(expected, acl.getPermissions(principals));
+            // changes of the list are seen
+            acl.add(new CmsAccessControlEntry(null, groups.get(0).getId(), CmsPermissionSet.PERMISSION_WRITE, 0, 0));
+            assertEquals(acl.getPermissions(user, groups, roles), acl.getPermissions(principals));
+        }
+    }
+
+    /**
+     * Tests that navigation style checks of many resources give the same result with a principal set.<p>
+     */
+    public void testBulkPermissionCheck() {
+
+        List<CmsGroup> allGroups = new ArrayList<CmsGroup>();
+        for (int i = 0; i < 50; i++) {
+            allGroups.add(createGroup("bulkgroup" + i));
+        }
+        List<CmsGroup> groups = new ArrayList<CmsGroup>(allGroups.subList(0, 20));
+        Collections.shuffle(groups, new Random(7));
+        List<CmsRole> roles = Arrays.asList(CmsRole.WORKPLACE_USER, CmsRole.ELEMENT_AUTHOR, CmsRole.EDITOR);
+        CmsUser user = createUser("bulkuser");
+
+        // 10000 resources, sharing the lists of 100 folders like in a navigation
+        int count = 10000;
+        List<CmsAccessControlList> folderAcls = new ArrayList<CmsAccessControlList>();
+        Random random = new Random(11);
+        for (int i = 0; i < 100; i++) {
+            CmsAccessControlList acl = new CmsAccessControlList();
+            for (int j = 0; j < 4; j++) {
+                acl.add(
+                    new CmsAccessControlEntry(
+                        null,
+                        allGroups.get(random.nextInt(allGroups.size())).getId(),
+                        CmsPermissionSet.PERMISSION_READ | CmsPermissionSet.PERMISSION_VIEW,
+                        0,
+                        0));
+            }
+            folderAcls.add(acl);
+        }
+
+        CmsPrincipalSet principals = new CmsPrincipalSet(user, groups, roles);
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            CmsAccessControlList acl = folderAcls.get(i % folderAcls.size());
+            CmsPermissionSetCustom expected = acl.getPermissions(user, groups, roles);
+            assertEquals(expected, acl.getPermissions(principals));
+            if (expected.requiresViewPermission()) {
+                hits++;
+            }
+        }
+        assertTrue(hits > 0);
+    }
+
+    /**
+     * Tests that the ids of users with access control entries are not interned.<p>
+     */
+    public void testUserIdsNotInterned() {
+
+        CmsPrincipalSet.clearIndex();
+        CmsPrincipalSet principals = new CmsPrincipalSet(
+            createUser("principaluser"),
+            Collections.singletonList(createGroup("principalgroup")),
+            null);
+        int size = CmsPrincipalSet.getCurrentIndex().size();
+        assertEquals(1, size);
+        for (int i = 0; i < 100; i++) {
+            CmsAccessControlList acl = new CmsAccessControlList();
+            CmsUUID userId = createUser("acluser" + i).getId();
+            acl.add(new CmsAccessControlEntry(null, userId, CmsPermissionSet.PERMISSION_READ, 0, 0));
+            acl.getPermissions(principals);
+        }
+        assertEquals(size, CmsPrincipalSet.getCurrentIndex().size());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.site;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the lookup index for the configured sites.<p>
+ */
+public class TestCmsSiteIndex extends TestCase {
+
+    /**
+     * Tests the lookup of site roots that are not below the "/sites/" folder.<p>
+     */
+    public void testAdditionalSiteRoots() {
+
+        Map<String, CmsSite> siteRootSites = new HashMap<String, CmsSite>();
+        for (String siteRoot : new String[] {"/sites/default", "/shared", "/system/a", "/system/a/b"}) {
+            siteRootSites.put(siteRoot, new CmsSite(siteRoot, CmsSiteMatcher.DEFAULT_MATCHER));
+        }
+        CmsSiteIndex index = new CmsSiteIndex(new HashMap<CmsSiteMatcher, CmsSite>(), siteRootSites, "/sites/");
+
+        assertEquals("/shared", index.getAdditionalSiteRoot("/shared/"));
+        assertEquals("/shared", index.getAdditionalSiteRoot("/shared/folder/index.html"));
+        assertEquals("/system/a", index.getAdditionalSiteRoot("/system/a/c/"));
+        assertEquals("/system/a/b", index.getAdditionalSiteRoot("/system/a/b/c/"));
+        assertNull(index.getAdditionalSiteRoot("/sharedfolder/"));
+        assertNull(index.getAdditionalSiteRoot("/system/"));
+        assertNull(index.getAdditionalSiteRoot("/sites/default/"));
+    }
+
+    /**
+     * Tests the lookup of site matchers and their sites.<p>
+     */
+    public void testMatchers() {
+
+        CmsSiteMatcher matcher = new CmsSiteMatcher("http://www.example.com", 60);
+        CmsSiteMatcher alias = new CmsSiteMatcher("https://example.com:8443");
+        CmsSite site = new CmsSite("/sites/default", matcher);
+        Map<CmsSiteMatcher, CmsSite> siteMatcherSites = new HashMap<CmsSiteMatcher, CmsSite>();
+        siteMatcherSites.put(matcher, site);
+        siteMatcherSites.put(alias, site);
+        Map<String, CmsSite> siteRootSites = new HashMap<String, CmsSite>();
+        siteRootSites.put(site.getSiteRoot(), site);
+        CmsSiteIndex index = new CmsSiteIndex(siteMatcherSites, siteRootSites, "/sites/");
+
+        CmsSiteMatcher request = new CmsSiteMatcher("http", "WWW.Example.com", 80);
+        assertSame(matcher, index.getMatcher(request));
+        assertEquals(60000, index.getMatcher(request).getTimeOffset());
+        assertSame(site, index.getSite(request));
+        assertSame(site, index.getSite(new CmsSiteMatcher("https", "example.com", 8443)));
+        assertNull(index.getSite(new CmsSiteMatcher("http", "example.com", 8443)));
+        assertNull(index.getMatcher(new CmsSiteMatcher("https", "www.example.com", 443)));
+
+        assertTrue(index.isBuiltFrom(siteMatcherSites, siteRootSites));
+        assertFalse(index.isBuiltFrom(new HashMap<CmsSiteMatcher, CmsSite>(siteMatcherSites), siteRootSites));
+    }
+}
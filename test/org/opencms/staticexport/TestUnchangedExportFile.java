@@ -0,0 +1,119 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.util.CmsUUID;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the detection of unchanged static export files.<p>
+ */
+public class TestUnchangedExportFile extends TestCase {
+
+    /**
+     * Tests that only an export file with exactly the same content is detected as unchanged.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testUnchangedExportFile() throws Exception {
+
+        CmsStaticExportManager manager = new CmsStaticExportManager();
+        File exportFile = File.createTempFile("export", ".html");
+        try {
+            byte[] content = "<html><body>content</body></html>".getBytes("UTF-8");
+            FileOutputStream out = new FileOutputStream(exportFile);
+            out.write(content);
+            out.close();
+
+            assertTrue(manager.isUnchangedExportFile(exportFile, content.clone()));
+            // same size, but different content
+            assertFalse(
+                manager.isUnchangedExportFile(exportFile, "<html><body>CONTENT</body></html>".getBytes("UTF-8")));
+            // different size
+            assertFalse(manager.isUnchangedExportFile(exportFile, "<html></html>".getBytes("UTF-8")));
+            // missing file
+            assertFalse(manager.isUnchangedExportFile(new File(exportFile.getPath() + ".missing"), content));
+        } finally {
+            exportFile.delete();
+        }
+    }
+
+    /**
+     * Tests that the modification date of an unchanged export file is still updated.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testUnchangedExportFileDate() throws Exception {
+
+        CmsStaticExportManager manager = new CmsStaticExportManager();
+        File exportFile = File.createTempFile("export", ".html");
+        try {
+            byte[] content = "<html><body>content</body></html>".getBytes("UTF-8");
+            FileOutputStream out = new FileOutputStream(exportFile);
+            out.write(content);
+            out.close();
+            assertTrue(exportFile.setLastModified(1000000000000L));
+
+            long dateLastModified = 1400000000000L;
+            CmsResource resource = new CmsResource(
+                CmsUUID.getNullUUID(),
+                CmsUUID.getNullUUID(),
+                "/" + exportFile.getName(),
+                CmsResourceTypePlain.getStaticTypeId(),
+                false,
+                0,
+                CmsUUID.getNullUUID(),
+                CmsResource.STATE_UNCHANGED,
+                dateLastModified,
+                CmsUUID.getNullUUID(),
+                dateLastModified,
+                CmsUUID.getNullUUID(),
+                CmsResource.DATE_RELEASED_DEFAULT,
+                CmsResource.DATE_EXPIRED_DEFAULT,
+                1,
+                content.length,
+                dateLastModified,
+                0);
+            manager.writeResource(
+                null,
+                exportFile.getParentFile().getPath() + "/",
+                "/" + exportFile.getName(),
+                resource,
+                content.clone());
+            assertEquals(dateLastModified, exportFile.lastModified());
+        } finally {
+            exportFile.delete();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.test.performance;
+
+import org.opencms.lock.CmsLock;
+import org.opencms.lock.CmsLockIndex;
+import org.opencms.lock.CmsLockType;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Benchmark comparing the parent folder lock lookup of <code>CmsLockManager.getLock()</code> with a linear scan
+ * of all cached locks and with the {@link CmsLockIndex}.<p>
+ *
+ * The linear scan is the lookup of the lock manager before the index was added: it copies all cached locks
+ * and checks every lock. The looked up resources are mostly not locked themselves, so every lookup has to
+ * search the parent folder locks. Run with <code>java org.opencms.test.performance.CmsLockIndexBenchmark
+ * [lookups]</code>.<p>
+ */
+public final class CmsLockIndexBenchmark {
+
+    /** The numbers of cached locks to measure. */
+    private static final int[] LOCK_COUNTS = new int[] {10000, 100000};
+
+    /**
+     * Hide constructor.<p>
+     */
+    private CmsLockIndexBenchmark() {
+
+        // main class only
+    }
+
+    /**
+     * Runs the benchmark.<p>
+     *
+     * @param args optional: the number of measured lookups
+     */
+    public static void main(String[] args) {
+
+        int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        CmsUUID userId = new CmsUUID();
+        for (int count : LOCK_COUNTS) {
+            Random random = new Random(17);
+            Map<String, CmsLock> locks = new ConcurrentHashMap<String, CmsLock>();
+            CmsLockIndex index = new CmsLockIndex();
+            for (int i = 0; i < count; i++) {
+                String folder = "/sites/default/f" + (i % 100) + "/s" + (i % 1000) + "/";
+                String path = (i % 10) == 0 ? folder : folder + "r" + i + ".html";
+                CmsLock lock = new CmsLock(path, userId, null, CmsLockType.EXCLUSIVE);
+                locks.put(path, lock);
+                index.put(lock);
+            }
+            List<String> paths = new ArrayList<String>(lookups);
+            for (int i = 0; i < lookups; i++) {
+                int folder = random.nextInt(2000);
+                paths.add("/sites/default/f" + (folder % 100) + "/s" + folder + "/unlocked" + i + ".html");
+            }
+
+            // warm up both lookups first
+            runLinearScan(locks, paths);
+            runIndex(index, paths);
+            long linear = runLinearScan(locks, paths);
+            long indexed = runIndex(index, paths);
+            System.out.println(
+                String.format(
+                    "%,7d locks: linear scan %,12.1f us/lookup, index %,8.2f us/lookup",
+                    Integer.valueOf(count),
+                    Double.valueOf(linear / (1000.0 * lookups)),
+                    Double.valueOf(indexed / (1000.0 * lookups))));
+        }
+    }
+
+    /**
+     * Looks up the nearest parent folder lock of the given paths with the lock index.<p>
+     *
+     * @param index the lock index
+     * @param paths the root paths to look up
+     *
+     * @return the time used in nanoseconds
+     */
+    private static long runIndex(CmsLockIndex index, List<String> paths) {
+
+        int found = 0;
+        long start = System.nanoTime();
+        for (String path : paths) {
+            Iterator<CmsLock> itLocks = index.getParentFolderLocks(path).iterator();
+            while (itLocks.hasNext()) {
+                if (!itLocks.next().getEditionLock().isUnlocked()) {
+                    found++;
+                    break;
+                }
+            }
+        }
+        long time = System.nanoTime() - start;
+        if (found < 0) {
+            // keeps the result alive
+            System.out.println(found);
+        }
+        return time;
+    }
+
+    /**
+     * Looks up a parent folder lock of the given paths with a linear scan of all locks.<p>
+     *
+     * @param locks the locks by root path
+     * @param paths the root paths to look up
+     *
+     * @return the time used in nanoseconds
+     */
+    private static long runLinearScan(Map<String, CmsLock> locks, List<String> paths) {
+
+        int found = 0;
+        long start = System.nanoTime();
+        for (String path : paths) {
+            Iterator<CmsLock> itLocks = new ArrayList<CmsLock>(locks.values()).iterator();
+            while (itLocks.hasNext()) {
+                CmsLock lock = itLocks.next();
+                if (lock.getResourceName().endsWith("/")
+                    && path.startsWith(lock.getResourceName())
+                    && !path.equals(lock.getResourceName())
+                    && !lock.getEditionLock().isUnlocked()) {
+                    found++;
+                    break;
+                }
+            }
+        }
+        long time = System.nanoTime() - start;
+        if (found < 0) {
+            // keeps the result alive
+            System.out.println(found);
+        }
+        return time;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.test.performance;
+
+import org.opencms.lock.CmsLock;
+import org.opencms.lock.CmsLockIndex;
+import org.opencms.lock.CmsLockTable;
+import org.opencms.lock.CmsLockTable.CmsLockTableLocks;
+import org.opencms.lock.CmsLockType;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multi-threaded throughput benchmark comparing the serialization of lock operations with a single global monitor
+ * and with the striped {@link CmsLockTable} of the lock manager.<p>
+ *
+ * Every operation does the check-then-act sequence of the lock manager: it checks the lock of the resource and
+ * the locks of its parent folders (or the locks below a folder), and then locks or unlocks the resource.
+ * The database read of the siblings, which the lock manager does while holding the lock, is simulated by
+ * a short pause. Run with <code>java org.opencms.test.performance.CmsLockTableBenchmark [seconds] [pause in
+ * microseconds]</code>.<p>
+ */
+public final class CmsLockTableBenchmark {
+
+    /** The number of files per folder. */
+    private static final int FILES = 50;
+
+    /** The number of folders. */
+    private static final int FOLDERS = 200;
+
+    /** The thread counts to measure. */
+    private static final int[] THREAD_COUNTS = new int[] {4, 16, 64};
+
+    /**
+     * Hide constructor.<p>
+     */
+    private CmsLockTableBenchmark() {
+
+        // main class only
+    }
+
+    /**
+     * Runs the benchmark.<p>
+     *
+     * @param args optional: the measure time per run in seconds, and the simulated database pause in microseconds
+     *
+     * @throws Exception if something goes wrong
+     */
+    public static void main(String[] args) throws Exception {
+
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        long pauseNanos = (args.length > 1 ? Long.parseLong(args[1]) : 50) * 1000L;
+        for (int threads : THREAD_COUNTS) {
+            // warm up both variants first
+            run(null, threads, 1, pauseNanos);
+            run(new CmsLockTable(), threads, 1, pauseNanos);
+            long global = run(null, threads, seconds, pauseNanos);
+            long striped = run(new CmsLockTable(), threads, seconds, pauseNanos);
+            System.out.println(
+                String.format(
+                    "%2d threads: global monitor %,10d lock/unlock ops/s, lock table %,10d lock/unlock ops/s",
+                    Integer.valueOf(threads),
+                    Long.valueOf(global / seconds),
+                    Long.valueOf(striped / seconds)));
+        }
+    }
+
+    /**
+     * Runs the workload.<p>
+     *
+     * @param table the lock table to use, or <code>null</code> to use a single global monitor
+     * @param threadCount the number of threads
+     * @param seconds the measure time in seconds
+     * @param pauseNanos the simulated database pause while holding the lock in nanoseconds
+     *
+     * @return the total number of lock and unlock operations
+     *
+     * @throws InterruptedException if interrupted
+     */
+    private static long run(final CmsLockTable table, int threadCount, int seconds, final long pauseNanos)
+    throws InterruptedException {
+
+        final Map<String, CmsLock> locks = new ConcurrentHashMap<String, CmsLock>();
+        final CmsLockIndex index = new CmsLockIndex();
+        final Object monitor = new Object();
+        final AtomicLong operations = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final long end = System.currentTimeMillis() + (seconds * 1000L);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < threadCount; t++) {
+            final CmsUUID userId = new CmsUUID();
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long count = 0;
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    while (System.currentTimeMillis() < end) {
+                        String folder = "/sites/default/folder" + random.nextInt(FOLDERS) + "/";
+                        String path = folder;
+                        if (random.nextInt(FILES) > 0) {
+                            path += "file" + random.nextInt(FILES) + ".html";
+                        }
+                        if (table == null) {
+                            synchronized (monitor) {
+                                lockOrUnlock(locks, index, path, userId, pauseNanos);
+                            }
+                        } else {
+                            CmsLockTableLocks tableLocks = table.lock(Collections.singletonList(path));
+                            try {
+                                lockOrUnlock(locks, index, path, userId, pauseNanos);
+                            } finally {
+                                tableLocks.unlock();
+                            }
+                        }
+                        count++;
+                    }
+                    operations.addAndGet(count);
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return operations.get();
+    }
+
+    /**
+     * Does the check-then-act sequence of a single lock or unlock operation.<p>
+     *
+     * @param locks the locks by root path
+     * @param index the lock index
+     * @param path the root path of the resource
+     * @param userId the id of the current user
+     * @param pauseNanos the simulated database pause in nanoseconds
+     */
+    private static void lockOrUnlock(
+        Map<String, CmsLock> locks,
+        CmsLockIndex index,
+        String path,
+        CmsUUID userId,
+        long pauseNanos) {
+
+        // simulates reading the siblings of the resource
+        LockSupport.parkNanos(pauseNanos);
+        CmsLock current = locks.get(path);
+        if (current != null) {
+            if (current.getUserId().equals(userId)) {
+                locks.remove(path);
+                index.remove(path);
+            }
+            return;
+        }
+        if (!index.getParentFolderLocks(path).isEmpty()) {
+            return;
+        }
+        if (path.endsWith("/") && !index.getLocksByPrefix(path).isEmpty()) {
+            return;
+        }
+        CmsLock lock = new CmsLock(path, userId, null, CmsLockType.EXCLUSIVE);
+        locks.put(path, lock);
+        index.put(lock);
+    }
+}
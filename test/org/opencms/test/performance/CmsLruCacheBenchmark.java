@@ -0,0 +1,145 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.test.performance;
+
+import org.opencms.cache.CmsLruCache;
+import org.opencms.cache.CmsStripedLruCache;
+import org.opencms.cache.CmsTestLruCacheObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multi-threaded throughput benchmark comparing the {@link CmsLruCache} with the {@link CmsStripedLruCache}.<p>
+ *
+ * The workload resembles the use of the FlexCache LRU cache: mostly touches of cached entries,
+ * some entries are replaced. Run with <code>java org.opencms.test.performance.CmsLruCacheBenchmark [seconds]</code>.<p>
+ */
+public final class CmsLruCacheBenchmark {
+
+    /** The number of cache objects. */
+    private static final int OBJECT_COUNT = 20000;
+
+    /** The thread counts to measure. */
+    private static final int[] THREAD_COUNTS = new int[] {8, 32, 64};
+
+    /**
+     * Hide constructor.<p>
+     */
+    private CmsLruCacheBenchmark() {
+
+        // main class only
+    }
+
+    /**
+     * Runs the benchmark.<p>
+     *
+     * @param args optional: the measure time per run in seconds
+     *
+     * @throws Exception if something goes wrong
+     */
+    public static void main(String[] args) throws Exception {
+
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        for (int threads : THREAD_COUNTS) {
+            // warm up both implementations first
+            run(new CmsLruCache(8000000, 6000000, 1000), threads, 1);
+            run(new CmsStripedLruCache(8000000, 6000000, 1000), threads, 1);
+            long plain = run(new CmsLruCache(8000000, 6000000, 1000), threads, seconds);
+            long striped = run(new CmsStripedLruCache(8000000, 6000000, 1000), threads, seconds);
+            System.out.println(
+                String.format(
+                    "%2d threads: CmsLruCache %,12d ops/s, CmsStripedLruCache %,12d ops/s",
+                    Integer.valueOf(threads),
+                    Long.valueOf(plain / seconds),
+                    Long.valueOf(striped / seconds)));
+        }
+    }
+
+    /**
+     * Runs the workload on the given cache.<p>
+     *
+     * @param cache the cache
+     * @param threadCount the number of threads
+     * @param seconds the measure time in seconds
+     *
+     * @return the total number of operations
+     *
+     * @throws InterruptedException if interrupted
+     */
+    private static long run(final CmsLruCache cache, int threadCount, int seconds) throws InterruptedException {
+
+        final List<CmsTestLruCacheObject> objects = new ArrayList<CmsTestLruCacheObject>(OBJECT_COUNT);
+        for (int i = 0; i < OBJECT_COUNT; i++) {
+            CmsTestLruCacheObject object = new CmsTestLruCacheObject(100 + (i % 900));
+            objects.add(object);
+            cache.add(object);
+        }
+        final AtomicLong operations = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final long end = System.currentTimeMillis() + (seconds * 1000L);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < threadCount; t++) {
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long count = 0;
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    while ((count & 0xff) != 0 || (System.currentTimeMillis() < end)) {
+                        CmsTestLruCacheObject object = objects.get(random.nextInt(OBJECT_COUNT));
+                        if (random.nextInt(10) == 0) {
+                            cache.remove(object);
+                            cache.add(object);
+                        } else if (!cache.touch(object)) {
+                            cache.add(object);
+                        }
+                        count++;
+                    }
+                    operations.addAndGet(count);
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return operations.get();
+    }
+}
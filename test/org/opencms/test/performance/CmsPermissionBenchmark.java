@@ -0,0 +1,201 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.test.performance;
+
+import org.opencms.file.CmsGroup;
+import org.opencms.file.CmsUser;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.CmsPrincipalSet;
+import org.opencms.security.CmsRole;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark comparing the evaluation of access control lists with the group and role lists of a user
+ * and with a compiled {@link CmsPrincipalSet}.<p>
+ *
+ * The workload resembles building a navigation: 10000 resources are checked, sharing the access control lists
+ * of 100 folders, each with entries of groups, roles and single users.
+ * Run with <code>java org.opencms.test.performance.CmsPermissionBenchmark [rounds]</code>.<p>
+ */
+public final class CmsPermissionBenchmark {
+
+    /** The number of folders with different access control lists. */
+    private static final int FOLDER_COUNT = 100;
+
+    /** The number of groups of the user. */
+    private static final int[] GROUP_COUNTS = new int[] {5, 20, 100};
+
+    /** The number of checked resources per round. */
+    private static final int RESOURCE_COUNT = 10000;
+
+    /**
+     * Hide constructor.<p>
+     */
+    private CmsPermissionBenchmark() {
+
+        // main class only
+    }
+
+    /**
+     * Runs the benchmark.<p>
+     *
+     * @param args optional: the number of measured rounds
+     */
+    public static void main(String[] args) {
+
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        for (int groupCount : GROUP_COUNTS) {
+            Random random = new Random(11);
+            List<CmsGroup> allGroups = new ArrayList<CmsGroup>();
+            for (int i = 0; i < (groupCount * 3); i++) {
+                allGroups.add(new CmsGroup(new CmsUUID(), CmsUUID.getNullUUID(), "group" + i, "", 0));
+            }
+            List<CmsGroup> groups = new ArrayList<CmsGroup>(allGroups.subList(0, groupCount));
+            Collections.shuffle(groups, random);
+            List<CmsRole> roles = Arrays.asList(CmsRole.WORKPLACE_USER, CmsRole.ELEMENT_AUTHOR, CmsRole.EDITOR);
+            CmsUser user = createUser("user");
+
+            List<CmsAccessControlList> acls = new ArrayList<CmsAccessControlList>(FOLDER_COUNT);
+            for (int i = 0; i < FOLDER_COUNT; i++) {
+                CmsAccessControlList acl = new CmsAccessControlList();
+                for (int j = 0; j < 4; j++) {
+                    CmsUUID principal = allGroups.get(random.nextInt(allGroups.size())).getId();
+                    acl.add(new CmsAccessControlEntry(null, principal, CmsPermissionSet.PERMISSION_READ, 0, 0));
+                }
+                acl.add(
+                    new CmsAccessControlEntry(
+                        null,
+                        createUser("acluser" + i).getId(),
+                        CmsPermissionSet.PERMISSION_WRITE,
+                        0,
+                        0));
+                CmsUUID role = CmsRole.EDITOR.getId();
+                acl.add(new CmsAccessControlEntry(null, role, CmsPermissionSet.PERMISSION_VIEW, 0, 0));
+                acls.add(acl);
+            }
+            CmsPrincipalSet principals = new CmsPrincipalSet(user, groups, roles);
+
+            // warm up both evaluations first
+            runLists(acls, user, groups, roles, rounds);
+            runPrincipalSet(acls, principals, rounds);
+            long lists = runLists(acls, user, groups, roles, rounds);
+            long compiled = runPrincipalSet(acls, principals, rounds);
+            System.out.println(
+                String.format(
+                    "%3d groups: %,d checks with group lists %,6d ms, with principal set %,6d ms",
+                    Integer.valueOf(groupCount),
+                    Long.valueOf((long)rounds * RESOURCE_COUNT),
+                    Long.valueOf(lists / 1000000L),
+                    Long.valueOf(compiled / 1000000L)));
+        }
+    }
+
+    /**
+     * Creates a test user.<p>
+     *
+     * @param name the user name
+     *
+     * @return the user
+     */
+    private static CmsUser createUser(String name) {
+
+        return new CmsUser(new CmsUUID(), name, "", "", "", "", 0, I_CmsPrincipal.FLAG_ENABLED, 0, null);
+    }
+
+    /**
+     * Checks the resources with the group and role lists of the user.<p>
+     *
+     * @param acls the access control lists of the folders
+     * @param user the user
+     * @param groups the groups of the user
+     * @param roles the roles of the user
+     * @param rounds the number of rounds
+     *
+     * @return the time used in nanoseconds
+     */
+    private static long runLists(
+        List<CmsAccessControlList> acls,
+        CmsUser user,
+        List<CmsGroup> groups,
+        List<CmsRole> roles,
+        int rounds) {
+
+        int readable = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < RESOURCE_COUNT; i++) {
+                if (acls.get(i % FOLDER_COUNT).getPermissions(user, groups, roles).requiresReadPermission()) {
+                    readable++;
+                }
+            }
+        }
+        long time = System.nanoTime() - start;
+        if (readable < 0) {
+            // keeps the result alive
+            System.out.println(readable);
+        }
+        return time;
+    }
+
+    /**
+     * Checks the resources with the compiled principal set of the user.<p>
+     *
+     * @param acls the access control lists of the folders
+     * @param principals the principal set of the user
+     * @param rounds the number of rounds
+     *
+     * @return the time used in nanoseconds
+     */
+    private static long runPrincipalSet(List<CmsAccessControlList> acls, CmsPrincipalSet principals, int rounds) {
+
+        int readable = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < RESOURCE_COUNT; i++) {
+                if (acls.get(i % FOLDER_COUNT).getPermissions(principals).requiresReadPermission()) {
+                    readable++;
+                }
+            }
+        }
+        long time = System.nanoTime() - start;
+        if (readable < 0) {
+            // keeps the result alive
+            System.out.println(readable);
+        }
+        return time;
+    }
+}
@@ -36,6 +36,7 @@ import java.io.FileOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
@@ -86,6 +87,51 @@ public class TestCmsUUID extends OpenCmsTestCase {
         assertTrue(id4.equals(CmsUUID.getNullUUID()));
     }
 
+    /**
+     * Tests that parsing, formatting and ordering of UUIDs is compatible with the JUG UUID implementation.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testUUIDCompatibility() throws Exception {
+
+        CmsUUID.init(CmsUUID.getDummyEthernetAddress());
+        CmsUUID[] ids = new CmsUUID[] {
+            new CmsUUID(),
+            new CmsUUID(),
+            CmsUUID.getConstantUUID("test"),
+            CmsUUID.getOpenCmsUUID(),
+            CmsUUID.getNullUUID(),
+            new CmsUUID("C300BA5C-01E8-3727-B305-5DCC9CCAE1EE"),
+            new CmsUUID("ffffffff-ffff-1fff-ffff-ffffffffffff"),
+            new CmsUUID("80000000-0000-1000-8000-000000000000"),
+            new CmsUUID("00000001-ffff-1001-8000-000000000000")};
+        for (int i = 0; i < ids.length; i++) {
+            UUID uid = new UUID(ids[i].toString());
+            assertEquals(uid.toString(), ids[i].toString());
+            assertTrue(Arrays.equals(uid.toByteArray(), ids[i].toByteArray()));
+            assertEquals(ids[i], new CmsUUID(uid.toByteArray()));
+            assertEquals(ids[i], ids[i].clone());
+            assertEquals(ids[i].hashCode(), new CmsUUID(ids[i].toString()).hashCode());
+            for (int j = 0; j < ids.length; j++) {
+                int expected = Integer.signum(uid.compareTo(new UUID(ids[j].toString())));
+                assertEquals(expected, Integer.signum(ids[i].compareTo(ids[j])));
+            }
+        }
+
+        String[] invalid = new String[] {
+            "c300ba5c-01e8-3727-b305-5dcc9ccae1e",
+            "c300ba5c+01e8-3727-b305-5dcc9ccae1ee",
+            "c300ba5c-01e8-3727-b305-5dcc9ccae1eg"};
+        for (String value : invalid) {
+            try {
+                new CmsUUID(value);
+                fail("Invalid UUID accepted: " + value);
+            } catch (NumberFormatException e) {
+                // expected
+            }
+        }
+    }
+
     /**
      * Tests serialization of the CmsUUID.<p>
      *
@@ -205,6 +251,16 @@ public class TestCmsUUID extends OpenCmsTestCase {
         assertFalse(CmsUUID.isValidUUID(null));
         assertFalse(CmsUUID.isValidUUID(""));
         assertFalse(CmsUUID.isValidUUID("kaputt"));
+        // non ASCII digits are no valid hex digits, e.g. the fullwidth digit zero
+        String fullwidth = "\uff10" + CmsUUID.getNullUUID().toString().substring(1);
+        assertEquals(36, fullwidth.length());
+        assertFalse(CmsUUID.isValidUUID(fullwidth));
+        try {
+            new CmsUUID(fullwidth);
+            fail("UUID with a non ASCII digit must not be accepted");
+        } catch (NumberFormatException e) {
+            // expected
+        }
     }
 
     /**
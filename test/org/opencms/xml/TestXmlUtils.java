@@ -27,8 +27,12 @@
 
 package org.opencms.xml;
 
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
 import org.opencms.test.OpenCmsTestCase;
 
+import java.util.Collections;
+
 /**
  * @since 6.0.0
  */
@@ -93,4 +97,89 @@ public class TestXmlUtils extends OpenCmsTestCase {
         assertEquals("Title", CmsXmlUtils.simplifyXpath("Title/"));
         assertEquals("Title", CmsXmlUtils.simplifyXpath("/Title/"));
     }
+
+    /**
+     * Test case for the validation with cached schema grammars.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testValidateXmlStructureWithGrammarPool() throws Exception {
+
+        String schemaPrefix = "<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\""
+            + " elementFormDefault=\"qualified\">";
+        CmsXmlEntityResolver.cacheSystemId(
+            "opencms://test/grammarpool/a.xsd",
+            (schemaPrefix
+                + "<xsd:include schemaLocation=\"opencms://test/grammarpool/include.xsd\"/>"
+                + "<xsd:element name=\"A\" type=\"IncludedType\"/></xsd:schema>").getBytes("UTF-8"));
+        CmsXmlEntityResolver.cacheSystemId(
+            "opencms://test/grammarpool/include.xsd",
+            (schemaPrefix
+                + "<xsd:simpleType name=\"IncludedType\"><xsd:restriction base=\"xsd:string\">"
+                + "<xsd:maxLength value=\"3\"/></xsd:restriction></xsd:simpleType></xsd:schema>").getBytes("UTF-8"));
+        CmsXmlEntityResolver.cacheSystemId(
+            "opencms://test/grammarpool/b.xsd",
+            (schemaPrefix + "<xsd:element name=\"B\" type=\"xsd:int\"/></xsd:schema>").getBytes("UTF-8"));
+
+        CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(null);
+        resolver.cmsEvent(
+            new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, Collections.<String, Object> emptyMap()));
+        assertEquals(0, resolver.getGrammarPool().size());
+
+        // both schemas have no target namespace, so the grammars must not be mixed up
+        for (int i = 0; i < 3; i++) {
+            CmsXmlUtils.validateXmlStructure(createDocument("A", "a", "abc"), resolver);
+            CmsXmlUtils.validateXmlStructure(createDocument("B", "b", "123"), resolver);
+            assertValidationFails(createDocument("A", "a", "abcd"), resolver);
+            assertValidationFails(createDocument("B", "b", "abc"), resolver);
+            assertValidationFails(createDocument("B", "a", "123"), resolver);
+            assertValidationFails(createDocument("A", "b", "abc"), resolver);
+        }
+        assertEquals(2, resolver.getGrammarPool().size());
+
+        resolver.cmsEvent(
+            new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, Collections.<String, Object> emptyMap()));
+        assertEquals(0, resolver.getGrammarPool().size());
+    }
+
+    /**
+     * Asserts that the validation of the given XML document fails.<p>
+     *
+     * @param xmlData the XML document
+     * @param resolver the XML entity resolver to use
+     */
+    private void assertValidationFails(byte[] xmlData, CmsXmlEntityResolver resolver) {
+
+        try {
+            CmsXmlUtils.validateXmlStructure(xmlData, resolver);
+            fail("Validation of invalid XML document did not fail");
+        } catch (CmsXmlException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Creates a XML document with a single element using the schema from the grammar pool test.<p>
+     *
+     * @param element the name of the element
+     * @param schema the name of the schema
+     * @param value the value of the element
+     *
+     * @return the XML document
+     *
+     * @throws Exception in case the document can not be created
+     */
+    private byte[] createDocument(String element, String schema, String value) throws Exception {
+
+        return ("<"
+            + element
+            + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+            + " xsi:noNamespaceSchemaLocation=\"opencms://test/grammarpool/"
+            + schema
+            + ".xsd\">"
+            + value
+            + "</"
+            + element
+            + ">").getBytes("UTF-8");
+    }
 }
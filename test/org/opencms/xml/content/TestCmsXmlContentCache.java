@@ -0,0 +1,260 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml.content;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.main.CmsException;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsCacheStatistics;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.test.OpenCmsTestServletRequest;
+import org.opencms.xml.containerpage.CmsADECache;
+
+import java.util.Locale;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the cache for XML contents shared across requests.<p>
+ */
+public class TestCmsXmlContentCache extends OpenCmsTestCase {
+
+    /** The XML content used for the tests. */
+    private static final String CONTENT = "/xmlcontent/article_0001.html";
+
+    /** The XML schema of the XML content used for the tests. */
+    private static final String SCHEMA = "/xmlcontent/article.xsd";
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsXmlContentCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsXmlContentCache.class.getName());
+
+        suite.addTest(new TestCmsXmlContentCache("testCacheHit"));
+        suite.addTest(new TestCmsXmlContentCache("testCopyIsolation"));
+        suite.addTest(new TestCmsXmlContentCache("testFlushOnSchemaChange"));
+        suite.addTest(new TestCmsXmlContentCache("testFlushOnPublish"));
+        suite.addTest(new TestCmsXmlContentCache("testReadPermission"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Returns the statistics of the XML content cache.<p>
+     *
+     * @param online if to return the statistics of the online or offline cache
+     *
+     * @return the statistics of the XML content cache
+     */
+    private static CmsCacheStatistics getStatistics(boolean online) {
+
+        return OpenCms.getMemoryMonitor().getCacheStatistics(
+            CmsADECache.class.getName() + (online ? ".xmlContentsOnline" : ".xmlContentsOffline"));
+    }
+
+    /**
+     * Reads the XML content the way a new request does.<p>
+     *
+     * @param cms the cms context
+     * @param resourceName the name of the XML content
+     *
+     * @return the XML content
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private static CmsXmlContent read(CmsObject cms, String resourceName) throws CmsException {
+
+        CmsResource resource = cms.readResource(resourceName);
+        return CmsXmlContentFactory.unmarshal(cms, resource, new OpenCmsTestServletRequest());
+    }
+
+    /**
+     * Tests that a second request gets its own copy of the cached XML content.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCacheHit() throws Exception {
+
+        echo("Testing the XML content cache hit");
+        CmsObject cms = getCmsObject();
+        CmsCacheStatistics statistics = getStatistics(false);
+
+        CmsXmlContent first = read(cms, CONTENT);
+        long hits = statistics.getHitCount();
+        CmsXmlContent second = read(cms, CONTENT);
+        assertEquals(hits + 1, statistics.getHitCount());
+        assertNotSame(first, second);
+        assertNotSame(first.getFile(), second.getFile());
+        assertEquals(first.toString(), second.toString());
+        assertEquals(first.getFile().getRootPath(), second.getFile().getRootPath());
+    }
+
+    /**
+     * Tests that changes made by one request are not seen by other requests.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCopyIsolation() throws Exception {
+
+        echo("Testing the isolation of the cached XML content copies");
+        CmsObject cms = getCmsObject();
+
+        CmsXmlContent first = read(cms, CONTENT);
+        Locale locale = first.getLocales().get(0);
+        String original = first.getStringValue(cms, "Title", locale);
+        first.getValue("Title", locale).setStringValue(cms, "Changed by the first request");
+
+        CmsXmlContent second = read(cms, CONTENT);
+        assertEquals(original, second.getStringValue(cms, "Title", locale));
+    }
+
+    /**
+     * Tests that the online XML contents are flushed when a project is published.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFlushOnPublish() throws Exception {
+
+        echo("Testing the flush of the online XML contents on publish");
+        CmsObject cms = getCmsObject();
+        CmsObject online = getCmsObject();
+        online.getRequestContext().setCurrentProject(cms.readProject("Online"));
+        CmsCacheStatistics statistics = getStatistics(true);
+
+        read(online, CONTENT);
+        long misses = statistics.getMissCount();
+        read(online, CONTENT);
+        assertEquals(misses, statistics.getMissCount());
+
+        cms.lockResource("/index.html");
+        cms.setDateLastModified("/index.html", System.currentTimeMillis(), false);
+        cms.unlockResource("/index.html");
+        OpenCms.getPublishManager().publishResource(cms, "/index.html");
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        read(online, CONTENT);
+        assertEquals(misses + 1, statistics.getMissCount());
+    }
+
+    /**
+     * Tests that the offline XML contents are flushed when a XML schema is modified.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFlushOnSchemaChange() throws Exception {
+
+        echo("Testing the flush of the offline XML contents on schema changes");
+        CmsObject cms = getCmsObject();
+        CmsCacheStatistics statistics = getStatistics(false);
+
+        read(cms, CONTENT);
+        long misses = statistics.getMissCount();
+
+        // modifying other resources keeps the cached XML content
+        cms.lockResource("/index.html");
+        cms.setDateLastModified("/index.html", System.currentTimeMillis(), false);
+        cms.unlockResource("/index.html");
+        read(cms, CONTENT);
+        assertEquals(misses, statistics.getMissCount());
+
+        // the cached XML content was parsed with the old schema
+        cms.lockResource(SCHEMA);
+        cms.setDateLastModified(SCHEMA, System.currentTimeMillis(), false);
+        cms.unlockResource(SCHEMA);
+        read(cms, CONTENT);
+        assertEquals(misses + 1, statistics.getMissCount());
+    }
+
+    /**
+     * Tests that a cached XML content is not returned without read permission.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testReadPermission() throws Exception {
+
+        echo("Testing the read permission check for cached XML contents");
+        CmsObject cms = getCmsObject();
+        cms.createUser("cacheuser", "cache", "A test user", null);
+        cms.lockResource(CONTENT);
+        cms.chacc(CONTENT, I_CmsPrincipal.PRINCIPAL_USER, "cacheuser", "-r");
+        cms.unlockResource(CONTENT);
+
+        // cache the XML content as Admin
+        CmsResource resource = cms.readResource(CONTENT);
+        read(cms, CONTENT);
+        read(cms, CONTENT);
+
+        CmsObject userCms = getCmsObject();
+        userCms.loginUser("cacheuser", "cache");
+        userCms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+        try {
+            CmsXmlContentFactory.unmarshal(userCms, resource, new OpenCmsTestServletRequest());
+            fail("the cached XML content must not be returned without read permission");
+        } catch (CmsException e) {
+            // expected
+        }
+    }
+}
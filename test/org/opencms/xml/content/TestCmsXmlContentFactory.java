@@ -0,0 +1,110 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml.content;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsResource;
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+import org.opencms.xml.CmsXmlContentDefinition;
+import org.opencms.xml.CmsXmlEntityResolver;
+
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the copies of XML contents shared across requests by the XML content factory.<p>
+ */
+public class TestCmsXmlContentFactory extends TestCase {
+
+    /** The schema id. */
+    private static final String SCHEMA_SYSTEM_ID_1 = "http://www.opencms.org/test1.xsd";
+
+    /**
+     * Tests that a copy of an XML content shares no mutable state with the original.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCopyIsolation() throws Exception {
+
+        CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(null);
+        String schema = CmsFileUtil.readFile(
+            "org/opencms/xml/content/xmlcontent-definition-1.xsd",
+            CmsEncoder.ENCODING_UTF_8);
+        CmsXmlContentDefinition definition = CmsXmlContentDefinition.unmarshal(schema, SCHEMA_SYSTEM_ID_1, resolver);
+        CmsXmlEntityResolver.cacheSystemId(
+            SCHEMA_SYSTEM_ID_1,
+            definition.getSchema().asXML().getBytes(CmsEncoder.ENCODING_UTF_8));
+        String xml = CmsFileUtil.readFile("org/opencms/xml/content/xmlcontent-1.xml", CmsEncoder.ENCODING_UTF_8);
+        CmsXmlContent original = CmsXmlContentFactory.unmarshal(xml, CmsEncoder.ENCODING_UTF_8, resolver);
+        CmsFile file = new CmsFile(
+            new CmsResource(
+                new CmsUUID(),
+                new CmsUUID(),
+                "/sites/default/test.html",
+                1,
+                false,
+                0,
+                CmsUUID.getOpenCmsUUID(),
+                CmsResource.STATE_UNCHANGED,
+                1,
+                CmsUUID.getOpenCmsUUID(),
+                2,
+                CmsUUID.getOpenCmsUUID(),
+                CmsResource.DATE_RELEASED_DEFAULT,
+                CmsResource.DATE_EXPIRED_DEFAULT,
+                1,
+                xml.length(),
+                0,
+                0));
+        file.setContents(xml.getBytes(CmsEncoder.ENCODING_UTF_8));
+        original.setFile(file);
+
+        CmsXmlContent copy = CmsXmlContentFactory.copy(original);
+        assertNotSame(original, copy);
+        assertNotSame(original.getFile(), copy.getFile());
+        assertSame(original.getContentDefinition(), copy.getContentDefinition());
+        assertEquals("Multitest 1", copy.getValue("String", Locale.ENGLISH).getStringValue(null));
+
+        // changing the copy does not change the original
+        copy.getValue("String", Locale.ENGLISH).setStringValue(null, "Changed");
+        copy.addValue(null, "String", Locale.ENGLISH, 1);
+        copy.getFile().getContents()[0] = (byte)' ';
+        assertEquals("Multitest 1", original.getValue("String", Locale.ENGLISH).getStringValue(null));
+        assertEquals(1, original.getValue("String", Locale.ENGLISH).getMaxIndex());
+        assertEquals('<', (char)original.getFile().getContents()[0]);
+
+        // neither does changing the original change an earlier copy
+        CmsXmlContent other = CmsXmlContentFactory.copy(original);
+        original.getValue("String", Locale.ENGLISH).setStringValue(null, "Changed again");
+        assertEquals("Multitest 1", other.getValue("String", Locale.ENGLISH).getStringValue(null));
+    }
+}